@@ -0,0 +1,43 @@
+package com.accountselling.platform.config;
+
+import com.accountselling.platform.util.IdGenerator;
+import com.accountselling.platform.util.ReferenceNumbers;
+import com.accountselling.platform.util.SnowflakeIdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * ID generator for order numbers and payment references. Every node sharing the database needs its
+ * own worker ID between 0 and 1023. Set app.node.worker-id to fix it; otherwise the node leases a
+ * free one from the database on startup and fails to start when none is free, and issues IDs only
+ * while it holds the lease. Declare another {@link IdGenerator} bean to replace the generator.
+ *
+ * <p>ตัวสร้างเลขที่คำสั่งซื้อและเลขอ้างอิงการชำระเงิน
+ */
+@Slf4j
+@Configuration
+public class IdGeneratorConfig {
+
+  @Bean
+  @ConditionalOnMissingBean(IdGenerator.class)
+  public IdGenerator idGenerator(
+      @Value("${app.node.worker-id:-1}") int workerId, WorkerIdLease workerIdLease) {
+    if (workerId < 0) {
+      log.info("Generating reference numbers as leased worker {}", workerIdLease.claim());
+      return workerIdLease::nextId;
+    }
+
+    log.info("Generating reference numbers as worker {}", workerId);
+    return new SnowflakeIdGenerator(workerId);
+  }
+
+  /** Hand the generator to entities once every singleton is created. */
+  @Bean
+  public SmartInitializingSingleton referenceNumbersInitializer(IdGenerator idGenerator) {
+    return () -> ReferenceNumbers.use(idGenerator);
+  }
+}
@@ -0,0 +1,56 @@
+package com.accountselling.platform.config;
+
+import jakarta.annotation.PostConstruct;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Identity of this application instance among the nodes sharing one database. Set app.node.id to
+ * keep a stable ID across restarts; otherwise the host name and process ID are used.
+ *
+ * <p>รหัสประจำโหนดของแอปพลิเคชัน
+ */
+@Slf4j
+@Component
+public class NodeIdentity {
+
+  /** Longest allowed node ID, matching the stock_lease.node_id column. */
+  public static final int MAX_ID_LENGTH = 100;
+
+  @Value("${app.node.id:}")
+  private String id;
+
+  /** Resolve the node ID once on startup. */
+  @PostConstruct
+  public void init() {
+    if (id == null || id.isBlank()) {
+      id = hostName() + "-" + ProcessHandle.current().pid();
+    }
+
+    if (id.length() > MAX_ID_LENGTH) {
+      throw new IllegalStateException("Node ID must be at most " + MAX_ID_LENGTH + " characters");
+    }
+
+    log.info("Running as node {}", id);
+  }
+
+  /**
+   * Get the ID of this node.
+   *
+   * @return node ID
+   */
+  public String getId() {
+    return id;
+  }
+
+  private static String hostName() {
+    try {
+      return InetAddress.getLocalHost().getHostName();
+    } catch (UnknownHostException e) {
+      return "localhost";
+    }
+  }
+}
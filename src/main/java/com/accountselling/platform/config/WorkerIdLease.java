@@ -0,0 +1,175 @@
+package com.accountselling.platform.config;
+
+import com.accountselling.platform.repository.NodeWorkerLeaseRepository;
+import com.accountselling.platform.util.SnowflakeIdGenerator;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Worker ID of a node that has no app.node.worker-id configured, leased from the
+ * node_worker_lease table the way hot product stock is leased per node. The lease is renewed every
+ * minute and lasts ten, and is given up on shutdown.
+ *
+ * <p>IDs are only issued while the lease is known to be held: up to a minute short of the last
+ * renewal's expiry, leaving room for clock skew between nodes. When renewals fail, for example
+ * because the database is unreachable, the node stops issuing IDs before another node can take
+ * the worker ID. When a renewal finds the worker ID taken by another node, the node stops issuing
+ * IDs at once and leases a new worker ID.
+ *
+ * <p>การเช่ารหัสผู้ทำงานของโหนดจากฐานข้อมูล
+ */
+@Slf4j
+@Component
+public class WorkerIdLease {
+
+  // How long a lease lasts without being renewed
+  static final Duration LEASE_DURATION = Duration.ofMinutes(10);
+
+  // How much earlier than the lease expiry this node stops issuing IDs
+  static final Duration CLOCK_SKEW_MARGIN = Duration.ofMinutes(1);
+
+  // Attempts to lease an ID when other nodes keep taking the same one first
+  private static final int CLAIM_ATTEMPTS = 5;
+
+  private final NodeWorkerLeaseRepository nodeWorkerLeaseRepository;
+  private final NodeIdentity nodeIdentity;
+  private final LongSupplier clock;
+
+  // Whether this node leases its worker ID at all; set by the first claim
+  private volatile boolean leasing;
+
+  // Lease currently held, null after it was lost until a new one is leased
+  private volatile Lease lease;
+
+  @Autowired
+  public WorkerIdLease(
+      NodeWorkerLeaseRepository nodeWorkerLeaseRepository, NodeIdentity nodeIdentity) {
+    this(nodeWorkerLeaseRepository, nodeIdentity, System::currentTimeMillis);
+  }
+
+  WorkerIdLease(
+      NodeWorkerLeaseRepository nodeWorkerLeaseRepository,
+      NodeIdentity nodeIdentity,
+      LongSupplier clock) {
+    this.nodeWorkerLeaseRepository = nodeWorkerLeaseRepository;
+    this.nodeIdentity = nodeIdentity;
+    this.clock = clock;
+  }
+
+  /**
+   * Lease a worker ID for this node.
+   *
+   * @return the leased worker ID
+   * @throws IllegalStateException if every worker ID is leased by a live node
+   */
+  public int claim() {
+    leasing = true;
+    for (int attempt = 0; attempt < CLAIM_ATTEMPTS; attempt++) {
+      long startedAt = clock.getAsLong();
+      LocalDateTime now = LocalDateTime.now();
+      List<Integer> claimed =
+          nodeWorkerLeaseRepository.claim(
+              nodeIdentity.getId(),
+              SnowflakeIdGenerator.MAX_NODE_ID,
+              now,
+              now.plus(LEASE_DURATION));
+      if (!claimed.isEmpty()) {
+        int workerId = claimed.get(0);
+        lease =
+            new Lease(workerId, new SnowflakeIdGenerator(workerId, clock), validUntil(startedAt));
+        log.info("Leased worker ID {} for node {}", workerId, nodeIdentity.getId());
+        return workerId;
+      }
+    }
+
+    throw new IllegalStateException(
+        "No free worker ID could be leased for node "
+            + nodeIdentity.getId()
+            + "; set app.node.worker-id explicitly");
+  }
+
+  /**
+   * Get the next ID under the leased worker ID.
+   *
+   * @return a positive ID, unique across nodes
+   * @throws IllegalStateException if the lease was lost or may have lapsed
+   */
+  public long nextId() {
+    Lease current = lease;
+    if (current == null || clock.getAsLong() >= current.validUntil()) {
+      throw new IllegalStateException(
+          "Node " + nodeIdentity.getId() + " holds no worker ID lease; IDs cannot be issued");
+    }
+    return current.generator().nextId();
+  }
+
+  /** Extend the lease every minute while the node runs, or lease a new ID if it was lost. */
+  @Scheduled(fixedDelay = 60000) // 1 minute = 60,000 milliseconds
+  public void renew() {
+    if (!leasing) {
+      return;
+    }
+
+    Lease current = lease;
+    try {
+      if (current == null) {
+        claim();
+        return;
+      }
+
+      long startedAt = clock.getAsLong();
+      LocalDateTime now = LocalDateTime.now();
+      if (nodeWorkerLeaseRepository.renew(
+              current.workerId(), nodeIdentity.getId(), now, now.plus(LEASE_DURATION))
+          == 0) {
+        lease = null;
+        log.error(
+            "Worker ID {} of node {} was leased by another node; leasing a new one",
+            current.workerId(),
+            nodeIdentity.getId());
+        claim();
+      } else {
+        lease = current.renewed(validUntil(startedAt));
+      }
+    } catch (Exception e) {
+      log.error(
+          "Error occurred while renewing the worker ID lease of node {}", nodeIdentity.getId(), e);
+    }
+  }
+
+  /** Give up the lease so a restarted node can take the worker ID right away. */
+  @EventListener(ContextClosedEvent.class)
+  public void release() {
+    Lease current = lease;
+    if (current == null) {
+      return;
+    }
+
+    lease = null;
+    try {
+      nodeWorkerLeaseRepository.release(current.workerId(), nodeIdentity.getId());
+    } catch (Exception e) {
+      log.error("Error occurred while releasing the lease on worker ID {}", current.workerId(), e);
+    }
+  }
+
+  private long validUntil(long renewedAt) {
+    return renewedAt + LEASE_DURATION.minus(CLOCK_SKEW_MARGIN).toMillis();
+  }
+
+  /** A leased worker ID, the generator issuing IDs under it and when it stops issuing them. */
+  private record Lease(int workerId, SnowflakeIdGenerator generator, long validUntil) {
+
+    Lease renewed(long newValidUntil) {
+      return new Lease(workerId, generator, newValidUntil);
+    }
+  }
+}
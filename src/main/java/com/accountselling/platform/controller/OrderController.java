@@ -1,5 +1,6 @@
 package com.accountselling.platform.controller;
 
+import com.accountselling.platform.dto.common.CursorPageDto;
 import com.accountselling.platform.dto.order.OrderCreateRequestDto;
 import com.accountselling.platform.dto.order.OrderResponseDto;
 import com.accountselling.platform.dto.order.OrderResponseDto.OrderItemResponseDto;
@@ -8,8 +9,11 @@ import com.accountselling.platform.exception.ResourceNotFoundException;
 import com.accountselling.platform.model.Order;
 import com.accountselling.platform.model.OrderItem;
 import com.accountselling.platform.model.User;
+import com.accountselling.platform.service.IdempotencyKeyStore;
+import com.accountselling.platform.service.OrderQueryService;
 import com.accountselling.platform.service.OrderService;
 import com.accountselling.platform.service.UserService;
+import com.accountselling.platform.util.KeysetCursor;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -49,13 +53,17 @@ import org.springframework.web.bind.annotation.*;
 public class OrderController {
 
   private final OrderService orderService;
+  private final OrderQueryService orderQueryService;
   private final UserService userService;
+  private final IdempotencyKeyStore idempotencyKeyStore;
 
   /**
    * Create a new order for authenticated user. Creates order with specified products and
-   * quantities, reserves stock items, and returns order details.
+   * quantities, reserves stock items, and returns order details. A retry sending the same
+   * Idempotency-Key gets the response of the first request instead of a second order.
    *
    * @param request the order creation request containing product quantities
+   * @param idempotencyKey optional client key identifying the request across retries
    * @return created order response with order details and reserved items
    */
   @PostMapping
@@ -69,31 +77,43 @@ public class OrderController {
         @ApiResponse(responseCode = "400", description = "Invalid order request data"),
         @ApiResponse(responseCode = "401", description = "Unauthorized - invalid or missing token"),
         @ApiResponse(responseCode = "404", description = "Product not found"),
-        @ApiResponse(responseCode = "409", description = "Insufficient stock available")
+        @ApiResponse(
+            responseCode = "409",
+            description =
+                "Insufficient stock available, or Idempotency-Key in use or reused for a"
+                    + " different request")
       })
   public ResponseEntity<OrderResponseDto> createOrder(
-      @Valid @RequestBody OrderCreateRequestDto request) {
+      @Valid @RequestBody OrderCreateRequestDto request,
+      @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
     log.info("Processing order creation request for {} products", request.getUniqueProductCount());
 
     User currentUser = getCurrentAuthenticatedUser();
 
-    // Create order with product quantities
-    Order order = orderService.createOrder(currentUser, request.productQuantities());
+    return idempotencyKeyStore.execute(
+        "order.create:" + currentUser.getId(),
+        idempotencyKey,
+        request,
+        OrderResponseDto.class,
+        () -> {
+          // Create order with product quantities
+          Order order = orderService.createOrder(currentUser, request.productQuantities());
 
-    OrderResponseDto response = convertToOrderResponseDto(order);
+          OrderResponseDto response = convertToOrderResponseDto(order);
 
-    log.info(
-        "Order created successfully - ID: {}, User: {}, Total: ${}",
-        order.getId(),
-        currentUser.getUsername(),
-        order.getTotalAmount());
+          log.info(
+              "Order created successfully - ID: {}, User: {}, Total: ${}",
+              order.getId(),
+              currentUser.getUsername(),
+              order.getTotalAmount());
 
-    return ResponseEntity.status(HttpStatus.CREATED).body(response);
+          return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        });
   }
 
   /**
    * Get all orders for authenticated user with pagination. Returns user's order history with
-   * configurable pagination and sorting.
+   * configurable pagination and sorting, read in a fixed number of queries whatever the page size.
    *
    * @param page page number (default: 0)
    * @param size page size (default: 20)
@@ -126,20 +146,63 @@ public class OrderController {
             : Sort.Direction.ASC;
     Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortParams[0]));
 
-    // Get user's orders and convert to DTOs
-    Page<Order> orderPage = orderService.getOrdersByUser(currentUser, pageable);
-    Page<OrderResponseDto> responsePage = orderPage.map(this::convertToOrderResponseDto);
+    // Get user's orders with their items and payments from the read model
+    Page<OrderResponseDto> responsePage =
+        orderQueryService.getOrdersByUser(currentUser.getId(), pageable);
 
     log.info(
         "User orders retrieved successfully for user: {} - {} orders found (page {} of {})",
         currentUser.getUsername(),
-        orderPage.getContent().size(),
+        responsePage.getContent().size(),
         page + 1,
-        orderPage.getTotalPages());
+        responsePage.getTotalPages());
 
     return ResponseEntity.ok(responsePage);
   }
 
+  /**
+   * Get orders for the authenticated user, newest first, one page per cursor. Unlike the offset
+   * listing, deep pages cost the same as the first one.
+   *
+   * @param cursor cursor from the previous page (omit for the first page)
+   * @param size page size (default: 20, 1-100)
+   * @return one page of the user's orders with the cursor of the next page
+   */
+  @GetMapping("/cursor")
+  @PreAuthorize("hasRole('USER')")
+  @Operation(
+      summary = "Get user orders with cursor",
+      description = "Get orders for authenticated user, newest first, one page per cursor")
+  @ApiResponses(
+      value = {
+        @ApiResponse(responseCode = "200", description = "Orders retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor or page size"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - invalid or missing token")
+      })
+  public ResponseEntity<CursorPageDto<OrderResponseDto>> getUserOrdersCursor(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "20") int size) {
+    log.info("Processing user orders request - cursor: {}, size: {}", cursor, size);
+
+    if (size < 1 || size > 100) {
+      throw new IllegalArgumentException("Page size must be between 1 and 100");
+    }
+    KeysetCursor after = KeysetCursor.decode(cursor);
+
+    User currentUser = getCurrentAuthenticatedUser();
+
+    CursorPageDto<OrderResponseDto> response =
+        orderQueryService.getOrdersByUserAfter(currentUser.getId(), after, size);
+
+    log.info(
+        "User orders retrieved successfully for user: {} - {} orders found (has next: {})",
+        currentUser.getUsername(),
+        response.getSize(),
+        response.isHasNext());
+
+    return ResponseEntity.ok(response);
+  }
+
   /**
    * Get specific order details by order ID. Returns detailed order information if order belongs to
    * authenticated user.
@@ -166,10 +229,10 @@ public class OrderController {
 
     User currentUser = getCurrentAuthenticatedUser();
 
-    // Get order and verify ownership
-    Order order = orderService.findById(orderId);
+    // Get order from the read model and verify ownership
+    OrderResponseDto response = orderQueryService.getOrder(orderId);
 
-    if (!order.getUser().getId().equals(currentUser.getId())) {
+    if (!currentUser.getId().equals(response.userId())) {
       log.warn(
           "User {} attempted to access order {} belonging to another user",
           currentUser.getUsername(),
@@ -177,13 +240,11 @@ public class OrderController {
       throw new OrderAccessDeniedException(orderId.toString(), currentUser.getUsername());
     }
 
-    OrderResponseDto response = convertToOrderResponseDto(order);
-
     log.info(
         "Order details retrieved successfully - ID: {}, User: {}, Status: {}",
         orderId,
         currentUser.getUsername(),
-        order.getStatus());
+        response.status());
 
     return ResponseEntity.ok(response);
   }
@@ -334,6 +395,7 @@ public class OrderController {
     return new OrderResponseDto(
         order.getId(),
         order.getOrderNumber(),
+        order.getUser().getId(),
         order.getUser().getUsername(),
         order.getUser().getFullName(),
         order.getTotalAmount(),
@@ -365,6 +427,6 @@ public class OrderController {
         item.getPrice(),
         "$" + item.getPrice().toString(),
         item.getNotes(),
-        item.getStockItem() != null ? item.getStockItem().getSold() : false);
+        item.isStockItemSold());
   }
 }
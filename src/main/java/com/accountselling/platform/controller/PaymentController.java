@@ -8,6 +8,7 @@ import com.accountselling.platform.exception.WebhookProcessingException;
 import com.accountselling.platform.model.Order;
 import com.accountselling.platform.model.Payment;
 import com.accountselling.platform.model.User;
+import com.accountselling.platform.service.IdempotencyKeyStore;
 import com.accountselling.platform.service.OrderService;
 import com.accountselling.platform.service.PaymentService;
 import com.accountselling.platform.service.UserService;
@@ -46,12 +47,15 @@ public class PaymentController {
   private final PaymentService paymentService;
   private final OrderService orderService;
   private final UserService userService;
+  private final IdempotencyKeyStore idempotencyKeyStore;
 
   /**
    * Generate payment QR code for an order. Creates a new payment record and generates QR code for
-   * payment processing by external gateway.
+   * payment processing by external gateway. A retry sending the same Idempotency-Key gets the
+   * response of the first request.
    *
    * @param request the payment creation request containing order ID and payment method
+   * @param idempotencyKey optional client key identifying the request across retries
    * @return payment response with QR code URL and payment details
    */
   @PostMapping("/generate")
@@ -70,39 +74,25 @@ public class PaymentController {
             responseCode = "403",
             description = "Forbidden - order does not belong to user"),
         @ApiResponse(responseCode = "404", description = "Order not found"),
-        @ApiResponse(responseCode = "409", description = "Payment already exists for order")
+        @ApiResponse(
+            responseCode = "409",
+            description =
+                "Payment already exists for order, or Idempotency-Key in use or reused for a"
+                    + " different request")
       })
   public ResponseEntity<PaymentResponseDto> generatePayment(
-      @Valid @RequestBody PaymentCreateRequestDto request) {
+      @Valid @RequestBody PaymentCreateRequestDto request,
+      @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
     log.info("Processing payment generation request for order: {}", request.orderId());
 
     User currentUser = getCurrentAuthenticatedUser();
 
-    // Verify order exists and belongs to current user
-    Order order = orderService.findById(request.orderId());
-
-    if (!order.getUser().getId().equals(currentUser.getId())) {
-      log.warn(
-          "User {} attempted to create payment for order {} belonging to another user",
-          currentUser.getUsername(),
-          request.orderId());
-      throw new PaymentException("Cannot create payment for order that doesn't belong to you");
-    }
-
-    // Create payment with QR code
-    Payment payment =
-        paymentService.createPayment(
-            order, request.getNormalizedPaymentMethod(), request.getEffectiveExpirationMinutes());
-
-    PaymentResponseDto response = convertToPaymentResponseDto(payment);
-
-    log.info(
-        "Payment generated successfully - ID: {}, Order: {}, User: {}",
-        payment.getId(),
-        request.orderId(),
-        currentUser.getUsername());
-
-    return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    return idempotencyKeyStore.execute(
+        "payment.generate:" + currentUser.getId(),
+        idempotencyKey,
+        request,
+        PaymentResponseDto.class,
+        () -> createPaymentForOrder(request, currentUser));
   }
 
   /**
@@ -245,6 +235,43 @@ public class PaymentController {
             () -> new ResourceNotFoundException("Authenticated user not found: " + username));
   }
 
+  /**
+   * Create a payment for an order of the current user.
+   *
+   * @param request the payment creation request
+   * @param currentUser the authenticated user
+   * @return created payment response
+   * @throws PaymentException if the order belongs to another user
+   */
+  private ResponseEntity<PaymentResponseDto> createPaymentForOrder(
+      PaymentCreateRequestDto request, User currentUser) {
+    // Verify order exists and belongs to current user
+    Order order = orderService.findById(request.orderId());
+
+    if (!order.getUser().getId().equals(currentUser.getId())) {
+      log.warn(
+          "User {} attempted to create payment for order {} belonging to another user",
+          currentUser.getUsername(),
+          request.orderId());
+      throw new PaymentException("Cannot create payment for order that doesn't belong to you");
+    }
+
+    // Create payment with QR code
+    Payment payment =
+        paymentService.createPayment(
+            order, request.getNormalizedPaymentMethod(), request.getEffectiveExpirationMinutes());
+
+    PaymentResponseDto response = convertToPaymentResponseDto(payment);
+
+    log.info(
+        "Payment generated successfully - ID: {}, Order: {}, User: {}",
+        payment.getId(),
+        request.orderId(),
+        currentUser.getUsername());
+
+    return ResponseEntity.status(HttpStatus.CREATED).body(response);
+  }
+
   /**
    * Convert Payment entity to PaymentResponseDto.
    *
@@ -7,7 +7,6 @@ import com.accountselling.platform.exception.OrderNotCompletedException;
 import com.accountselling.platform.exception.UserNotFoundException;
 import com.accountselling.platform.model.Order;
 import com.accountselling.platform.model.OrderItem;
-import com.accountselling.platform.model.Stock;
 import com.accountselling.platform.model.User;
 import com.accountselling.platform.service.OrderService;
 import com.accountselling.platform.service.StockService;
@@ -17,7 +16,9 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
@@ -206,6 +207,15 @@ public class UserController {
     accountData.append("Customer: ").append(user.getUsername()).append("\n");
     accountData.append("Total Amount: $").append(order.getTotalAmount()).append("\n\n");
 
+    // Read account data in one lookup, including stock moved to the sold stock history
+    List<UUID> stockIds = new ArrayList<>();
+    for (OrderItem item : order.getOrderItems()) {
+      if (item.getStockItem() != null) {
+        stockIds.add(item.getStockItem().getId());
+      }
+    }
+    Map<UUID, String> accountDataByStock = stockService.getSoldAccountData(stockIds);
+
     // Add account details for each order item
     for (OrderItem item : order.getOrderItems()) {
       accountData.append("=== ").append(item.getProduct().getName()).append(" ===\n");
@@ -216,16 +226,10 @@ public class UserController {
       accountData.append("Quantity: 1\n");
       accountData.append("Unit Price: $").append(item.getPrice()).append("\n\n");
 
-      // Get account information from stock
-      // Get sold stock items for this product
-      List<Stock> stockItems = java.util.Arrays.asList(item.getStockItem());
-
-      int accountCount = 0;
-      for (Stock stock : stockItems) {
-        if (accountCount >= 1) break;
-
-        accountData.append("Account #").append(++accountCount).append(":\n");
-        accountData.append(stock.getAccountData()).append("\n\n");
+      // Get account information of the sold stock item
+      if (item.getStockItem() != null) {
+        accountData.append("Account #1:\n");
+        accountData.append(accountDataByStock.get(item.getStockItem().getId())).append("\n\n");
       }
     }
 
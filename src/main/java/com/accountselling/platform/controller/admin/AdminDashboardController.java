@@ -5,6 +5,7 @@ import com.accountselling.platform.dto.statistics.DailyOrderStatistics;
 import com.accountselling.platform.dto.statistics.OrderStatistics;
 import com.accountselling.platform.model.Product;
 import com.accountselling.platform.service.CategoryService;
+import com.accountselling.platform.service.DailyRollupService;
 import com.accountselling.platform.service.OrderService;
 import com.accountselling.platform.service.ProductService;
 import com.accountselling.platform.service.StockService;
@@ -19,6 +20,7 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
@@ -54,6 +56,7 @@ public class AdminDashboardController {
   private final ProductService productService;
   private final CategoryService categoryService;
   private final StockService stockService;
+  private final DailyRollupService dailyRollupService;
 
   @Operation(
       summary = "Get dashboard overview",
@@ -183,6 +186,37 @@ public class AdminDashboardController {
     return ResponseEntity.ok(dailyTrends);
   }
 
+  @Operation(
+      summary = "Rebuild daily trends",
+      description =
+          "Recount the daily order and payment rollups behind the trend charts for a date range,"
+              + " to backfill history or repair drift. Admin only endpoint.")
+  @ApiResponses(
+      value = {
+        @ApiResponse(responseCode = "200", description = "Daily rollups rebuilt successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid date range"),
+        @ApiResponse(responseCode = "403", description = "Access denied - admin role required"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+      })
+  @PostMapping("/trends/rebuild")
+  public ResponseEntity<Integer> rebuildDailyTrends(
+      @Parameter(description = "First day to rebuild", required = true)
+          @RequestParam
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+          LocalDate startDate,
+      @Parameter(description = "Last day to rebuild, inclusive", required = true)
+          @RequestParam
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+          LocalDate endDate) {
+
+    log.info("Admin rebuilding daily trends from {} to {}", startDate, endDate);
+
+    int writtenCount = dailyRollupService.rebuildRollups(startDate, endDate);
+
+    log.info("Admin rebuilt {} daily rollup rows", writtenCount);
+    return ResponseEntity.ok(writtenCount);
+  }
+
   @Operation(
       summary = "Get system health",
       description = "Get system health and performance metrics. Admin only endpoint.")
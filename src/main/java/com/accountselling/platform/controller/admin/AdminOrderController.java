@@ -1,14 +1,19 @@
 package com.accountselling.platform.controller.admin;
 
+import com.accountselling.platform.dto.common.CursorPageDto;
 import com.accountselling.platform.dto.order.OrderResponseDto;
 import com.accountselling.platform.dto.statistics.DailyOrderStatistics;
 import com.accountselling.platform.dto.statistics.OrderStatistics;
+import com.accountselling.platform.dto.statistics.TopCustomer;
 import com.accountselling.platform.enums.OrderStatus;
 import com.accountselling.platform.exception.ResourceNotFoundException;
 import com.accountselling.platform.model.Order;
 import com.accountselling.platform.model.User;
+import com.accountselling.platform.service.CustomerLeaderboardService;
+import com.accountselling.platform.service.OrderQueryService;
 import com.accountselling.platform.service.OrderService;
 import com.accountselling.platform.service.UserService;
+import com.accountselling.platform.util.KeysetCursor;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -21,10 +26,10 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -52,7 +57,9 @@ import org.springframework.web.bind.annotation.*;
 public class AdminOrderController {
 
   private final OrderService orderService;
+  private final OrderQueryService orderQueryService;
   private final UserService userService;
+  private final CustomerLeaderboardService customerLeaderboardService;
 
   @Operation(
       summary = "Search orders with filters",
@@ -112,7 +119,7 @@ public class AdminOrderController {
         orderService.searchOrders(
             orderNumber, username, status, startDate, endDate, minAmount, maxAmount, pageable);
 
-    Page<OrderResponseDto> response = orderPage.map(this::convertToDto);
+    Page<OrderResponseDto> response = convertToDtoPage(orderPage);
 
     log.info(
         "Admin retrieved {} orders out of {} total",
@@ -140,13 +147,10 @@ public class AdminOrderController {
 
     log.info("Admin getting order by id: {}", id);
 
-    Order order = orderService.findById(id);
-    OrderResponseDto response = convertToDto(order);
+    OrderResponseDto response = orderQueryService.getOrder(id);
 
     log.info(
-        "Admin retrieved order: {} for user: {}",
-        order.getOrderNumber(),
-        order.getUser().getUsername());
+        "Admin retrieved order: {} for user: {}", response.orderNumber(), response.username());
     return ResponseEntity.ok(response);
   }
 
@@ -187,9 +191,7 @@ public class AdminOrderController {
             .orElseThrow(() -> new ResourceNotFoundException("User", userId.toString()));
 
     Pageable pageable = createPageable(page, size, sortBy, sortDirection);
-    Page<Order> orderPage = orderService.getOrdersByUser(user, pageable);
-
-    Page<OrderResponseDto> response = orderPage.map(this::convertToDto);
+    Page<OrderResponseDto> response = orderQueryService.getOrdersByUser(user.getId(), pageable);
 
     log.info(
         "Admin retrieved {} orders for user: {}",
@@ -198,6 +200,51 @@ public class AdminOrderController {
     return ResponseEntity.ok(response);
   }
 
+  @Operation(
+      summary = "Get orders by user with cursor",
+      description =
+          "Retrieve orders for a specific user, newest first, one page per cursor. Every page"
+              + " costs the same regardless of depth. Admin only endpoint.")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Orders retrieved successfully",
+            content = @Content(schema = @Schema(implementation = CursorPageDto.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor or page size"),
+        @ApiResponse(responseCode = "404", description = "User not found"),
+        @ApiResponse(responseCode = "403", description = "Access denied - admin role required"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+      })
+  @GetMapping("/user/{userId}/cursor")
+  public ResponseEntity<CursorPageDto<OrderResponseDto>> getOrdersByUserCursor(
+      @Parameter(description = "User ID", required = true) @PathVariable UUID userId,
+      @Parameter(description = "Cursor from the previous page (omit for the first page)")
+          @RequestParam(required = false)
+          String cursor,
+      @Parameter(description = "Page size (1-100)")
+          @RequestParam(value = "size", defaultValue = "20")
+          int size) {
+
+    log.info("Admin getting orders for user: {} - cursor: {}, size: {}", userId, cursor, size);
+
+    if (size < 1 || size > 100) {
+      throw new IllegalArgumentException("Page size must be between 1 and 100");
+    }
+    KeysetCursor after = KeysetCursor.decode(cursor);
+
+    User user =
+        userService
+            .findById(userId)
+            .orElseThrow(() -> new ResourceNotFoundException("User", userId.toString()));
+
+    CursorPageDto<OrderResponseDto> response =
+        orderQueryService.getOrdersByUserAfter(user.getId(), after, size);
+
+    log.info("Admin retrieved {} orders for user: {}", response.getSize(), user.getUsername());
+    return ResponseEntity.ok(response);
+  }
+
   @Operation(
       summary = "Get orders by status",
       description = "Retrieve all orders with a specific status. Admin only endpoint.")
@@ -229,9 +276,7 @@ public class AdminOrderController {
     log.info("Admin getting orders by status: {}", status);
 
     Pageable pageable = createPageable(page, size, sortBy, sortDirection);
-    Page<Order> orderPage = orderService.getOrdersByStatus(status, pageable);
-
-    Page<OrderResponseDto> response = orderPage.map(this::convertToDto);
+    Page<OrderResponseDto> response = orderQueryService.getOrdersByStatus(status, pageable);
 
     log.info("Admin retrieved {} orders with status: {}", response.getNumberOfElements(), status);
     return ResponseEntity.ok(response);
@@ -420,7 +465,9 @@ public class AdminOrderController {
 
   @Operation(
       summary = "Get top customers",
-      description = "Get top customers by order count. Admin only endpoint.")
+      description =
+          "Get top customers with their completed order counts and revenue, ranked by order count"
+              + " or by revenue. Admin only endpoint.")
   @ApiResponses(
       value = {
         @ApiResponse(responseCode = "200", description = "Top customers retrieved successfully"),
@@ -428,18 +475,44 @@ public class AdminOrderController {
         @ApiResponse(responseCode = "500", description = "Internal server error")
       })
   @GetMapping("/top-customers")
-  public ResponseEntity<List<UUID>> getTopCustomers(
+  public ResponseEntity<List<TopCustomer>> getTopCustomers(
       @Parameter(description = "Number of top customers to return")
           @RequestParam(value = "limit", defaultValue = "10")
-          int limit) {
+          int limit,
+      @Parameter(description = "Rank by orderCount or revenue")
+          @RequestParam(value = "rankBy", defaultValue = "orderCount")
+          String rankBy) {
+
+    log.info("Admin getting top {} customers by {}", limit, rankBy);
+
+    List<TopCustomer> topCustomers =
+        "revenue".equalsIgnoreCase(rankBy)
+            ? orderService.getTopCustomersByRevenue(limit)
+            : orderService.getTopCustomersByOrderCount(limit);
+
+    log.info("Admin retrieved {} top customers", topCustomers.size());
+    return ResponseEntity.ok(topCustomers);
+  }
 
-    log.info("Admin getting top {} customers", limit);
+  @Operation(
+      summary = "Rebuild top customers",
+      description =
+          "Recount the customer leaderboard behind the top customers from the completed orders, to"
+              + " repair drift. Admin only endpoint.")
+  @ApiResponses(
+      value = {
+        @ApiResponse(responseCode = "200", description = "Leaderboard rebuilt successfully"),
+        @ApiResponse(responseCode = "403", description = "Access denied - admin role required"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+      })
+  @PostMapping("/top-customers/rebuild")
+  public ResponseEntity<Integer> rebuildTopCustomers() {
+    log.info("Admin rebuilding customer leaderboard");
 
-    List<User> topCustomers = orderService.getTopCustomersByOrderCount(limit);
-    List<UUID> customerIds = topCustomers.stream().map(User::getId).collect(Collectors.toList());
+    int correctedCount = customerLeaderboardService.rebuildLeaderboard();
 
-    log.info("Admin retrieved {} top customers", customerIds.size());
-    return ResponseEntity.ok(customerIds);
+    log.info("Admin corrected leaderboard rows of {} customers", correctedCount);
+    return ResponseEntity.ok(correctedCount);
   }
 
   @Operation(
@@ -463,8 +536,7 @@ public class AdminOrderController {
     log.info("Admin getting {} recent orders", limit);
 
     List<Order> recentOrders = orderService.getRecentOrders(limit);
-    List<OrderResponseDto> response =
-        recentOrders.stream().map(this::convertToDto).collect(Collectors.toList());
+    List<OrderResponseDto> response = convertToDtos(recentOrders);
 
     log.info("Admin retrieved {} recent orders", response.size());
     return ResponseEntity.ok(response);
@@ -489,41 +561,24 @@ public class AdminOrderController {
     return PageRequest.of(page, size, sort);
   }
 
-  /** Convert Order entity to OrderResponseDto. แปลง Order entity เป็น OrderResponseDto */
+  /**
+   * Convert Order entity to OrderResponseDto through the order read model, which loads its items
+   * and payment in a fixed number of queries. แปลง Order entity เป็น OrderResponseDto
+   */
   private OrderResponseDto convertToDto(Order order) {
-    List<OrderResponseDto.OrderItemResponseDto> orderItems =
-        order.getOrderItems().stream()
-            .map(
-                item ->
-                    new OrderResponseDto.OrderItemResponseDto(
-                        item.getId(),
-                        item.getStockItem() != null ? item.getStockItem().getId() : null,
-                        item.getProduct().getName(),
-                        item.getProduct().getDescription(),
-                        item.getProduct().getCategory().getName(),
-                        item.getProduct().getServer(),
-                        item.getPrice(),
-                        String.format("$%.2f", item.getPrice()),
-                        null, // notes - assuming this doesn't exist in OrderItem
-                        item.getStockItem() != null ? item.getStockItem().getSold() : false))
-            .collect(Collectors.toList());
-
-    // Payment summary would need to be retrieved separately if needed
-    OrderResponseDto.PaymentSummaryDto paymentSummary = null; // Simplified for now
-
-    return new OrderResponseDto(
-        order.getId(),
-        order.getOrderNumber(),
-        order.getUser().getUsername(),
-        order.getUser().getFirstName() + " " + order.getUser().getLastName(),
-        order.getTotalAmount(),
-        String.format("$%.2f", order.getTotalAmount()),
-        order.getStatus(),
-        order.getStatus().toString(), // This might need localization
-        null, // notes - assuming this doesn't exist in Order
-        order.getCreatedAt(),
-        order.getUpdatedAt(),
-        orderItems,
-        paymentSummary);
+    return orderQueryService.getOrder(order.getId());
+  }
+
+  /** Convert a page of Order entities to OrderResponseDto with one read model lookup. */
+  private Page<OrderResponseDto> convertToDtoPage(Page<Order> orderPage) {
+    return new PageImpl<>(
+        convertToDtos(orderPage.getContent()),
+        orderPage.getPageable(),
+        orderPage.getTotalElements());
+  }
+
+  /** Convert Order entities to OrderResponseDto with one read model lookup, keeping their order. */
+  private List<OrderResponseDto> convertToDtos(List<Order> orders) {
+    return orderQueryService.getOrders(orders.stream().map(Order::getId).toList());
   }
 }
@@ -1,11 +1,17 @@
 package com.accountselling.platform.controller.admin;
 
+import com.accountselling.platform.dto.common.CursorPageDto;
 import com.accountselling.platform.dto.stock.*;
+import com.accountselling.platform.enums.StockImportFormat;
 import com.accountselling.platform.exception.ResourceNotFoundException;
 import com.accountselling.platform.model.Product;
 import com.accountselling.platform.model.Stock;
 import com.accountselling.platform.service.ProductService;
+import com.accountselling.platform.service.StockImportService;
 import com.accountselling.platform.service.StockService;
+import com.accountselling.platform.util.KeysetCursor;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -14,10 +20,15 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -27,9 +38,11 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Admin controller for stock inventory management operations. Provides CRUD operations for stock
@@ -51,11 +64,16 @@ public class AdminStockController {
 
   private final StockService stockService;
   private final ProductService productService;
+  private final StockImportService stockImportService;
+  private final ObjectMapper objectMapper;
 
   @Operation(
       summary = "Get stock by product",
       description =
-          "Retrieve all stock items for a specific product with pagination. Admin only endpoint.")
+          "Retrieve all stock items for a specific product with offset pagination. Deep pages get"
+              + " slower as the offset grows; use /product/{productId}/cursor instead. Admin only"
+              + " endpoint.",
+      deprecated = true)
   @ApiResponses(
       value = {
         @ApiResponse(
@@ -101,6 +119,67 @@ public class AdminStockController {
     return ResponseEntity.ok(response);
   }
 
+  @Operation(
+      summary = "Get stock by product with cursor",
+      description =
+          "Retrieve stock items for a specific product, newest first, one page per cursor. Every"
+              + " page costs the same regardless of depth. Admin only endpoint.")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Stock items retrieved successfully",
+            content = @Content(schema = @Schema(implementation = CursorPageDto.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor or page size"),
+        @ApiResponse(responseCode = "403", description = "Access denied - admin role required"),
+        @ApiResponse(responseCode = "404", description = "Product not found"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+      })
+  @GetMapping("/product/{productId}/cursor")
+  public ResponseEntity<CursorPageDto<StockResponseDto>> getStockByProductCursor(
+      @Parameter(description = "Product ID", required = true) @PathVariable UUID productId,
+      @Parameter(description = "Cursor from the previous page (omit for the first page)")
+          @RequestParam(required = false)
+          String cursor,
+      @Parameter(description = "Page size (1-100)")
+          @RequestParam(value = "size", defaultValue = "20")
+          int size) {
+
+    log.info("Admin getting stock for product: {} - cursor: {}, size: {}", productId, cursor, size);
+
+    if (size < 1 || size > 100) {
+      throw new IllegalArgumentException("Page size must be between 1 and 100");
+    }
+    KeysetCursor after = KeysetCursor.decode(cursor);
+
+    // Verify product exists
+    productService
+        .findById(productId)
+        .orElseThrow(() -> new ResourceNotFoundException("Product", productId.toString()));
+
+    // Read one extra row to know whether another page follows
+    List<Stock> stock = stockService.getStockByProductAfter(productId, after, size + 1);
+    boolean hasNext = stock.size() > size;
+    List<Stock> page = hasNext ? stock.subList(0, size) : stock;
+
+    String nextCursor = null;
+    if (hasNext) {
+      Stock last = page.get(page.size() - 1);
+      nextCursor = new KeysetCursor(last.getCreatedAt(), last.getId()).encode();
+    }
+
+    CursorPageDto<StockResponseDto> response =
+        CursorPageDto.<StockResponseDto>builder()
+            .content(page.stream().map(this::convertToDto).collect(Collectors.toList()))
+            .size(page.size())
+            .hasNext(hasNext)
+            .nextCursor(nextCursor)
+            .build();
+
+    log.info("Admin retrieved {} stock items for product: {}", response.getSize(), productId);
+    return ResponseEntity.ok(response);
+  }
+
   @Operation(
       summary = "Get stock by ID",
       description =
@@ -201,6 +280,45 @@ public class AdminStockController {
     return ResponseEntity.status(HttpStatus.CREATED).body(response);
   }
 
+  @Operation(
+      summary = "Import stock items from a streamed file",
+      description =
+          "Stream a CSV (accountData[,additionalInfo]) or NDJSON body of any size into stock for a"
+              + " product. Records are deduplicated and inserted in chunks; the response reports"
+              + " totals and per-chunk timings. Admin only endpoint.")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "201",
+            description = "Stock import completed",
+            content = @Content(schema = @Schema(implementation = StockImportReportDto.class))),
+        @ApiResponse(responseCode = "400", description = "Import body could not be read"),
+        @ApiResponse(responseCode = "403", description = "Access denied - admin role required"),
+        @ApiResponse(responseCode = "404", description = "Product not found"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+      })
+  @PostMapping(
+      value = "/product/{productId}/import",
+      consumes = {"text/csv", "text/plain", "application/x-ndjson", "application/jsonl"})
+  public ResponseEntity<StockImportReportDto> importStock(
+      @Parameter(description = "Product ID", required = true) @PathVariable UUID productId,
+      HttpServletRequest request)
+      throws IOException {
+
+    StockImportFormat format = StockImportFormat.fromContentType(request.getContentType());
+    log.info("Admin importing {} stock for product: {}", format, productId);
+
+    StockImportReportDto report =
+        stockImportService.importStock(productId, request.getInputStream(), format);
+
+    log.info(
+        "Admin imported {} of {} stock records for product: {}",
+        report.getImportedCount(),
+        report.getTotalRecords(),
+        productId);
+    return ResponseEntity.status(HttpStatus.CREATED).body(report);
+  }
+
   @Operation(
       summary = "Update stock item",
       description = "Update additional information of a stock item. Admin only endpoint.")
@@ -371,9 +489,91 @@ public class AdminStockController {
     return ResponseEntity.ok(productIds);
   }
 
+  @Operation(
+      summary = "Enable hot product stock pool",
+      description =
+          "Serve reservations of a product from pools of stock leased by every node, or change"
+              + " the pool size. Other nodes follow within a second. Use during flash sales. Admin"
+              + " only endpoint.")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Hot stock pool enabled",
+            content = @Content(schema = @Schema(implementation = HotStockPoolStatsDto.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid lease size"),
+        @ApiResponse(responseCode = "403", description = "Access denied - admin role required"),
+        @ApiResponse(responseCode = "404", description = "Product not found"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+      })
+  @PutMapping("/product/{productId}/hot-pool")
+  public ResponseEntity<HotStockPoolStatsDto> enableHotStockPool(
+      @Parameter(description = "Product ID", required = true) @PathVariable UUID productId,
+      @Parameter(description = "Number of stock items to keep leased (1-1000)")
+          @RequestParam(value = "leaseSize", defaultValue = "50")
+          int leaseSize) {
+
+    log.info("Admin enabling hot stock pool for product: {}, lease size: {}", productId, leaseSize);
+
+    HotStockPoolStatsDto stats = stockService.enableHotStockPool(productId, leaseSize);
+
+    log.info("Admin enabled hot stock pool for product: {}", productId);
+    return ResponseEntity.ok(stats);
+  }
+
+  @Operation(
+      summary = "Disable hot product stock pool",
+      description =
+          "Claim stock of a product from the table again on every node and return the unused"
+              + " leases of this node's pool. Admin only endpoint.")
+  @ApiResponses(
+      value = {
+        @ApiResponse(responseCode = "200", description = "Hot stock pool disabled"),
+        @ApiResponse(responseCode = "403", description = "Access denied - admin role required"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+      })
+  @DeleteMapping("/product/{productId}/hot-pool")
+  public ResponseEntity<Integer> disableHotStockPool(
+      @Parameter(description = "Product ID", required = true) @PathVariable UUID productId) {
+
+    log.info("Admin disabling hot stock pool for product: {}", productId);
+
+    int returned = stockService.disableHotStockPool(productId);
+
+    log.info(
+        "Admin disabled hot stock pool for product: {}, returned {} leases", productId, returned);
+    return ResponseEntity.ok(returned);
+  }
+
+  @Operation(
+      summary = "Get hot product stock pools",
+      description =
+          "Get lease sizes and hit rates of the hot product stock pools on the node serving the"
+              + " request. Admin only endpoint.")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Hot stock pools retrieved successfully",
+            content = @Content(schema = @Schema(implementation = HotStockPoolStatsDto.class))),
+        @ApiResponse(responseCode = "403", description = "Access denied - admin role required"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+      })
+  @GetMapping("/hot-pools")
+  public ResponseEntity<List<HotStockPoolStatsDto>> getHotStockPools() {
+
+    log.info("Admin getting hot stock pools");
+
+    List<HotStockPoolStatsDto> pools = stockService.getHotStockPoolStats();
+
+    log.info("Admin found {} hot stock pools", pools.size());
+    return ResponseEntity.ok(pools);
+  }
+
   @Operation(
       summary = "Get expired reservations",
-      description = "Get list of stock items with expired reservations. Admin only endpoint.")
+      description =
+          "Stream stock items with expired reservations as a JSON array. Admin only endpoint.")
   @ApiResponses(
       value = {
         @ApiResponse(
@@ -384,16 +584,20 @@ public class AdminStockController {
         @ApiResponse(responseCode = "500", description = "Internal server error")
       })
   @GetMapping("/expired-reservations")
-  public ResponseEntity<List<StockResponseDto>> getExpiredReservations() {
+  public ResponseEntity<StreamingResponseBody> getExpiredReservations() {
 
     log.info("Admin getting expired reservations");
 
-    List<Stock> expiredReservations = stockService.getExpiredReservations();
-    List<StockResponseDto> response =
-        expiredReservations.stream().map(this::convertToDto).collect(Collectors.toList());
+    StreamingResponseBody body =
+        out ->
+            writeJsonArray(
+                out,
+                generator -> {
+                  long count = stockService.streamExpiredReservations(writeStock(generator));
+                  log.info("Admin streamed {} expired reservations", count);
+                });
 
-    log.info("Admin found {} expired reservations", response.size());
-    return ResponseEntity.ok(response);
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
   }
 
   @Operation(
@@ -422,7 +626,9 @@ public class AdminStockController {
   @Operation(
       summary = "Get sold stock",
       description =
-          "Get list of sold stock items with optional date filtering. Admin only endpoint.")
+          "Stream sold stock items as a JSON array with optional date filtering. Rows are read"
+              + " through a database cursor and written as they arrive, so large exports use"
+              + " constant memory. Admin only endpoint.")
   @ApiResponses(
       value = {
         @ApiResponse(
@@ -430,10 +636,11 @@ public class AdminStockController {
             description = "Sold stock retrieved successfully",
             content = @Content(schema = @Schema(implementation = StockResponseDto.class))),
         @ApiResponse(responseCode = "403", description = "Access denied - admin role required"),
+        @ApiResponse(responseCode = "404", description = "Product not found"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
       })
   @GetMapping("/sold")
-  public ResponseEntity<List<StockResponseDto>> getSoldStock(
+  public ResponseEntity<StreamingResponseBody> getSoldStock(
       @Parameter(
               description =
                   "Product ID (optional - gets sold stock for all products if not specified)")
@@ -454,12 +661,51 @@ public class AdminStockController {
         startDate,
         endDate);
 
-    List<Stock> soldStock = stockService.getSoldStock(productId, startDate, endDate);
-    List<StockResponseDto> response =
-        soldStock.stream().map(this::convertToDto).collect(Collectors.toList());
+    // Verify product exists before the response is committed, so a bad ID still gets a 404
+    if (productId != null) {
+      productService
+          .findById(productId)
+          .orElseThrow(() -> new ResourceNotFoundException("Product", productId.toString()));
+    }
 
-    log.info("Admin retrieved {} sold stock items", response.size());
-    return ResponseEntity.ok(response);
+    StreamingResponseBody body =
+        out ->
+            writeJsonArray(
+                out,
+                generator -> {
+                  long count =
+                      stockService.streamSoldStock(
+                          productId, startDate, endDate, writeStock(generator));
+                  log.info("Admin streamed {} sold stock items", count);
+                });
+
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+  }
+
+  /** Write a JSON array to the response body. เขียน JSON array ลงใน response แบบ streaming */
+  private void writeJsonArray(OutputStream out, Consumer<JsonGenerator> items)
+      throws IOException {
+    // The servlet container owns the output stream, so the generator is flushed but not closed
+    JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+    generator.writeStartArray();
+    try {
+      items.accept(generator);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    generator.writeEndArray();
+    generator.flush();
+  }
+
+  /** Consumer writing each stock item as one array element. เขียนสต็อกทีละรายการ */
+  private Consumer<Stock> writeStock(JsonGenerator generator) {
+    return stock -> {
+      try {
+        generator.writeObject(convertToDto(stock));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    };
   }
 
   /**
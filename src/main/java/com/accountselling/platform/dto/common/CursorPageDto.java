@@ -0,0 +1,31 @@
+package com.accountselling.platform.dto.common;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** DTO for one page of a cursor paginated listing. DTO สำหรับข้อมูลหนึ่งหน้าแบบ cursor */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "One page of a cursor paginated listing")
+public class CursorPageDto<T> {
+
+  @Schema(description = "Items of this page")
+  private List<T> content;
+
+  @Schema(description = "Number of items in this page", example = "20")
+  private int size;
+
+  @Schema(description = "Whether more items follow this page", example = "true")
+  private boolean hasNext;
+
+  @Schema(
+      description = "Opaque cursor for the next page; null on the last page",
+      example = "MjAyNS0wMS0xNVQxMDozMDowMHxmNDdhYzEwYi01OGNj")
+  private String nextCursor;
+}
@@ -0,0 +1,33 @@
+package com.accountselling.platform.dto.order;
+
+import com.accountselling.platform.enums.OrderStatus;
+import com.accountselling.platform.enums.PaymentStatus;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Read model row of one order with its user and payment, loaded by a single projection query.
+ * Payment fields are null when the order has no payment yet.
+ */
+public record OrderHeaderView(
+    UUID id,
+    String orderNumber,
+    UUID userId,
+    String username,
+    String firstName,
+    String lastName,
+    BigDecimal totalAmount,
+    OrderStatus status,
+    String notes,
+    LocalDateTime createdAt,
+    LocalDateTime updatedAt,
+    UUID paymentId,
+    String paymentReference,
+    String transactionId,
+    BigDecimal paymentAmount,
+    PaymentStatus paymentStatus,
+    String paymentMethod,
+    String qrCodeUrl,
+    LocalDateTime paidAt,
+    LocalDateTime expiresAt) {}
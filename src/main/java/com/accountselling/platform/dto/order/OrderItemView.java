@@ -0,0 +1,20 @@
+package com.accountselling.platform.dto.order;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Read model row of one order item, loaded together with the items of other orders by a single
+ * projection query. Product fields come from the snapshot taken at purchase.
+ */
+public record OrderItemView(
+    UUID orderId,
+    UUID id,
+    UUID stockItemId,
+    String productName,
+    String productDescription,
+    String categoryName,
+    String server,
+    BigDecimal price,
+    String notes,
+    boolean stockItemSold) {}
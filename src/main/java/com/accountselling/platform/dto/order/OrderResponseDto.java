@@ -10,6 +10,7 @@ import java.util.UUID;
 public record OrderResponseDto(
     UUID id,
     String orderNumber,
+    UUID userId,
     String username,
     String userDisplayName,
     BigDecimal totalAmount,
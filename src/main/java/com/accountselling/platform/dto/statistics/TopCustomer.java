@@ -0,0 +1,11 @@
+package com.accountselling.platform.dto.statistics;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Top customer data class containing a customer's completed order count and total revenue from
+ * the customer leaderboard.
+ */
+public record TopCustomer(
+    UUID userId, String username, long completedOrderCount, BigDecimal totalRevenue) {}
@@ -0,0 +1,41 @@
+package com.accountselling.platform.dto.stock;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** DTO for hot product stock pool statistics. DTO สำหรับสถิติพูลสต็อกของสินค้าขายดี */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Stock pool of a hot product on this node")
+public class HotStockPoolStatsDto {
+
+  @Schema(description = "Product ID", example = "f47ac10b-58cc-4372-a567-0e02b2c3d479")
+  private UUID productId;
+
+  @Schema(description = "Number of stock items the pool is topped up to", example = "50")
+  private int leaseSize;
+
+  @Schema(description = "Leased stock items currently waiting in the pool", example = "37")
+  private int pooledCount;
+
+  @Schema(description = "Stock items leased into the pool since it was enabled", example = "150")
+  private long leasedCount;
+
+  @Schema(description = "Unused leases returned since the pool was enabled", example = "12")
+  private long returnedCount;
+
+  @Schema(description = "Reserved stock items handed out from the pool", example = "101")
+  private long poolHits;
+
+  @Schema(description = "Reserved stock items that had to be claimed from the table", example = "4")
+  private long poolMisses;
+
+  @Schema(description = "Share of reserved stock items served from the pool", example = "0.96")
+  private double hitRate;
+}
@@ -0,0 +1,26 @@
+package com.accountselling.platform.dto.stock;
+
+import java.util.UUID;
+
+/**
+ * Debounced alert raised when a product crosses its low stock threshold or runs out of stock.
+ *
+ * @param productId ID of the product
+ * @param productName product name, when known
+ * @param available available stock count when the alert was raised
+ * @param threshold low stock threshold of the product
+ * @param outOfStock true when no stock is available
+ */
+public record LowStockAlert(
+    UUID productId, String productName, long available, int threshold, boolean outOfStock) {
+
+  /**
+   * Copy of this alert with the product name filled in.
+   *
+   * @param name product name
+   * @return alert with the given product name
+   */
+  public LowStockAlert withProductName(String name) {
+    return new LowStockAlert(productId, name, available, threshold, outOfStock);
+  }
+}
@@ -0,0 +1,10 @@
+package com.accountselling.platform.dto.stock;
+
+/**
+ * Single stock record read from a streaming import body.
+ *
+ * @param line line number where the record starts, for error reporting
+ * @param accountData account credentials
+ * @param additionalInfo optional additional information
+ */
+public record StockImportRecord(long line, String accountData, String additionalInfo) {}
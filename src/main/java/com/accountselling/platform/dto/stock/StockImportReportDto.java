@@ -0,0 +1,75 @@
+package com.accountselling.platform.dto.stock;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** DTO for the result of a streaming stock import. DTO สำหรับผลลัพธ์การนำเข้าสต็อกแบบสตรีม */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Result of a streaming stock import")
+public class StockImportReportDto {
+
+  @Schema(description = "Product ID", example = "f47ac10b-58cc-4372-a567-0e02b2c3d479")
+  private UUID productId;
+
+  @Schema(description = "Body format that was read", example = "CSV")
+  private String format;
+
+  @Schema(description = "Number of records read from the body", example = "100000")
+  private long totalRecords;
+
+  @Schema(description = "Number of stock items created", example = "99850")
+  private long importedCount;
+
+  @Schema(
+      description = "Number of records skipped as duplicates of existing or earlier records",
+      example = "140")
+  private long duplicateCount;
+
+  @Schema(description = "Number of records rejected as invalid", example = "10")
+  private long invalidCount;
+
+  @Schema(description = "Line numbers of the first rejected records", example = "[17, 2048]")
+  private List<Long> invalidLines;
+
+  @Schema(description = "Total import duration in milliseconds", example = "8421")
+  private long durationMillis;
+
+  @Schema(description = "Per-chunk progress and timings")
+  private List<ChunkReport> chunks;
+
+  @Data
+  @Builder
+  @NoArgsConstructor
+  @AllArgsConstructor
+  @Schema(description = "Progress and timings of one import chunk")
+  public static class ChunkReport {
+    @Schema(description = "Chunk number (1-based)", example = "1")
+    private int chunk;
+
+    @Schema(description = "Number of valid records in the chunk", example = "1000")
+    private int records;
+
+    @Schema(description = "Number of stock items created from the chunk", example = "998")
+    private int imported;
+
+    @Schema(description = "Number of duplicates skipped in the chunk", example = "2")
+    private int duplicates;
+
+    @Schema(description = "Time spent on the duplicate lookup in milliseconds", example = "12")
+    private long lookupMillis;
+
+    @Schema(description = "Time spent on the batch insert in milliseconds", example = "61")
+    private long insertMillis;
+
+    @Schema(description = "Records read so far, including this chunk", example = "1000")
+    private long recordsSoFar;
+  }
+}
@@ -0,0 +1,41 @@
+package com.accountselling.platform.dto.stock;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** DTO for the result of a batch stock sale. DTO สำหรับผลลัพธ์การขายสต็อกแบบกลุ่ม */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Result of marking several stock items as sold")
+public class StockSaleResultDto {
+
+  public static final String REASON_NOT_FOUND = "Stock not found";
+  public static final String REASON_ALREADY_SOLD = "Stock is already sold";
+
+  @Schema(description = "Number of distinct stock IDs requested", example = "50")
+  private int requestedCount;
+
+  @Schema(description = "IDs of stock items marked as sold by this call")
+  private List<UUID> soldStockIds;
+
+  @Schema(description = "Number of stock items sold per product")
+  private Map<UUID, Long> soldCountByProduct;
+
+  @Schema(
+      description = "Stock IDs that could not be sold, with the reason",
+      example = "{\"f47ac10b-58cc-4372-a567-0e02b2c3d479\": \"Stock is already sold\"}")
+  private Map<UUID, String> failures;
+
+  @Schema(description = "Whether every requested stock item was sold", example = "true")
+  public boolean isComplete() {
+    return failures == null || failures.isEmpty();
+  }
+}
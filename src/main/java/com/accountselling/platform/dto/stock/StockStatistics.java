@@ -1,3 +1,32 @@
 package com.accountselling.platform.dto.stock;
 
-public record StockStatistics(long total, long available, long sold, long reserved) {}
+import com.accountselling.platform.model.ProductStockSummary;
+
+public record StockStatistics(long total, long available, long sold, long reserved) {
+
+  public static StockStatistics from(ProductStockSummary summary) {
+    return new StockStatistics(
+        summary.getTotalCount(),
+        summary.getAvailableCount(),
+        summary.getSoldCount(),
+        summary.getReservedCount());
+  }
+
+  /**
+   * Convert the [total, available, sold, reserved] row of a statistics query.
+   *
+   * @param stats the query row, may be null when the product has no stock
+   * @return the statistics, all zero when the row is missing
+   */
+  public static StockStatistics fromRow(Object[] stats) {
+    if (stats != null && stats.length == 4) {
+      return new StockStatistics(
+          toLong(stats[0]), toLong(stats[1]), toLong(stats[2]), toLong(stats[3]));
+    }
+    return new StockStatistics(0, 0, 0, 0);
+  }
+
+  private static long toLong(Object value) {
+    return value != null ? ((Number) value).longValue() : 0;
+  }
+}
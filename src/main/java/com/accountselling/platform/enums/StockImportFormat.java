@@ -0,0 +1,31 @@
+package com.accountselling.platform.enums;
+
+/**
+ * Supported body formats for streaming stock imports.
+ *
+ * <p>enum รูปแบบไฟล์ที่รองรับสำหรับการนำเข้าสต็อกแบบสตรีม
+ */
+public enum StockImportFormat {
+  /** One record per CSV row: accountData[,additionalInfo]. Quoted fields may span lines. */
+  CSV,
+
+  /** One JSON value per line: a string, or an object with accountData and additionalInfo. */
+  NDJSON;
+
+  /**
+   * Resolve the import format from a request content type. Anything that is not newline-delimited
+   * JSON is read as CSV, which also covers plain text with one credential per line.
+   *
+   * @param contentType request content type, may be null
+   * @return matching import format
+   */
+  public static StockImportFormat fromContentType(String contentType) {
+    if (contentType != null) {
+      String type = contentType.toLowerCase();
+      if (type.contains("ndjson") || type.contains("jsonl") || type.contains("json-seq")) {
+        return NDJSON;
+      }
+    }
+    return CSV;
+  }
+}
@@ -0,0 +1,16 @@
+package com.accountselling.platform.exception;
+
+/**
+ * Exception thrown when an Idempotency-Key cannot be honored: the first request using it is still
+ * being processed, or the key was already used for a different request.
+ */
+public class IdempotencyConflictException extends BaseException {
+
+  public IdempotencyConflictException(String message) {
+    super(message);
+  }
+
+  public IdempotencyConflictException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
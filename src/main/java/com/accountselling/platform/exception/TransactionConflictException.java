@@ -0,0 +1,16 @@
+package com.accountselling.platform.exception;
+
+/**
+ * Exception thrown when a transaction keeps conflicting with concurrent transactions after every
+ * retry. The request may succeed when sent again.
+ */
+public class TransactionConflictException extends BaseException {
+
+  public TransactionConflictException(String message) {
+    super(message);
+  }
+
+  public TransactionConflictException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
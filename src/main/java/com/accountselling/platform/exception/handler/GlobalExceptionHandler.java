@@ -6,6 +6,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolationException;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -202,6 +203,43 @@ public class GlobalExceptionHandler {
     return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
   }
 
+  /**
+   * Handle Idempotency-Key conflicts.
+   *
+   * @param ex the IdempotencyConflictException
+   * @param request the HTTP request
+   * @return standardized error response
+   */
+  @ExceptionHandler(IdempotencyConflictException.class)
+  public ResponseEntity<ErrorResponse> handleIdempotencyConflictException(
+      IdempotencyConflictException ex, HttpServletRequest request) {
+
+    log.warn("Idempotency conflict at {}: {}", request.getRequestURI(), ex.getMessage());
+
+    ErrorResponse error = ErrorResponse.conflict(ex.getMessage(), request.getRequestURI());
+    return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+  }
+
+  /**
+   * Handle transactions that kept conflicting with concurrent transactions after every retry.
+   *
+   * @param ex the TransactionConflictException
+   * @param request the HTTP request
+   * @return standardized error response
+   */
+  @ExceptionHandler(TransactionConflictException.class)
+  public ResponseEntity<ErrorResponse> handleTransactionConflictException(
+      TransactionConflictException ex, HttpServletRequest request) {
+
+    log.warn("Transaction conflict at {}: {}", request.getRequestURI(), ex.getMessage());
+
+    ErrorResponse error =
+        ErrorResponse.of(503, "Service Unavailable", ex.getMessage(), request.getRequestURI());
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, "1")
+        .body(error);
+  }
+
   /**
    * Handle invalid credentials exceptions.
    *
@@ -9,7 +9,8 @@ import org.hibernate.annotations.UpdateTimestamp;
 
 /**
  * Base entity class that provides common fields and functionality for all entities. Includes audit
- * fields for tracking creation and modification times.
+ * fields for tracking creation and modification times. IDs are time-ordered version 7 UUIDs, so
+ * inserts append to the primary key index instead of scattering across it.
  */
 @MappedSuperclass
 @Getter
@@ -20,7 +21,7 @@ import org.hibernate.annotations.UpdateTimestamp;
 public abstract class BaseEntity {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.UUID)
+  @GeneratedUuidV7
   @Column(name = "id", updatable = false, nullable = false)
   @EqualsAndHashCode.Include
   private UUID id;
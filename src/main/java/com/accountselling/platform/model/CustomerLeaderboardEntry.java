@@ -0,0 +1,52 @@
+package com.accountselling.platform.model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+/**
+ * Completed order count and revenue of one customer. Order completion adds to the customer's row
+ * in the same transaction, so top customer queries read the first rows of an index instead of
+ * grouping every completed order by user.
+ *
+ * <p>ตารางสรุปยอดคำสั่งซื้อของลูกค้าแต่ละคนสำหรับจัดอันดับ
+ */
+@Entity
+@Table(
+    name = "customer_leaderboard",
+    indexes = {
+      @Index(
+          name = "idx_customer_leaderboard_orders",
+          columnList = "completed_order_count DESC, total_revenue DESC, user_id"),
+      @Index(
+          name = "idx_customer_leaderboard_revenue",
+          columnList = "total_revenue DESC, completed_order_count DESC, user_id")
+    })
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class CustomerLeaderboardEntry {
+
+  @Id
+  @Column(name = "user_id", updatable = false, nullable = false)
+  @EqualsAndHashCode.Include
+  private UUID userId;
+
+  @Column(name = "completed_order_count", nullable = false)
+  private long completedOrderCount;
+
+  @Column(name = "total_revenue", nullable = false, precision = 18, scale = 2)
+  private BigDecimal totalRevenue = BigDecimal.ZERO;
+
+  @Column(name = "last_completed_at")
+  private LocalDateTime lastCompletedAt;
+
+  @UpdateTimestamp
+  @Column(name = "updated_at", nullable = false)
+  private LocalDateTime updatedAt;
+}
@@ -0,0 +1,75 @@
+package com.accountselling.platform.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import lombok.*;
+
+/**
+ * Idempotency key sent by a client with a create request, together with the response of the first
+ * request that used it. Retries carrying the same key get the stored response back instead of
+ * creating another order or payment.
+ *
+ * <p>The status code is null while the first request is still being processed. Rows past
+ * expires_at may be claimed again and are purged periodically.
+ *
+ * <p>คีย์ idempotency ของคำขอสร้างข้อมูลพร้อม response ที่บันทึกไว้
+ */
+@Entity
+@Table(
+    name = "idempotency_key",
+    indexes = {@Index(name = "idx_idempotency_key_expires", columnList = "expires_at")})
+@IdClass(IdempotencyRecord.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString(exclude = "responseBody")
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class IdempotencyRecord {
+
+  // Operation and user the key belongs to, so clients cannot collide with each other
+  @Id
+  @Column(name = "scope", length = 100, updatable = false, nullable = false)
+  @EqualsAndHashCode.Include
+  private String scope;
+
+  @Id
+  @Column(name = "idempotency_key", length = 255, updatable = false, nullable = false)
+  @EqualsAndHashCode.Include
+  private String idempotencyKey;
+
+  // Hex SHA-256 of the request body, to refuse a key reused for a different request
+  @Column(name = "request_hash", length = 64, nullable = false)
+  private String requestHash;
+
+  @Column(name = "status_code")
+  private Integer statusCode;
+
+  @Column(name = "response_body", columnDefinition = "TEXT")
+  private String responseBody;
+
+  @Column(name = "created_at", nullable = false)
+  private LocalDateTime createdAt;
+
+  @Column(name = "expires_at", nullable = false)
+  private LocalDateTime expiresAt;
+
+  /**
+   * Check whether the first request finished and its response was stored.
+   *
+   * @return true if the response can be replayed
+   */
+  public boolean isCompleted() {
+    return statusCode != null;
+  }
+
+  /** Primary key of an idempotency record: one row per scope and key. */
+  @Getter
+  @NoArgsConstructor
+  @AllArgsConstructor
+  @EqualsAndHashCode
+  public static class Key implements Serializable {
+    private String scope;
+    private String idempotencyKey;
+  }
+}
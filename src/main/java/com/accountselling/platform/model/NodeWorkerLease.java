@@ -0,0 +1,36 @@
+package com.accountselling.platform.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import lombok.*;
+
+/**
+ * Worker ID leased by a node that has no app.node.worker-id configured. The node refreshes the row
+ * while it runs; a row past leased_until belongs to a node that stopped and its worker ID can be
+ * taken by another node.
+ *
+ * <p>รหัสผู้ทำงานที่โหนดเช่าไว้สำหรับสร้างเลขที่คำสั่งซื้อ
+ */
+@Entity
+@Table(name = "node_worker_lease")
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class NodeWorkerLease {
+
+  @Id
+  @Column(name = "worker_id", updatable = false, nullable = false)
+  @EqualsAndHashCode.Include
+  private Integer workerId;
+
+  @Column(name = "node_id", length = 100, nullable = false)
+  private String nodeId;
+
+  @Column(name = "leased_until", nullable = false)
+  private LocalDateTime leasedUntil;
+
+  @Column(name = "updated_at", nullable = false)
+  private LocalDateTime updatedAt;
+}
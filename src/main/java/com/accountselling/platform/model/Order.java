@@ -1,6 +1,7 @@
 package com.accountselling.platform.model;
 
 import com.accountselling.platform.enums.OrderStatus;
+import com.accountselling.platform.util.ReferenceNumbers;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Digits;
@@ -24,7 +25,8 @@ import lombok.*;
       @Index(name = "idx_order_user", columnList = "user_id"),
       @Index(name = "idx_order_status", columnList = "status"),
       @Index(name = "idx_order_created_at", columnList = "created_at"),
-      @Index(name = "idx_order_user_status", columnList = "user_id, status")
+      @Index(name = "idx_order_user_status", columnList = "user_id, status"),
+      @Index(name = "idx_order_user_created", columnList = "user_id, created_at, id")
     })
 @Getter
 @Setter
@@ -177,10 +179,7 @@ public class Order extends BaseEntity {
 
   // Generate unique order number
   private void generateOrderNumber() {
-    // Generate order number based on timestamp and random component
-    long timestamp = System.currentTimeMillis();
-    int random = (int) (Math.random() * 1000);
-    this.orderNumber = String.format("ORD-%d-%03d", timestamp, random);
+    this.orderNumber = ReferenceNumbers.nextOrderNumber();
   }
 
   // Set order number manually (for testing or specific requirements)
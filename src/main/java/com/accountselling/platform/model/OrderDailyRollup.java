@@ -0,0 +1,66 @@
+package com.accountselling.platform.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+/**
+ * Order counts and revenue of one day, by the day the orders were created. Order creation and
+ * completion add their deltas in the same transaction, so daily trends are read from one row per
+ * day instead of grouping the orders table.
+ *
+ * <p>Each day is split into {@link #SLOTS} rows and every delta goes to a random one, so concurrent
+ * orders do not all queue on the lock of a single row for today. Readers sum the slots of a day.
+ * Rebuilt days are written to slot 0.
+ *
+ * <p>ตารางสรุปจำนวนคำสั่งซื้อและรายได้รายวัน
+ */
+@Entity
+@Table(name = "order_daily_rollup")
+@IdClass(OrderDailyRollup.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class OrderDailyRollup {
+
+  /** Rows per day that deltas are spread over. */
+  public static final int SLOTS = 16;
+
+  @Id
+  @Column(name = "rollup_date", updatable = false, nullable = false)
+  @EqualsAndHashCode.Include
+  private LocalDate rollupDate;
+
+  @Id
+  @Column(name = "slot", updatable = false, nullable = false)
+  @EqualsAndHashCode.Include
+  private short slot;
+
+  // Orders created on the day, in any status
+  @Column(name = "order_count", nullable = false)
+  private long orderCount;
+
+  // Total amount of the day's orders that are completed
+  @Column(name = "revenue", nullable = false, precision = 18, scale = 2)
+  private BigDecimal revenue = BigDecimal.ZERO;
+
+  @UpdateTimestamp
+  @Column(name = "updated_at", nullable = false)
+  private LocalDateTime updatedAt;
+
+  /** Primary key of a rollup row: one row per day and slot. */
+  @Getter
+  @NoArgsConstructor
+  @AllArgsConstructor
+  @EqualsAndHashCode
+  public static class Key implements Serializable {
+    private LocalDate rollupDate;
+    private short slot;
+  }
+}
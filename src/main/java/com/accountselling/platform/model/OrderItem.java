@@ -6,6 +6,7 @@ import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotNull;
 import java.math.BigDecimal;
+import java.util.UUID;
 import lombok.*;
 
 /**
@@ -43,10 +44,15 @@ public class OrderItem extends BaseEntity {
   @NotNull(message = "Order item must be associated with a product")
   private Product product;
 
+  // No foreign key: sold stock is moved to stock_sold_history by the archival job, keeping its ID.
+  // Load account data through StockService.getSoldAccountData instead of this association.
   @OneToOne(fetch = FetchType.LAZY, optional = false)
-  @JoinColumn(name = "stock_item_id", nullable = false, unique = true)
+  @JoinColumn(
+      name = "stock_item_id",
+      nullable = false,
+      unique = true,
+      foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
   @NotNull(message = "Order item must be associated with a stock item")
-  @EqualsAndHashCode.Include
   private Stock stockItem;
 
   @NotNull(message = "Price cannot be null")
@@ -105,8 +111,19 @@ public class OrderItem extends BaseEntity {
     }
   }
 
+  // Items are told apart by stock item before they have an ID. Only the stock item's ID is read,
+  // which does not load a lazy stock item: once archived, its row no longer exists.
+  @EqualsAndHashCode.Include
+  private UUID stockItemId() {
+    return stockItem != null ? stockItem.getId() : null;
+  }
+
   // Business logic methods
   public boolean isStockItemSold() {
+    // Stock of a completed order is sold and may already be archived, so it is not loaded
+    if (order != null && order.isCompleted()) {
+      return stockItem != null;
+    }
     return stockItem != null && stockItem.getSold();
   }
 
@@ -1,6 +1,7 @@
 package com.accountselling.platform.model;
 
 import com.accountselling.platform.enums.PaymentStatus;
+import com.accountselling.platform.util.ReferenceNumbers;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Digits;
@@ -196,9 +197,7 @@ public class Payment extends BaseEntity {
 
   // Generate unique payment reference
   private void generatePaymentReference() {
-    long timestamp = System.currentTimeMillis();
-    int random = (int) (Math.random() * 10000);
-    this.paymentReference = String.format("PAY-%d-%04d", timestamp, random);
+    this.paymentReference = ReferenceNumbers.nextPaymentReference();
   }
 
   // Set payment reference manually (for testing or specific requirements)
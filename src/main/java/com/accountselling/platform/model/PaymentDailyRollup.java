@@ -0,0 +1,69 @@
+package com.accountselling.platform.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+/**
+ * Payment counts, revenue and refunds of one day, by the day the payments were created. Payment
+ * creation, completion and refund add their deltas in the same transaction, so daily trends are
+ * read from one row per day instead of grouping the payments table.
+ *
+ * <p>Like {@link OrderDailyRollup}, each day is split into {@link #SLOTS} rows that deltas are
+ * spread over, and readers sum the slots of a day.
+ *
+ * <p>ตารางสรุปจำนวนการชำระเงิน รายได้ และการคืนเงินรายวัน
+ */
+@Entity
+@Table(name = "payment_daily_rollup")
+@IdClass(PaymentDailyRollup.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class PaymentDailyRollup {
+
+  /** Rows per day that deltas are spread over. */
+  public static final int SLOTS = 16;
+
+  @Id
+  @Column(name = "rollup_date", updatable = false, nullable = false)
+  @EqualsAndHashCode.Include
+  private LocalDate rollupDate;
+
+  @Id
+  @Column(name = "slot", updatable = false, nullable = false)
+  @EqualsAndHashCode.Include
+  private short slot;
+
+  // Payments created on the day, in any status
+  @Column(name = "payment_count", nullable = false)
+  private long paymentCount;
+
+  // Amount of the day's payments that are completed; refunded payments no longer count
+  @Column(name = "revenue", nullable = false, precision = 18, scale = 2)
+  private BigDecimal revenue = BigDecimal.ZERO;
+
+  // Refund amount of the day's refunded payments
+  @Column(name = "refunds", nullable = false, precision = 18, scale = 2)
+  private BigDecimal refunds = BigDecimal.ZERO;
+
+  @UpdateTimestamp
+  @Column(name = "updated_at", nullable = false)
+  private LocalDateTime updatedAt;
+
+  /** Primary key of a rollup row: one row per day and slot. */
+  @Getter
+  @NoArgsConstructor
+  @AllArgsConstructor
+  @EqualsAndHashCode
+  public static class Key implements Serializable {
+    private LocalDate rollupDate;
+    private short slot;
+  }
+}
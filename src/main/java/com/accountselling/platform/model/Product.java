@@ -71,6 +71,10 @@ public class Product extends BaseEntity {
   @Column(name = "low_stock_threshold")
   private Integer lowStockThreshold = 5;
 
+  // Pool size every node leases for this product in hot mode; null when the product is not hot
+  @Column(name = "hot_lease_size")
+  private Integer hotLeaseSize;
+
   // Many-to-one relationship with Category
   @ManyToOne(fetch = FetchType.LAZY, optional = false)
   @JoinColumn(name = "category_id", nullable = false)
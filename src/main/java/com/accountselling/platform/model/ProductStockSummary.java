@@ -0,0 +1,137 @@
+package com.accountselling.platform.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+/**
+ * Materialized stock counts for one product. The rows are changed in the same transaction as
+ * every stock state change, so stock statistics are read with one index range scan instead of
+ * counting stock rows.
+ *
+ * <p>Each product has {@link #SLOTS} rows and the counts of the product are their sum. A
+ * transaction applies its deltas to the slot of its thread, so concurrent buyers of one product
+ * queue on different rows, while all deltas of one transaction still go to one row per product and
+ * keep the product ID lock order. Objects built from summed slots, or before they are split into
+ * slots, use slot 0.
+ *
+ * <p>Reserved counts stock items that still hold a reservation, including reservations that have
+ * lapsed but were not released by the expiry scheduler yet. This matches the in-memory available
+ * stock counters.
+ *
+ * <p>ตารางสรุปจำนวนสต็อกต่อสินค้า อัปเดตในธุรกรรมเดียวกับการเปลี่ยนสถานะสต็อก
+ */
+@Entity
+@Table(name = "product_stock_summary")
+@IdClass(ProductStockSummary.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class ProductStockSummary {
+
+  /** Rows per product that deltas are spread over. */
+  public static final int SLOTS = 16;
+
+  @Id
+  @Column(name = "product_id", updatable = false, nullable = false)
+  @EqualsAndHashCode.Include
+  private UUID productId;
+
+  @Id
+  @Column(name = "slot", updatable = false, nullable = false)
+  @EqualsAndHashCode.Include
+  private short slot;
+
+  @Column(name = "total_count", nullable = false)
+  private long totalCount;
+
+  @Column(name = "available_count", nullable = false)
+  private long availableCount;
+
+  @Column(name = "reserved_count", nullable = false)
+  private long reservedCount;
+
+  @Column(name = "sold_count", nullable = false)
+  private long soldCount;
+
+  @UpdateTimestamp
+  @Column(name = "updated_at", nullable = false)
+  private LocalDateTime updatedAt;
+
+  // Constructor for a product without stock
+  public ProductStockSummary(UUID productId) {
+    this.productId = productId;
+  }
+
+  // Constructor with all counts
+  public ProductStockSummary(
+      UUID productId, long totalCount, long availableCount, long reservedCount, long soldCount) {
+    this.productId = productId;
+    this.totalCount = totalCount;
+    this.availableCount = availableCount;
+    this.reservedCount = reservedCount;
+    this.soldCount = soldCount;
+  }
+
+  /**
+   * Check whether the counts match another summary of the same product.
+   *
+   * @param other summary to compare with
+   * @return true if all counts are equal
+   */
+  public boolean hasSameCounts(ProductStockSummary other) {
+    return totalCount == other.totalCount
+        && availableCount == other.availableCount
+        && reservedCount == other.reservedCount
+        && soldCount == other.soldCount;
+  }
+
+  /**
+   * Copy the counts of another summary of the same product.
+   *
+   * @param other summary with the counts to copy
+   */
+  public void copyCounts(ProductStockSummary other) {
+    this.totalCount = other.totalCount;
+    this.availableCount = other.availableCount;
+    this.reservedCount = other.reservedCount;
+    this.soldCount = other.soldCount;
+  }
+
+  /**
+   * Split counts into the slot rows of a product: slot 0 carries the counts, the others start at
+   * zero.
+   *
+   * @param totals counts of the product
+   * @return one new summary row per slot
+   */
+  public static List<ProductStockSummary> slotsOf(ProductStockSummary totals) {
+    List<ProductStockSummary> slots = new ArrayList<>(SLOTS);
+    for (short slot = 0; slot < SLOTS; slot++) {
+      ProductStockSummary row = new ProductStockSummary(totals.productId);
+      row.slot = slot;
+      if (slot == 0) {
+        row.copyCounts(totals);
+      }
+      slots.add(row);
+    }
+    return slots;
+  }
+
+  /** Primary key of a summary row: one row per product and slot. */
+  @Getter
+  @NoArgsConstructor
+  @AllArgsConstructor
+  @EqualsAndHashCode
+  public static class Key implements Serializable {
+    private UUID productId;
+    private short slot;
+  }
+}
@@ -1,11 +1,13 @@
 package com.accountselling.platform.model;
 
+import com.accountselling.platform.util.AccountDataFingerprint;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import java.time.LocalDateTime;
 import lombok.*;
+import org.hibernate.annotations.Formula;
 
 /**
  * Stock entity representing individual account credentials available for sale. Each stock item
@@ -20,8 +22,14 @@ import lombok.*;
     indexes = {
       @Index(name = "idx_stock_product", columnList = "product_id"),
       @Index(name = "idx_stock_sold", columnList = "sold"),
-      @Index(name = "idx_stock_reserved", columnList = "reserved_until"),
-      @Index(name = "idx_stock_product_available", columnList = "product_id, sold")
+      @Index(name = "idx_stock_product_available", columnList = "product_id, sold"),
+      @Index(name = "idx_stock_product_created", columnList = "product_id, created_at, id"),
+      @Index(name = "idx_stock_sold_at", columnList = "sold_at, id")
+    },
+    uniqueConstraints = {
+      @UniqueConstraint(
+          name = "uk_stock_product_fingerprint",
+          columnNames = {"product_id", "fingerprint"})
     })
 @Getter
 @Setter
@@ -43,6 +51,11 @@ public class Stock extends BaseEntity {
   @EqualsAndHashCode.Include
   private String accountData; // This field should contain encrypted account credentials
 
+  // SHA-256 of the normalized plaintext account data, kept in sync by setAccountData.
+  // Rows left null by the V2 backfill are legacy duplicates of an existing fingerprint.
+  @Column(name = "fingerprint", length = AccountDataFingerprint.LENGTH)
+  private String fingerprint;
+
   @Size(max = 100, message = "Account type cannot exceed 100 characters")
   @Column(name = "account_type", length = 100)
   private String accountType;
@@ -56,9 +69,16 @@ public class Stock extends BaseEntity {
   @Column(name = "sold", nullable = false)
   private Boolean sold = false;
 
-  @Column(name = "reserved_until")
+  // Read from stock_reservation, see StockReservation. Reservations are written through
+  // StockRepository; reserve() and releaseReservation() only change this loaded copy.
+  @Formula("(SELECT r.reserved_until FROM stock_reservation r WHERE r.stock_id = id)")
   private LocalDateTime reservedUntil;
 
+  // Set while the item sits in a node's hot product stock pool. Leased items still count as
+  // available but are skipped by the regular claim until the lease lapses or is returned.
+  @Column(name = "leased_until")
+  private LocalDateTime leasedUntil;
+
   @Size(max = 500, message = "Additional info cannot exceed 500 characters")
   @Column(name = "additional_info", length = 500)
   private String additionalInfo;
@@ -69,24 +89,30 @@ public class Stock extends BaseEntity {
   // Constructor with product and account data
   public Stock(Product product, String accountData) {
     this.product = product;
-    this.accountData = accountData;
+    setAccountData(accountData);
   }
 
   // Constructor with product, account data, and additional info
   public Stock(Product product, String accountData, String additionalInfo) {
     this.product = product;
-    this.accountData = accountData;
+    setAccountData(accountData);
     this.additionalInfo = additionalInfo;
   }
 
   // Constructor with all main fields
   public Stock(Product product, String accountData, String accountType, Double price) {
     this.product = product;
-    this.accountData = accountData;
+    setAccountData(accountData);
     this.accountType = accountType;
     this.price = price;
   }
 
+  // Set account data and recompute its fingerprint
+  public void setAccountData(String accountData) {
+    this.accountData = accountData;
+    this.fingerprint = AccountDataFingerprint.of(accountData);
+  }
+
   // Business logic methods
   public boolean isReserved() {
     return reservedUntil != null && reservedUntil.isAfter(LocalDateTime.now());
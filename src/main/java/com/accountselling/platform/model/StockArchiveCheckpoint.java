@@ -0,0 +1,69 @@
+package com.accountselling.platform.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import lombok.*;
+
+/**
+ * Progress of the sold stock archival job. Sold stock is archived in (sold_at, id) order and the
+ * checkpoint records the last row moved, in the same transaction as the move. Each batch starts
+ * right after it instead of scanning past the dead index entries earlier batches left behind.
+ *
+ * <p>จุดตรวจสอบความคืบหน้าของงานย้ายสต็อกที่ขายแล้วไปยังตารางประวัติ
+ */
+@Entity
+@Table(name = "stock_archive_checkpoint")
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class StockArchiveCheckpoint {
+
+  /** Checkpoint name of the sold stock archival job. */
+  public static final String SOLD_STOCK = "sold-stock";
+
+  // Lower bound of the first batch; the nil UUID sorts before every other UUID
+  private static final LocalDateTime START_SOLD_AT = LocalDateTime.of(1970, 1, 1, 0, 0);
+  private static final UUID START_STOCK_ID = new UUID(0L, 0L);
+
+  @Id
+  @Column(name = "name", length = 50, updatable = false, nullable = false)
+  @EqualsAndHashCode.Include
+  private String name;
+
+  @Column(name = "last_sold_at", nullable = false)
+  private LocalDateTime lastSoldAt;
+
+  @Column(name = "last_stock_id", nullable = false)
+  private UUID lastStockId;
+
+  @Column(name = "archived_count", nullable = false)
+  private long archivedCount;
+
+  @Column(name = "updated_at", nullable = false)
+  private LocalDateTime updatedAt;
+
+  // Constructor for a job that has not archived anything yet
+  public StockArchiveCheckpoint(String name) {
+    this.name = name;
+    this.lastSoldAt = START_SOLD_AT;
+    this.lastStockId = START_STOCK_ID;
+    this.updatedAt = LocalDateTime.now();
+  }
+
+  /**
+   * Move the checkpoint past a batch of archived rows.
+   *
+   * @param soldAt sold time of the last archived row
+   * @param stockId ID of the last archived row
+   * @param count number of rows archived by the batch
+   */
+  public void advance(LocalDateTime soldAt, UUID stockId, int count) {
+    this.lastSoldAt = soldAt;
+    this.lastStockId = stockId;
+    this.archivedCount += count;
+    this.updatedAt = LocalDateTime.now();
+  }
+}
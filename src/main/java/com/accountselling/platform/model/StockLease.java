@@ -0,0 +1,65 @@
+package com.accountselling.platform.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import lombok.*;
+
+/**
+ * Hot product stock held by one node. Every node upserts one row per hot product each time it
+ * refills its pools, so the row doubles as the node's heartbeat: a row past leased_until belongs to
+ * a node that stopped, and the stock it leased lapses at about the same time.
+ *
+ * <p>A node that could not fill its pool records how many items it is missing, and nodes holding
+ * more than their share of the product's leased stock return the surplus so the dry node can lease
+ * it.
+ *
+ * <p>สต็อกของสินค้าขายดีที่แต่ละโหนดเช่าไว้
+ */
+@Entity
+@Table(
+    name = "stock_lease",
+    indexes = {@Index(name = "idx_stock_lease_until", columnList = "leased_until")})
+@IdClass(StockLease.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class StockLease {
+
+  @Id
+  @Column(name = "product_id", updatable = false, nullable = false)
+  @EqualsAndHashCode.Include
+  private UUID productId;
+
+  @Id
+  @Column(name = "node_id", length = 100, updatable = false, nullable = false)
+  @EqualsAndHashCode.Include
+  private String nodeId;
+
+  // Items waiting in the node's pool at its last refill
+  @Column(name = "pooled_count", nullable = false)
+  private int pooledCount;
+
+  // Items the node could not lease at its last refill; 0 when its pool was filled
+  @Column(name = "wanted_count", nullable = false)
+  private int wantedCount;
+
+  @Column(name = "leased_until", nullable = false)
+  private LocalDateTime leasedUntil;
+
+  @Column(name = "updated_at", nullable = false)
+  private LocalDateTime updatedAt;
+
+  /** Primary key of a stock lease: one row per product and node. */
+  @Getter
+  @NoArgsConstructor
+  @AllArgsConstructor
+  @EqualsAndHashCode
+  public static class Key implements Serializable {
+    private UUID productId;
+    private String nodeId;
+  }
+}
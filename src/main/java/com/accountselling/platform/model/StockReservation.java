@@ -0,0 +1,65 @@
+package com.accountselling.platform.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * Reservation hold on one stock item. Reserving inserts a row and releasing, expiring or selling
+ * the item deletes it, so reservation traffic never rewrites the wide stock row that carries the
+ * account credentials.
+ *
+ * <p>The stock ID is the primary key, so an item holds at most one reservation. A hold whose
+ * deadline has passed stays until the expiry scheduler deletes it and is replaced in place when the
+ * item is claimed again.
+ *
+ * <p>การจองสต็อกแยกจากแถวสต็อก เพิ่มแถวเมื่อจองและลบแถวเมื่อปล่อยการจอง
+ */
+@Entity
+@Table(
+    name = "stock_reservation",
+    indexes = {@Index(name = "idx_stock_reservation_until", columnList = "reserved_until")})
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class StockReservation {
+
+  @Id
+  @Column(name = "stock_id", updatable = false, nullable = false)
+  @EqualsAndHashCode.Include
+  private UUID stockId;
+
+  // Read-only link that maps the foreign key, so deleting a stock item deletes its hold
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(
+      name = "stock_id",
+      insertable = false,
+      updatable = false,
+      foreignKey = @ForeignKey(name = "fk_stock_reservation_stock"))
+  @OnDelete(action = OnDeleteAction.CASCADE)
+  @ToString.Exclude
+  private Stock stock;
+
+  // Copied from the stock item so releases can credit the product without joining stock
+  @Column(name = "product_id", updatable = false, nullable = false)
+  private UUID productId;
+
+  @Column(name = "reserved_until", nullable = false)
+  private LocalDateTime reservedUntil;
+
+  @Column(name = "created_at", nullable = false)
+  private LocalDateTime createdAt;
+
+  // Constructor holding a stock item until a specific time
+  public StockReservation(Stock stock, LocalDateTime reservedUntil) {
+    this.stockId = stock.getId();
+    this.productId = stock.getProduct().getId();
+    this.reservedUntil = reservedUntil;
+    this.createdAt = LocalDateTime.now();
+  }
+}
@@ -0,0 +1,86 @@
+package com.accountselling.platform.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import lombok.*;
+
+/**
+ * Sold stock item moved out of the live stock table by the archival job. The row keeps the ID and
+ * the columns of the original stock item, so order items still resolve their account data after
+ * archival and sold stock reports read both tables as one.
+ *
+ * <p>The table is range partitioned by sold_at per month on PostgreSQL, so old months can be
+ * detached or dropped without touching the rest.
+ *
+ * <p>ประวัติสต็อกที่ขายแล้ว ย้ายออกจากตารางสต็อกหลักโดยงานจัดเก็บข้อมูล
+ */
+@Entity
+@Table(name = "stock_sold_history")
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString(exclude = {"product", "accountData"})
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class StockSoldHistory {
+
+  @Id
+  @Column(name = "id", updatable = false, nullable = false)
+  @EqualsAndHashCode.Include
+  private UUID id;
+
+  // No foreign key, so archival does not check products for every moved row
+  @ManyToOne(fetch = FetchType.LAZY, optional = false)
+  @JoinColumn(
+      name = "product_id",
+      nullable = false,
+      updatable = false,
+      foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+  private Product product;
+
+  @Column(name = "account_data", nullable = false, length = 2000)
+  private String accountData;
+
+  @Column(name = "fingerprint", length = 64)
+  private String fingerprint;
+
+  @Column(name = "account_type", length = 100)
+  private String accountType;
+
+  @Column(name = "price")
+  private Double price;
+
+  @Column(name = "additional_info", length = 500)
+  private String additionalInfo;
+
+  @Column(name = "sold_at", nullable = false)
+  private LocalDateTime soldAt;
+
+  @Column(name = "created_at", nullable = false)
+  private LocalDateTime createdAt;
+
+  @Column(name = "updated_at", nullable = false)
+  private LocalDateTime updatedAt;
+
+  @Column(name = "archived_at", nullable = false)
+  private LocalDateTime archivedAt;
+
+  /**
+   * Rebuild the sold stock item this row was archived from. The result is not managed and must not
+   * be saved; it lets reports treat archived and live sold stock alike.
+   *
+   * @return detached sold stock item with the archived values
+   */
+  public Stock toStock() {
+    Stock stock = new Stock(product, accountData, additionalInfo);
+    stock.setId(id);
+    stock.setAccountType(accountType);
+    stock.setPrice(price);
+    stock.setAvailable(false);
+    stock.setSold(true);
+    stock.setSoldAt(soldAt);
+    stock.setCreatedAt(createdAt);
+    stock.setUpdatedAt(updatedAt);
+    return stock;
+  }
+}
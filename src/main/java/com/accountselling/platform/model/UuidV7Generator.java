@@ -0,0 +1,29 @@
+package com.accountselling.platform.model;
+
+import com.accountselling.platform.util.UuidV7;
+import java.util.EnumSet;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+
+/**
+ * Hibernate identifier generator assigning time-ordered version 7 UUIDs on insert. Used through
+ * {@link GeneratedUuidV7} on {@link BaseEntity}.
+ */
+public class UuidV7Generator implements BeforeExecutionGenerator {
+
+  @Override
+  public Object generate(
+      SharedSessionContractImplementor session,
+      Object owner,
+      Object currentValue,
+      EventType eventType) {
+    return UuidV7.randomUuid();
+  }
+
+  @Override
+  public EnumSet<EventType> getEventTypes() {
+    return EventTypeSets.INSERT_ONLY;
+  }
+}
@@ -0,0 +1,191 @@
+package com.accountselling.platform.repository;
+
+import com.accountselling.platform.dto.statistics.TopCustomer;
+import com.accountselling.platform.model.CustomerLeaderboardEntry;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for CustomerLeaderboardEntry entity operations. Completed orders are added
+ * to their customer's row inside the completing transaction, and top customers are read in index
+ * order, joined to their users only for the usernames. A rebuild compares the rows with a recount
+ * of the completed orders, a batch of customers at a time, and applies the differences.
+ *
+ * <p>รีพอสิทอรี่สำหรับตารางจัดอันดับลูกค้า
+ */
+@Repository
+public interface CustomerLeaderboardRepository
+    extends JpaRepository<CustomerLeaderboardEntry, UUID> {
+
+  String TOP_CUSTOMER_SELECT =
+      """
+      SELECT new com.accountselling.platform.dto.statistics.TopCustomer(
+          c.userId, u.username, c.completedOrderCount, c.totalRevenue)
+      FROM CustomerLeaderboardEntry c
+      JOIN User u ON u.id = c.userId
+      """;
+
+  /**
+   * Add a completed order to its customer's row. Must run inside the transaction that completes
+   * the order; pending changes are flushed first so the completed order row is read.
+   *
+   * @param orderId the completed order ID
+   * @return number of leaderboard rows inserted or updated, 0 if the order does not exist
+   */
+  @Modifying(flushAutomatically = true)
+  @Query(
+      value =
+          """
+          INSERT INTO customer_leaderboard AS c
+              (user_id, completed_order_count, total_revenue, last_completed_at, updated_at)
+          SELECT o.user_id, 1, o.total_amount, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP
+          FROM orders o
+          WHERE o.id = :orderId
+          ON CONFLICT (user_id) DO UPDATE
+          SET completed_order_count = c.completed_order_count + 1,
+              total_revenue = c.total_revenue + EXCLUDED.total_revenue,
+              last_completed_at = EXCLUDED.last_completed_at,
+              updated_at = EXCLUDED.updated_at
+          """,
+      nativeQuery = true)
+  int recordCompletedOrder(@Param("orderId") UUID orderId);
+
+  /**
+   * Find top customers by completed order count, ties broken by revenue.
+   *
+   * @param limit maximum number of customers to return
+   * @return top customers with their order counts and revenue
+   */
+  @Query(
+      TOP_CUSTOMER_SELECT
+          + """
+          ORDER BY c.completedOrderCount DESC, c.totalRevenue DESC, c.userId
+          """)
+  List<TopCustomer> findTopByOrderCount(Limit limit);
+
+  /**
+   * Find top customers by revenue of completed orders, ties broken by order count.
+   *
+   * @param limit maximum number of customers to return
+   * @return top customers with their order counts and revenue
+   */
+  @Query(
+      TOP_CUSTOMER_SELECT
+          + """
+          ORDER BY c.totalRevenue DESC, c.completedOrderCount DESC, c.userId
+          """)
+  List<TopCustomer> findTopByRevenue(Limit limit);
+
+  // ==================== REBUILD ====================
+
+  /**
+   * Find the last user ID of the next batch of customers, in user ID order.
+   *
+   * @param afterUserId the last user ID of the previous batch, or the nil UUID for the first batch
+   * @param batchSize maximum number of customers in the batch
+   * @return the last user ID of the batch, null if no customers are left
+   */
+  @Query(
+      value =
+          """
+          SELECT MAX(b.id)
+          FROM (SELECT u.id FROM users u WHERE u.id > :afterUserId ORDER BY u.id LIMIT :batchSize) b
+          """,
+      nativeQuery = true)
+  UUID findBatchEnd(@Param("afterUserId") UUID afterUserId, @Param("batchSize") int batchSize);
+
+  /**
+   * Compare the rows of a range of customers with a recount of their completed orders. Run in a
+   * REPEATABLE READ transaction, both sides are read from one snapshot; completions add to the
+   * orders and the rows in the same transaction, so the differences are exactly the drift, and
+   * applying them as corrections later is safe while completions go on.
+   *
+   * @param afterUserId the user ID before the range, exclusive
+   * @param lastUserId the last user ID of the range, inclusive
+   * @return rows of [userId, orderCountDifference, revenueDifference, lastCompletedAt] for the
+   *     customers whose row differs from the recount
+   */
+  @Query(
+      value =
+          """
+          WITH recount AS (
+              SELECT o.user_id,
+                     COUNT(*) AS completed_order_count,
+                     COALESCE(SUM(o.total_amount), 0) AS total_revenue,
+                     MAX(o.updated_at) AS last_completed_at
+              FROM orders o
+              WHERE o.status = 'COMPLETED'
+                AND o.user_id > :afterUserId AND o.user_id <= :lastUserId
+              GROUP BY o.user_id
+          ),
+          board AS (
+              SELECT c.user_id, c.completed_order_count, c.total_revenue
+              FROM customer_leaderboard c
+              WHERE c.user_id > :afterUserId AND c.user_id <= :lastUserId
+          )
+          SELECT COALESCE(r.user_id, b.user_id),
+                 COALESCE(r.completed_order_count, 0) - COALESCE(b.completed_order_count, 0),
+                 COALESCE(r.total_revenue, 0) - COALESCE(b.total_revenue, 0),
+                 r.last_completed_at
+          FROM recount r
+          FULL JOIN board b ON b.user_id = r.user_id
+          WHERE COALESCE(r.completed_order_count, 0) <> COALESCE(b.completed_order_count, 0)
+             OR COALESCE(r.total_revenue, 0) <> COALESCE(b.total_revenue, 0)
+          """,
+      nativeQuery = true)
+  List<Object[]> findDriftBetween(
+      @Param("afterUserId") UUID afterUserId, @Param("lastUserId") UUID lastUserId);
+
+  /**
+   * Add a correction found by {@link #findDriftBetween} to a customer's row, creating the row if
+   * it is missing. The correction is added to the current counts rather than replacing them, so
+   * completions committed since the comparison are kept.
+   *
+   * @param userId the customer's user ID
+   * @param orderCount completed orders to add, negative to remove
+   * @param revenue revenue to add, negative to remove
+   * @param lastCompletedAt latest completion of the recount, null if none
+   * @return number of leaderboard rows inserted or updated
+   */
+  @Modifying
+  @Query(
+      value =
+          """
+          INSERT INTO customer_leaderboard AS c
+              (user_id, completed_order_count, total_revenue, last_completed_at, updated_at)
+          VALUES (:userId, :orderCount, :revenue, CAST(:lastCompletedAt AS TIMESTAMP),
+                  CURRENT_TIMESTAMP)
+          ON CONFLICT (user_id) DO UPDATE
+          SET completed_order_count = c.completed_order_count + EXCLUDED.completed_order_count,
+              total_revenue = c.total_revenue + EXCLUDED.total_revenue,
+              last_completed_at = GREATEST(c.last_completed_at, EXCLUDED.last_completed_at),
+              updated_at = EXCLUDED.updated_at
+          """,
+      nativeQuery = true)
+  int applyCorrection(
+      @Param("userId") UUID userId,
+      @Param("orderCount") long orderCount,
+      @Param("revenue") BigDecimal revenue,
+      @Param("lastCompletedAt") LocalDateTime lastCompletedAt);
+
+  /**
+   * Delete the rows of customers left without completed orders after a correction.
+   *
+   * @param userIds the corrected customers
+   * @return number of leaderboard rows deleted
+   */
+  @Modifying
+  @Query(
+      "DELETE FROM CustomerLeaderboardEntry c WHERE c.userId IN :userIds"
+          + " AND c.completedOrderCount = 0 AND c.totalRevenue = 0")
+  int deleteEmptyByUserIdIn(@Param("userIds") Collection<UUID> userIds);
+}
@@ -0,0 +1,112 @@
+package com.accountselling.platform.repository;
+
+import com.accountselling.platform.model.IdempotencyRecord;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repository for idempotency keys of create requests and their stored responses.
+ *
+ * <p>รีพอสิทอรี่สำหรับคีย์ idempotency และ response ที่บันทึกไว้
+ */
+@Repository
+public interface IdempotencyKeyRepository
+    extends JpaRepository<IdempotencyRecord, IdempotencyRecord.Key> {
+
+  /**
+   * Claim a key for a request about to be processed. A key whose row expired is claimed again.
+   * PostgreSQL only.
+   *
+   * @param scope operation and user the key belongs to
+   * @param idempotencyKey key sent by the client
+   * @param requestHash hash of the request body
+   * @param now current time; rows that expired before it can be claimed
+   * @param expiresAt when the claim lapses if the request never completes
+   * @return the claimed key, or an empty list when another request holds it
+   */
+  @Transactional
+  @Query(
+      value =
+          """
+          INSERT INTO idempotency_key AS k
+              (scope, idempotency_key, request_hash, created_at, expires_at)
+          VALUES (:scope, :idempotencyKey, :requestHash, :now, :expiresAt)
+          ON CONFLICT (scope, idempotency_key) DO UPDATE
+          SET request_hash = EXCLUDED.request_hash,
+              status_code = NULL,
+              response_body = NULL,
+              created_at = EXCLUDED.created_at,
+              expires_at = EXCLUDED.expires_at
+          WHERE k.expires_at < :now
+          RETURNING k.idempotency_key
+          """,
+      nativeQuery = true)
+  List<String> claim(
+      @Param("scope") String scope,
+      @Param("idempotencyKey") String idempotencyKey,
+      @Param("requestHash") String requestHash,
+      @Param("now") LocalDateTime now,
+      @Param("expiresAt") LocalDateTime expiresAt);
+
+  /**
+   * Store the response of a claimed key, as long as the claim was not taken over by another request
+   * after it lapsed. Meant to run in the transaction of the request itself.
+   *
+   * @param scope operation and user the key belongs to
+   * @param idempotencyKey key sent by the client
+   * @param claimedAt claim time passed to {@link #claim}, identifying the claim
+   * @param statusCode HTTP status of the response
+   * @param responseBody JSON body of the response
+   * @param expiresAt until when the response is replayed
+   * @return number of rows updated, 0 when the claim is no longer held
+   */
+  @Modifying
+  @Transactional
+  @Query(
+      "UPDATE IdempotencyRecord r SET r.statusCode = :statusCode, r.responseBody = :responseBody,"
+          + " r.expiresAt = :expiresAt WHERE r.scope = :scope AND r.idempotencyKey ="
+          + " :idempotencyKey AND r.createdAt = :claimedAt AND r.statusCode IS NULL")
+  int complete(
+      @Param("scope") String scope,
+      @Param("idempotencyKey") String idempotencyKey,
+      @Param("claimedAt") LocalDateTime claimedAt,
+      @Param("statusCode") int statusCode,
+      @Param("responseBody") String responseBody,
+      @Param("expiresAt") LocalDateTime expiresAt);
+
+  /**
+   * Release a claimed key whose request failed, so the client can retry it. A claim taken over by
+   * another request is left alone.
+   *
+   * @param scope operation and user the key belongs to
+   * @param idempotencyKey key sent by the client
+   * @param claimedAt claim time passed to {@link #claim}, identifying the claim
+   * @return number of rows deleted
+   */
+  @Modifying
+  @Transactional
+  @Query(
+      "DELETE FROM IdempotencyRecord r WHERE r.scope = :scope AND r.idempotencyKey ="
+          + " :idempotencyKey AND r.createdAt = :claimedAt AND r.statusCode IS NULL")
+  int release(
+      @Param("scope") String scope,
+      @Param("idempotencyKey") String idempotencyKey,
+      @Param("claimedAt") LocalDateTime claimedAt);
+
+  /**
+   * Delete keys past their expiry.
+   *
+   * @param before keys that expired before this time are deleted
+   * @return number of keys deleted
+   */
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :before")
+  int deleteExpired(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,94 @@
+package com.accountselling.platform.repository;
+
+import com.accountselling.platform.model.NodeWorkerLease;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repository for the worker IDs leased by nodes without a configured worker ID.
+ *
+ * <p>รีพอสิทอรี่สำหรับรหัสผู้ทำงานที่แต่ละโหนดเช่าไว้
+ */
+@Repository
+public interface NodeWorkerLeaseRepository extends JpaRepository<NodeWorkerLease, Integer> {
+
+  /**
+   * Lease the lowest worker ID that is free, lapsed or already leased by this node. Two nodes
+   * picking the same ID at once are resolved by the primary key; the loser gets an empty result
+   * and tries again. PostgreSQL only.
+   *
+   * @param nodeId the node ID
+   * @param maxWorkerId highest worker ID to hand out
+   * @param now current time; leases that ended before it can be taken over
+   * @param leasedUntil when the lease ends unless renewed
+   * @return the leased worker ID, or an empty list when none could be leased
+   */
+  @Transactional
+  @Query(
+      value =
+          """
+          INSERT INTO node_worker_lease AS l (worker_id, node_id, leased_until, updated_at)
+          SELECT w.id, :nodeId, :leasedUntil, CURRENT_TIMESTAMP
+          FROM generate_series(0, :maxWorkerId) AS w (id)
+          WHERE NOT EXISTS (
+              SELECT 1 FROM node_worker_lease x
+              WHERE x.worker_id = w.id
+              AND x.leased_until >= :now
+              AND x.node_id <> :nodeId
+          )
+          ORDER BY w.id
+          LIMIT 1
+          ON CONFLICT (worker_id) DO UPDATE
+          SET node_id = EXCLUDED.node_id,
+              leased_until = EXCLUDED.leased_until,
+              updated_at = EXCLUDED.updated_at
+          WHERE l.leased_until < :now OR l.node_id = EXCLUDED.node_id
+          RETURNING l.worker_id
+          """,
+      nativeQuery = true)
+  List<Integer> claim(
+      @Param("nodeId") String nodeId,
+      @Param("maxWorkerId") int maxWorkerId,
+      @Param("now") LocalDateTime now,
+      @Param("leasedUntil") LocalDateTime leasedUntil);
+
+  /**
+   * Extend a node's lease on its worker ID. A lease that lapsed is taken back as long as no other
+   * node took it over.
+   *
+   * @param workerId the leased worker ID
+   * @param nodeId the node ID
+   * @param now current time
+   * @param leasedUntil new end of the lease
+   * @return number of rows updated, 0 when another node holds the worker ID
+   */
+  @Modifying
+  @Transactional
+  @Query(
+      "UPDATE NodeWorkerLease l SET l.nodeId = :nodeId, l.leasedUntil = :leasedUntil,"
+          + " l.updatedAt = :now WHERE l.workerId = :workerId AND (l.nodeId = :nodeId OR"
+          + " l.leasedUntil < :now)")
+  int renew(
+      @Param("workerId") int workerId,
+      @Param("nodeId") String nodeId,
+      @Param("now") LocalDateTime now,
+      @Param("leasedUntil") LocalDateTime leasedUntil);
+
+  /**
+   * Give up a node's lease, for example on shutdown.
+   *
+   * @param workerId the leased worker ID
+   * @param nodeId the node ID
+   * @return number of leases deleted
+   */
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM NodeWorkerLease l WHERE l.workerId = :workerId AND l.nodeId = :nodeId")
+  int release(@Param("workerId") int workerId, @Param("nodeId") String nodeId);
+}
@@ -0,0 +1,159 @@
+package com.accountselling.platform.repository;
+
+import com.accountselling.platform.model.OrderDailyRollup;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for OrderDailyRollup entity operations. Order changes add their deltas to a
+ * random slot of the day the order was created, inside their own transaction; the day is read from
+ * the order row so it always matches the rebuild.
+ *
+ * <p>รีพอสิทอรี่สำหรับตารางสรุปคำสั่งซื้อรายวัน
+ */
+@Repository
+public interface OrderDailyRollupRepository
+    extends JpaRepository<OrderDailyRollup, OrderDailyRollup.Key> {
+
+  /**
+   * Add deltas to the rollup of the day an order was created. Must run inside the transaction that
+   * changes the order; pending changes are flushed first so a new order row is found. Takes the
+   * day's rebuild lock in shared mode, so deltas never wait on each other but a rebuild of the day
+   * waits for them to commit.
+   *
+   * @param orderId the order ID
+   * @param slot rollup slot of the day to add to
+   * @param orderCount change in order count
+   * @param revenue change in revenue
+   * @return number of rollup rows inserted or updated, 0 if the order does not exist
+   */
+  @Modifying(flushAutomatically = true)
+  @Query(
+      value =
+          """
+          INSERT INTO order_daily_rollup AS r (rollup_date, slot, order_count, revenue, updated_at)
+          SELECT CAST(o.created_at AS DATE), :slot, :orderCount, :revenue, CURRENT_TIMESTAMP
+          FROM orders o
+          CROSS JOIN LATERAL (
+              SELECT pg_advisory_xact_lock_shared(
+                         hashtext('order_daily_rollup'),
+                         CAST(o.created_at AS DATE) - DATE '2000-01-01')) l
+          WHERE o.id = :orderId
+          ON CONFLICT (rollup_date, slot) DO UPDATE
+          SET order_count = r.order_count + EXCLUDED.order_count,
+              revenue = r.revenue + EXCLUDED.revenue,
+              updated_at = EXCLUDED.updated_at
+          """,
+      nativeQuery = true)
+  int applyDelta(
+      @Param("orderId") UUID orderId,
+      @Param("slot") short slot,
+      @Param("orderCount") long orderCount,
+      @Param("revenue") BigDecimal revenue);
+
+  /**
+   * Get daily order counts and revenue of a date range, summing the slots of each day. Days
+   * without orders are left out.
+   *
+   * @param startDate first day of the range
+   * @param endDate last day of the range, inclusive
+   * @return list of daily rollups [date, orderCount, revenue] ordered by date
+   */
+  @Query(
+      """
+      SELECT r.rollupDate, SUM(r.orderCount), SUM(r.revenue)
+      FROM OrderDailyRollup r
+      WHERE r.rollupDate >= :startDate AND r.rollupDate <= :endDate
+      GROUP BY r.rollupDate
+      HAVING SUM(r.orderCount) > 0
+      ORDER BY r.rollupDate
+      """)
+  List<Object[]> sumByDateBetween(
+      @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+  // ==================== REBUILD ====================
+
+  /**
+   * Lock one day of the rollups against deltas until the end of the transaction. Order
+   * transactions that already added a delta to the day are waited for, so a recount sees their
+   * orders; later ones add their delta after the recount is committed. Deltas to other days and
+   * reads are not blocked.
+   *
+   * @param day the day to lock
+   * @return always 1
+   */
+  @Query(
+      value =
+          """
+          SELECT 1
+          FROM pg_advisory_xact_lock(
+                   hashtext('order_daily_rollup'), CAST(:day AS DATE) - DATE '2000-01-01')
+          """,
+      nativeQuery = true)
+  int lockDayForRebuild(@Param("day") LocalDate day);
+
+  /**
+   * Delete the rollups of a date range before it is recounted.
+   *
+   * @param startDate first day of the range
+   * @param endDate last day of the range, inclusive
+   * @return number of rollup rows deleted
+   */
+  @Modifying
+  @Query(
+      "DELETE FROM OrderDailyRollup r WHERE r.rollupDate >= :startDate AND r.rollupDate <="
+          + " :endDate")
+  int deleteByDateBetween(
+      @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+  /**
+   * Recount the orders created in a time range into slot 0 of each day. The range must cover
+   * whole days whose rollups were deleted first.
+   *
+   * @param startTime start of the first day
+   * @param endTime start of the day after the last day
+   * @return number of days written
+   */
+  @Modifying
+  @Query(
+      value =
+          """
+          INSERT INTO order_daily_rollup (rollup_date, slot, order_count, revenue, updated_at)
+          SELECT CAST(o.created_at AS DATE),
+                 0,
+                 COUNT(*),
+                 COALESCE(SUM(o.total_amount) FILTER (WHERE o.status = 'COMPLETED'), 0),
+                 CURRENT_TIMESTAMP
+          FROM orders o
+          WHERE o.created_at >= :startTime AND o.created_at < :endTime
+          GROUP BY CAST(o.created_at AS DATE)
+          """,
+      nativeQuery = true)
+  int recountBetween(
+      @Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime);
+
+  // ==================== ORDER STATE CHANGES ====================
+
+  /** A new order was created. */
+  default void recordCreated(UUID orderId) {
+    applyDelta(orderId, randomSlot(), 1, BigDecimal.ZERO);
+  }
+
+  /** An order was completed; its total now counts as revenue. */
+  default void recordCompleted(UUID orderId, BigDecimal totalAmount) {
+    applyDelta(orderId, randomSlot(), 0, totalAmount);
+  }
+
+  private static short randomSlot() {
+    return (short) ThreadLocalRandom.current().nextInt(OrderDailyRollup.SLOTS);
+  }
+}
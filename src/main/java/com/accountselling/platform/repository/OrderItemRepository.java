@@ -1,5 +1,6 @@
 package com.accountselling.platform.repository;
 
+import com.accountselling.platform.dto.order.OrderItemView;
 import com.accountselling.platform.enums.OrderStatus;
 import com.accountselling.platform.model.Order;
 import com.accountselling.platform.model.OrderItem;
@@ -8,6 +9,7 @@ import com.accountselling.platform.model.Stock;
 import com.accountselling.platform.model.User;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -683,4 +685,33 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, UUID> {
   @Query(
       "SELECT DISTINCT oi.server FROM OrderItem oi WHERE oi.server IS NOT NULL ORDER BY oi.server")
   List<String> findDistinctServers();
+
+  // ==================== READ MODEL QUERIES ====================
+
+  /**
+   * Find the read model rows of the items of several orders in one query. Stock of a completed
+   * order counts as sold without loading it, since it may already be archived.
+   *
+   * @param orderIds the order IDs
+   * @return order items of those orders, oldest first
+   */
+  @Query(
+      """
+      SELECT new com.accountselling.platform.dto.order.OrderItemView(
+          o.id, oi.id, oi.stockItem.id, COALESCE(oi.productName, pr.name),
+          COALESCE(oi.productDescription, pr.description), COALESCE(oi.categoryName, c.name),
+          COALESCE(oi.server, pr.server), oi.price, oi.notes,
+          CASE
+            WHEN o.status = com.accountselling.platform.enums.OrderStatus.COMPLETED THEN true
+            ELSE COALESCE(s.sold, false)
+          END)
+      FROM OrderItem oi
+      JOIN oi.order o
+      JOIN oi.product pr
+      LEFT JOIN pr.category c
+      LEFT JOIN oi.stockItem s
+      WHERE o.id IN :orderIds
+      ORDER BY oi.createdAt, oi.id
+      """)
+  List<OrderItemView> findViewsByOrderIds(@Param("orderIds") Collection<UUID> orderIds);
 }
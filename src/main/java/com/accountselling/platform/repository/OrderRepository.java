@@ -1,13 +1,17 @@
 package com.accountselling.platform.repository;
 
+import com.accountselling.platform.dto.order.OrderHeaderView;
+import com.accountselling.platform.dto.statistics.OrderStatistics;
 import com.accountselling.platform.enums.OrderStatus;
 import com.accountselling.platform.model.Order;
 import com.accountselling.platform.model.User;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -25,6 +29,34 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface OrderRepository extends JpaRepository<Order, UUID> {
 
+  /** Select list of the order read model; the payment is joined so it costs no extra query. */
+  String ORDER_HEADER_SELECT =
+      """
+      SELECT new com.accountselling.platform.dto.order.OrderHeaderView(
+          o.id, o.orderNumber, u.id, u.username, u.firstName, u.lastName, o.totalAmount,
+          o.status, o.notes, o.createdAt, o.updatedAt, p.id, p.paymentReference, p.transactionId,
+          p.amount, p.status, p.paymentMethod, p.qrCodeUrl, p.paidAt, p.expiresAt)
+      FROM Order o
+      JOIN o.user u
+      LEFT JOIN o.payment p
+      """;
+
+  /** Every order statistic in one scan, counting each status with a filtered aggregate. */
+  String ORDER_STATISTICS_SELECT =
+      """
+      SELECT new com.accountselling.platform.dto.statistics.OrderStatistics(
+          COUNT(o),
+          COUNT(o) FILTER (WHERE o.status = 'PENDING'),
+          COUNT(o) FILTER (WHERE o.status = 'PROCESSING'),
+          COUNT(o) FILTER (WHERE o.status = 'COMPLETED'),
+          COUNT(o) FILTER (WHERE o.status = 'FAILED'),
+          COUNT(o) FILTER (WHERE o.status = 'CANCELLED'),
+          COALESCE(SUM(o.totalAmount) FILTER (WHERE o.status = 'COMPLETED'), 0),
+          CAST(COALESCE(AVG(o.totalAmount) FILTER (WHERE o.status = 'COMPLETED'), 0)
+              AS BigDecimal))
+      FROM Order o
+      """;
+
   // ==================== BASIC ORDER QUERIES ====================
 
   /**
@@ -332,28 +364,6 @@ public interface OrderRepository extends JpaRepository<Order, UUID> {
   @Query("SELECT o FROM Order o ORDER BY o.createdAt DESC LIMIT :limit")
   List<Order> findRecentOrders(@Param("limit") int limit);
 
-  /**
-   * Find top customers by order count. Used for customer analytics and loyalty programs.
-   *
-   * @param limit maximum number of customers to return
-   * @return list of users with highest order counts
-   */
-  @Query(
-      "SELECT o.user FROM Order o WHERE o.status = 'COMPLETED' GROUP BY o.user ORDER BY COUNT(o)"
-          + " DESC LIMIT :limit")
-  List<User> findTopCustomersByOrderCount(@Param("limit") int limit);
-
-  /**
-   * Find top customers by revenue. Used for customer value analysis.
-   *
-   * @param limit maximum number of customers to return
-   * @return list of users with highest total revenue
-   */
-  @Query(
-      "SELECT o.user FROM Order o WHERE o.status = 'COMPLETED' GROUP BY o.user ORDER BY"
-          + " SUM(o.totalAmount) DESC LIMIT :limit")
-  List<User> findTopCustomersByRevenue(@Param("limit") int limit);
-
   /**
    * Find orders with payment issues. Used for identifying orders that need attention.
    *
@@ -419,20 +429,26 @@ public interface OrderRepository extends JpaRepository<Order, UUID> {
       Pageable pageable);
 
   /**
-   * Get order statistics for dashboard. Used for admin dashboard statistics display.
+   * Summarize all orders: counts by status, revenue and average value of completed orders. Reads
+   * the orders once, replacing separate count, revenue and average queries.
    *
-   * @return object array containing [total, pending, completed, failed] counts
+   * @return order statistics of all time
    */
-  @Query(
-      """
-      SELECT
-          COUNT(o) as total,
-          SUM(CASE WHEN o.status = 'PENDING' THEN 1 ELSE 0 END) as pending,
-          SUM(CASE WHEN o.status = 'COMPLETED' THEN 1 ELSE 0 END) as completed,
-          SUM(CASE WHEN o.status = 'FAILED' THEN 1 ELSE 0 END) as failed
-      FROM Order o
-      """)
-  Object[] getOrderStatistics();
+  @Query(ORDER_STATISTICS_SELECT)
+  OrderStatistics summarizeOrders();
+
+  /**
+   * Summarize orders created within a date range in one scan. Status counts are limited to the
+   * range as well. The average is over completed orders like {@link #summarizeOrders()}; the order
+   * service reports the average of a range over all of its orders instead.
+   *
+   * @param startDate start date of the range
+   * @param endDate end date of the range, inclusive
+   * @return order statistics of the range
+   */
+  @Query(ORDER_STATISTICS_SELECT + "WHERE o.createdAt >= :startDate AND o.createdAt <= :endDate")
+  OrderStatistics summarizeOrdersBetween(
+      @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
 
   /**
    * Get daily order statistics within date range. Used for daily sales reporting and charts.
@@ -663,4 +679,80 @@ public interface OrderRepository extends JpaRepository<Order, UUID> {
    * @return page of orders for the username
    */
   Page<Order> findByUserUsername(String username, Pageable pageable);
+
+  // ==================== READ MODEL QUERIES ====================
+
+  /**
+   * Find the read model row of an order. Loads the order, its user and its payment in one query.
+   *
+   * @param orderId the order ID
+   * @return order header if found
+   */
+  @Query(ORDER_HEADER_SELECT + "WHERE o.id = :orderId")
+  Optional<OrderHeaderView> findHeaderById(@Param("orderId") UUID orderId);
+
+  /**
+   * Find the read model rows of orders by ID, in no particular order.
+   *
+   * @param orderIds the order IDs
+   * @return order headers found
+   */
+  @Query(ORDER_HEADER_SELECT + "WHERE o.id IN :orderIds")
+  List<OrderHeaderView> findHeadersByIds(@Param("orderIds") Collection<UUID> orderIds);
+
+  /**
+   * Find a page of read model rows of a user's orders. Used for order history.
+   *
+   * @param userId the user ID
+   * @param pageable pagination and sorting on order properties
+   * @return page of order headers
+   */
+  @Query(
+      value = ORDER_HEADER_SELECT + "WHERE u.id = :userId",
+      countQuery = "SELECT COUNT(o) FROM Order o WHERE o.user.id = :userId")
+  Page<OrderHeaderView> findHeadersByUserId(@Param("userId") UUID userId, Pageable pageable);
+
+  /**
+   * Find a page of read model rows of orders with a status.
+   *
+   * @param status the order status
+   * @param pageable pagination and sorting on order properties
+   * @return page of order headers
+   */
+  @Query(
+      value = ORDER_HEADER_SELECT + "WHERE o.status = :status",
+      countQuery = "SELECT COUNT(o) FROM Order o WHERE o.status = :status")
+  Page<OrderHeaderView> findHeadersByStatus(
+      @Param("status") OrderStatus status, Pageable pageable);
+
+  /**
+   * Find read model rows of a user's newest orders. First page of the keyset paginated order
+   * history, served by the (user_id, created_at, id) index.
+   *
+   * @param userId the user ID
+   * @param limit maximum number of orders
+   * @return order headers ordered by creation time and ID, newest first
+   */
+  @Query(ORDER_HEADER_SELECT + "WHERE o.user.id = :userId ORDER BY o.createdAt DESC, o.id DESC")
+  List<OrderHeaderView> findNewestHeadersByUserId(@Param("userId") UUID userId, Limit limit);
+
+  /**
+   * Find read model rows of a user's orders that come after a keyset cursor. Next pages of the
+   * keyset paginated order history; unlike an offset, the cost does not grow with the page number.
+   *
+   * @param userId the user ID
+   * @param createdAt creation time of the last order of the previous page
+   * @param id ID of the last order of the previous page
+   * @param limit maximum number of orders
+   * @return order headers older than the cursor, newest first
+   */
+  @Query(
+      ORDER_HEADER_SELECT
+          + "WHERE o.user.id = :userId AND (o.createdAt, o.id) < (:createdAt, :id)"
+          + " ORDER BY o.createdAt DESC, o.id DESC")
+  List<OrderHeaderView> findNewestHeadersByUserIdBefore(
+      @Param("userId") UUID userId,
+      @Param("createdAt") LocalDateTime createdAt,
+      @Param("id") UUID id,
+      Limit limit);
 }
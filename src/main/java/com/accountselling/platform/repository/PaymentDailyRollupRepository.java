@@ -0,0 +1,171 @@
+package com.accountselling.platform.repository;
+
+import com.accountselling.platform.model.PaymentDailyRollup;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for PaymentDailyRollup entity operations. Payment changes add their deltas
+ * to a random slot of the day the payment was created, inside their own transaction; the day is
+ * read from the payment row so it always matches the rebuild.
+ *
+ * <p>รีพอสิทอรี่สำหรับตารางสรุปการชำระเงินรายวัน
+ */
+@Repository
+public interface PaymentDailyRollupRepository
+    extends JpaRepository<PaymentDailyRollup, PaymentDailyRollup.Key> {
+
+  /**
+   * Add deltas to the rollup of the day a payment was created. Must run inside the transaction that
+   * changes the payment; pending changes are flushed first so a new payment row is found. Takes the
+   * day's rebuild lock in shared mode, so deltas never wait on each other but a rebuild of the day
+   * waits for them to commit.
+   *
+   * @param paymentId the payment ID
+   * @param slot rollup slot of the day to add to
+   * @param paymentCount change in payment count
+   * @param revenue change in revenue
+   * @param refunds change in refunds
+   * @return number of rollup rows inserted or updated, 0 if the payment does not exist
+   */
+  @Modifying(flushAutomatically = true)
+  @Query(
+      value =
+          """
+          INSERT INTO payment_daily_rollup AS r
+              (rollup_date, slot, payment_count, revenue, refunds, updated_at)
+          SELECT CAST(p.created_at AS DATE), :slot, :paymentCount, :revenue, :refunds,
+                 CURRENT_TIMESTAMP
+          FROM payments p
+          CROSS JOIN LATERAL (
+              SELECT pg_advisory_xact_lock_shared(
+                         hashtext('payment_daily_rollup'),
+                         CAST(p.created_at AS DATE) - DATE '2000-01-01')) l
+          WHERE p.id = :paymentId
+          ON CONFLICT (rollup_date, slot) DO UPDATE
+          SET payment_count = r.payment_count + EXCLUDED.payment_count,
+              revenue = r.revenue + EXCLUDED.revenue,
+              refunds = r.refunds + EXCLUDED.refunds,
+              updated_at = EXCLUDED.updated_at
+          """,
+      nativeQuery = true)
+  int applyDelta(
+      @Param("paymentId") UUID paymentId,
+      @Param("slot") short slot,
+      @Param("paymentCount") long paymentCount,
+      @Param("revenue") BigDecimal revenue,
+      @Param("refunds") BigDecimal refunds);
+
+  /**
+   * Get daily payment counts, revenue and refunds of a date range, summing the slots of each day.
+   * Days without payments are left out.
+   *
+   * @param startDate first day of the range
+   * @param endDate last day of the range, inclusive
+   * @return list of daily rollups [date, paymentCount, revenue, refunds] ordered by date
+   */
+  @Query(
+      """
+      SELECT r.rollupDate, SUM(r.paymentCount), SUM(r.revenue), SUM(r.refunds)
+      FROM PaymentDailyRollup r
+      WHERE r.rollupDate >= :startDate AND r.rollupDate <= :endDate
+      GROUP BY r.rollupDate
+      HAVING SUM(r.paymentCount) > 0
+      ORDER BY r.rollupDate
+      """)
+  List<Object[]> sumByDateBetween(
+      @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+  // ==================== REBUILD ====================
+
+  /**
+   * Lock one day of the rollups against deltas until the end of the transaction. Payment
+   * transactions that already added a delta to the day are waited for, so a recount sees their
+   * payments; later ones add their delta after the recount is committed. Deltas to other days and
+   * reads are not blocked.
+   *
+   * @param day the day to lock
+   * @return always 1
+   */
+  @Query(
+      value =
+          """
+          SELECT 1
+          FROM pg_advisory_xact_lock(
+                   hashtext('payment_daily_rollup'), CAST(:day AS DATE) - DATE '2000-01-01')
+          """,
+      nativeQuery = true)
+  int lockDayForRebuild(@Param("day") LocalDate day);
+
+  /**
+   * Delete the rollups of a date range before it is recounted.
+   *
+   * @param startDate first day of the range
+   * @param endDate last day of the range, inclusive
+   * @return number of rollup rows deleted
+   */
+  @Modifying
+  @Query(
+      "DELETE FROM PaymentDailyRollup r WHERE r.rollupDate >= :startDate AND r.rollupDate <="
+          + " :endDate")
+  int deleteByDateBetween(
+      @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+  /**
+   * Recount the payments created in a time range into slot 0 of each day. The range must cover
+   * whole days whose rollups were deleted first.
+   *
+   * @param startTime start of the first day
+   * @param endTime start of the day after the last day
+   * @return number of days written
+   */
+  @Modifying
+  @Query(
+      value =
+          """
+          INSERT INTO payment_daily_rollup
+              (rollup_date, slot, payment_count, revenue, refunds, updated_at)
+          SELECT CAST(p.created_at AS DATE),
+                 0,
+                 COUNT(*),
+                 COALESCE(SUM(p.amount) FILTER (WHERE p.status = 'COMPLETED'), 0),
+                 COALESCE(SUM(p.refund_amount) FILTER (WHERE p.status = 'REFUNDED'), 0),
+                 CURRENT_TIMESTAMP
+          FROM payments p
+          WHERE p.created_at >= :startTime AND p.created_at < :endTime
+          GROUP BY CAST(p.created_at AS DATE)
+          """,
+      nativeQuery = true)
+  int recountBetween(
+      @Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime);
+
+  // ==================== PAYMENT STATE CHANGES ====================
+
+  /** A new payment was created. */
+  default void recordCreated(UUID paymentId) {
+    applyDelta(paymentId, randomSlot(), 1, BigDecimal.ZERO, BigDecimal.ZERO);
+  }
+
+  /** A payment was completed; its amount now counts as revenue. */
+  default void recordCompleted(UUID paymentId, BigDecimal amount) {
+    applyDelta(paymentId, randomSlot(), 0, amount, BigDecimal.ZERO);
+  }
+
+  /** A completed payment was refunded; it leaves revenue and its refund counts as refunds. */
+  default void recordRefunded(UUID paymentId, BigDecimal amount, BigDecimal refundAmount) {
+    applyDelta(paymentId, randomSlot(), 0, amount.negate(), refundAmount);
+  }
+
+  private static short randomSlot() {
+    return (short) ThreadLocalRandom.current().nextInt(PaymentDailyRollup.SLOTS);
+  }
+}
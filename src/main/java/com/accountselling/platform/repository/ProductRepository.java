@@ -8,6 +8,7 @@ import java.util.UUID;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -208,11 +209,53 @@ public interface ProductRepository extends JpaRepository<Product, UUID> {
   @Query(
       """
       SELECT p FROM Product p
-      WHERE (SELECT COUNT(s) FROM Stock s WHERE s.product = p AND s.sold = false AND s.reservedUntil IS NULL OR s.reservedUntil < CURRENT_TIMESTAMP) <= p.lowStockThreshold
+      WHERE (SELECT COUNT(s) FROM Stock s
+          WHERE s.product = p AND s.sold = false
+          AND NOT EXISTS (
+              SELECT r FROM StockReservation r
+              WHERE r.stockId = s.id AND r.reservedUntil >= CURRENT_TIMESTAMP)) <= p.lowStockThreshold
       AND p.active = true
       """)
   List<Product> findProductsWithLowStock();
 
+  /**
+   * Find the ID of every product. Used by jobs that walk all products in batches.
+   *
+   * @return product IDs in ascending order
+   */
+  @Query("SELECT p.id FROM Product p ORDER BY p.id")
+  List<UUID> findAllIds();
+
+  /**
+   * Find the low stock threshold of every product. Used to load the low stock watcher at startup
+   * without loading full product entities.
+   *
+   * @return rows of [productId, lowStockThreshold]
+   */
+  @Query("SELECT p.id, p.lowStockThreshold FROM Product p")
+  List<Object[]> findLowStockThresholds();
+
+  /**
+   * Find the pool lease size of every product in hot mode. Polled by every node so their hot
+   * product stock pools follow the same products.
+   *
+   * @return rows of [productId, hotLeaseSize]
+   */
+  @Query("SELECT p.id, p.hotLeaseSize FROM Product p WHERE p.hotLeaseSize IS NOT NULL")
+  List<Object[]> findHotLeaseSizes();
+
+  /**
+   * Switch a product to hot mode on every node, change its pool lease size, or switch it back.
+   *
+   * @param productId the product ID
+   * @param leaseSize pool lease size, or null to leave hot mode
+   * @return number of products updated, 0 if the product does not exist
+   */
+  @Modifying
+  @Query("UPDATE Product p SET p.hotLeaseSize = :leaseSize WHERE p.id = :productId")
+  int updateHotLeaseSize(
+      @Param("productId") UUID productId, @Param("leaseSize") Integer leaseSize);
+
   /**
    * Find products that are out of stock. Used for inventory management.
    *
@@ -221,7 +264,11 @@ public interface ProductRepository extends JpaRepository<Product, UUID> {
   @Query(
       """
       SELECT p FROM Product p
-      WHERE (SELECT COUNT(s) FROM Stock s WHERE s.product = p AND s.sold = false AND s.reservedUntil IS NULL OR s.reservedUntil < CURRENT_TIMESTAMP) = 0
+      WHERE (SELECT COUNT(s) FROM Stock s
+          WHERE s.product = p AND s.sold = false
+          AND NOT EXISTS (
+              SELECT r FROM StockReservation r
+              WHERE r.stockId = s.id AND r.reservedUntil >= CURRENT_TIMESTAMP)) = 0
       AND p.active = true
       """)
   List<Product> findOutOfStockProducts();
@@ -234,7 +281,11 @@ public interface ProductRepository extends JpaRepository<Product, UUID> {
   @Query(
       """
       SELECT p FROM Product p
-      WHERE (SELECT COUNT(s) FROM Stock s WHERE s.product = p AND s.sold = false AND s.reservedUntil IS NULL OR s.reservedUntil < CURRENT_TIMESTAMP) > 0
+      WHERE (SELECT COUNT(s) FROM Stock s
+          WHERE s.product = p AND s.sold = false
+          AND NOT EXISTS (
+              SELECT r FROM StockReservation r
+              WHERE r.stockId = s.id AND r.reservedUntil >= CURRENT_TIMESTAMP)) > 0
       AND p.active = true
       """)
   List<Product> findProductsWithAvailableStock();
@@ -251,7 +302,11 @@ public interface ProductRepository extends JpaRepository<Product, UUID> {
       """
       SELECT p FROM Product p
       WHERE p.category.id = :categoryId
-      AND (SELECT COUNT(s) FROM Stock s WHERE s.product = p AND s.sold = false AND s.reservedUntil IS NULL OR s.reservedUntil < CURRENT_TIMESTAMP) > 0
+      AND (SELECT COUNT(s) FROM Stock s
+          WHERE s.product = p AND s.sold = false
+          AND NOT EXISTS (
+              SELECT r FROM StockReservation r
+              WHERE r.stockId = s.id AND r.reservedUntil >= CURRENT_TIMESTAMP)) > 0
       AND p.active = true
       ORDER BY p.sortOrder ASC, p.name ASC
       """)
@@ -0,0 +1,153 @@
+package com.accountselling.platform.repository;
+
+import com.accountselling.platform.model.ProductStockSummary;
+import jakarta.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for ProductStockSummary entity operations. Stock changes apply count deltas
+ * to one slot row of the product inside their own transaction; the row lock taken by the delta
+ * keeps concurrent changes to the same slot from losing updates. Readers sum the slots.
+ *
+ * <p>รีพอสิทอรี่สำหรับตารางสรุปจำนวนสต็อกต่อสินค้า
+ */
+@Repository
+public interface ProductStockSummaryRepository
+    extends JpaRepository<ProductStockSummary, ProductStockSummary.Key> {
+
+  String TOTALS_SELECT =
+      """
+      SELECT new com.accountselling.platform.model.ProductStockSummary(
+          s.productId, SUM(s.totalCount), SUM(s.availableCount), SUM(s.reservedCount),
+          SUM(s.soldCount))
+      FROM ProductStockSummary s
+      """;
+
+  /**
+   * Add count deltas to one slot of the summary of a product. Must run inside the transaction that
+   * changes the stock rows.
+   *
+   * @param productId the product ID
+   * @param slot summary slot to add to
+   * @param total change in total stock
+   * @param available change in available stock
+   * @param reserved change in reserved stock
+   * @param sold change in sold stock
+   * @return number of summary rows updated, 0 if the product has no summary row yet
+   */
+  @Modifying
+  @Query(
+      """
+      UPDATE ProductStockSummary s
+      SET s.totalCount = s.totalCount + :total,
+          s.availableCount = s.availableCount + :available,
+          s.reservedCount = s.reservedCount + :reserved,
+          s.soldCount = s.soldCount + :sold,
+          s.updatedAt = CURRENT_TIMESTAMP
+      WHERE s.productId = :productId AND s.slot = :slot
+      """)
+  int applyDelta(
+      @Param("productId") UUID productId,
+      @Param("slot") short slot,
+      @Param("total") long total,
+      @Param("available") long available,
+      @Param("reserved") long reserved,
+      @Param("sold") long sold);
+
+  /**
+   * Get the counts of a product, summing its slots.
+   *
+   * @param productId the product ID
+   * @return summed counts, or empty if the product has no summary rows
+   */
+  @Query(TOTALS_SELECT + " WHERE s.productId = :productId GROUP BY s.productId")
+  Optional<ProductStockSummary> findTotalsByProductId(@Param("productId") UUID productId);
+
+  /**
+   * Get the counts of several products, summing the slots of each.
+   *
+   * @param productIds the product IDs
+   * @return summed counts of the products that have summary rows
+   */
+  @Query(TOTALS_SELECT + " WHERE s.productId IN :productIds GROUP BY s.productId")
+  List<ProductStockSummary> findTotalsByProductIds(
+      @Param("productIds") Collection<UUID> productIds);
+
+  /**
+   * Find every slot row of the summaries of products and lock them until the end of the
+   * transaction. Used by the drift check so stock changes of the locked products wait until the
+   * recount is written. Rows are locked in product ID order, the order stock changes apply their
+   * deltas in.
+   *
+   * @param productIds the product IDs
+   * @return slot rows of the products that have any, ordered by product ID and slot
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query(
+      "SELECT s FROM ProductStockSummary s WHERE s.productId IN :productIds ORDER BY s.productId,"
+          + " s.slot")
+  List<ProductStockSummary> findAllSlotsForUpdate(@Param("productIds") Collection<UUID> productIds);
+
+  /**
+   * Delete the summary rows of a product.
+   *
+   * @param productId the product ID
+   * @return number of rows deleted
+   */
+  @Modifying
+  @Query("DELETE FROM ProductStockSummary s WHERE s.productId = :productId")
+  int deleteByProductId(@Param("productId") UUID productId);
+
+  // ==================== STOCK STATE CHANGES ====================
+
+  /** New available stock items were added. */
+  default void recordAdded(UUID productId, long count) {
+    applyDelta(productId, currentSlot(), count, count, 0, 0);
+  }
+
+  /** Available stock items were reserved. */
+  default void recordReserved(UUID productId, long count) {
+    applyDelta(productId, currentSlot(), 0, -count, count, 0);
+  }
+
+  /** Reserved stock items were released back to available. */
+  default void recordReleased(UUID productId, long count) {
+    applyDelta(productId, currentSlot(), 0, count, -count, 0);
+  }
+
+  /** Stock items were sold, either straight from available or from a reservation. */
+  default void recordSold(UUID productId, long fromAvailable, long fromReserved) {
+    applyDelta(
+        productId,
+        currentSlot(),
+        0,
+        -fromAvailable,
+        -fromReserved,
+        fromAvailable + fromReserved);
+  }
+
+  /** Unsold stock items were deleted. */
+  default void recordRemoved(UUID productId, long fromAvailable, long fromReserved) {
+    applyDelta(
+        productId,
+        currentSlot(),
+        -(fromAvailable + fromReserved),
+        -fromAvailable,
+        -fromReserved,
+        0);
+  }
+
+  // A transaction stays on one thread, so all its deltas of a product go to the same row
+  private static short currentSlot() {
+    return (short) (Thread.currentThread().getId() % ProductStockSummary.SLOTS);
+  }
+}
@@ -0,0 +1,31 @@
+package com.accountselling.platform.repository;
+
+import com.accountselling.platform.model.StockArchiveCheckpoint;
+import jakarta.persistence.LockModeType;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for StockArchiveCheckpoint entity operations.
+ *
+ * <p>รีพอสิทอรี่สำหรับจุดตรวจสอบของงานจัดเก็บสต็อก
+ */
+@Repository
+public interface StockArchiveCheckpointRepository
+    extends JpaRepository<StockArchiveCheckpoint, String> {
+
+  /**
+   * Find a checkpoint and lock it until the end of the transaction, so archival batches started on
+   * several nodes run one after another instead of racing on the checkpoint.
+   *
+   * @param name the checkpoint name
+   * @return the checkpoint, if it exists
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT c FROM StockArchiveCheckpoint c WHERE c.name = :name")
+  Optional<StockArchiveCheckpoint> findByNameForUpdate(@Param("name") String name);
+}
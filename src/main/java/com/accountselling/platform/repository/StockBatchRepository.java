@@ -0,0 +1,138 @@
+package com.accountselling.platform.repository;
+
+import com.accountselling.platform.dto.stock.StockImportRecord;
+import com.accountselling.platform.util.AccountDataFingerprint;
+import com.accountselling.platform.util.UuidV7;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * JDBC repository for set-based and batched stock writes that would be too slow through JPA, such
+ * as streaming bulk imports. Statements bypass the persistence context, so callers must not rely on
+ * managed Stock entities seeing these rows within the same transaction.
+ *
+ * <p>รีพอสิทอรี่ JDBC สำหรับการเขียนสต็อกแบบกลุ่มจำนวนมาก
+ */
+@Repository
+@RequiredArgsConstructor
+public class StockBatchRepository {
+
+  // Archived sold items keep their fingerprint, so they are duplicates too
+  private static final String FIND_EXISTING_FINGERPRINTS_SQL =
+      """
+      SELECT fingerprint FROM stock WHERE product_id = ? AND fingerprint = ANY(?)
+      UNION
+      SELECT fingerprint FROM stock_sold_history WHERE product_id = ? AND fingerprint = ANY(?)
+      """;
+
+  // Rows that lose a race with a concurrent insert of the same fingerprint are skipped, and only
+  // the rows actually inserted are returned
+  private static final String INSERT_STOCK_SQL =
+      """
+      INSERT INTO stock (id, product_id, account_data, fingerprint, additional_info, available,
+                         sold, created_at, updated_at, version)
+      SELECT r.id, ?, r.account_data, r.fingerprint, r.additional_info, true, false, ?, ?, 0
+      FROM unnest(?::uuid[], ?::varchar[], ?::varchar[], ?::varchar[])
+          AS r (id, account_data, fingerprint, additional_info)
+      ON CONFLICT (product_id, fingerprint) DO NOTHING
+      RETURNING id
+      """;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Find which of the given account data fingerprints already exist for a product, live or
+   * archived, in one probe of each table's (product_id, fingerprint) index.
+   *
+   * @param productId the product ID to check
+   * @param fingerprints candidate fingerprints
+   * @return the subset of fingerprints that already exist
+   */
+  public Set<String> findExistingFingerprints(UUID productId, Collection<String> fingerprints) {
+    if (fingerprints.isEmpty()) {
+      return Set.of();
+    }
+
+    Set<String> existing = new HashSet<>();
+    jdbcTemplate.query(
+        connection -> {
+          PreparedStatement statement = connection.prepareStatement(FIND_EXISTING_FINGERPRINTS_SQL);
+          Array values = connection.createArrayOf("varchar", fingerprints.toArray());
+          statement.setObject(1, productId);
+          statement.setArray(2, values);
+          statement.setObject(3, productId);
+          statement.setArray(4, values);
+          return statement;
+        },
+        resultSet -> {
+          existing.add(resultSet.getString(1));
+        });
+    return existing;
+  }
+
+  /**
+   * Insert new available stock items for a product, one multi-row statement per batch. The
+   * fingerprint of each record is computed here so it always matches the stored account data.
+   * Rows are counted from what the statement returns, so records skipped as duplicates are never
+   * counted as inserted.
+   *
+   * @param productId the product ID the stock belongs to
+   * @param records records to insert
+   * @param batchSize number of rows per insert statement
+   * @return number of rows inserted
+   */
+  public int insertStock(UUID productId, List<StockImportRecord> records, int batchSize) {
+    Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+    int inserted = 0;
+    for (int from = 0; from < records.size(); from += batchSize) {
+      inserted +=
+          insertBatch(
+              productId, records.subList(from, Math.min(from + batchSize, records.size())), now);
+    }
+    return inserted;
+  }
+
+  private int insertBatch(UUID productId, List<StockImportRecord> batch, Timestamp now) {
+    int size = batch.size();
+    UUID[] ids = new UUID[size];
+    String[] accountData = new String[size];
+    String[] fingerprints = new String[size];
+    String[] additionalInfo = new String[size];
+    for (int i = 0; i < size; i++) {
+      StockImportRecord record = batch.get(i);
+      ids[i] = UuidV7.randomUuid();
+      accountData[i] = record.accountData();
+      fingerprints[i] = AccountDataFingerprint.of(record.accountData());
+      additionalInfo[i] = record.additionalInfo();
+    }
+
+    int[] inserted = new int[1];
+    jdbcTemplate.query(
+        connection -> {
+          PreparedStatement statement = connection.prepareStatement(INSERT_STOCK_SQL);
+          statement.setObject(1, productId);
+          statement.setTimestamp(2, now);
+          statement.setTimestamp(3, now);
+          statement.setArray(4, connection.createArrayOf("uuid", ids));
+          statement.setArray(5, connection.createArrayOf("varchar", accountData));
+          statement.setArray(6, connection.createArrayOf("varchar", fingerprints));
+          statement.setArray(7, connection.createArrayOf("varchar", additionalInfo));
+          return statement;
+        },
+        resultSet -> {
+          inserted[0]++;
+        });
+    return inserted[0];
+  }
+}
@@ -0,0 +1,99 @@
+package com.accountselling.platform.repository;
+
+import com.accountselling.platform.model.StockLease;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repository for the hot product stock leases of every node. Used to share demand between nodes
+ * and to rebalance leased stock when one node runs dry.
+ *
+ * <p>รีพอสิทอรี่สำหรับข้อมูลการเช่าสต็อกของแต่ละโหนด
+ */
+@Repository
+public interface StockLeaseRepository extends JpaRepository<StockLease, StockLease.Key> {
+
+  /**
+   * Find the leases of live nodes on specific products.
+   *
+   * @param productIds the product IDs to look up
+   * @param now current time; leases that ended before it belong to stopped nodes
+   * @return live leases of every node, including this one
+   */
+  @Query("SELECT l FROM StockLease l WHERE l.productId IN :productIds AND l.leasedUntil > :now")
+  List<StockLease> findLiveByProductIds(
+      @Param("productIds") Collection<UUID> productIds, @Param("now") LocalDateTime now);
+
+  /**
+   * Create or refresh a node's lease on a product. PostgreSQL only.
+   *
+   * @param productId the product ID
+   * @param nodeId the node ID
+   * @param pooledCount items waiting in the node's pool
+   * @param wantedCount items the node could not lease
+   * @param leasedUntil when the lease ends unless refreshed again
+   * @return number of rows written
+   */
+  @Modifying
+  @Transactional
+  @Query(
+      value =
+          """
+          INSERT INTO stock_lease
+              (product_id, node_id, pooled_count, wanted_count, leased_until, updated_at)
+          VALUES (:productId, :nodeId, :pooledCount, :wantedCount, :leasedUntil, CURRENT_TIMESTAMP)
+          ON CONFLICT (product_id, node_id) DO UPDATE
+          SET pooled_count = EXCLUDED.pooled_count,
+              wanted_count = EXCLUDED.wanted_count,
+              leased_until = EXCLUDED.leased_until,
+              updated_at = EXCLUDED.updated_at
+          """,
+      nativeQuery = true)
+  int upsertLease(
+      @Param("productId") UUID productId,
+      @Param("nodeId") String nodeId,
+      @Param("pooledCount") int pooledCount,
+      @Param("wantedCount") int wantedCount,
+      @Param("leasedUntil") LocalDateTime leasedUntil);
+
+  /**
+   * Delete a node's leases, for example on shutdown.
+   *
+   * @param nodeId the node ID
+   * @return number of leases deleted
+   */
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM StockLease l WHERE l.nodeId = :nodeId")
+  int deleteByNodeId(@Param("nodeId") String nodeId);
+
+  /**
+   * Delete the leases of every node on a product that left hot mode.
+   *
+   * @param productId the product ID
+   * @return number of leases deleted
+   */
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM StockLease l WHERE l.productId = :productId")
+  int deleteByProductId(@Param("productId") UUID productId);
+
+  /**
+   * Delete leases of nodes that stopped refreshing them.
+   *
+   * @param before leases that ended before this time are deleted
+   * @return number of leases deleted
+   */
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM StockLease l WHERE l.leasedUntil < :before")
+  int deleteExpired(@Param("before") LocalDateTime before);
+}
@@ -2,15 +2,21 @@ package com.accountselling.platform.repository;
 
 import com.accountselling.platform.model.Product;
 import com.accountselling.platform.model.Stock;
+import jakarta.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
@@ -26,6 +32,9 @@ import org.springframework.transaction.annotation.Transactional;
 @Repository
 public interface StockRepository extends JpaRepository<Stock, UUID> {
 
+  /** Rows fetched per round trip by the streaming queries. */
+  String STREAM_FETCH_SIZE = "500";
+
   // ==================== BASIC STOCK QUERIES ====================
 
   /**
@@ -55,6 +64,37 @@ public interface StockRepository extends JpaRepository<Stock, UUID> {
    */
   Page<Stock> findByProduct(Product product, Pageable pageable);
 
+  /**
+   * Find the newest stock items of a product. First page of the keyset paginated stock listing,
+   * served by the (product_id, created_at, id) index.
+   *
+   * @param productId the product ID to list stock for
+   * @param limit maximum number of items
+   * @return stock items ordered by creation time and ID, newest first
+   */
+  @Query(
+      "SELECT s FROM Stock s WHERE s.product.id = :productId ORDER BY s.createdAt DESC, s.id DESC")
+  List<Stock> findNewestByProductId(@Param("productId") UUID productId, Limit limit);
+
+  /**
+   * Find the stock items of a product that come after a keyset cursor. Next pages of the keyset
+   * paginated stock listing; unlike an offset, the cost does not grow with the page number.
+   *
+   * @param productId the product ID to list stock for
+   * @param createdAt creation time of the last item of the previous page
+   * @param id ID of the last item of the previous page
+   * @param limit maximum number of items
+   * @return stock items older than the cursor, newest first
+   */
+  @Query(
+      "SELECT s FROM Stock s WHERE s.product.id = :productId AND (s.createdAt, s.id) <"
+          + " (:createdAt, :id) ORDER BY s.createdAt DESC, s.id DESC")
+  List<Stock> findNewestByProductIdBefore(
+      @Param("productId") UUID productId,
+      @Param("createdAt") LocalDateTime createdAt,
+      @Param("id") UUID id,
+      Limit limit);
+
   // ==================== AVAILABILITY QUERIES ====================
 
   /**
@@ -64,8 +104,9 @@ public interface StockRepository extends JpaRepository<Stock, UUID> {
    * @return list of available stock items
    */
   @Query(
-      "SELECT s FROM Stock s WHERE s.sold = false AND (s.reservedUntil IS NULL OR s.reservedUntil <"
-          + " CURRENT_TIMESTAMP) ORDER BY s.createdAt ASC")
+      "SELECT s FROM Stock s LEFT JOIN StockReservation r ON r.stockId = s.id WHERE s.sold = false"
+          + " AND (r.stockId IS NULL OR r.reservedUntil < CURRENT_TIMESTAMP) ORDER BY s.createdAt"
+          + " ASC")
   List<Stock> findAvailableStock();
 
   /**
@@ -75,8 +116,9 @@ public interface StockRepository extends JpaRepository<Stock, UUID> {
    * @return list of available stock items for the product
    */
   @Query(
-      "SELECT s FROM Stock s WHERE s.product = :product AND s.sold = false AND (s.reservedUntil IS"
-          + " NULL OR s.reservedUntil < CURRENT_TIMESTAMP) ORDER BY s.createdAt ASC")
+      "SELECT s FROM Stock s LEFT JOIN StockReservation r ON r.stockId = s.id WHERE s.product ="
+          + " :product AND s.sold = false AND (r.stockId IS NULL OR r.reservedUntil <"
+          + " CURRENT_TIMESTAMP) ORDER BY s.createdAt ASC")
   List<Stock> findAvailableStockByProduct(@Param("product") Product product);
 
   /**
@@ -86,9 +128,9 @@ public interface StockRepository extends JpaRepository<Stock, UUID> {
    * @return list of available stock items for the product
    */
   @Query(
-      "SELECT s FROM Stock s WHERE s.product.id = :productId AND s.sold = false AND"
-          + " (s.reservedUntil IS NULL OR s.reservedUntil < CURRENT_TIMESTAMP) ORDER BY s.createdAt"
-          + " ASC")
+      "SELECT s FROM Stock s LEFT JOIN StockReservation r ON r.stockId = s.id WHERE s.product.id ="
+          + " :productId AND s.sold = false AND (r.stockId IS NULL OR r.reservedUntil <"
+          + " CURRENT_TIMESTAMP) ORDER BY s.createdAt ASC")
   List<Stock> findAvailableStockByProductId(@Param("productId") UUID productId);
 
   /**
@@ -99,8 +141,9 @@ public interface StockRepository extends JpaRepository<Stock, UUID> {
    * @return first available stock item or empty optional
    */
   @Query(
-      "SELECT s FROM Stock s WHERE s.product = :product AND s.sold = false AND (s.reservedUntil IS"
-          + " NULL OR s.reservedUntil < CURRENT_TIMESTAMP) ORDER BY s.createdAt ASC LIMIT 1")
+      "SELECT s FROM Stock s LEFT JOIN StockReservation r ON r.stockId = s.id WHERE s.product ="
+          + " :product AND s.sold = false AND (r.stockId IS NULL OR r.reservedUntil <"
+          + " CURRENT_TIMESTAMP) ORDER BY s.createdAt ASC LIMIT 1")
   Optional<Stock> findFirstAvailableByProduct(@Param("product") Product product);
 
   /**
@@ -111,9 +154,9 @@ public interface StockRepository extends JpaRepository<Stock, UUID> {
    * @return first available stock item or empty optional
    */
   @Query(
-      "SELECT s FROM Stock s WHERE s.product.id = :productId AND s.sold = false AND"
-          + " (s.reservedUntil IS NULL OR s.reservedUntil < CURRENT_TIMESTAMP) ORDER BY s.createdAt"
-          + " ASC LIMIT 1")
+      "SELECT s FROM Stock s LEFT JOIN StockReservation r ON r.stockId = s.id WHERE s.product.id ="
+          + " :productId AND s.sold = false AND (r.stockId IS NULL OR r.reservedUntil <"
+          + " CURRENT_TIMESTAMP) ORDER BY s.createdAt ASC LIMIT 1")
   Optional<Stock> findFirstAvailableByProductId(@Param("productId") UUID productId);
 
   // ==================== SOLD STOCK QUERIES ====================
@@ -162,6 +205,56 @@ public interface StockRepository extends JpaRepository<Stock, UUID> {
       @Param("startDate") LocalDateTime startDate,
       @Param("endDate") LocalDateTime endDate);
 
+  // ==================== STREAMING QUERIES ====================
+
+  /**
+   * Stream sold stock items with their product and category for exports. Rows are read through a
+   * server-side cursor in blocks of {@link #STREAM_FETCH_SIZE}, so the stream must be consumed and
+   * closed inside a read-only transaction. Bounds left null are ignored.
+   *
+   * @param startDate earliest sale time, or null
+   * @param endDate latest sale time, or null
+   * @return stream of sold stock items, most recent sale first
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+  @Query(
+      "SELECT s FROM Stock s JOIN FETCH s.product p JOIN FETCH p.category WHERE s.sold = true AND"
+          + " s.soldAt >= COALESCE(:startDate, s.soldAt) AND s.soldAt <= COALESCE(:endDate,"
+          + " s.soldAt) ORDER BY s.soldAt DESC")
+  Stream<Stock> streamSold(
+      @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+
+  /**
+   * Stream sold stock items of one product for exports. See {@link #streamSold}.
+   *
+   * @param productId the product ID to stream sold stock for
+   * @param startDate earliest sale time, or null
+   * @param endDate latest sale time, or null
+   * @return stream of sold stock items, most recent sale first
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+  @Query(
+      "SELECT s FROM Stock s JOIN FETCH s.product p JOIN FETCH p.category WHERE p.id = :productId"
+          + " AND s.sold = true AND s.soldAt >= COALESCE(:startDate, s.soldAt) AND s.soldAt <="
+          + " COALESCE(:endDate, s.soldAt) ORDER BY s.soldAt DESC")
+  Stream<Stock> streamSoldByProductId(
+      @Param("productId") UUID productId,
+      @Param("startDate") LocalDateTime startDate,
+      @Param("endDate") LocalDateTime endDate);
+
+  /**
+   * Stream stock items whose reservation lapsed but was not released yet, for exports. Read
+   * through a server-side cursor like {@link #streamSold}.
+   *
+   * @return stream of stock items with expired reservations, oldest deadline first
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+  @Query(
+      "SELECT s FROM Stock s JOIN FETCH s.product p JOIN FETCH p.category JOIN StockReservation r"
+          + " ON r.stockId = s.id WHERE s.sold = false AND r.reservedUntil <= CURRENT_TIMESTAMP"
+          + " ORDER BY r.reservedUntil ASC")
+  Stream<Stock> streamExpiredReservations();
+
   // ==================== RESERVATION QUERIES ====================
 
   /**
@@ -170,8 +263,8 @@ public interface StockRepository extends JpaRepository<Stock, UUID> {
    * @return list of currently reserved stock items
    */
   @Query(
-      "SELECT s FROM Stock s WHERE s.sold = false AND s.reservedUntil IS NOT NULL AND"
-          + " s.reservedUntil > CURRENT_TIMESTAMP ORDER BY s.reservedUntil ASC")
+      "SELECT s FROM Stock s JOIN StockReservation r ON r.stockId = s.id WHERE s.sold = false AND"
+          + " r.reservedUntil > CURRENT_TIMESTAMP ORDER BY r.reservedUntil ASC")
   List<Stock> findReservedStock();
 
   /**
@@ -181,8 +274,9 @@ public interface StockRepository extends JpaRepository<Stock, UUID> {
    * @return list of reserved stock items for the product
    */
   @Query(
-      "SELECT s FROM Stock s WHERE s.product = :product AND s.sold = false AND s.reservedUntil IS"
-          + " NOT NULL AND s.reservedUntil > CURRENT_TIMESTAMP ORDER BY s.reservedUntil ASC")
+      "SELECT s FROM Stock s JOIN StockReservation r ON r.stockId = s.id WHERE s.product = :product"
+          + " AND s.sold = false AND r.reservedUntil > CURRENT_TIMESTAMP ORDER BY r.reservedUntil"
+          + " ASC")
   List<Stock> findReservedStockByProduct(@Param("product") Product product);
 
   /**
@@ -192,10 +286,29 @@ public interface StockRepository extends JpaRepository<Stock, UUID> {
    * @return list of stock items with expired reservations
    */
   @Query(
-      "SELECT s FROM Stock s WHERE s.sold = false AND s.reservedUntil IS NOT NULL AND"
-          + " s.reservedUntil <= CURRENT_TIMESTAMP")
+      "SELECT s FROM Stock s JOIN StockReservation r ON r.stockId = s.id WHERE s.sold = false AND"
+          + " r.reservedUntil <= CURRENT_TIMESTAMP")
   List<Stock> findExpiredReservations();
 
+  /**
+   * Find the reservation deadline of every unsold stock item that still holds one. Used to rebuild
+   * the in-process reservation expiry schedule at startup.
+   *
+   * @return rows of [stockId, reservedUntil]
+   */
+  @Query("SELECT r.stockId, r.reservedUntil FROM StockReservation r")
+  List<Object[]> findReservationDeadlines();
+
+  /**
+   * Find the product recorded on the reservation of specific stock items. Used by the reservation
+   * ledger consistency check.
+   *
+   * @param stockIds the stock IDs to look up
+   * @return rows of [stockId, productId] for the items that hold a reservation
+   */
+  @Query("SELECT r.stockId, r.productId FROM StockReservation r WHERE r.stockId IN :stockIds")
+  List<Object[]> findReservationProductsByStockIds(@Param("stockIds") Collection<UUID> stockIds);
+
   /**
    * Find reservations expiring soon. Used for proactive reservation management and notifications.
    *
@@ -203,9 +316,9 @@ public interface StockRepository extends JpaRepository<Stock, UUID> {
    * @return list of stock items with reservations expiring within the threshold
    */
   @Query(
-      "SELECT s FROM Stock s WHERE s.sold = false AND s.reservedUntil IS NOT NULL AND"
-          + " s.reservedUntil > CURRENT_TIMESTAMP AND s.reservedUntil <= :threshold ORDER BY"
-          + " s.reservedUntil ASC")
+      "SELECT s FROM Stock s JOIN StockReservation r ON r.stockId = s.id WHERE s.sold = false AND"
+          + " r.reservedUntil > CURRENT_TIMESTAMP AND r.reservedUntil <= :threshold ORDER BY"
+          + " r.reservedUntil ASC")
   List<Stock> findReservationsExpiringSoon(@Param("threshold") LocalDateTime threshold);
 
   // ==================== STOCK COUNTING QUERIES ====================
@@ -225,8 +338,9 @@ public interface StockRepository extends JpaRepository<Stock, UUID> {
    * @return count of available stock items for the product
    */
   @Query(
-      "SELECT COUNT(s) FROM Stock s WHERE s.product = :product AND s.sold = false AND"
-          + " (s.reservedUntil IS NULL OR s.reservedUntil < CURRENT_TIMESTAMP)")
+      "SELECT COUNT(s) FROM Stock s LEFT JOIN StockReservation r ON r.stockId = s.id WHERE"
+          + " s.product = :product AND s.sold = false AND (r.stockId IS NULL OR r.reservedUntil <"
+          + " CURRENT_TIMESTAMP)")
   long countAvailableByProduct(@Param("product") Product product);
 
   /**
@@ -236,10 +350,62 @@ public interface StockRepository extends JpaRepository<Stock, UUID> {
    * @return count of available stock items for the product
    */
   @Query(
-      "SELECT COUNT(s) FROM Stock s WHERE s.product.id = :productId AND s.sold = false AND"
-          + " (s.reservedUntil IS NULL OR s.reservedUntil < CURRENT_TIMESTAMP)")
+      "SELECT COUNT(s) FROM Stock s LEFT JOIN StockReservation r ON r.stockId = s.id WHERE"
+          + " s.product.id = :productId AND s.sold = false AND (r.stockId IS NULL OR"
+          + " r.reservedUntil < CURRENT_TIMESTAMP)")
   long countAvailableByProductId(@Param("productId") UUID productId);
 
+  /**
+   * Count available stock items for several products in one grouped query. Used for reconciling the
+   * in-memory available stock counters with the database.
+   *
+   * @param productIds the product IDs to count available stock for
+   * @return rows of [productId, availableCount]; products without available stock are omitted
+   */
+  @Query(
+      "SELECT s.product.id, COUNT(s) FROM Stock s LEFT JOIN StockReservation r ON r.stockId = s.id"
+          + " WHERE s.product.id IN :productIds AND s.sold = false AND (r.stockId IS NULL OR"
+          + " r.reservedUntil < CURRENT_TIMESTAMP) GROUP BY s.product.id")
+  List<Object[]> countAvailableGroupedByProductIds(@Param("productIds") List<UUID> productIds);
+
+  /**
+   * Count stock items by state for several products in one grouped query. Used for verifying the
+   * product stock summaries. Like the summaries, items holding a reservation count as reserved until
+   * the reservation is released, and archived sold stock counts as sold.
+   *
+   * <p>Live and archived stock are counted in one statement, so a batch moved by the archival job
+   * while the count runs is seen in exactly one of the two tables. PostgreSQL only.
+   *
+   * @param productIds the product IDs to count stock for
+   * @return rows of [productId, total, available, reserved, sold]; products without stock are
+   *     omitted
+   */
+  @Query(
+      value =
+          """
+          SELECT c.product_id, SUM(c.total), SUM(c.available), SUM(c.reserved), SUM(c.sold)
+          FROM (
+              SELECT
+                  s.product_id,
+                  COUNT(*) AS total,
+                  COUNT(*) FILTER (WHERE s.sold = false AND r.stock_id IS NULL) AS available,
+                  COUNT(*) FILTER (WHERE s.sold = false AND r.stock_id IS NOT NULL) AS reserved,
+                  COUNT(*) FILTER (WHERE s.sold = true) AS sold
+              FROM stock s
+              LEFT JOIN stock_reservation r ON r.stock_id = s.id
+              WHERE s.product_id IN (:productIds)
+              GROUP BY s.product_id
+              UNION ALL
+              SELECT h.product_id, COUNT(*), 0, 0, COUNT(*)
+              FROM stock_sold_history h
+              WHERE h.product_id IN (:productIds)
+              GROUP BY h.product_id
+          ) c
+          GROUP BY c.product_id
+          """,
+      nativeQuery = true)
+  List<Object[]> countByStateGroupedByProductIds(@Param("productIds") List<UUID> productIds);
+
   /**
    * Count sold stock items by product. Used for sales reporting.
    *
@@ -255,8 +421,8 @@ public interface StockRepository extends JpaRepository<Stock, UUID> {
    * @return count of reserved stock items for the product
    */
   @Query(
-      "SELECT COUNT(s) FROM Stock s WHERE s.product = :product AND s.sold = false AND"
-          + " s.reservedUntil IS NOT NULL AND s.reservedUntil > CURRENT_TIMESTAMP")
+      "SELECT COUNT(s) FROM Stock s JOIN StockReservation r ON r.stockId = s.id WHERE s.product ="
+          + " :product AND s.sold = false AND r.reservedUntil > CURRENT_TIMESTAMP")
   long countReservedByProduct(@Param("product") Product product);
 
   // ==================== BULK OPERATIONS ====================
@@ -268,13 +434,29 @@ public interface StockRepository extends JpaRepository<Stock, UUID> {
    */
   @Modifying
   @Transactional
-  @Query(
-      "UPDATE Stock s SET s.reservedUntil = NULL WHERE s.sold = false AND s.reservedUntil IS NOT"
-          + " NULL AND s.reservedUntil <= CURRENT_TIMESTAMP")
+  @Query("DELETE FROM StockReservation r WHERE r.reservedUntil <= CURRENT_TIMESTAMP")
   int clearExpiredReservations();
 
   /**
-   * Reserve multiple stock items for a product. Used for bulk reservation operations.
+   * Clear expired reservations in bulk and report which products they belonged to. Used by the
+   * scheduled cleanup so that released items can be credited back to the available stock counters.
+   *
+   * @return product ID of every stock item whose reservation was cleared (one entry per item)
+   */
+  @Transactional
+  @Query(
+      value =
+          """
+          DELETE FROM stock_reservation
+          WHERE reserved_until <= CURRENT_TIMESTAMP
+          RETURNING product_id
+          """,
+      nativeQuery = true)
+  List<UUID> releaseExpiredReservations();
+
+  /**
+   * Reserve multiple stock items for a product. Items holding a reservation, including one that
+   * lapsed but was not released yet, are skipped. Used for bulk reservation operations.
    *
    * @param productId the product ID to reserve stock for
    * @param reservedUntil the reservation end time
@@ -286,17 +468,13 @@ public interface StockRepository extends JpaRepository<Stock, UUID> {
   @Query(
       value =
           """
-          UPDATE stock SET reserved_until = :reservedUntil
-          WHERE id IN (
-              SELECT id FROM (
-                  SELECT id FROM stock
-                  WHERE product_id = :productId
-                  AND sold = false
-                  AND (reserved_until IS NULL OR reserved_until < CURRENT_TIMESTAMP)
-                  ORDER BY created_at ASC
-                  LIMIT :limit
-              ) AS subquery
-          )
+          INSERT INTO stock_reservation (stock_id, product_id, reserved_until, created_at)
+          SELECT s.id, s.product_id, :reservedUntil, CURRENT_TIMESTAMP FROM stock s
+          WHERE s.product_id = :productId
+          AND s.sold = false
+          AND NOT EXISTS (SELECT 1 FROM stock_reservation r WHERE r.stock_id = s.id)
+          ORDER BY s.created_at ASC
+          LIMIT :limit
           """,
       nativeQuery = true)
   int reserveStockItems(
@@ -304,6 +482,178 @@ public interface StockRepository extends JpaRepository<Stock, UUID> {
       @Param("reservedUntil") LocalDateTime reservedUntil,
       @Param("limit") int limit);
 
+  /**
+   * Atomically claim available stock items for a product in a single statement. Candidate rows are
+   * locked with FOR UPDATE SKIP LOCKED, so concurrent buyers never block on or conflict with rows
+   * another transaction is claiming; each caller takes the next unlocked items in FIFO order. Safe
+   * to run at READ COMMITTED. Used for reservation during purchase.
+   *
+   * <p>The claim inserts holds into stock_reservation and only locks the stock rows, so the stock
+   * rows themselves are not rewritten. A lapsed hold that was not released yet is replaced in
+   * place. A candidate whose hold was committed by another buyer after this statement started is
+   * skipped by the conflict check, so the claim can come back short while stock remains; callers
+   * retry the remainder.
+   *
+   * <p>Each row tells whether the hold was inserted or took over a lapsed hold. A lapsed hold still
+   * counts as reserved until it is released, so only inserted holds move an item from available to
+   * reserved.
+   *
+   * @param productId the product ID to claim stock for
+   * @param reservedUntil the reservation end time
+   * @param quantity maximum number of items to claim
+   * @return rows of [stockId, inserted] for the claimed items (fewer than requested when stock
+   *     runs out)
+   */
+  @Transactional
+  @Query(
+      value =
+          """
+          INSERT INTO stock_reservation (stock_id, product_id, reserved_until, created_at)
+          SELECT s.id, s.product_id, :reservedUntil, CURRENT_TIMESTAMP FROM stock s
+          WHERE s.product_id = :productId
+          AND s.sold = false
+          AND (s.leased_until IS NULL OR s.leased_until < CURRENT_TIMESTAMP)
+          AND NOT EXISTS (
+              SELECT 1 FROM stock_reservation r
+              WHERE r.stock_id = s.id
+              AND r.reserved_until >= CURRENT_TIMESTAMP
+          )
+          ORDER BY s.created_at ASC
+          LIMIT :quantity
+          FOR UPDATE OF s SKIP LOCKED
+          ON CONFLICT (stock_id) DO UPDATE
+          SET reserved_until = EXCLUDED.reserved_until, created_at = EXCLUDED.created_at
+          WHERE stock_reservation.reserved_until < CURRENT_TIMESTAMP
+          RETURNING stock_id, (xmax = 0) AS inserted
+          """,
+      nativeQuery = true)
+  List<Object[]> claimAvailableStock(
+      @Param("productId") UUID productId,
+      @Param("reservedUntil") LocalDateTime reservedUntil,
+      @Param("quantity") int quantity);
+
+  /**
+   * Claim available stock items of several products in one statement, as {@link
+   * #claimAvailableStock} does for one product. Each product is claimed through its own lateral
+   * subquery, so every line of an order is served by the same index range scan as a single product
+   * claim. The arrays are matched by position. PostgreSQL only.
+   *
+   * @param productIds the product IDs to claim stock for
+   * @param quantities the number of items to claim per product, matching productIds
+   * @param reservedUntil when the reservations expire
+   * @return rows of [stockId, productId, inserted] for the claimed items (fewer than requested for
+   *     a product when its stock runs out)
+   */
+  @Transactional
+  @Query(
+      value =
+          """
+          WITH wanted (product_id, quantity) AS (
+              SELECT * FROM unnest(CAST(:productIds AS uuid[]), CAST(:quantities AS int[]))
+          )
+          INSERT INTO stock_reservation (stock_id, product_id, reserved_until, created_at)
+          SELECT c.id, c.product_id, :reservedUntil, CURRENT_TIMESTAMP
+          FROM wanted w
+          CROSS JOIN LATERAL (
+              SELECT s.id, s.product_id FROM stock s
+              WHERE s.product_id = w.product_id
+              AND s.sold = false
+              AND (s.leased_until IS NULL OR s.leased_until < CURRENT_TIMESTAMP)
+              AND NOT EXISTS (
+                  SELECT 1 FROM stock_reservation r
+                  WHERE r.stock_id = s.id
+                  AND r.reserved_until >= CURRENT_TIMESTAMP
+              )
+              ORDER BY s.created_at ASC
+              LIMIT w.quantity
+              FOR UPDATE OF s SKIP LOCKED
+          ) c
+          ON CONFLICT (stock_id) DO UPDATE
+          SET reserved_until = EXCLUDED.reserved_until, created_at = EXCLUDED.created_at
+          WHERE stock_reservation.reserved_until < CURRENT_TIMESTAMP
+          RETURNING stock_id, product_id, (xmax = 0) AS inserted
+          """,
+      nativeQuery = true)
+  List<Object[]> claimAvailableStockForProducts(
+      @Param("productIds") UUID[] productIds,
+      @Param("quantities") Integer[] quantities,
+      @Param("reservedUntil") LocalDateTime reservedUntil);
+
+  /**
+   * Lease a block of available stock items of a product into this node's hot product stock pool.
+   * Leased items stay available but are skipped by {@link #claimAvailableStock}, so buyers served
+   * from the pool do not contend with buyers claiming from the table. Uses FOR UPDATE SKIP LOCKED
+   * like the regular claim.
+   *
+   * @param productId the product ID to lease stock for
+   * @param leasedUntil the lease end time; lapsed leases are free for everyone again
+   * @param limit maximum number of items to lease
+   * @return IDs of the leased stock items
+   */
+  @Transactional
+  @Query(
+      value =
+          """
+          UPDATE stock SET leased_until = :leasedUntil
+          WHERE id IN (
+              SELECT s.id FROM stock s
+              WHERE s.product_id = :productId
+              AND s.sold = false
+              AND (s.leased_until IS NULL OR s.leased_until < CURRENT_TIMESTAMP)
+              AND NOT EXISTS (SELECT 1 FROM stock_reservation r WHERE r.stock_id = s.id)
+              ORDER BY s.created_at ASC
+              LIMIT :limit
+              FOR UPDATE OF s SKIP LOCKED
+          )
+          RETURNING id
+          """,
+      nativeQuery = true)
+  List<UUID> leaseAvailableStock(
+      @Param("productId") UUID productId,
+      @Param("leasedUntil") LocalDateTime leasedUntil,
+      @Param("limit") int limit);
+
+  /**
+   * Reserve stock items handed out by a hot product stock pool. Items that were sold or reserved in
+   * the meantime (for example after their lease lapsed) are skipped. The lease is left to lapse
+   * rather than cleared, so the stock row is not rewritten; an item released before then is
+   * claimable again once the lease lapses.
+   *
+   * @param stockIds the leased stock IDs to reserve
+   * @param reservedUntil the reservation end time
+   * @return IDs of the reserved stock items
+   */
+  @Transactional
+  @Query(
+      value =
+          """
+          INSERT INTO stock_reservation (stock_id, product_id, reserved_until, created_at)
+          SELECT s.id, s.product_id, :reservedUntil, CURRENT_TIMESTAMP FROM stock s
+          WHERE s.id IN (:stockIds)
+          AND s.sold = false
+          ON CONFLICT (stock_id) DO NOTHING
+          RETURNING stock_id
+          """,
+      nativeQuery = true)
+  List<UUID> reserveLeasedStock(
+      @Param("stockIds") Collection<UUID> stockIds,
+      @Param("reservedUntil") LocalDateTime reservedUntil);
+
+  /**
+   * Return unused hot product stock pool leases so the items can be claimed by anyone.
+   *
+   * @param stockIds the leased stock IDs to return
+   * @return number of leases returned
+   */
+  @Modifying
+  @Transactional
+  @Query(
+      value =
+          "UPDATE stock SET leased_until = NULL WHERE id IN (:stockIds) AND leased_until IS NOT"
+              + " NULL",
+      nativeQuery = true)
+  int returnLeasedStock(@Param("stockIds") Collection<UUID> stockIds);
+
   /**
    * Release reservations for specific stock items. Used for canceling reservations.
    *
@@ -312,9 +662,99 @@ public interface StockRepository extends JpaRepository<Stock, UUID> {
    */
   @Modifying
   @Transactional
-  @Query("UPDATE Stock s SET s.reservedUntil = NULL WHERE s.id IN :stockIds")
+  @Query("DELETE FROM StockReservation r WHERE r.stockId IN :stockIds")
   int releaseReservations(@Param("stockIds") List<UUID> stockIds);
 
+  /**
+   * Release reservations for specific stock items and report which products they belonged to. Only
+   * items that still hold a reservation are touched; sold items never do. Used for canceling
+   * reservations while keeping the available stock counters in step.
+   *
+   * @param stockIds list of stock IDs to release reservations for
+   * @return product ID of every stock item whose reservation was released (one entry per item)
+   */
+  @Transactional
+  @Query(
+      value =
+          """
+          DELETE FROM stock_reservation
+          WHERE stock_id IN (:stockIds)
+          RETURNING product_id
+          """,
+      nativeQuery = true)
+  List<UUID> releaseReservationsReturningProductIds(@Param("stockIds") List<UUID> stockIds);
+
+  /**
+   * Release reservations of specific stock items whose deadline has passed and report which
+   * products they belonged to. Items that were sold, released or reserved again in the meantime are
+   * left untouched. Used by the reservation expiry scheduler.
+   *
+   * @param stockIds list of stock IDs due for release
+   * @param now the current time; reservations ending at or before it are released
+   * @return product ID of every stock item whose reservation was released (one entry per item)
+   */
+  @Transactional
+  @Query(
+      value =
+          """
+          DELETE FROM stock_reservation
+          WHERE stock_id IN (:stockIds)
+          AND reserved_until <= :now
+          RETURNING product_id
+          """,
+      nativeQuery = true)
+  List<UUID> releaseExpiredReservationsByIds(
+      @Param("stockIds") List<UUID> stockIds, @Param("now") LocalDateTime now);
+
+  /**
+   * Mark many stock items as sold in one statement, deleting their reservation holds. Items that
+   * are missing or already sold are skipped. Bypasses the persistence context, so managed Stock
+   * instances are not refreshed. Used by the batch sell path on order completion.
+   *
+   * @param stockIds list of stock IDs to mark as sold
+   * @param soldAt time of the sale
+   * @return rows of [stockId, productId, wasAvailable] for every item sold, where wasAvailable is
+   *     true when the item held no reservation and therefore still counted as available stock
+   */
+  @Transactional
+  @Query(
+      value =
+          """
+          WITH target AS (
+              SELECT id FROM stock
+              WHERE id IN (:stockIds) AND sold = false
+              FOR UPDATE
+          ),
+          released AS (
+              DELETE FROM stock_reservation r
+              USING target t
+              WHERE r.stock_id = t.id
+              RETURNING r.stock_id
+          )
+          UPDATE stock s SET sold = true,
+                             available = false,
+                             sold_at = :soldAt,
+                             version = COALESCE(s.version, 0) + 1,
+                             updated_at = :soldAt
+          FROM target t
+          WHERE s.id = t.id
+          RETURNING s.id, s.product_id,
+                    NOT EXISTS (SELECT 1 FROM released rl WHERE rl.stock_id = s.id)
+          """,
+      nativeQuery = true)
+  List<Object[]> markAsSoldReturningProducts(
+      @Param("stockIds") Collection<UUID> stockIds, @Param("soldAt") LocalDateTime soldAt);
+
+  /**
+   * Find the sold flag of the given stock items. Used to explain which items of a batch sale were
+   * skipped.
+   *
+   * @param stockIds list of stock IDs
+   * @return rows of [stockId, sold]
+   */
+  @Query("SELECT s.id, s.sold FROM Stock s WHERE s.id IN :stockIds")
+  List<Object[]> findSoldFlagsByIds(@Param("stockIds") Collection<UUID> stockIds);
+
   // ==================== ADVANCED QUERIES ====================
 
   /**
@@ -331,7 +771,10 @@ public interface StockRepository extends JpaRepository<Stock, UUID> {
         (SELECT COUNT(st) FROM Stock st
             WHERE st.product = p
               AND st.sold = false
-              AND (st.reservedUntil IS NULL OR st.reservedUntil < CURRENT_TIMESTAMP)
+              AND NOT EXISTS (
+                  SELECT r FROM StockReservation r
+                  WHERE r.stockId = st.id AND r.reservedUntil >= CURRENT_TIMESTAMP
+              )
         ) <= :threshold
     )
     GROUP BY s.product, s.product.category.name, s.product.name
@@ -359,50 +802,98 @@ public interface StockRepository extends JpaRepository<Stock, UUID> {
       """
       SELECT
           COUNT(s) as total,
-          SUM(CASE WHEN s.sold = false AND (s.reservedUntil IS NULL OR s.reservedUntil < CURRENT_TIMESTAMP) THEN 1 ELSE 0 END) as available,
+          SUM(CASE WHEN s.sold = false AND (r.stockId IS NULL OR r.reservedUntil < CURRENT_TIMESTAMP) THEN 1 ELSE 0 END) as available,
           SUM(CASE WHEN s.sold = true THEN 1 ELSE 0 END) as sold,
-          SUM(CASE WHEN s.sold = false AND s.reservedUntil IS NOT NULL AND s.reservedUntil > CURRENT_TIMESTAMP THEN 1 ELSE 0 END) as reserved
+          SUM(CASE WHEN s.sold = false AND r.reservedUntil > CURRENT_TIMESTAMP THEN 1 ELSE 0 END) as reserved
       FROM Stock s
+      LEFT JOIN StockReservation r ON r.stockId = s.id
       WHERE s.product.id = :productId
       """)
   Object[] getStockStatisticsByProductId(@Param("productId") UUID productId);
 
   /**
-   * Delete sold stock items older than specified date. Used for archival and cleanup operations.
-   * WARNING: This permanently deletes data. Use with caution.
+   * Find the account data of stock items. Used by order downloads.
    *
-   * @param cutoffDate the cutoff date for deletion
-   * @return number of records deleted
+   * @param stockIds the stock item IDs
+   * @return stock ID and account data of each item found
    */
-  @Modifying
-  @Transactional
-  @Query("DELETE FROM Stock s WHERE s.sold = true AND s.soldAt < :cutoffDate")
-  int deleteSoldStockOlderThan(@Param("cutoffDate") LocalDateTime cutoffDate);
+  @Query("SELECT s.id, s.accountData FROM Stock s WHERE s.id IN :stockIds")
+  List<Object[]> findAccountDataByIds(@Param("stockIds") Collection<UUID> stockIds);
+
+  /**
+   * Find the earliest sale time of sold stock waiting for archival. Used to create the history
+   * partitions before a run starts moving rows.
+   *
+   * @param cutoff only stock sold before this time is archived
+   * @param after only stock sold at or after this time is considered
+   * @return earliest sale time, or null when nothing is waiting
+   */
+  @Query(
+      "SELECT MIN(s.soldAt) FROM Stock s WHERE s.sold = true AND s.soldAt < :cutoff AND s.soldAt"
+          + " >= :after")
+  LocalDateTime findEarliestSoldAtBefore(
+      @Param("cutoff") LocalDateTime cutoff, @Param("after") LocalDateTime after);
 
   /**
-   * Find duplicate account data within the same product. Used for data integrity checks.
+   * Find legacy duplicate account data within the same product. The fingerprint backfill keeps the
+   * oldest row of each duplicate group and leaves the fingerprint of the others null, so those rows
+   * are the remaining duplicates. Used for data integrity checks.
    *
    * @param productId the product ID to check for duplicates
    * @return list of duplicate account data
    */
   @Query(
       """
-      SELECT s.accountData FROM Stock s
-      WHERE s.product.id = :productId
-      GROUP BY s.accountData
-      HAVING COUNT(s.accountData) > 1
+      SELECT DISTINCT s.accountData FROM Stock s
+      WHERE s.product.id = :productId AND s.fingerprint IS NULL
       """)
   List<String> findDuplicateAccountDataByProductId(@Param("productId") UUID productId);
 
   /**
-   * Check if stock item exists with specific account data for a product. Used for preventing
-   * duplicate stock entries.
+   * Check if stock item exists with a specific account data fingerprint for a product. Used for
+   * preventing duplicate stock entries through the (product_id, fingerprint) unique index. Sold
+   * items moved to stock_sold_history are checked too, so an archived account cannot be sold
+   * again.
+   *
+   * @param productId the product ID to check
+   * @param fingerprint fingerprint of the account data, see AccountDataFingerprint
+   * @return true if live or archived stock exists with this fingerprint for the product
+   */
+  @Query(
+      value =
+          """
+          SELECT EXISTS (
+              SELECT 1 FROM stock WHERE product_id = :productId AND fingerprint = :fingerprint
+          ) OR EXISTS (
+              SELECT 1 FROM stock_sold_history
+              WHERE product_id = :productId AND fingerprint = :fingerprint
+          )
+          """,
+      nativeQuery = true)
+  boolean existsByProductIdAndFingerprint(
+      @Param("productId") UUID productId, @Param("fingerprint") String fingerprint);
+
+  /**
+   * Find which of the given account data fingerprints already exist for a product, in one query.
+   * Used for set-based duplicate checks during bulk creation. Archived sold items count as
+   * existing, as in {@link #existsByProductIdAndFingerprint}.
    *
    * @param productId the product ID to check
-   * @param accountData the account data to check for existence
-   * @return true if stock exists with this account data for the product
+   * @param fingerprints candidate fingerprints
+   * @return the subset of fingerprints that already exist
    */
-  boolean existsByProductIdAndAccountData(UUID productId, String accountData);
+  @Query(
+      value =
+          """
+          SELECT fingerprint FROM stock
+          WHERE product_id = :productId AND fingerprint IN (:fingerprints)
+          UNION
+          SELECT fingerprint FROM stock_sold_history
+          WHERE product_id = :productId AND fingerprint IN (:fingerprints)
+          """,
+      nativeQuery = true)
+  List<String> findExistingFingerprints(
+      @Param("productId") UUID productId, @Param("fingerprints") Collection<String> fingerprints);
 
   /**
    * Find the oldest unsold stock item by product. Used for FIFO (First In, First Out) stock
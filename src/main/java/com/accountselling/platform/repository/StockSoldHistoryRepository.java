@@ -0,0 +1,144 @@
+package com.accountselling.platform.repository;
+
+import com.accountselling.platform.model.StockSoldHistory;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repository interface for StockSoldHistory entity operations. Sold stock is moved here from the
+ * stock table in small batches, and sold stock reads combine both tables.
+ *
+ * <p>รีพอสิทอรี่สำหรับประวัติสต็อกที่ขายแล้ว
+ */
+@Repository
+public interface StockSoldHistoryRepository extends JpaRepository<StockSoldHistory, UUID> {
+
+  // ==================== ARCHIVAL ====================
+
+  /**
+   * Move one batch of sold stock items sold before the cutoff from the stock table into the
+   * history table, in (sold_at, id) order starting after the given position. The delete and the
+   * insert are one statement, so a stock item is never in both tables or in neither. Rows locked by
+   * other transactions are waited for rather than skipped, because the checkpoint moves past every
+   * row of the batch. PostgreSQL only.
+   *
+   * <p>The monthly partitions for the moved rows must exist, see {@link #ensurePartition}.
+   *
+   * @param cutoff only stock sold before this time is archived
+   * @param afterSoldAt sold time of the last row archived by the previous batch
+   * @param afterId ID of the last row archived by the previous batch
+   * @param batchSize maximum number of rows to move
+   * @return sold time and ID of each archived row
+   */
+  @Transactional
+  @Query(
+      value =
+          """
+          WITH batch AS (
+              SELECT s.id FROM stock s
+              WHERE s.sold = true
+              AND s.sold_at < :cutoff
+              AND (s.sold_at, s.id) > (:afterSoldAt, :afterId)
+              ORDER BY s.sold_at, s.id
+              LIMIT :batchSize
+              FOR UPDATE
+          ), moved AS (
+              DELETE FROM stock s USING batch b
+              WHERE s.id = b.id
+              RETURNING s.id, s.product_id, s.account_data, s.fingerprint, s.account_type,
+                  s.price, s.additional_info, s.sold_at, s.created_at, s.updated_at
+          )
+          INSERT INTO stock_sold_history (id, product_id, account_data, fingerprint, account_type,
+              price, additional_info, sold_at, created_at, updated_at, archived_at)
+          SELECT id, product_id, account_data, fingerprint, account_type, price, additional_info,
+              sold_at, created_at, updated_at, CURRENT_TIMESTAMP
+          FROM moved
+          RETURNING sold_at, id
+          """,
+      nativeQuery = true)
+  List<Object[]> archiveSoldStock(
+      @Param("cutoff") LocalDateTime cutoff,
+      @Param("afterSoldAt") LocalDateTime afterSoldAt,
+      @Param("afterId") UUID afterId,
+      @Param("batchSize") int batchSize);
+
+  /**
+   * Create the monthly partition of the history table holding the given time, unless it exists.
+   * PostgreSQL only, see the V7 migration.
+   *
+   * @param soldAt any time within the month
+   * @return name of the partition
+   */
+  @Transactional
+  @Query(value = "SELECT ensure_stock_sold_history_partition(:soldAt)", nativeQuery = true)
+  String ensurePartition(@Param("soldAt") LocalDateTime soldAt);
+
+  // ==================== READ QUERIES ====================
+
+  /**
+   * Find the archived account data of stock items. Used by order downloads for items whose stock
+   * was archived.
+   *
+   * @param stockIds the stock item IDs
+   * @return stock ID and account data of each archived item found
+   */
+  @Query("SELECT h.id, h.accountData FROM StockSoldHistory h WHERE h.id IN :stockIds")
+  List<Object[]> findAccountDataByIds(@Param("stockIds") Collection<UUID> stockIds);
+
+  /**
+   * Find archived sold stock with its product and category. Bounds left null are ignored.
+   *
+   * @param productId the product ID, or null for all products
+   * @param startDate earliest sale time, or null
+   * @param endDate latest sale time, or null
+   * @return archived sold stock, most recent sale first
+   */
+  @Query(
+      "SELECT h FROM StockSoldHistory h JOIN FETCH h.product p JOIN FETCH p.category WHERE p.id ="
+          + " COALESCE(:productId, p.id) AND h.soldAt >= COALESCE(:startDate, h.soldAt) AND"
+          + " h.soldAt <= COALESCE(:endDate, h.soldAt) ORDER BY h.soldAt DESC")
+  List<StockSoldHistory> findSold(
+      @Param("productId") UUID productId,
+      @Param("startDate") LocalDateTime startDate,
+      @Param("endDate") LocalDateTime endDate);
+
+  /**
+   * Stream archived sold stock for exports. Read through a server-side cursor like {@link
+   * StockRepository#streamSold}, so the stream must be consumed inside a read-only transaction.
+   *
+   * @param productId the product ID, or null for all products
+   * @param startDate earliest sale time, or null
+   * @param endDate latest sale time, or null
+   * @return stream of archived sold stock, most recent sale first
+   */
+  @QueryHints(
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = StockRepository.STREAM_FETCH_SIZE))
+  @Query(
+      "SELECT h FROM StockSoldHistory h JOIN FETCH h.product p JOIN FETCH p.category WHERE p.id ="
+          + " COALESCE(:productId, p.id) AND h.soldAt >= COALESCE(:startDate, h.soldAt) AND"
+          + " h.soldAt <= COALESCE(:endDate, h.soldAt) ORDER BY h.soldAt DESC")
+  Stream<StockSoldHistory> streamSold(
+      @Param("productId") UUID productId,
+      @Param("startDate") LocalDateTime startDate,
+      @Param("endDate") LocalDateTime endDate);
+
+  /**
+   * Count archived sold stock of a product.
+   *
+   * @param productId the product ID
+   * @return number of archived items
+   */
+  @Query("SELECT COUNT(h) FROM StockSoldHistory h WHERE h.product.id = :productId")
+  long countByProductId(@Param("productId") UUID productId);
+}
@@ -0,0 +1,279 @@
+package com.accountselling.platform.service;
+
+import com.accountselling.platform.util.TransactionCallbacks;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ObjLongConsumer;
+import java.util.function.ToLongFunction;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory registry of available stock counts per product. Each product has its own striped
+ * {@link LongAdder}, so concurrent reservations and sales update counts without contending on a
+ * shared lock, and availability checks become a memory read instead of a COUNT over the stock
+ * table.
+ *
+ * <p>Counts are advisory: the stock claim statement remains the authority on whether an item can
+ * be reserved. Deltas are applied after the surrounding transaction commits, products are loaded
+ * lazily on first read, and {@link #reconcile(Recount, Map)} periodically corrects any drift
+ * against the database.
+ *
+ * <p>Listeners registered with {@link #addListener(ObjLongConsumer)} are told the new count
+ * whenever a tracked counter is loaded, adjusted or corrected, so threshold watchers can react to
+ * stock changes without querying the database.
+ *
+ * <p>ตัวนับจำนวนสต็อกที่พร้อมขายในหน่วยความจำแยกตามสินค้า
+ */
+@Slf4j
+@Component
+public class AvailableStockCounterRegistry {
+
+  private final Map<UUID, Counter> counters = new ConcurrentHashMap<>();
+  private final List<ObjLongConsumer<UUID>> listeners = new CopyOnWriteArrayList<>();
+
+  /**
+   * Register a listener for available count changes. Listeners run on the thread that applied the
+   * change, after commit, so they must be cheap and must not throw.
+   *
+   * @param listener receives the product ID and its new available count
+   */
+  public void addListener(ObjLongConsumer<UUID> listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Get the available stock count for a product, loading it with the given loader on first access.
+   *
+   * @param productId ID of the product
+   * @param loader loads the authoritative count from the database when the product is not tracked
+   * @return available stock count (never negative)
+   */
+  public long get(UUID productId, ToLongFunction<UUID> loader) {
+    Counter counter = counters.get(productId);
+    if (counter == null) {
+      counter = load(productId, loader.applyAsLong(productId));
+    }
+    return counter.available();
+  }
+
+  /**
+   * Get the available stock counts of several products. Products not tracked yet are loaded with
+   * one call of the given loader.
+   *
+   * @param productIds IDs of the products
+   * @param loader loads the authoritative counts of untracked products; products it leaves out have
+   *     no available stock
+   * @return available stock counts keyed by product ID (never negative)
+   */
+  public Map<UUID, Long> getAll(
+      Collection<UUID> productIds, Function<List<UUID>, Map<UUID, Long>> loader) {
+    Map<UUID, Long> counts = new HashMap<>();
+    List<UUID> untracked = new ArrayList<>();
+    for (UUID productId : productIds) {
+      Counter counter = counters.get(productId);
+      if (counter != null) {
+        counts.put(productId, counter.available());
+      } else {
+        untracked.add(productId);
+      }
+    }
+
+    if (!untracked.isEmpty()) {
+      Map<UUID, Long> loaded = loader.apply(untracked);
+      for (UUID productId : untracked) {
+        Counter counter = load(productId, loaded.getOrDefault(productId, 0L));
+        counts.put(productId, counter.available());
+      }
+    }
+
+    return counts;
+  }
+
+  /**
+   * Adjust the available count of a product. Inside a transaction the delta is applied only after
+   * commit, so rolled back reservations or sales never leak into the counters. Products that are
+   * not tracked yet are ignored; their first read loads the committed value.
+   *
+   * @param productId ID of the product
+   * @param delta change in available stock (negative when stock leaves the available pool)
+   */
+  public void adjust(UUID productId, long delta) {
+    if (productId == null || delta == 0) {
+      return;
+    }
+
+    TransactionCallbacks.afterCommit(() -> apply(productId, delta));
+  }
+
+  /**
+   * Start a recount of the tracked products. Call before reading their counts from the database
+   * and pass the result to {@link #reconcile(Recount, Map)} with the counts read.
+   *
+   * @return recount of the products tracked now, marking how many deltas each has applied
+   */
+  public Recount startRecount() {
+    Map<UUID, Mark> marks = new HashMap<>();
+    counters.forEach(
+        (productId, counter) -> marks.put(productId, new Mark(counter, counter.adjusted.sum())));
+    return new Recount(Map.copyOf(marks));
+  }
+
+  /**
+   * Correct the counters of a recount against counts read from the database. Products of the
+   * recount missing from the given map have no available stock; products tracked after the recount
+   * started, or reloaded since, are left alone. Deltas applied after the recount started are added
+   * on top of the counted value, so adjustments committed while counting are not lost. A delta
+   * that committed before the count read but was applied after the recount started is counted
+   * twice until the next recount.
+   *
+   * <p>Like {@link #adjust(UUID, long)} the correction waits for the surrounding transaction to
+   * commit.
+   *
+   * @param recount recount started before the counts were read
+   * @param actualCounts authoritative available counts keyed by product ID
+   */
+  public void reconcile(Recount recount, Map<UUID, Long> actualCounts) {
+    TransactionCallbacks.afterCommit(() -> applyReconcile(recount, actualCounts));
+  }
+
+  /**
+   * Start tracking products with known available counts, such as every product at startup or a
+   * product that was just created with no stock. Products that are already tracked keep their
+   * current count. Applied after the surrounding transaction commits.
+   *
+   * @param counts authoritative available counts keyed by product ID
+   */
+  public void track(Map<UUID, Long> counts) {
+    TransactionCallbacks.afterCommit(() -> counts.forEach(this::load));
+  }
+
+  /**
+   * Get the IDs of all products currently tracked in memory.
+   *
+   * @return snapshot of tracked product IDs
+   */
+  public Set<UUID> getTrackedProductIds() {
+    return Set.copyOf(counters.keySet());
+  }
+
+  /**
+   * Stop tracking a product. The next read reloads its count from the database.
+   *
+   * @param productId ID of the product
+   */
+  public void invalidate(UUID productId) {
+    counters.remove(productId);
+  }
+
+  private Counter load(UUID productId, long count) {
+    boolean[] created = new boolean[1];
+    Counter counter =
+        counters.computeIfAbsent(
+            productId,
+            id -> {
+              Counter loaded = new Counter();
+              loaded.value.add(count);
+              created[0] = true;
+              return loaded;
+            });
+
+    if (created[0]) {
+      notifyListeners(productId, counter);
+    }
+    return counter;
+  }
+
+  private void apply(UUID productId, long delta) {
+    Counter counter = counters.get(productId);
+    if (counter != null) {
+      counter.value.add(delta);
+      counter.adjusted.add(delta);
+      notifyListeners(productId, counter);
+    }
+  }
+
+  private void notifyListeners(UUID productId, Counter counter) {
+    if (listeners.isEmpty()) {
+      return;
+    }
+
+    long available = counter.available();
+    for (ObjLongConsumer<UUID> listener : listeners) {
+      try {
+        listener.accept(productId, available);
+      } catch (RuntimeException e) {
+        log.error("Available stock listener failed for product ID: {}", productId, e);
+      }
+    }
+  }
+
+  private void applyReconcile(Recount recount, Map<UUID, Long> actualCounts) {
+    int drifted = 0;
+
+    for (Map.Entry<UUID, Mark> entry : recount.marks().entrySet()) {
+      UUID productId = entry.getKey();
+      Mark mark = entry.getValue();
+      Counter counter = counters.get(productId);
+      if (counter != mark.counter()) {
+        // Invalidated or reloaded since the recount started; its count is newer than ours
+        continue;
+      }
+
+      long expected =
+          actualCounts.getOrDefault(productId, 0L)
+              + (counter.adjusted.sum() - mark.adjustedAtStart());
+      long current = counter.value.sum();
+
+      if (expected != current) {
+        counter.value.add(expected - current);
+        notifyListeners(productId, counter);
+        drifted++;
+        log.debug(
+            "Reconciled available stock counter for product ID: {} from {} to {}",
+            productId,
+            current,
+            expected);
+      }
+    }
+
+    if (drifted > 0) {
+      log.info("Reconciled {} drifted available stock counters", drifted);
+    }
+  }
+
+  /**
+   * Tracked products at the start of a recount, with the deltas each had applied by then.
+   *
+   * @param marks recount marks keyed by product ID
+   */
+  public record Recount(Map<UUID, Mark> marks) {
+
+    /** IDs of the products to count. */
+    public Set<UUID> productIds() {
+      return marks.keySet();
+    }
+  }
+
+  /** A counter and the total of the deltas it had applied when a recount started. */
+  record Mark(Counter counter, long adjustedAtStart) {}
+
+  /** Available count of a product and the running total of the deltas applied to it. */
+  static final class Counter {
+    private final LongAdder value = new LongAdder();
+    private final LongAdder adjusted = new LongAdder();
+
+    long available() {
+      return Math.max(0, value.sum());
+    }
+  }
+}
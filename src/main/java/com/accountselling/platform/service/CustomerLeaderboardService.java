@@ -0,0 +1,21 @@
+package com.accountselling.platform.service;
+
+/**
+ * Service interface for rebuilding the customer leaderboard. The leaderboard is kept up to date by
+ * the order service as orders complete; a rebuild recounts it from the orders table, to repair
+ * drift from orders changed outside the order service.
+ *
+ * <p>Service interface สำหรับสร้างตารางจัดอันดับลูกค้าใหม่จากข้อมูลคำสั่งซื้อ
+ */
+public interface CustomerLeaderboardService {
+
+  /**
+   * Recount the completed orders and revenue of every customer and correct the rows that drifted.
+   * Customers are compared in batches against a snapshot and corrected by adding the differences,
+   * so order completions are not blocked and none completed during the rebuild is lost or counted
+   * twice.
+   *
+   * @return number of customers corrected
+   */
+  int rebuildLeaderboard();
+}
@@ -0,0 +1,297 @@
+package com.accountselling.platform.service;
+
+import com.accountselling.platform.dto.stock.HotStockPoolStatsDto;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory pools of leased stock for hot products on this node. When a product is switched to hot
+ * mode, a background job leases blocks of its available stock items into a lock-free queue, and
+ * reservations take items from the queue instead of selecting rows in the database, so buyers of a
+ * viral product stop contending on the same stock rows.
+ *
+ * <p>The pool only decides which rows to try: reserving a pooled item still updates its row, and
+ * that update skips items that were sold or reserved elsewhere. Which products are hot is kept on
+ * the product and followed by every node; unused leases are returned when a pool is disabled,
+ * shortly before a lease lapses, when another node runs dry and on shutdown.
+ *
+ * <p>พูลสต็อกที่เช่าไว้ในหน่วยความจำสำหรับสินค้าขายดี
+ */
+@Component
+public class HotStockPoolRegistry {
+
+  /** Default number of stock items a pool is topped up to. */
+  public static final int DEFAULT_LEASE_SIZE = 50;
+
+  /** Largest allowed pool size. */
+  public static final int MAX_LEASE_SIZE = 1000;
+
+  private final Map<UUID, Pool> pools = new ConcurrentHashMap<>();
+
+  /**
+   * Check whether a product is in hot mode on this node.
+   *
+   * @param productId ID of the product
+   * @return true if reservations are served from a pool
+   */
+  public boolean isHot(UUID productId) {
+    return pools.containsKey(productId);
+  }
+
+  /**
+   * Switch a product to hot mode, or change the size of its pool.
+   *
+   * @param productId ID of the product
+   * @param leaseSize number of stock items to keep leased
+   */
+  public void enable(UUID productId, int leaseSize) {
+    pools.computeIfAbsent(productId, id -> new Pool()).leaseSize = leaseSize;
+  }
+
+  /**
+   * Switch a product back to regular claiming.
+   *
+   * @param productId ID of the product
+   * @return IDs of unused leased stock items, which must be returned
+   */
+  public List<UUID> disable(UUID productId) {
+    Pool pool = pools.remove(productId);
+    return pool != null ? pool.drain(Long.MAX_VALUE) : List.of();
+  }
+
+  /**
+   * Get the products in hot mode.
+   *
+   * @return snapshot of hot product IDs
+   */
+  public Set<UUID> getHotProductIds() {
+    return Set.copyOf(pools.keySet());
+  }
+
+  /**
+   * Take leased stock items for a reservation.
+   *
+   * @param productId ID of the product
+   * @param quantity number of items wanted
+   * @return up to quantity leases; empty when the product is not hot or its pool is empty
+   */
+  public List<Lease> take(UUID productId, int quantity) {
+    Pool pool = pools.get(productId);
+    if (pool == null) {
+      return List.of();
+    }
+
+    List<Lease> taken = new ArrayList<>();
+    Lease lease;
+    while (taken.size() < quantity && (lease = pool.queue.poll()) != null) {
+      pool.size.decrementAndGet();
+      taken.add(lease);
+    }
+    return taken;
+  }
+
+  /**
+   * Put leases back after the reservation that took them failed and rolled back.
+   *
+   * @param productId ID of the product
+   * @param leases leases returned by {@link #take(UUID, int)}
+   */
+  public void putBack(UUID productId, Collection<Lease> leases) {
+    Pool pool = pools.get(productId);
+    if (pool == null || leases.isEmpty()) {
+      return;
+    }
+
+    pool.queue.addAll(leases);
+    pool.size.addAndGet(leases.size());
+  }
+
+  /**
+   * Record how the items of a successful reservation of a hot product were found.
+   *
+   * @param productId ID of the product
+   * @param fromPool items handed out from the pool
+   * @param fromDatabase items that had to be claimed from the stock table
+   */
+  public void recordServed(UUID productId, int fromPool, int fromDatabase) {
+    Pool pool = pools.get(productId);
+    if (pool != null) {
+      pool.hits.add(fromPool);
+      pool.misses.add(fromDatabase);
+    }
+  }
+
+  /**
+   * Get the number of leased items waiting in a pool.
+   *
+   * @param productId ID of the product
+   * @return pooled item count, 0 when the product is not hot
+   */
+  public int getPooledCount(UUID productId) {
+    Pool pool = pools.get(productId);
+    return pool != null ? Math.max(0, pool.size.get()) : 0;
+  }
+
+  /**
+   * Remove up to {@code maxCount} leases from a pool so another node can lease the items. The
+   * leases closest to lapsing are removed first.
+   *
+   * @param productId ID of the product
+   * @param maxCount maximum number of leases to remove
+   * @return IDs of the removed stock items, which must be returned
+   */
+  public List<UUID> drain(UUID productId, int maxCount) {
+    Pool pool = pools.get(productId);
+    if (pool == null || maxCount <= 0) {
+      return List.of();
+    }
+
+    List<Lease> candidates = new ArrayList<>(pool.queue);
+    candidates.sort(Comparator.comparingLong(Lease::expiresAtMillis));
+
+    List<UUID> drained = new ArrayList<>();
+    for (Lease lease : candidates) {
+      if (drained.size() >= maxCount) {
+        break;
+      }
+      // remove() succeeds for only one thread, so a lease taken concurrently is not drained
+      if (pool.queue.remove(lease)) {
+        pool.size.decrementAndGet();
+        drained.add(lease.stockId());
+      }
+    }
+    pool.returned.add(drained.size());
+    return drained;
+  }
+
+  /**
+   * Get the number of items to lease so a pool is full again. Pools are refilled once they are at
+   * most half full so leasing happens in blocks.
+   *
+   * @param productId ID of the product
+   * @return number of items to lease, 0 when no refill is needed
+   */
+  public int getRefillSize(UUID productId) {
+    Pool pool = pools.get(productId);
+    if (pool == null) {
+      return 0;
+    }
+
+    int pooled = pool.size.get();
+    return pooled * 2 <= pool.leaseSize ? pool.leaseSize - pooled : 0;
+  }
+
+  /**
+   * Add freshly leased stock items to a pool.
+   *
+   * @param productId ID of the product
+   * @param stockIds leased stock IDs
+   * @param leaseExpiresAtMillis lease end time in epoch milliseconds
+   * @return the stock IDs that were not added because the product left hot mode; they must be
+   *     returned
+   */
+  public List<UUID> add(UUID productId, Collection<UUID> stockIds, long leaseExpiresAtMillis) {
+    Pool pool = pools.get(productId);
+    if (pool == null) {
+      return List.copyOf(stockIds);
+    }
+
+    for (UUID stockId : stockIds) {
+      pool.queue.add(new Lease(stockId, leaseExpiresAtMillis));
+    }
+    pool.size.addAndGet(stockIds.size());
+    pool.leased.add(stockIds.size());
+    return List.of();
+  }
+
+  /**
+   * Remove leases that end at or before the cutoff from every pool.
+   *
+   * @param cutoffMillis lease end time in epoch milliseconds
+   * @return IDs of the removed stock items, which must be returned
+   */
+  public List<UUID> drainExpiring(long cutoffMillis) {
+    List<UUID> drained = new ArrayList<>();
+    pools.values().forEach(pool -> drained.addAll(pool.drain(cutoffMillis)));
+    return drained;
+  }
+
+  /**
+   * Remove every lease from every pool, keeping hot mode enabled. Used on shutdown.
+   *
+   * @return IDs of the removed stock items, which must be returned
+   */
+  public List<UUID> drainAll() {
+    return drainExpiring(Long.MAX_VALUE);
+  }
+
+  /**
+   * Get lease sizes and hit rates of every pool.
+   *
+   * @return statistics per hot product
+   */
+  public List<HotStockPoolStatsDto> getStats() {
+    return pools.entrySet().stream()
+        .map(entry -> entry.getValue().toStats(entry.getKey()))
+        .sorted(Comparator.comparing(HotStockPoolStatsDto::getProductId))
+        .toList();
+  }
+
+  /** A leased stock item waiting in a pool. */
+  public record Lease(UUID stockId, long expiresAtMillis) {}
+
+  private static final class Pool {
+
+    private final Queue<Lease> queue = new ConcurrentLinkedQueue<>();
+
+    // ConcurrentLinkedQueue.size() walks the queue, so the size is tracked separately
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final LongAdder leased = new LongAdder();
+    private final LongAdder returned = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private volatile int leaseSize;
+
+    private List<UUID> drain(long cutoffMillis) {
+      List<UUID> drained = new ArrayList<>();
+      for (Lease lease : queue) {
+        // remove() succeeds for only one thread, so a lease taken concurrently is not drained
+        if (lease.expiresAtMillis() <= cutoffMillis && queue.remove(lease)) {
+          size.decrementAndGet();
+          drained.add(lease.stockId());
+        }
+      }
+      returned.add(drained.size());
+      return drained;
+    }
+
+    private HotStockPoolStatsDto toStats(UUID productId) {
+      long hitCount = hits.sum();
+      long missCount = misses.sum();
+      long served = hitCount + missCount;
+      return HotStockPoolStatsDto.builder()
+          .productId(productId)
+          .leaseSize(leaseSize)
+          .pooledCount(Math.max(0, size.get()))
+          .leasedCount(leased.sum())
+          .returnedCount(returned.sum())
+          .poolHits(hitCount)
+          .poolMisses(missCount)
+          .hitRate(served > 0 ? (double) hitCount / served : 0)
+          .build();
+    }
+  }
+}
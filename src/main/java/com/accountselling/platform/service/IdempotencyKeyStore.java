@@ -0,0 +1,279 @@
+package com.accountselling.platform.service;
+
+import com.accountselling.platform.exception.IdempotencyConflictException;
+import com.accountselling.platform.model.IdempotencyRecord;
+import com.accountselling.platform.repository.IdempotencyKeyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+
+/**
+ * Honors the Idempotency-Key header of create requests. The first request with a key claims it in
+ * the idempotency_key table, runs and stores its response; retries with the same key get that
+ * response replayed without running the request again. Completed responses are also kept in a
+ * bounded in-memory LRU map, so most retries are answered without a database round trip.
+ *
+ * <p>The request runs in one transaction with storing its response, so a committed order always
+ * has its response stored and a crash before the commit leaves nothing behind. A claim that never
+ * completes, for example because the node stopped, lapses after a short processing timeout so the
+ * client can retry. The response is only stored while the request still holds its claim; a request
+ * that outlived its claim and was taken over by a retry rolls back instead of running twice.
+ * Failed requests release their claim right away; only successful responses are stored.
+ *
+ * <p>ตัวจัดการ Idempotency-Key ของคำขอสร้างคำสั่งซื้อและการชำระเงิน
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IdempotencyKeyStore {
+
+  /** Response header marking a replayed response. */
+  public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+  // Longest key accepted, matching the idempotency_key column
+  private static final int MAX_KEY_LENGTH = 255;
+
+  // How long a claim blocks retries while the first request is still running
+  private static final Duration PROCESSING_TIMEOUT = Duration.ofMinutes(2);
+
+  @Value("${app.idempotency.ttl-hours:24}")
+  private int ttlHours;
+
+  @Value("${app.idempotency.cache-size:10000}")
+  private int cacheSize;
+
+  private final IdempotencyKeyRepository idempotencyKeyRepository;
+  private final ObjectMapper objectMapper;
+  private final TransactionRetryExecutor transactionRetryExecutor;
+
+  // Completed responses in access order; the least recently used one is evicted when full
+  private final Map<IdempotencyRecord.Key, StoredResponse> cache =
+      new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<IdempotencyRecord.Key, StoredResponse> e) {
+          return size() > cacheSize;
+        }
+      };
+
+  /**
+   * Run a create request at most once per idempotency key.
+   *
+   * @param scope operation and user the key belongs to, such as {@code order.create:<userId>}
+   * @param idempotencyKey key sent by the client; the request simply runs when null or blank
+   * @param request request body, compared with the body of the first request using the key
+   * @param responseType body type of the response, used to read a stored response back
+   * @param action runs the request
+   * @param <T> response body type
+   * @return response of the first request using the key
+   * @throws IdempotencyConflictException if the first request is still running or used a
+   *     different body
+   * @throws IllegalArgumentException if the key is too long
+   */
+  public <T> ResponseEntity<T> execute(
+      String scope,
+      String idempotencyKey,
+      Object request,
+      Class<T> responseType,
+      Supplier<ResponseEntity<T>> action) {
+    if (idempotencyKey == null || idempotencyKey.isBlank()) {
+      return action.get();
+    }
+    if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+      throw new IllegalArgumentException(
+          "Idempotency-Key must not be longer than " + MAX_KEY_LENGTH + " characters");
+    }
+
+    IdempotencyRecord.Key key = new IdempotencyRecord.Key(scope, idempotencyKey);
+    String requestHash = hash(request);
+    // The claim time identifies the claim, so it is kept at the precision of the column
+    LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+
+    StoredResponse cached = getCached(key, now);
+    if (cached != null) {
+      return replay(cached, requestHash, responseType);
+    }
+
+    if (!idempotencyKeyRepository
+        .claim(scope, idempotencyKey, requestHash, now, now.plus(PROCESSING_TIMEOUT))
+        .isEmpty()) {
+      return runClaimed(key, requestHash, now, action);
+    }
+
+    IdempotencyRecord existing = idempotencyKeyRepository.findById(key).orElse(null);
+    if (existing == null || !existing.isCompleted()) {
+      log.warn(
+          "Request with Idempotency-Key {} in scope {} is still running",
+          idempotencyKey,
+          scope);
+      throw new IdempotencyConflictException(
+          "A request with this Idempotency-Key is still being processed");
+    }
+
+    StoredResponse stored =
+        new StoredResponse(
+            existing.getRequestHash(),
+            existing.getStatusCode(),
+            existing.getResponseBody(),
+            existing.getExpiresAt());
+    putCached(key, stored);
+    return replay(stored, requestHash, responseType);
+  }
+
+  /**
+   * Delete keys past their expiry and drop them from memory.
+   *
+   * @return number of keys deleted from the database
+   */
+  public int purgeExpired() {
+    LocalDateTime now = LocalDateTime.now();
+    synchronized (cache) {
+      cache.values().removeIf(stored -> stored.expiresAt().isBefore(now));
+    }
+    return idempotencyKeyRepository.deleteExpired(now);
+  }
+
+  private <T> ResponseEntity<T> runClaimed(
+      IdempotencyRecord.Key key,
+      String requestHash,
+      LocalDateTime claimedAt,
+      Supplier<ResponseEntity<T>> action) {
+    Completed<T> completed;
+    try {
+      completed =
+          transactionRetryExecutor.execute(
+              "idempotent." + key.getScope().split(":", 2)[0],
+              Isolation.READ_COMMITTED,
+              () -> runAndComplete(key, requestHash, claimedAt, action));
+    } catch (RuntimeException e) {
+      idempotencyKeyRepository.release(key.getScope(), key.getIdempotencyKey(), claimedAt);
+      throw e;
+    }
+
+    if (completed.stored() != null) {
+      putCached(key, completed.stored());
+    }
+    return completed.response();
+  }
+
+  private <T> Completed<T> runAndComplete(
+      IdempotencyRecord.Key key,
+      String requestHash,
+      LocalDateTime claimedAt,
+      Supplier<ResponseEntity<T>> action) {
+    ResponseEntity<T> response = action.get();
+
+    if (!response.getStatusCode().is2xxSuccessful()) {
+      idempotencyKeyRepository.release(key.getScope(), key.getIdempotencyKey(), claimedAt);
+      return new Completed<>(response, null);
+    }
+
+    String body;
+    try {
+      body = objectMapper.writeValueAsString(response.getBody());
+    } catch (JsonProcessingException e) {
+      log.error("Cannot store response for Idempotency-Key {}", key.getIdempotencyKey(), e);
+      idempotencyKeyRepository.release(key.getScope(), key.getIdempotencyKey(), claimedAt);
+      return new Completed<>(response, null);
+    }
+
+    LocalDateTime expiresAt = LocalDateTime.now().plusHours(ttlHours);
+    int statusCode = response.getStatusCode().value();
+    if (idempotencyKeyRepository.complete(
+            key.getScope(), key.getIdempotencyKey(), claimedAt, statusCode, body, expiresAt)
+        == 0) {
+      // The claim lapsed and a retry took it over; rolling back keeps the request from running
+      // twice
+      log.warn(
+          "Claim on Idempotency-Key {} in scope {} lapsed before the request completed",
+          key.getIdempotencyKey(),
+          key.getScope());
+      throw new IdempotencyConflictException(
+          "A request with this Idempotency-Key is still being processed");
+    }
+    return new Completed<>(response, new StoredResponse(requestHash, statusCode, body, expiresAt));
+  }
+
+  private <T> ResponseEntity<T> replay(
+      StoredResponse stored, String requestHash, Class<T> responseType) {
+    if (!stored.requestHash().equals(requestHash)) {
+      throw new IdempotencyConflictException(
+          "Idempotency-Key was already used for a different request");
+    }
+
+    try {
+      T body = objectMapper.readValue(stored.body(), responseType);
+      return ResponseEntity.status(stored.statusCode()).header(REPLAYED_HEADER, "true").body(body);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Stored idempotent response cannot be read", e);
+    }
+  }
+
+  private StoredResponse getCached(IdempotencyRecord.Key key, LocalDateTime now) {
+    synchronized (cache) {
+      StoredResponse stored = cache.get(key);
+      if (stored != null && stored.expiresAt().isBefore(now)) {
+        cache.remove(key);
+        return null;
+      }
+      return stored;
+    }
+  }
+
+  private void putCached(IdempotencyRecord.Key key, StoredResponse stored) {
+    synchronized (cache) {
+      cache.put(key, stored);
+    }
+  }
+
+  private String hash(Object request) {
+    try {
+      // Sorted map keys, so the same request hashes the same whatever order its lines came in
+      byte[] json =
+          objectMapper
+              .writer()
+              .with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+              .writeValueAsBytes(request);
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Request body cannot be serialized", e);
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  /**
+   * Response stored for a completed key.
+   *
+   * @param requestHash hash of the request body that produced it
+   * @param statusCode HTTP status
+   * @param body JSON body
+   * @param expiresAt until when it is replayed
+   */
+  private record StoredResponse(
+      String requestHash, int statusCode, String body, LocalDateTime expiresAt) {}
+
+  /**
+   * Outcome of a claimed request whose transaction committed.
+   *
+   * @param response response of the request
+   * @param stored stored response to cache; null when the claim was released instead
+   * @param <T> response body type
+   */
+  private record Completed<T>(ResponseEntity<T> response, StoredResponse stored) {}
+}
@@ -1,11 +1,15 @@
 package com.accountselling.platform.service;
 
+import com.accountselling.platform.dto.stock.LowStockAlert;
 import com.accountselling.platform.model.Product;
 import com.accountselling.platform.model.Stock;
 import java.time.LocalDateTime;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
@@ -22,10 +26,123 @@ import org.springframework.stereotype.Service;
 public class InventoryManagementService {
 
   private final StockService stockService;
+  private final StockArchiveService stockArchiveService;
+  private final IdempotencyKeyStore idempotencyKeyStore;
+  private final DailyRollupService dailyRollupService;
+  private final CustomerLeaderboardService customerLeaderboardService;
+
+  // ==================== STARTUP TASKS ====================
+
+  /** Load reservations still held in the database into the expiry schedule once on startup */
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuildReservationExpirySchedule() {
+    try {
+      int scheduledCount = stockService.rebuildReservationExpirySchedule();
+      log.info("Scheduled expiry for {} held reservations", scheduledCount);
+    } catch (Exception e) {
+      log.error("Error occurred while rebuilding reservation expiry schedule", e);
+    }
+  }
+
+  /** Load products into the low stock watcher once on startup */
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuildLowStockWatch() {
+    try {
+      int watchedCount = stockService.rebuildLowStockWatch();
+      log.info("Watching {} products for low stock", watchedCount);
+    } catch (Exception e) {
+      log.error("Error occurred while loading the low stock watcher", e);
+    }
+  }
+
+  /**
+   * Persist reservation holds replayed from the reservation ledger log once on startup, then load
+   * them into the expiry schedule
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void replayReservationLedger() {
+    try {
+      int replayedCount = stockService.flushReservationLedger();
+      if (replayedCount > 0) {
+        log.info("Persisted {} reservation holds replayed from the ledger log", replayedCount);
+        stockService.rebuildReservationExpirySchedule();
+      }
+    } catch (Exception e) {
+      log.error("Error occurred while replaying the reservation ledger", e);
+    }
+  }
+
+  // ==================== SHUTDOWN TASKS ====================
+
+  /** Return unused hot product pool leases so other nodes can claim the stock right away */
+  @EventListener(ContextClosedEvent.class)
+  public void returnHotStockLeases() {
+    try {
+      stockService.returnHotStockLeases();
+    } catch (Exception e) {
+      log.error("Error occurred while returning hot product pool leases", e);
+    }
+  }
+
+  /** Persist pending reservation ledger holds before the log is closed */
+  @EventListener(ContextClosedEvent.class)
+  public void flushReservationLedgerOnShutdown() {
+    try {
+      stockService.flushReservationLedger();
+    } catch (Exception e) {
+      log.error("Error occurred while flushing the reservation ledger on shutdown", e);
+    }
+  }
 
   // ==================== SCHEDULED TASKS ====================
 
-  /** Clean up expired reservations every 5 minutes */
+  /** Release reservations that reached their deadline every second */
+  @Scheduled(fixedDelay = 1000) // 1 second = 1,000 milliseconds
+  public void releaseDueReservations() {
+    try {
+      stockService.releaseDueReservations();
+    } catch (Exception e) {
+      log.error("Error occurred while releasing due reservations", e);
+    }
+  }
+
+  /** Top up hot product stock pools and return leases about to lapse every second */
+  @Scheduled(fixedDelay = 1000) // 1 second = 1,000 milliseconds
+  public void refillHotStockPools() {
+    try {
+      stockService.refillHotStockPools();
+    } catch (Exception e) {
+      log.error("Error occurred while refilling hot product stock pools", e);
+    }
+  }
+
+  /** Persist reservation ledger holds in batches, every 200 ms by default */
+  @Scheduled(fixedDelayString = "${app.stock.ledger.flush-interval-ms:200}")
+  public void flushReservationLedger() {
+    try {
+      stockService.flushReservationLedger();
+    } catch (Exception e) {
+      log.error("Error occurred while flushing the reservation ledger", e);
+    }
+  }
+
+  /** Compare reservation ledger holds with the database every 5 minutes */
+  @Scheduled(fixedDelay = 300000) // 5 minutes = 300,000 milliseconds
+  public void verifyReservationLedger() {
+    try {
+      int mismatchCount = stockService.verifyReservationLedger();
+      if (mismatchCount > 0) {
+        log.warn("Found {} reservation ledger holds not matching the database", mismatchCount);
+      }
+    } catch (Exception e) {
+      log.error("Error occurred during reservation ledger verification", e);
+    }
+  }
+
+  /**
+   * Clean up expired reservations every 5 minutes. Backstop for reservations the expiry schedule
+   * does not know about, such as holds made by other instances or batches that failed to release.
+   */
   @Scheduled(fixedDelay = 300000) // 5 minutes = 300,000 milliseconds
   public void cleanupExpiredReservations() {
     log.debug("Starting expired reservations cleanup");
@@ -43,6 +160,94 @@ public class InventoryManagementService {
     }
   }
 
+  /** Reconcile in-memory available stock counters with the database every minute */
+  @Scheduled(fixedDelay = 60000) // 1 minute = 60,000 milliseconds
+  public void reconcileAvailableStockCounters() {
+    log.debug("Starting available stock counter reconciliation");
+
+    try {
+      int checkedCount = stockService.reconcileAvailableStockCounters();
+      log.debug("Reconciled available stock counters for {} products", checkedCount);
+    } catch (Exception e) {
+      log.error("Error occurred during available stock counter reconciliation", e);
+    }
+  }
+
+  /**
+   * Verify product stock summaries against the stock table every 15 minutes, repairing drift and
+   * creating missing summaries. Also runs once on startup.
+   */
+  @Scheduled(fixedDelay = 900000) // 15 minutes = 900,000 milliseconds
+  public void verifyStockSummaries() {
+    log.debug("Starting product stock summary verification");
+
+    try {
+      int repairedCount = stockService.verifyStockSummaries();
+      log.debug("Repaired {} product stock summaries", repairedCount);
+    } catch (Exception e) {
+      log.error("Error occurred during product stock summary verification", e);
+    }
+  }
+
+  /**
+   * Move old sold stock into the sold stock history every night at 03:30, in throttled batches.
+   * Runs cut short by the batch limit continue from the checkpoint the next night.
+   */
+  @Scheduled(cron = "0 30 3 * * *") // Every day at 03:30:00
+  public void archiveSoldStock() {
+    log.info("Starting sold stock archival");
+
+    try {
+      int archivedCount = stockArchiveService.archiveSoldStock();
+      log.info("Archived {} sold stock items", archivedCount);
+    } catch (Exception e) {
+      log.error("Error occurred during sold stock archival", e);
+    }
+  }
+
+  /**
+   * Recount the daily order and payment rollups of the last few days every night at 03:15, to
+   * repair any drift from changes made outside the order and payment services.
+   */
+  @Scheduled(cron = "0 15 3 * * *") // Every day at 03:15:00
+  public void rebuildRecentDailyRollups() {
+    log.info("Starting daily rollup rebuild");
+
+    try {
+      int writtenCount = dailyRollupService.rebuildRecentRollups();
+      log.info("Rebuilt {} daily rollup rows", writtenCount);
+    } catch (Exception e) {
+      log.error("Error occurred during daily rollup rebuild", e);
+    }
+  }
+
+  /**
+   * Recount the customer leaderboard every Sunday at 03:45, to repair any drift from orders
+   * changed outside the order service.
+   */
+  @Scheduled(cron = "0 45 3 * * SUN") // Every Sunday at 03:45:00
+  public void rebuildCustomerLeaderboard() {
+    log.info("Starting customer leaderboard rebuild");
+
+    try {
+      int correctedCount = customerLeaderboardService.rebuildLeaderboard();
+      log.info("Corrected leaderboard rows of {} customers", correctedCount);
+    } catch (Exception e) {
+      log.error("Error occurred during customer leaderboard rebuild", e);
+    }
+  }
+
+  /** Purge expired Idempotency-Key records and their stored responses every hour */
+  @Scheduled(fixedDelay = 3600000) // 1 hour = 3,600,000 milliseconds
+  public void purgeExpiredIdempotencyKeys() {
+    try {
+      int purgedCount = idempotencyKeyStore.purgeExpired();
+      log.debug("Purged {} expired idempotency keys", purgedCount);
+    } catch (Exception e) {
+      log.error("Error occurred while purging expired idempotency keys", e);
+    }
+  }
+
   /** Check and notify about reservations expiring soon every 2 minutes */
   @Scheduled(fixedDelay = 120000) // 2 minutes = 120,000 milliseconds
   public void checkReservationsExpiringSoon() {
@@ -73,34 +278,20 @@ public class InventoryManagementService {
     }
   }
 
-  /** Check and notify about low stock products every 30 minutes */
-  @Scheduled(fixedDelay = 1800000) // 30 minutes = 1,800,000 milliseconds
+  /**
+   * Send debounced low stock alerts every 10 seconds. Threshold crossings are detected by the low
+   * stock watcher as stock changes, so this only drains alerts that are due.
+   */
+  @Scheduled(fixedDelay = 10000) // 10 seconds = 10,000 milliseconds
   public void checkLowStockProducts() {
-    log.debug("Checking for low stock products");
-
     try {
-      List<Product> lowStockProducts = stockService.getProductsWithLowStock(null);
+      List<LowStockAlert> alerts = stockService.pollLowStockAlerts();
 
-      if (!lowStockProducts.isEmpty()) {
-        log.warn("Found {} products with low stock", lowStockProducts.size());
-
-        // Notify for each product
-        for (Product product : lowStockProducts) {
-          long availableStock = stockService.getAvailableStockCount(product.getId());
-          int threshold =
-              product.getLowStockThreshold() != null ? product.getLowStockThreshold() : 5;
-
-          log.warn(
-              "Product '{}' has low stock: {} items (threshold: {})",
-              product.getName(),
-              availableStock,
-              threshold);
-        }
+      if (!alerts.isEmpty()) {
+        log.warn("Found {} products crossing their low stock threshold", alerts.size());
 
         // TODO: Send notifications to notification system or admin dashboard
-        notifyLowStockProducts(lowStockProducts);
-      } else {
-        log.debug("No low stock products found");
+        notifyLowStockProducts(alerts);
       }
     } catch (Exception e) {
       log.error("Error occurred while checking low stock products", e);
@@ -152,10 +343,10 @@ public class InventoryManagementService {
   /**
    * Send notifications for low stock products
    *
-   * @param lowStockProducts List of products with low stock
+   * @param alerts Low stock alerts that are due
    */
-  private void notifyLowStockProducts(List<Product> lowStockProducts) {
-    log.debug("Sending notifications for {} low stock products", lowStockProducts.size());
+  private void notifyLowStockProducts(List<LowStockAlert> alerts) {
+    log.debug("Sending notifications for {} low stock products", alerts.size());
 
     // TODO: Implement notification logic
     // Examples:
@@ -164,15 +355,13 @@ public class InventoryManagementService {
     // - Save to notification table
     // - Send webhook to external system
 
-    for (Product product : lowStockProducts) {
-      long availableStock = stockService.getAvailableStockCount(product.getId());
-      int threshold = product.getLowStockThreshold() != null ? product.getLowStockThreshold() : 5;
-
+    for (LowStockAlert alert : alerts) {
       log.info(
-          "Notification: Product '{}' has low stock {} items (threshold: {})",
-          product.getName(),
-          availableStock,
-          threshold);
+          "Notification: Product '{}' is {} with {} items (threshold: {})",
+          alert.productName(),
+          alert.outOfStock() ? "out of stock" : "low on stock",
+          alert.available(),
+          alert.threshold());
     }
   }
 
@@ -0,0 +1,275 @@
+package com.accountselling.platform.service;
+
+import com.accountselling.platform.dto.stock.LowStockAlert;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Watches available stock counts for low stock threshold crossings. The watcher listens to the
+ * {@link AvailableStockCounterRegistry}, so every reservation, release, sale, import and
+ * reconciliation that changes a count re-evaluates only the affected product, and the live sets of
+ * low stock and out of stock products can be read without scanning the catalog.
+ *
+ * <p>Alerts are debounced: a product must stay below its threshold for {@link
+ * #ALERT_DEBOUNCE_MILLIS} before an alert is raised, and it is alerted again only when it moves
+ * between low stock and out of stock or after it recovers and crosses the threshold again.
+ *
+ * <p>ตัวเฝ้าดูสินค้าที่สต็อกต่ำกว่าเกณฑ์แบบตามเหตุการณ์
+ */
+@Slf4j
+@Component
+public class LowStockWatcher {
+
+  /** How long a product must stay below its threshold before an alert is raised. */
+  public static final long ALERT_DEBOUNCE_MILLIS = 30_000;
+
+  private static final int DEFAULT_LOW_STOCK_THRESHOLD = 5;
+  private static final long UNKNOWN = -1;
+
+  private final Map<UUID, WatchedProduct> products = new ConcurrentHashMap<>();
+  private final Set<UUID> lowStock = ConcurrentHashMap.newKeySet();
+  private final Set<UUID> outOfStock = ConcurrentHashMap.newKeySet();
+
+  // Product ID -> time it crossed into its current level, until the alert is raised
+  private final Map<UUID, Long> pendingAlerts = new ConcurrentHashMap<>();
+
+  // Product ID -> whether the last alert raised for it was out of stock
+  private final Map<UUID, Boolean> alerted = new ConcurrentHashMap<>();
+
+  private final AvailableStockCounterRegistry availableStockCounters;
+
+  private volatile boolean ready;
+
+  public LowStockWatcher(AvailableStockCounterRegistry availableStockCounters) {
+    this.availableStockCounters = availableStockCounters;
+    availableStockCounters.addListener(this::onAvailableStockChanged);
+  }
+
+  /**
+   * Replace the watched products. Products that are already low are alerted after the usual
+   * debounce.
+   *
+   * @param thresholds low stock threshold per product (null uses the default threshold)
+   * @param availableCounts available stock per product; missing products have no stock
+   */
+  public void rebuild(Map<UUID, Integer> thresholds, Map<UUID, Long> availableCounts) {
+    long now = System.currentTimeMillis();
+
+    products.clear();
+    lowStock.clear();
+    outOfStock.clear();
+    pendingAlerts.clear();
+    alerted.clear();
+
+    thresholds.forEach(
+        (productId, threshold) ->
+            update(
+                productId,
+                watched -> new WatchedProduct(thresholdOrDefault(threshold), UNKNOWN),
+                availableCounts.getOrDefault(productId, 0L),
+                now));
+
+    ready = true;
+    log.info(
+        "Watching {} products, {} low stock and {} out of stock",
+        products.size(),
+        lowStock.size(),
+        outOfStock.size());
+  }
+
+  /**
+   * Whether the watcher has been loaded with every product. Until then callers should fall back to
+   * querying the database.
+   *
+   * @return true once {@link #rebuild(Map, Map)} has run
+   */
+  public boolean isReady() {
+    return ready;
+  }
+
+  /**
+   * Start watching a product or change its threshold. The product is evaluated with its last known
+   * available count.
+   *
+   * @param productId ID of the product
+   * @param threshold low stock threshold (null uses the default threshold)
+   */
+  public void watch(UUID productId, Integer threshold) {
+    int resolved = thresholdOrDefault(threshold);
+    update(
+        productId,
+        watched -> new WatchedProduct(resolved, watched != null ? watched.available() : UNKNOWN),
+        null,
+        System.currentTimeMillis());
+  }
+
+  /**
+   * Start watching a product that was just created. New products have no stock, so the available
+   * counter starts at zero once the surrounding transaction commits.
+   *
+   * @param productId ID of the new product
+   * @param threshold low stock threshold (null uses the default threshold)
+   */
+  public void watchNewProduct(UUID productId, Integer threshold) {
+    watch(productId, threshold);
+    availableStockCounters.track(Map.of(productId, 0L));
+  }
+
+  /**
+   * Stop watching a product, for example after it was deleted.
+   *
+   * @param productId ID of the product
+   */
+  public void unwatch(UUID productId) {
+    products.remove(productId);
+    lowStock.remove(productId);
+    outOfStock.remove(productId);
+    pendingAlerts.remove(productId);
+    alerted.remove(productId);
+  }
+
+  /**
+   * Get the products whose available stock is at or below their own threshold.
+   *
+   * @return snapshot of low stock product IDs (includes out of stock products)
+   */
+  public Set<UUID> getLowStockProductIds() {
+    return Set.copyOf(lowStock);
+  }
+
+  /**
+   * Get the products with no available stock.
+   *
+   * @return snapshot of out of stock product IDs
+   */
+  public Set<UUID> getOutOfStockProductIds() {
+    return Set.copyOf(outOfStock);
+  }
+
+  /**
+   * Get the products whose available stock is at or below a custom threshold, from the last known
+   * counts.
+   *
+   * @param threshold threshold to compare against instead of each product's own
+   * @return IDs of matching products
+   */
+  public Set<UUID> getProductIdsAtOrBelow(long threshold) {
+    return products.entrySet().stream()
+        .filter(
+            entry ->
+                entry.getValue().available() != UNKNOWN
+                    && entry.getValue().available() <= threshold)
+        .map(Map.Entry::getKey)
+        .collect(Collectors.toSet());
+  }
+
+  /**
+   * Take the alerts whose debounce period has passed.
+   *
+   * @param nowMillis current time in epoch milliseconds
+   * @return alerts to send, without product names
+   */
+  public List<LowStockAlert> pollDueAlerts(long nowMillis) {
+    List<LowStockAlert> due = new ArrayList<>();
+
+    Iterator<Map.Entry<UUID, Long>> pending = pendingAlerts.entrySet().iterator();
+    while (pending.hasNext()) {
+      Map.Entry<UUID, Long> entry = pending.next();
+      if (entry.getValue() + ALERT_DEBOUNCE_MILLIS > nowMillis) {
+        continue;
+      }
+      pending.remove();
+
+      UUID productId = entry.getKey();
+      WatchedProduct watched = products.get(productId);
+      if (watched == null || !watched.isLow()) {
+        continue;
+      }
+
+      boolean isOut = watched.isOut();
+      if (!Boolean.valueOf(isOut).equals(alerted.put(productId, isOut))) {
+        due.add(
+            new LowStockAlert(
+                productId, null, watched.available(), watched.threshold(), isOut));
+      }
+    }
+
+    return due;
+  }
+
+  /** Listener for the available stock counters. */
+  void onAvailableStockChanged(UUID productId, long available) {
+    onAvailableStockChanged(productId, available, System.currentTimeMillis());
+  }
+
+  void onAvailableStockChanged(UUID productId, long available, long nowMillis) {
+    // Products that are not watched (not loaded yet, or deleted) are ignored
+    update(productId, watched -> watched, available, nowMillis);
+  }
+
+  private void update(
+      UUID productId,
+      UnaryOperator<WatchedProduct> change,
+      Long available,
+      long nowMillis) {
+    products.compute(
+        productId,
+        (id, current) -> {
+          WatchedProduct next = change.apply(current);
+          if (next == null) {
+            return null;
+          }
+          if (available != null) {
+            next = new WatchedProduct(next.threshold(), available);
+          }
+          evaluate(id, next, nowMillis);
+          return next;
+        });
+  }
+
+  private void evaluate(UUID productId, WatchedProduct watched, long nowMillis) {
+    if (watched.isLow()) {
+      lowStock.add(productId);
+      if (watched.isOut()) {
+        outOfStock.add(productId);
+      } else {
+        outOfStock.remove(productId);
+      }
+
+      // Debounce from the first crossing; the alert reports the level at send time
+      Boolean alertedOut = alerted.get(productId);
+      if (alertedOut == null || alertedOut != watched.isOut()) {
+        pendingAlerts.putIfAbsent(productId, nowMillis);
+      }
+    } else {
+      lowStock.remove(productId);
+      outOfStock.remove(productId);
+      pendingAlerts.remove(productId);
+      alerted.remove(productId);
+    }
+  }
+
+  private int thresholdOrDefault(Integer threshold) {
+    return threshold != null ? threshold : DEFAULT_LOW_STOCK_THRESHOLD;
+  }
+
+  private record WatchedProduct(int threshold, long available) {
+
+    boolean isLow() {
+      return available != UNKNOWN && available <= threshold;
+    }
+
+    boolean isOut() {
+      return available == 0;
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package com.accountselling.platform.service;
+
+import com.accountselling.platform.dto.common.CursorPageDto;
+import com.accountselling.platform.dto.order.OrderResponseDto;
+import com.accountselling.platform.enums.OrderStatus;
+import com.accountselling.platform.util.KeysetCursor;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Read model of orders for order detail and history pages. Builds responses from projection
+ * queries instead of walking the lazy associations of the order entities, so a single order costs
+ * two queries and a page of orders three (page, count and items), whatever the page size.
+ *
+ * <p>Service สำหรับอ่านข้อมูลคำสั่งซื้อด้วยจำนวน query คงที่
+ */
+public interface OrderQueryService {
+
+  /**
+   * Get an order with its items and payment.
+   *
+   * @param orderId the order ID
+   * @return order response
+   * @throws com.accountselling.platform.exception.ResourceNotFoundException if the order does not
+   *     exist
+   */
+  OrderResponseDto getOrder(UUID orderId);
+
+  /**
+   * Get orders with their items and payments.
+   *
+   * @param orderIds the order IDs
+   * @return order responses in the order of the given IDs; IDs not found are skipped
+   */
+  List<OrderResponseDto> getOrders(List<UUID> orderIds);
+
+  /**
+   * Get a page of a user's orders with their items and payments.
+   *
+   * @param userId the user ID
+   * @param pageable pagination and sorting on order properties
+   * @return page of order responses
+   */
+  Page<OrderResponseDto> getOrdersByUser(UUID userId, Pageable pageable);
+
+  /**
+   * Get one page of a user's orders, newest first, following a keyset cursor. Every page costs
+   * the same two queries however deep it is, as there is no offset to skip and no count.
+   *
+   * @param userId the user ID
+   * @param after cursor of the last order of the previous page, or null for the first page
+   * @param size page size
+   * @return cursor page of order responses with the cursor of the next page, if any
+   */
+  CursorPageDto<OrderResponseDto> getOrdersByUserAfter(UUID userId, KeysetCursor after, int size);
+
+  /**
+   * Get a page of orders with a status, with their items and payments.
+   *
+   * @param status the order status
+   * @param pageable pagination and sorting on order properties
+   * @return page of order responses
+   */
+  Page<OrderResponseDto> getOrdersByStatus(OrderStatus status, Pageable pageable);
+}
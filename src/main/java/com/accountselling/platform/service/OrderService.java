@@ -2,6 +2,7 @@ package com.accountselling.platform.service;
 
 import com.accountselling.platform.dto.statistics.DailyOrderStatistics;
 import com.accountselling.platform.dto.statistics.OrderStatistics;
+import com.accountselling.platform.dto.statistics.TopCustomer;
 import com.accountselling.platform.enums.OrderStatus;
 import com.accountselling.platform.model.Order;
 import com.accountselling.platform.model.User;
@@ -28,7 +29,8 @@ public interface OrderService {
 
   /**
    * Create a new order for a user with specified products and quantities. This method handles stock
-   * reservation and order validation.
+   * reservation and order validation. Outside a transaction the order is created in its own
+   * transaction, which is retried on deadlocks and serialization failures.
    *
    * @param user the user creating the order
    * @param productQuantities map of product IDs to quantities requested
@@ -38,6 +40,8 @@ public interface OrderService {
    * @throws com.accountselling.platform.exception.InsufficientStockException if insufficient stock
    *     available
    * @throws com.accountselling.platform.exception.InvalidOrderException if order validation fails
+   * @throws com.accountselling.platform.exception.TransactionConflictException if every retry
+   *     conflicted with concurrent transactions
    */
   Order createOrder(User user, Map<UUID, Integer> productQuantities);
 
@@ -321,22 +325,32 @@ public interface OrderService {
   OrderStatistics getOrderStatistics(LocalDateTime startDate, LocalDateTime endDate);
 
   /**
-   * Get daily order statistics within date range.
+   * Get daily order statistics within date range. Read from the daily rollups, so the cost does
+   * not depend on the size of the order history; whole days are counted from the day of the start
+   * date to the day of the end date.
    *
    * @param startDate start date of the range
    * @param endDate end date of the range
-   * @return list of daily order statistics
+   * @return list of daily order statistics, one per day with orders, ordered by date
    */
   List<DailyOrderStatistics> getDailyOrderStatistics(
       LocalDateTime startDate, LocalDateTime endDate);
 
   /**
-   * Get top customers by order count.
+   * Get top customers by completed order count, read from the customer leaderboard.
    *
    * @param limit maximum number of customers to return
-   * @return list of top customers by order count
+   * @return list of top customers with their order counts and revenue
    */
-  List<User> getTopCustomersByOrderCount(int limit);
+  List<TopCustomer> getTopCustomersByOrderCount(int limit);
+
+  /**
+   * Get top customers by revenue of completed orders, read from the customer leaderboard.
+   *
+   * @param limit maximum number of customers to return
+   * @return list of top customers with their order counts and revenue
+   */
+  List<TopCustomer> getTopCustomersByRevenue(int limit);
 
   /**
    * Get recent orders for dashboard.
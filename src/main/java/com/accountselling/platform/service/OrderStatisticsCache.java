@@ -0,0 +1,168 @@
+package com.accountselling.platform.service;
+
+import com.accountselling.platform.dto.statistics.OrderStatistics;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Short-lived snapshots of order statistics for the admin dashboards, so polling them does not
+ * scan the orders table on every request. A snapshot younger than the TTL is served as is. An
+ * older one is still served for a while, stale-while-revalidate, while a background thread loads a
+ * fresh one; only a snapshot past that stale window, or a missing one, is loaded by the caller.
+ *
+ * <p>Windows ending within one TTL of now, such as "today so far", are cached as open-ended
+ * windows and loaded up to the time of loading, so callers passing the current time share one
+ * snapshot.
+ *
+ * <p>แคชสถิติคำสั่งซื้อแบบอายุสั้นสำหรับหน้า dashboard
+ */
+@Slf4j
+@Component
+public class OrderStatisticsCache {
+
+  // Windows kept at most; dashboards use a handful, ad hoc admin ranges should not grow the map
+  private static final int MAX_WINDOWS = 256;
+
+  private final long ttlNanos;
+  private final long staleNanos;
+  private final LongSupplier clock;
+  private final ExecutorService refresher;
+
+  private final Map<Window, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+  @Autowired
+  public OrderStatisticsCache(
+      @Value("${app.order-statistics.ttl-seconds:10}") long ttlSeconds,
+      @Value("${app.order-statistics.stale-seconds:60}") long staleSeconds) {
+    this(
+        Duration.ofSeconds(ttlSeconds),
+        Duration.ofSeconds(staleSeconds),
+        System::nanoTime,
+        Executors.newSingleThreadExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "order-statistics-refresh");
+              thread.setDaemon(true);
+              return thread;
+            }));
+  }
+
+  OrderStatisticsCache(
+      Duration ttl, Duration staleFor, LongSupplier clock, ExecutorService refresher) {
+    this.ttlNanos = ttl.toNanos();
+    this.staleNanos = staleFor.toNanos();
+    this.clock = clock;
+    this.refresher = refresher;
+  }
+
+  /** Stop the background refresh thread. */
+  @PreDestroy
+  public void close() {
+    refresher.shutdownNow();
+  }
+
+  /**
+   * Get order statistics of a window from its snapshot, loading it when needed.
+   *
+   * @param startDate start of the window, or null for all time
+   * @param endDate end of the window, or null for all time
+   * @param loader loads the statistics of a window given its start and end
+   * @return order statistics, at most TTL plus stale window old
+   */
+  public OrderStatistics get(
+      LocalDateTime startDate,
+      LocalDateTime endDate,
+      BiFunction<LocalDateTime, LocalDateTime, OrderStatistics> loader) {
+    Window window = Window.of(startDate, endDate, Duration.ofNanos(ttlNanos));
+
+    Snapshot snapshot = snapshots.get(window);
+    if (snapshot != null) {
+      long age = clock.getAsLong() - snapshot.loadedAt();
+      if (age < ttlNanos) {
+        return snapshot.statistics();
+      }
+      if (age < ttlNanos + staleNanos) {
+        refreshInBackground(window, snapshot, loader);
+        return snapshot.statistics();
+      }
+    }
+
+    return load(window, loader);
+  }
+
+  private void refreshInBackground(
+      Window window,
+      Snapshot snapshot,
+      BiFunction<LocalDateTime, LocalDateTime, OrderStatistics> loader) {
+    // One refresh per snapshot; the flag is left set once the new snapshot replaces this one
+    if (!snapshot.refreshing().compareAndSet(false, true)) {
+      return;
+    }
+
+    try {
+      refresher.execute(
+          () -> {
+            try {
+              load(window, loader);
+            } catch (RuntimeException e) {
+              log.warn("Error refreshing order statistics for window {}", window, e);
+              snapshot.refreshing().set(false);
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      snapshot.refreshing().set(false);
+    }
+  }
+
+  private OrderStatistics load(
+      Window window, BiFunction<LocalDateTime, LocalDateTime, OrderStatistics> loader) {
+    OrderStatistics statistics = loader.apply(window.startDate(), window.loadEndDate());
+
+    if (snapshots.size() >= MAX_WINDOWS && !snapshots.containsKey(window)) {
+      evictExpired();
+    }
+    if (snapshots.size() < MAX_WINDOWS || snapshots.containsKey(window)) {
+      snapshots.put(window, new Snapshot(statistics, clock.getAsLong(), new AtomicBoolean()));
+    }
+    return statistics;
+  }
+
+  private void evictExpired() {
+    long now = clock.getAsLong();
+    snapshots.values().removeIf(snapshot -> now - snapshot.loadedAt() >= ttlNanos + staleNanos);
+  }
+
+  /**
+   * Statistics window used as the cache key. An open-ended window has a start but no end and is
+   * loaded up to the current time.
+   */
+  private record Window(LocalDateTime startDate, LocalDateTime endDate) {
+
+    static Window of(LocalDateTime startDate, LocalDateTime endDate, Duration ttl) {
+      if (startDate != null
+          && endDate != null
+          && !endDate.isBefore(LocalDateTime.now().minus(ttl))) {
+        return new Window(startDate, null);
+      }
+      return new Window(startDate, endDate);
+    }
+
+    LocalDateTime loadEndDate() {
+      return startDate != null && endDate == null ? LocalDateTime.now() : endDate;
+    }
+  }
+
+  private record Snapshot(OrderStatistics statistics, long loadedAt, AtomicBoolean refreshing) {}
+}
@@ -403,11 +403,13 @@ public interface PaymentService {
   PaymentStatistics getPaymentStatistics(LocalDateTime startDate, LocalDateTime endDate);
 
   /**
-   * Get daily payment statistics within date range.
+   * Get daily payment statistics within date range. Read from the daily rollups, so the cost does
+   * not depend on the size of the payment history; whole days are counted from the day of the start
+   * date to the day of the end date.
    *
    * @param startDate start date of the range
    * @param endDate end date of the range
-   * @return list of daily payment statistics
+   * @return list of daily payment statistics, one per day with payments, ordered by date
    */
   List<DailyPaymentStatistics> getDailyPaymentStatistics(
       LocalDateTime startDate, LocalDateTime endDate);
@@ -155,7 +155,7 @@ public interface ProductService {
   List<Product> findOutOfStockProducts();
 
   /**
-   * Get stock information for a product.
+   * Get stock information for a product. Counts come from the product stock summary.
    *
    * @param productId the product ID
    * @return stock information object
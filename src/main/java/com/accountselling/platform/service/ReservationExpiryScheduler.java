@@ -0,0 +1,113 @@
+package com.accountselling.platform.service;
+
+import com.accountselling.platform.util.HierarchicalTimingWheel;
+import com.accountselling.platform.util.TransactionCallbacks;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process scheduler for stock reservation deadlines. Reserved stock IDs are placed on a
+ * hierarchical timing wheel keyed by {@code reservedUntil}; once a deadline passes the ID moves to
+ * a ready queue from which expired holds are released in small batches.
+ *
+ * <p>The wheel only knows reservations made by this instance since it started, plus whatever was
+ * loaded by {@link #rebuild(Map)} at startup. Entries are never cancelled: a release or sale that
+ * happens first simply makes the conditional expiry release a no-op, and the periodic sweep in
+ * {@link InventoryManagementService} remains as a backstop.
+ *
+ * <p>ตัวจัดตารางเวลาหมดอายุการจองสต็อก
+ */
+@Slf4j
+@Component
+public class ReservationExpiryScheduler {
+
+  // One-second buckets; 60 per wheel gives wheels spanning a minute, an hour, 2.5 days, ...
+  private static final long TICK_MILLIS = 1000;
+  private static final int WHEEL_SIZE = 60;
+
+  private final HierarchicalTimingWheel<UUID> wheel =
+      new HierarchicalTimingWheel<>(TICK_MILLIS, WHEEL_SIZE, System.currentTimeMillis());
+  private final Deque<UUID> ready = new ArrayDeque<>();
+
+  /**
+   * Schedule expiry of reserved stock items. Inside a transaction the items are scheduled only
+   * after commit.
+   *
+   * @param stockIds IDs of the reserved stock items
+   * @param reservedUntil reservation deadline
+   */
+  public void schedule(Collection<UUID> stockIds, LocalDateTime reservedUntil) {
+    if (stockIds.isEmpty()) {
+      return;
+    }
+
+    List<UUID> ids = List.copyOf(stockIds);
+    long deadline = toEpochMillis(reservedUntil);
+    TransactionCallbacks.afterCommit(
+        () -> {
+          for (UUID stockId : ids) {
+            wheel.schedule(stockId, deadline);
+          }
+        });
+  }
+
+  /**
+   * Take up to {@code maxItems} stock IDs whose reservation deadline has passed.
+   *
+   * @param maxItems maximum number of IDs to return
+   * @return IDs of stock items due for release (empty when nothing is due)
+   */
+  public List<UUID> pollDue(int maxItems) {
+    List<UUID> due = wheel.advance(System.currentTimeMillis());
+
+    synchronized (ready) {
+      ready.addAll(due);
+
+      List<UUID> batch = new ArrayList<>(Math.min(maxItems, ready.size()));
+      while (batch.size() < maxItems && !ready.isEmpty()) {
+        batch.add(ready.poll());
+      }
+      return batch;
+    }
+  }
+
+  /**
+   * Replace all scheduled deadlines with the given reservations. Used at startup to load the
+   * reservations that are still held in the database.
+   *
+   * @param reservations reservation deadline keyed by stock ID
+   */
+  public void rebuild(Map<UUID, LocalDateTime> reservations) {
+    synchronized (ready) {
+      ready.clear();
+      wheel.clear(System.currentTimeMillis());
+      reservations.forEach((stockId, until) -> wheel.schedule(stockId, toEpochMillis(until)));
+    }
+
+    log.info("Rebuilt reservation expiry schedule with {} reservations", reservations.size());
+  }
+
+  /**
+   * Get the number of reservations waiting for their deadline or for release.
+   *
+   * @return number of pending reservations
+   */
+  public int getPendingCount() {
+    synchronized (ready) {
+      return wheel.size() + ready.size();
+    }
+  }
+
+  private static long toEpochMillis(LocalDateTime dateTime) {
+    return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+  }
+}
@@ -0,0 +1,395 @@
+package com.accountselling.platform.service;
+
+import com.accountselling.platform.util.MappedReservationLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Optional in-memory ledger of reservation holds on stock leased into this node's hot product
+ * pools. With the ledger enabled, reserving a pooled item only appends a record to a local
+ * memory-mapped write-ahead log and keeps the hold in memory; a background flush inserts the holds
+ * into stock_reservation in batches. Leased items are skipped by every other claim, so the database
+ * row is not needed to keep the item away from other buyers while the lease lasts.
+ *
+ * <p>A hold is logged before the reserving transaction commits but only becomes pending for the
+ * flush once it has, so the flush never persists the hold of a reservation that rolls back.
+ *
+ * <p>Holds not yet flushed are replayed from the log on restart. Code that releases or sells stock
+ * settles its pending holds first, so it always finds them in the database. Holds that were flushed
+ * are remembered until their deadline so the consistency check can compare them with the database.
+ *
+ * <p>Disabled by default; the regular JPA path then reserves pooled items directly.
+ *
+ * <p>บัญชีการจองสต็อกในหน่วยความจำพร้อม write-ahead log
+ */
+@Slf4j
+@Component
+public class ReservationLedger {
+
+  @Value("${app.stock.ledger.enabled:false}")
+  private boolean enabled;
+
+  @Value("${app.stock.ledger.path:data/reservation-ledger.wal}")
+  private String path;
+
+  @Value("${app.stock.ledger.size-mb:64}")
+  private int sizeMb;
+
+  // Holds logged by reservations that have not committed yet, keyed by stock ID
+  private final Map<UUID, Hold> unpublished = new HashMap<>();
+
+  // Holds only in the log, keyed by stock ID in the order they were taken
+  private final Map<UUID, Hold> pending = new LinkedHashMap<>();
+
+  // Holds already in the database, kept until their deadline for the consistency check
+  private final Map<UUID, Hold> persisted = new ConcurrentHashMap<>();
+
+  // Held by the flush for the whole batch transaction, so a hold is never in flight while release
+  // or sale code looks for it
+  private final Lock flushLock = new ReentrantLock();
+
+  // Holds logged without a settled record yet, pending or in flight. The log always keeps a free
+  // slot for each of them, and it is only started over once there are none
+  private int unsettled;
+
+  private final LongAdder recorded = new LongAdder();
+  private final LongAdder flushed = new LongAdder();
+  private final LongAdder conflicts = new LongAdder();
+
+  private MappedReservationLog wal;
+
+  /** Open the log and load the holds that were not flushed before the last shutdown. */
+  @PostConstruct
+  public void open() {
+    if (!enabled) {
+      return;
+    }
+
+    try {
+      wal = MappedReservationLog.open(Path.of(path), sizeMb * 1024 * 1024);
+    } catch (IOException e) {
+      log.error("Cannot open reservation ledger log {}, ledger disabled", path, e);
+      return;
+    }
+
+    int replayed = replay();
+    log.info("Opened reservation ledger log {} with {} unflushed holds", path, replayed);
+  }
+
+  /** Write outstanding records to disk and close the log. */
+  @PreDestroy
+  public void close() {
+    if (wal == null) {
+      return;
+    }
+
+    try {
+      wal.close();
+    } catch (IOException e) {
+      log.error("Error closing reservation ledger log {}", path, e);
+    }
+  }
+
+  /**
+   * Check whether pooled reservations go through the ledger.
+   *
+   * @return true if the ledger is enabled and its log is open
+   */
+  public boolean isEnabled() {
+    return wal != null;
+  }
+
+  /**
+   * Record holds in the log and in memory. Holds are only accepted while the log has room to
+   * settle every pending hold later. The flush does not see them until they are published once the
+   * reserving transaction commits.
+   *
+   * @param holds holds to record
+   * @return false when the log is full; the caller must reserve the items in the database instead
+   */
+  public synchronized boolean record(Collection<Hold> holds) {
+    if (holds.isEmpty()) {
+      return true;
+    }
+
+    if (wal.remainingRecords() < unsettled + holds.size() * 2
+        || !wal.append(MappedReservationLog.HOLD, toRecords(holds))) {
+      log.warn("Reservation ledger log is full, reserving {} items directly", holds.size());
+      return false;
+    }
+
+    holds.forEach(hold -> unpublished.put(hold.stockId(), hold));
+    unsettled += holds.size();
+    recorded.add(holds.size());
+    return true;
+  }
+
+  /**
+   * Hand recorded holds to the flush after their reserving transaction committed.
+   *
+   * @param holds holds passed to {@link #record(Collection)}
+   */
+  public synchronized void publish(Collection<Hold> holds) {
+    for (Hold hold : holds) {
+      if (unpublished.remove(hold.stockId(), hold)) {
+        pending.put(hold.stockId(), hold);
+      }
+    }
+  }
+
+  /**
+   * Take pending holds of the given stock items so the caller can persist them in its own
+   * transaction. Waits for a running flush to commit first.
+   *
+   * @param stockIds stock IDs to look up
+   * @return pending holds of those items; empty when all are in the database already
+   */
+  public List<Hold> takePending(Collection<UUID> stockIds) {
+    flushLock.lock();
+    try {
+      synchronized (this) {
+        List<Hold> taken = new ArrayList<>();
+        for (UUID stockId : stockIds) {
+          Hold hold = pending.remove(stockId);
+          if (hold != null) {
+            taken.add(hold);
+          }
+        }
+        return taken;
+      }
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  /**
+   * Take the oldest pending holds for a flush. Call while holding {@link #getFlushLock()}.
+   *
+   * @param maxHolds maximum number of holds to take
+   * @return pending holds in the order they were taken
+   */
+  public synchronized List<Hold> drainPending(int maxHolds) {
+    List<Hold> drained = new ArrayList<>(Math.min(maxHolds, pending.size()));
+    Iterator<Hold> iterator = pending.values().iterator();
+    while (drained.size() < maxHolds && iterator.hasNext()) {
+      drained.add(iterator.next());
+      iterator.remove();
+    }
+    return drained;
+  }
+
+  /**
+   * Put holds back after the transaction persisting them rolled back.
+   *
+   * @param holds holds returned by {@link #drainPending(int)} or {@link #takePending(Collection)}
+   */
+  public synchronized void restore(Collection<Hold> holds) {
+    holds.forEach(hold -> pending.putIfAbsent(hold.stockId(), hold));
+  }
+
+  /**
+   * Settle holds whose persisting transaction committed. Holds the database refused, for example
+   * because the item was sold after its lease lapsed, are counted as conflicts.
+   *
+   * @param holds holds that were persisted
+   * @param persistedStockIds stock IDs the database accepted
+   */
+  public synchronized void markPersisted(
+      Collection<Hold> holds, Collection<UUID> persistedStockIds) {
+    settle(holds);
+    Set<UUID> accepted = new HashSet<>(persistedStockIds);
+    for (Hold hold : holds) {
+      if (accepted.contains(hold.stockId())) {
+        persisted.put(hold.stockId(), hold);
+      } else {
+        conflicts.increment();
+        log.warn("Reservation ledger hold on stock ID: {} was refused", hold.stockId());
+      }
+    }
+    flushed.add(persistedStockIds.size());
+  }
+
+  /**
+   * Drop holds whose reservation was rolled back before they were persisted. A hold taken again by
+   * a later reservation of the same item is kept.
+   *
+   * @param holds holds to drop
+   */
+  public synchronized void discard(Collection<Hold> holds) {
+    List<Hold> dropped = new ArrayList<>();
+    for (Hold hold : holds) {
+      if (unpublished.remove(hold.stockId(), hold) || pending.remove(hold.stockId(), hold)) {
+        dropped.add(hold);
+      }
+    }
+    settle(dropped);
+  }
+
+  /**
+   * Stop tracking persisted holds of items that were released or sold.
+   *
+   * @param stockIds stock IDs to forget
+   */
+  public void forget(Collection<UUID> stockIds) {
+    stockIds.forEach(persisted::remove);
+  }
+
+  /**
+   * Stop tracking persisted holds whose deadline has passed.
+   *
+   * @param now current time
+   */
+  public void prunePersisted(LocalDateTime now) {
+    persisted.values().removeIf(hold -> hold.reservedUntil().isBefore(now));
+  }
+
+  /**
+   * Check whether a persisted hold is still tracked.
+   *
+   * @param stockId ID of the stock item
+   * @return true if the hold is tracked
+   */
+  public boolean isPersisted(UUID stockId) {
+    return persisted.containsKey(stockId);
+  }
+
+  /**
+   * Get the persisted holds that are still tracked.
+   *
+   * @return snapshot of persisted holds
+   */
+  public List<Hold> getPersistedHolds() {
+    return List.copyOf(persisted.values());
+  }
+
+  /**
+   * Get the lock the flush holds while persisting a batch.
+   *
+   * @return flush lock
+   */
+  public Lock getFlushLock() {
+    return flushLock;
+  }
+
+  /**
+   * Get the number of holds waiting for the flush.
+   *
+   * @return pending hold count
+   */
+  public synchronized int getPendingCount() {
+    return pending.size();
+  }
+
+  /**
+   * Get the number of holds recorded since startup.
+   *
+   * @return recorded hold count
+   */
+  public long getRecordedCount() {
+    return recorded.sum();
+  }
+
+  /**
+   * Get the number of holds persisted since startup.
+   *
+   * @return persisted hold count
+   */
+  public long getFlushedCount() {
+    return flushed.sum();
+  }
+
+  /**
+   * Get the number of holds the database refused since startup.
+   *
+   * @return conflict count
+   */
+  public long getConflictCount() {
+    return conflicts.sum();
+  }
+
+  /** Write the log pages to disk. */
+  public void force() {
+    if (wal != null) {
+      wal.force();
+    }
+  }
+
+  private int replay() {
+    synchronized (this) {
+      for (MappedReservationLog.TypedRecord entry : wal.readAll()) {
+        Hold hold = Hold.of(entry.record());
+        if (entry.type() == MappedReservationLog.HOLD) {
+          pending.put(hold.stockId(), hold);
+        } else {
+          pending.remove(hold.stockId());
+        }
+      }
+
+      // Start the log over with just the unflushed holds
+      wal.reset();
+      wal.append(MappedReservationLog.HOLD, toRecords(pending.values()));
+      unsettled = pending.size();
+      return unsettled;
+    }
+  }
+
+  private void settle(Collection<Hold> holds) {
+    if (!holds.isEmpty()) {
+      wal.append(MappedReservationLog.SETTLED, toRecords(holds));
+      unsettled -= holds.size();
+    }
+
+    // Once every hold is settled the whole log is obsolete
+    if (unsettled == 0 && wal.size() > 0) {
+      wal.reset();
+    }
+  }
+
+  private static List<MappedReservationLog.Record> toRecords(Collection<Hold> holds) {
+    return holds.stream().map(Hold::toRecord).toList();
+  }
+
+  /**
+   * Reservation hold on one leased stock item.
+   *
+   * @param stockId ID of the held stock item
+   * @param productId ID of the product of the stock item
+   * @param reservedUntil hold deadline
+   */
+  public record Hold(UUID stockId, UUID productId, LocalDateTime reservedUntil) {
+
+    private static Hold of(MappedReservationLog.Record record) {
+      return new Hold(
+          record.stockId(),
+          record.productId(),
+          LocalDateTime.ofInstant(Instant.ofEpochMilli(record.deadlineMillis()), ZoneOffset.UTC));
+    }
+
+    private MappedReservationLog.Record toRecord() {
+      return new MappedReservationLog.Record(
+          stockId, productId, reservedUntil.toInstant(ZoneOffset.UTC).toEpochMilli());
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package com.accountselling.platform.service;
+
+/**
+ * Service interface for archiving sold stock. Sold stock older than a configurable age is moved
+ * from the stock table into the sold stock history, so the stock table only holds inventory that
+ * can still be sold.
+ *
+ * <p>Service interface สำหรับย้ายสต็อกที่ขายแล้วไปยังตารางประวัติ
+ */
+public interface StockArchiveService {
+
+  /**
+   * Move sold stock older than the configured age into the sold stock history in small batches.
+   * Each batch commits on its own together with the archival checkpoint, and the run pauses between
+   * batches so the move does not compete with sales. A run stops when nothing is left to move or
+   * the batch limit per run is reached; the next run continues from the checkpoint.
+   *
+   * @return int number of stock items archived by this run
+   */
+  int archiveSoldStock();
+}
@@ -0,0 +1,30 @@
+package com.accountselling.platform.service;
+
+import com.accountselling.platform.dto.stock.StockImportReportDto;
+import com.accountselling.platform.enums.StockImportFormat;
+import java.io.InputStream;
+import java.util.UUID;
+
+/**
+ * Service interface for streaming bulk stock imports. Handles bodies of any size by reading,
+ * deduplicating and inserting them chunk by chunk.
+ *
+ * <p>Interface for streaming bulk stock import Supports CSV and NDJSON bodies with chunked
+ * duplicate detection and batch inserts
+ */
+public interface StockImportService {
+
+  /**
+   * Import stock items for a product from a streamed body. Each chunk is deduplicated with one
+   * set-based lookup and written with JDBC batch inserts in its own transaction, so chunks that
+   * completed before a read error stay imported.
+   *
+   * @param productId ID of the product
+   * @param input request body, read incrementally
+   * @param format body format
+   * @return StockImportReportDto import totals with per-chunk progress and timings
+   * @throws ResourceNotFoundException if product is not found
+   * @throws StockException if the body cannot be read
+   */
+  StockImportReportDto importStock(UUID productId, InputStream input, StockImportFormat format);
+}
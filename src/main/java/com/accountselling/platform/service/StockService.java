@@ -1,12 +1,19 @@
 package com.accountselling.platform.service;
 
+import com.accountselling.platform.dto.stock.HotStockPoolStatsDto;
+import com.accountselling.platform.dto.stock.LowStockAlert;
+import com.accountselling.platform.dto.stock.StockSaleResultDto;
 import com.accountselling.platform.dto.stock.StockStatistics;
 import com.accountselling.platform.model.Product;
 import com.accountselling.platform.model.Stock;
+import com.accountselling.platform.util.KeysetCursor;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -52,6 +59,16 @@ public interface StockService {
    */
   Page<Stock> getStockByProduct(UUID productId, Pageable pageable);
 
+  /**
+   * Get stock items for a product with keyset pagination, newest first
+   *
+   * @param productId ID of the product
+   * @param after position of the last item of the previous page (null for the first page)
+   * @param limit maximum number of items
+   * @return List<Stock> stock items following the cursor
+   */
+  List<Stock> getStockByProductAfter(UUID productId, KeysetCursor after, int limit);
+
   /**
    * Get stock item by ID
    *
@@ -82,13 +99,23 @@ public interface StockService {
   // ==================== STOCK AVAILABILITY OPERATIONS ====================
 
   /**
-   * Get available stock count for a product
+   * Get available stock count for a product. Served from the in-memory counters, which are loaded
+   * from the database on first access and reconciled periodically.
    *
    * @param productId ID of the product
    * @return long number of available stock items
    */
   long getAvailableStockCount(UUID productId);
 
+  /**
+   * Get available stock counts for several products. Tracked products are served from the
+   * in-memory counters; the rest are loaded together with one query.
+   *
+   * @param productIds IDs of the products
+   * @return available stock counts keyed by product ID
+   */
+  Map<UUID, Long> getAvailableStockCounts(Collection<UUID> productIds);
+
   /**
    * Get total stock count for a product
    *
@@ -155,6 +182,20 @@ public interface StockService {
    */
   List<Stock> reserveStockUntil(UUID productId, int quantity, LocalDateTime reservedUntil);
 
+  /**
+   * Reserve stock for several products at once, all or nothing. All lines are claimed by one
+   * statement; if any product is short, nothing stays reserved.
+   *
+   * @param productQuantities number of items to reserve per product ID
+   * @param reservationDurationMinutes reservation duration in minutes
+   * @return Map<UUID, List<Stock>> reserved stock items per product ID
+   * @throws ResourceNotFoundException หากไม่พบสินค้า
+   * @throws OutOfStockException หากสต็อกของสินค้าใดไม่เพียงพอ
+   * @throws StockReservationException หากจำนวนไม่ถูกต้อง
+   */
+  Map<UUID, List<Stock>> reserveStockForProducts(
+      Map<UUID, Integer> productQuantities, int reservationDurationMinutes);
+
   /**
    * Release stock reservation
    *
@@ -201,15 +242,18 @@ public interface StockService {
   Stock markAsSold(UUID stockId);
 
   /**
-   * Mark multiple stock items as sold
+   * Mark multiple stock items as sold with one set-based update. Low stock is evaluated once per
+   * affected product. Items that are missing or already sold do not fail the call; they are
+   * reported in the result instead.
    *
    * @param stockIds list of stock IDs to mark as sold
-   * @return List<Stock> list of stock items marked as sold
+   * @return StockSaleResultDto sold items per product and the items that could not be sold
    */
-  List<Stock> markAsSold(List<UUID> stockIds);
+  StockSaleResultDto markAsSold(List<UUID> stockIds);
 
   /**
-   * Get sold stock items
+   * Get sold stock items, including items already archived to the sold stock history. Archived
+   * items are returned as unmanaged copies.
    *
    * @param productId ID of the product (null for all products)
    * @param startDate start date (null for no limit)
@@ -218,6 +262,20 @@ public interface StockService {
    */
   List<Stock> getSoldStock(UUID productId, LocalDateTime startDate, LocalDateTime endDate);
 
+  /**
+   * Stream sold stock items to a consumer without holding them all in memory. Items are read
+   * through a database cursor and detached once consumed, so the consumer must copy what it needs.
+   * Live sold stock is streamed first, then stock archived to the sold stock history.
+   *
+   * @param productId ID of the product (null for all products)
+   * @param startDate start date (null for no limit)
+   * @param endDate end date (null for no limit)
+   * @param consumer receives each sold stock item, most recent sale first within each table
+   * @return long number of items streamed
+   */
+  long streamSoldStock(
+      UUID productId, LocalDateTime startDate, LocalDateTime endDate, Consumer<Stock> consumer);
+
   /**
    * Get sold stock count for a product
    *
@@ -229,7 +287,8 @@ public interface StockService {
   // ==================== INVENTORY MANAGEMENT OPERATIONS ====================
 
   /**
-   * Get stock statistics for a product
+   * Get stock statistics for a product, read from its product stock summary. Reserved includes
+   * reservations that lapsed but were not released yet.
    *
    * @param productId ID of the product
    * @return StockStatistics stock statistics
@@ -237,7 +296,8 @@ public interface StockService {
   StockStatistics getStockStatistics(UUID productId);
 
   /**
-   * Get products with low stock
+   * Get products with low stock. Served from the low stock watcher once it is loaded, otherwise by
+   * counting stock per product.
    *
    * @param threshold low stock threshold (null to use product's value)
    * @return List<Product> list of products with low stock
@@ -252,6 +312,15 @@ public interface StockService {
    */
   boolean isLowStock(UUID productId);
 
+  /**
+   * Get the account data of sold stock items, whether they are still in the stock table or were
+   * archived to the sold stock history. Used by order downloads.
+   *
+   * @param stockIds IDs of the stock items
+   * @return Map<UUID, String> account data by stock ID; unknown IDs are omitted
+   */
+  Map<UUID, String> getSoldAccountData(Collection<UUID> stockIds);
+
   /**
    * Clean up expired reservations
    *
@@ -266,6 +335,15 @@ public interface StockService {
    */
   List<Stock> getExpiredReservations();
 
+  /**
+   * Stream stock items with expired reservations to a consumer without holding them all in
+   * memory. See {@link #streamSoldStock}.
+   *
+   * @param consumer receives each stock item, oldest deadline first
+   * @return long number of items streamed
+   */
+  long streamExpiredReservations(Consumer<Stock> consumer);
+
   /**
    * Get reservations expiring soon
    *
@@ -274,6 +352,116 @@ public interface StockService {
    */
   List<Stock> getReservationsExpiringSoon(int withinMinutes);
 
+  /**
+   * Release reservations whose deadline has passed according to the in-process expiry schedule.
+   * Items are released in small batches, each committed on its own.
+   *
+   * @return int number of reservations released
+   */
+  int releaseDueReservations();
+
+  /**
+   * Rebuild the in-process reservation expiry schedule from the reservations held in the database
+   *
+   * @return int number of reservations scheduled
+   */
+  int rebuildReservationExpirySchedule();
+
+  /**
+   * Reconcile the in-memory available stock counters with the database. Expired reservations are
+   * released first so that they are not counted twice.
+   *
+   * @return int number of product counters checked
+   */
+  int reconcileAvailableStockCounters();
+
+  /**
+   * Recount the stock of every product and repair product stock summaries that drifted from the
+   * stock table, creating missing ones
+   *
+   * @return int number of summaries repaired or created
+   */
+  int verifyStockSummaries();
+
+  /**
+   * Load every product with its threshold and available stock into the low stock watcher.
+   * After this, low stock reads come from the watcher's live set instead of a catalog scan.
+   *
+   * @return int number of products watched
+   */
+  int rebuildLowStockWatch();
+
+  /**
+   * Take the debounced low stock and out of stock alerts that are due
+   *
+   * @return List<LowStockAlert> alerts with product names, empty when nothing is due
+   */
+  List<LowStockAlert> pollLowStockAlerts();
+
+  // ==================== HOT PRODUCT STOCK POOL OPERATIONS ====================
+
+  /**
+   * Serve reservations of a product from a pool of stock leased by each node, or change the pool
+   * size. Hot mode is stored on the product and the other nodes follow on their next refill. The
+   * pools are filled by {@link #refillHotStockPools()}.
+   *
+   * @param productId ID of the product
+   * @param leaseSize number of stock items to keep leased (1 to 1000)
+   * @return HotStockPoolStatsDto statistics of this node's pool
+   * @throws ResourceNotFoundException if product is not found
+   */
+  HotStockPoolStatsDto enableHotStockPool(UUID productId, int leaseSize);
+
+  /**
+   * Stop serving reservations of a product from pools on every node and return this node's unused
+   * leases. The other nodes return theirs on their next refill
+   *
+   * @param productId ID of the product
+   * @return int number of leases returned
+   */
+  int disableHotStockPool(UUID productId);
+
+  /**
+   * Get lease sizes and hit rates of the hot product stock pools on this node
+   *
+   * @return List<HotStockPoolStatsDto> statistics per hot product
+   */
+  List<HotStockPoolStatsDto> getHotStockPoolStats();
+
+  /**
+   * Follow hot mode changes made on other nodes, return leases that are about to lapse, lease new
+   * blocks for pools that are half empty and return surplus leases to nodes that ran dry. Also
+   * publishes this node's stock lease per hot product, which expires unless refreshed
+   *
+   * @return int number of stock items leased
+   */
+  int refillHotStockPools();
+
+  /**
+   * Return every unused lease of this node and drop its stock lease rows, for example on shutdown
+   *
+   * @return int number of leases returned
+   */
+  int returnHotStockLeases();
+
+  // ==================== RESERVATION LEDGER OPERATIONS ====================
+
+  /**
+   * Persist reservation holds that the reservation ledger keeps only in its log, in batches. Also
+   * persists the holds replayed from the log on startup. Does nothing while the ledger is disabled.
+   *
+   * @return int number of holds flushed
+   */
+  int flushReservationLedger();
+
+  /**
+   * Compare the persisted holds tracked by the reservation ledger with stock_reservation and stop
+   * tracking the ones that disagree. Does nothing while the ledger is disabled.
+   *
+   * @return int number of holds missing from the database or held for another product
+   */
+  int verifyReservationLedger();
+
   // ==================== UTILITY OPERATIONS ====================
 
   /**
@@ -0,0 +1,191 @@
+package com.accountselling.platform.service;
+
+import com.accountselling.platform.exception.TransactionConflictException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs a unit of work in a transaction of its own and runs it again when the database aborts the
+ * transaction because of a serialization failure or a deadlock. Other failures are thrown at once.
+ * Retries wait a random backoff that doubles with every attempt up to a cap, so transactions that
+ * collided do not collide again in lockstep.
+ *
+ * <p>Called inside an existing transaction the work runs once in that transaction: a conflict
+ * marks the surrounding transaction as failed, so only its owner can retry it.
+ *
+ * <p>Every attempt is timed in the {@code transaction.attempts} metric, tagged with the operation,
+ * the attempt number and the outcome; {@code transaction.retries.exhausted} counts the operations
+ * that gave up.
+ *
+ * <p>ตัวรันธุรกรรมที่ลองใหม่อัตโนมัติเมื่อเกิด serialization failure หรือ deadlock
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransactionRetryExecutor {
+
+  // PostgreSQL SQLSTATE of serialization_failure
+  private static final String SQLSTATE_SERIALIZATION_FAILURE = "40001";
+
+  // PostgreSQL SQLSTATE of deadlock_detected
+  private static final String SQLSTATE_DEADLOCK_DETECTED = "40P01";
+
+  // Causes inspected when classifying a failure, guarding against cause cycles
+  private static final int MAX_CAUSE_DEPTH = 16;
+
+  @Value("${app.transaction.retry.max-attempts:4}")
+  private int maxAttempts;
+
+  @Value("${app.transaction.retry.initial-backoff-ms:10}")
+  private long initialBackoffMs;
+
+  @Value("${app.transaction.retry.max-backoff-ms:200}")
+  private long maxBackoffMs;
+
+  private final PlatformTransactionManager transactionManager;
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * Run work in a new transaction, retrying it on serialization failures and deadlocks.
+   *
+   * @param operation name of the operation, used in metrics and logs
+   * @param isolation isolation level of the transaction
+   * @param work work to run; must be safe to run again after a rollback
+   * @param <T> result type
+   * @return result of the attempt that committed
+   * @throws TransactionConflictException if every attempt conflicted
+   */
+  public <T> T execute(String operation, Isolation isolation, Supplier<T> work) {
+    if (TransactionSynchronizationManager.isActualTransactionActive()) {
+      return work.get();
+    }
+
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    transactionTemplate.setIsolationLevel(isolation.value());
+
+    for (int attempt = 1; ; attempt++) {
+      Timer.Sample sample = Timer.start(meterRegistry);
+      try {
+        T result = transactionTemplate.execute(status -> work.get());
+        recordAttempt(sample, operation, attempt, "committed");
+        return result;
+      } catch (RuntimeException e) {
+        Conflict conflict = classify(e);
+        if (conflict == null) {
+          recordAttempt(sample, operation, attempt, "failed");
+          throw e;
+        }
+        recordAttempt(sample, operation, attempt, conflict.getTag());
+
+        if (attempt >= maxAttempts) {
+          meterRegistry
+              .counter("transaction.retries.exhausted", "operation", operation)
+              .increment();
+          log.error(
+              "{} gave up after {} attempts, the last one failed with a {}",
+              operation,
+              attempt,
+              conflict);
+          throw new TransactionConflictException(
+              "The request conflicted with concurrent requests, please try again", e);
+        }
+
+        long backoffMs = backoffMillis(attempt);
+        log.warn(
+            "{} attempt {} failed with a {}, retrying in {} ms",
+            operation,
+            attempt,
+            conflict,
+            backoffMs);
+        sleep(backoffMs, e);
+      }
+    }
+  }
+
+  /**
+   * Find out whether a failure is a transient conflict worth retrying. Looks for the SQLSTATE of a
+   * {@link SQLException} anywhere in the cause chain, since Spring and Hibernate wrap it
+   * differently depending on where the failure surfaced.
+   *
+   * @param failure failure to classify
+   * @return conflict type, or null if the failure must not be retried
+   */
+  public static Conflict classify(Throwable failure) {
+    Throwable current = failure;
+    for (int depth = 0; current != null && depth < MAX_CAUSE_DEPTH; depth++) {
+      if (current instanceof SQLException sqlException) {
+        String sqlState = sqlException.getSQLState();
+        if (SQLSTATE_SERIALIZATION_FAILURE.equals(sqlState)) {
+          return Conflict.SERIALIZATION_FAILURE;
+        }
+        if (SQLSTATE_DEADLOCK_DETECTED.equals(sqlState)) {
+          return Conflict.DEADLOCK;
+        }
+      }
+      current = current.getCause();
+    }
+    return null;
+  }
+
+  private void recordAttempt(Timer.Sample sample, String operation, int attempt, String outcome) {
+    sample.stop(
+        meterRegistry.timer(
+            "transaction.attempts",
+            "operation",
+            operation,
+            "attempt",
+            String.valueOf(attempt),
+            "outcome",
+            outcome));
+  }
+
+  private long backoffMillis(int attempt) {
+    long cap = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 20));
+    return cap > 0 ? ThreadLocalRandom.current().nextLong(cap + 1) : 0;
+  }
+
+  private static void sleep(long millis, RuntimeException failure) {
+    if (millis == 0) {
+      return;
+    }
+
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw failure;
+    }
+  }
+
+  /** Transient conflict that aborted a transaction. */
+  public enum Conflict {
+    SERIALIZATION_FAILURE("serialization_failure"),
+    DEADLOCK("deadlock");
+
+    private final String tag;
+
+    Conflict(String tag) {
+      this.tag = tag;
+    }
+
+    /**
+     * Get the metric tag of the conflict.
+     *
+     * @return tag value
+     */
+    public String getTag() {
+      return tag;
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package com.accountselling.platform.service.impl;
+
+import com.accountselling.platform.repository.CustomerLeaderboardRepository;
+import com.accountselling.platform.service.CustomerLeaderboardService;
+import com.accountselling.platform.service.TransactionRetryExecutor;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Implementation of CustomerLeaderboardService. Rebuilds the leaderboard a batch of customers at a
+ * time, in user ID order: a REPEATABLE READ transaction compares the batch's rows with a recount of
+ * their completed orders from one snapshot, and a short second transaction adds the differences to
+ * the rows. Nothing is locked against order completions, which keep adding to the rows throughout.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CustomerLeaderboardServiceImpl implements CustomerLeaderboardService {
+
+  // Nil UUID, below every user ID
+  static final UUID FIRST_BATCH_START = new UUID(0L, 0L);
+
+  private final CustomerLeaderboardRepository customerLeaderboardRepository;
+  private final TransactionRetryExecutor transactionRetryExecutor;
+  private final TransactionTemplate transactionTemplate;
+
+  @Value("${app.leaderboard.rebuild-batch-size:1000}")
+  private int batchSize;
+
+  @Override
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public int rebuildLeaderboard() {
+    log.info("Rebuilding customer leaderboard");
+
+    int correctedCount = 0;
+    UUID afterUserId = FIRST_BATCH_START;
+    UUID lastUserId;
+    while ((lastUserId = customerLeaderboardRepository.findBatchEnd(afterUserId, batchSize))
+        != null) {
+      correctedCount += rebuildBatch(afterUserId, lastUserId);
+      afterUserId = lastUserId;
+    }
+
+    log.info("Rebuilt customer leaderboard: {} customers corrected", correctedCount);
+    return correctedCount;
+  }
+
+  private int rebuildBatch(UUID afterUserId, UUID lastUserId) {
+    List<Object[]> drift =
+        transactionRetryExecutor.execute(
+            "leaderboard.compare",
+            Isolation.REPEATABLE_READ,
+            () -> customerLeaderboardRepository.findDriftBetween(afterUserId, lastUserId));
+    if (drift.isEmpty()) {
+      return 0;
+    }
+
+    transactionTemplate.execute(
+        status -> {
+          for (Object[] row : drift) {
+            customerLeaderboardRepository.applyCorrection(
+                (UUID) row[0],
+                ((Number) row[1]).longValue(),
+                (BigDecimal) row[2],
+                toLocalDateTime(row[3]));
+          }
+          customerLeaderboardRepository.deleteEmptyByUserIdIn(
+              drift.stream().map(row -> (UUID) row[0]).toList());
+          return null;
+        });
+    log.warn("Corrected leaderboard drift of {} customers up to {}", drift.size(), lastUserId);
+    return drift.size();
+  }
+
+  private static LocalDateTime toLocalDateTime(Object value) {
+    return value instanceof Timestamp timestamp
+        ? timestamp.toLocalDateTime()
+        : (LocalDateTime) value;
+  }
+}
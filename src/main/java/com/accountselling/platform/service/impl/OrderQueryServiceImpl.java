@@ -0,0 +1,207 @@
+package com.accountselling.platform.service.impl;
+
+import com.accountselling.platform.dto.common.CursorPageDto;
+import com.accountselling.platform.dto.order.OrderHeaderView;
+import com.accountselling.platform.dto.order.OrderItemView;
+import com.accountselling.platform.dto.order.OrderResponseDto;
+import com.accountselling.platform.dto.order.OrderResponseDto.OrderItemResponseDto;
+import com.accountselling.platform.dto.order.OrderResponseDto.PaymentSummaryDto;
+import com.accountselling.platform.enums.OrderStatus;
+import com.accountselling.platform.exception.ResourceNotFoundException;
+import com.accountselling.platform.repository.OrderItemRepository;
+import com.accountselling.platform.repository.OrderRepository;
+import com.accountselling.platform.service.OrderQueryService;
+import com.accountselling.platform.util.KeysetCursor;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Implementation of OrderQueryService. Loads order headers together with their user and payment in
+ * one projection query, then the items of all those orders in a second one, and assembles the
+ * responses in memory.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class OrderQueryServiceImpl implements OrderQueryService {
+
+  private final OrderRepository orderRepository;
+  private final OrderItemRepository orderItemRepository;
+
+  @Override
+  public OrderResponseDto getOrder(UUID orderId) {
+    log.debug("Reading order: {}", orderId);
+
+    OrderHeaderView header =
+        orderRepository
+            .findHeaderById(orderId)
+            .orElseThrow(() -> new ResourceNotFoundException("Order", orderId.toString()));
+    return toResponses(List.of(header)).get(0);
+  }
+
+  @Override
+  public List<OrderResponseDto> getOrders(List<UUID> orderIds) {
+    if (orderIds.isEmpty()) {
+      return List.of();
+    }
+
+    Map<UUID, OrderHeaderView> headers =
+        orderRepository.findHeadersByIds(orderIds).stream()
+            .collect(Collectors.toMap(OrderHeaderView::id, Function.identity()));
+    return toResponses(orderIds.stream().map(headers::get).filter(Objects::nonNull).toList());
+  }
+
+  @Override
+  public Page<OrderResponseDto> getOrdersByUser(UUID userId, Pageable pageable) {
+    log.debug("Reading orders of user: {} - page: {}", userId, pageable);
+    return toResponsePage(orderRepository.findHeadersByUserId(userId, pageable));
+  }
+
+  @Override
+  public CursorPageDto<OrderResponseDto> getOrdersByUserAfter(
+      UUID userId, KeysetCursor after, int size) {
+    log.debug("Reading orders of user: {} after cursor: {} - size: {}", userId, after, size);
+
+    // Read one extra row to know whether another page follows
+    Limit limit = Limit.of(size + 1);
+    List<OrderHeaderView> headers =
+        after == null
+            ? orderRepository.findNewestHeadersByUserId(userId, limit)
+            : orderRepository.findNewestHeadersByUserIdBefore(
+                userId, after.createdAt(), after.id(), limit);
+    boolean hasNext = headers.size() > size;
+    List<OrderHeaderView> page = hasNext ? headers.subList(0, size) : headers;
+
+    String nextCursor = null;
+    if (hasNext) {
+      OrderHeaderView last = page.get(page.size() - 1);
+      nextCursor = new KeysetCursor(last.createdAt(), last.id()).encode();
+    }
+
+    return CursorPageDto.<OrderResponseDto>builder()
+        .content(toResponses(page))
+        .size(page.size())
+        .hasNext(hasNext)
+        .nextCursor(nextCursor)
+        .build();
+  }
+
+  @Override
+  public Page<OrderResponseDto> getOrdersByStatus(OrderStatus status, Pageable pageable) {
+    log.debug("Reading orders with status: {} - page: {}", status, pageable);
+    return toResponsePage(orderRepository.findHeadersByStatus(status, pageable));
+  }
+
+  private Page<OrderResponseDto> toResponsePage(Page<OrderHeaderView> headers) {
+    return new PageImpl<>(
+        toResponses(headers.getContent()), headers.getPageable(), headers.getTotalElements());
+  }
+
+  private List<OrderResponseDto> toResponses(List<OrderHeaderView> headers) {
+    if (headers.isEmpty()) {
+      return List.of();
+    }
+
+    // One query for the items of every order on the page
+    Map<UUID, List<OrderItemView>> itemsByOrder =
+        findItems(headers.stream().map(OrderHeaderView::id).toList());
+
+    LocalDateTime now = LocalDateTime.now();
+    return headers.stream()
+        .map(header -> toResponse(header, itemsByOrder.getOrDefault(header.id(), List.of()), now))
+        .toList();
+  }
+
+  private Map<UUID, List<OrderItemView>> findItems(Collection<UUID> orderIds) {
+    return orderItemRepository.findViewsByOrderIds(orderIds).stream()
+        .collect(Collectors.groupingBy(OrderItemView::orderId));
+  }
+
+  private static OrderResponseDto toResponse(
+      OrderHeaderView header, List<OrderItemView> items, LocalDateTime now) {
+    return new OrderResponseDto(
+        header.id(),
+        header.orderNumber(),
+        header.userId(),
+        header.username(),
+        displayName(header),
+        header.totalAmount(),
+        formatAmount("$", header.totalAmount()),
+        header.status(),
+        header.status().getDisplayName(),
+        header.notes(),
+        header.createdAt(),
+        header.updatedAt(),
+        items.stream().map(OrderQueryServiceImpl::toItemResponse).toList(),
+        header.paymentId() != null ? toPaymentSummary(header, now) : null);
+  }
+
+  private static OrderItemResponseDto toItemResponse(OrderItemView item) {
+    return new OrderItemResponseDto(
+        item.id(),
+        item.stockItemId(),
+        item.productName(),
+        item.productDescription(),
+        item.categoryName(),
+        item.server(),
+        item.price(),
+        formatAmount("$", item.price()),
+        item.notes(),
+        item.stockItemSold());
+  }
+
+  private static PaymentSummaryDto toPaymentSummary(OrderHeaderView header, LocalDateTime now) {
+    LocalDateTime expiresAt = header.expiresAt();
+    boolean expired = expiresAt != null && expiresAt.isBefore(now);
+    long remainingMinutes =
+        expiresAt != null && !expired ? Duration.between(now, expiresAt).toMinutes() : 0;
+
+    return new PaymentSummaryDto(
+        header.paymentId(),
+        header.paymentReference(),
+        header.transactionId(),
+        header.paymentAmount(),
+        formatAmount("฿", header.paymentAmount()),
+        header.paymentStatus() != null ? header.paymentStatus().name() : null,
+        header.paymentStatus() != null ? header.paymentStatus().getDisplayName() : "Unknown",
+        header.paymentMethod(),
+        header.qrCodeUrl(),
+        header.paidAt(),
+        expiresAt,
+        expired,
+        remainingMinutes);
+  }
+
+  // Same rule as User.getFullName
+  private static String displayName(OrderHeaderView header) {
+    if (header.firstName() != null && header.lastName() != null) {
+      return header.firstName() + " " + header.lastName();
+    } else if (header.firstName() != null) {
+      return header.firstName();
+    } else if (header.lastName() != null) {
+      return header.lastName();
+    }
+    return header.username();
+  }
+
+  private static String formatAmount(String currency, BigDecimal amount) {
+    return amount != null ? currency + String.format("%.2f", amount) : null;
+  }
+}
@@ -2,21 +2,29 @@ package com.accountselling.platform.service.impl;
 
 import com.accountselling.platform.dto.statistics.DailyOrderStatistics;
 import com.accountselling.platform.dto.statistics.OrderStatistics;
+import com.accountselling.platform.dto.statistics.TopCustomer;
+import com.accountselling.platform.dto.stock.StockSaleResultDto;
 import com.accountselling.platform.enums.OrderStatus;
 import com.accountselling.platform.exception.*;
 import com.accountselling.platform.model.*;
 import com.accountselling.platform.repository.*;
 import com.accountselling.platform.service.OrderService;
+import com.accountselling.platform.service.OrderStatisticsCache;
 import com.accountselling.platform.service.StockService;
+import com.accountselling.platform.service.TransactionRetryExecutor;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -32,16 +40,30 @@ public class OrderServiceImpl implements OrderService {
 
   private final OrderRepository orderRepository;
   private final OrderItemRepository orderItemRepository;
+  private final OrderDailyRollupRepository orderDailyRollupRepository;
+  private final CustomerLeaderboardRepository customerLeaderboardRepository;
   private final UserRepository userRepository;
   private final ProductRepository productRepository;
-  private final StockRepository stockRepository;
   private final StockService stockService;
+  private final TransactionRetryExecutor transactionRetryExecutor;
+  private final OrderStatisticsCache orderStatisticsCache;
 
   // ==================== ORDER CREATION ====================
 
+  // Order creation runs at READ COMMITTED: stock is claimed with FOR UPDATE SKIP LOCKED, so two
+  // buyers can never receive the same item and serializable snapshots are not needed. Each order is
+  // created in a transaction of its own that is retried when it hits a deadlock or a serialization
+  // failure; called inside an existing transaction it joins that transaction instead.
   @Override
-  @Transactional(isolation = Isolation.SERIALIZABLE)
+  @Transactional(propagation = Propagation.SUPPORTS)
   public Order createOrder(User user, Map<UUID, Integer> productQuantities) {
+    return transactionRetryExecutor.execute(
+        "order.create",
+        Isolation.READ_COMMITTED,
+        () -> createOrderInTransaction(user, productQuantities));
+  }
+
+  private Order createOrderInTransaction(User user, Map<UUID, Integer> productQuantities) {
     log.info(
         "Creating order for user: {} with {} products",
         user.getUsername(),
@@ -50,19 +72,24 @@ public class OrderServiceImpl implements OrderService {
     // Validate input parameters
     validateOrderCreationInput(user, productQuantities);
 
+    // Products and their available stock are read once and shared by validation, pricing and
+    // reservation, so the query count does not grow with the number of lines
+    ProductSnapshot snapshot = loadProductSnapshot(productQuantities.keySet());
+
     // Validate order business rules
-    validateOrder(user, productQuantities);
+    validateOrder(user, productQuantities, snapshot);
 
     // Calculate total amount
-    BigDecimal totalAmount = calculateOrderTotal(productQuantities);
+    BigDecimal totalAmount = calculateOrderTotal(productQuantities, snapshot);
 
     // Create order entity
     Order order = new Order(user, totalAmount);
     Order savedOrder = orderRepository.save(order);
+    orderDailyRollupRepository.recordCreated(savedOrder.getId());
 
     try {
       // Reserve stock and create order items
-      reserveStockForOrder(savedOrder, productQuantities);
+      reserveStockForOrder(savedOrder, productQuantities, snapshot);
 
       log.info(
           "Successfully created order: {} for user: {} with total: {}",
@@ -82,7 +109,7 @@ public class OrderServiceImpl implements OrderService {
   }
 
   @Override
-  @Transactional(isolation = Isolation.SERIALIZABLE)
+  @Transactional(propagation = Propagation.SUPPORTS)
   public Order createOrder(User user, UUID productId, int quantity) {
     log.info(
         "Creating single product order for user: {} with product: {} quantity: {}",
@@ -95,7 +122,7 @@ public class OrderServiceImpl implements OrderService {
   }
 
   @Override
-  @Transactional(isolation = Isolation.SERIALIZABLE)
+  @Transactional(propagation = Propagation.SUPPORTS)
   public Order createOrderByUsername(String username, Map<UUID, Integer> productQuantities) {
     log.info(
         "Creating order for username: {} with {} products", username, productQuantities.size());
@@ -212,6 +239,8 @@ public class OrderServiceImpl implements OrderService {
     try {
       order.markAsCompleted();
       Order updatedOrder = orderRepository.save(order);
+      orderDailyRollupRepository.recordCompleted(orderId, order.getTotalAmount());
+      customerLeaderboardRepository.recordCompletedOrder(orderId);
 
       // Mark all stock items as sold
       markStockItemsAsSold(orderId);
@@ -323,6 +352,11 @@ public class OrderServiceImpl implements OrderService {
 
   @Override
   public void validateOrder(User user, Map<UUID, Integer> productQuantities) {
+    validateOrder(user, productQuantities, loadProductSnapshot(productQuantities.keySet()));
+  }
+
+  private void validateOrder(
+      User user, Map<UUID, Integer> productQuantities, ProductSnapshot snapshot) {
     log.debug(
         "Validating order for user: {} with {} products",
         user.getUsername(),
@@ -346,7 +380,7 @@ public class OrderServiceImpl implements OrderService {
       }
 
       // Check product availability and stock
-      int availableQuantity = getAvailableQuantityForProduct(productId);
+      long availableQuantity = snapshot.getAvailableCount(productId);
       if (availableQuantity < quantity) {
         log.error(
             "Insufficient stock for product: {}. Required: {}, Available: {}",
@@ -399,23 +433,20 @@ public class OrderServiceImpl implements OrderService {
 
   @Override
   public BigDecimal calculateOrderTotal(Map<UUID, Integer> productQuantities) {
+    return calculateOrderTotal(
+        productQuantities, new ProductSnapshot(loadProducts(productQuantities.keySet()), Map.of()));
+  }
+
+  private BigDecimal calculateOrderTotal(
+      Map<UUID, Integer> productQuantities, ProductSnapshot snapshot) {
     log.debug("Calculating order total for {} products", productQuantities.size());
 
     BigDecimal total = BigDecimal.ZERO;
 
     for (Map.Entry<UUID, Integer> entry : productQuantities.entrySet()) {
-      UUID productId = entry.getKey();
+      Product product = snapshot.getProduct(entry.getKey());
       Integer quantity = entry.getValue();
 
-      Product product =
-          productRepository
-              .findById(productId)
-              .orElseThrow(
-                  () -> {
-                    log.error("Product not found with ID: {}", productId);
-                    return new ResourceNotFoundException("Product not found with ID: " + productId);
-                  });
-
       BigDecimal productTotal = product.getPrice().multiply(BigDecimal.valueOf(quantity));
       total = total.add(productTotal);
     }
@@ -437,34 +468,32 @@ public class OrderServiceImpl implements OrderService {
               return new ResourceNotFoundException("Product not found with ID: " + productId);
             });
 
-    return (int) stockRepository.countAvailableByProductId(productId);
+    return (int) stockService.getAvailableStockCount(productId);
   }
 
   @Override
   @Transactional
   public void reserveStockForOrder(Order order, Map<UUID, Integer> productQuantities) {
+    reserveStockForOrder(
+        order,
+        productQuantities,
+        new ProductSnapshot(loadProducts(productQuantities.keySet()), Map.of()));
+  }
+
+  private void reserveStockForOrder(
+      Order order, Map<UUID, Integer> productQuantities, ProductSnapshot snapshot) {
     log.info("Reserving stock for order: {}", order.getOrderNumber());
 
-    for (Map.Entry<UUID, Integer> entry : productQuantities.entrySet()) {
-      UUID productId = entry.getKey();
-      Integer quantity = entry.getValue();
+    // All lines are claimed together (30 minutes default reservation); a short line rolls back
+    // the whole reservation
+    Map<UUID, List<Stock>> reservedStock =
+        stockService.reserveStockForProducts(productQuantities, 30);
 
-      Product product =
-          productRepository
-              .findById(productId)
-              .orElseThrow(
-                  () -> {
-                    log.error("Product not found with ID: {}", productId);
-                    return new ResourceNotFoundException("Product not found with ID: " + productId);
-                  });
-
-      // Reserve the required number of stock items (30 minutes default reservation)
-      List<Stock> reservedStocks = stockService.reserveStock(productId, quantity, 30);
-
-      // Create order items for each reserved stock
-      for (Stock reservedStock : reservedStocks) {
-        OrderItem orderItem = new OrderItem(order, product, reservedStock, product.getPrice());
-        order.addOrderItem(orderItem);
+    // Create order items for each reserved stock
+    for (Map.Entry<UUID, List<Stock>> entry : reservedStock.entrySet()) {
+      Product product = snapshot.getProduct(entry.getKey());
+      for (Stock stock : entry.getValue()) {
+        order.addOrderItem(new OrderItem(order, product, stock, product.getPrice()));
       }
     }
 
@@ -484,14 +513,20 @@ public class OrderServiceImpl implements OrderService {
 
     Order order = findById(orderId);
 
+    List<UUID> stockIds = new ArrayList<>();
     for (OrderItem orderItem : order.getOrderItems()) {
       if (orderItem.getStockItem() != null && !orderItem.isStockItemSold()) {
-        orderItem.releaseStockItemReservation();
-        log.debug("Released reservation for stock item: {}", orderItem.getStockItem().getId());
+        stockIds.add(orderItem.getStockItem().getId());
       }
     }
 
-    log.info("Successfully released stock reservations for order: {}", order.getOrderNumber());
+    // Released through StockService so the available stock counters are credited
+    int releasedCount = stockIds.isEmpty() ? 0 : stockService.releaseReservation(stockIds);
+
+    log.info(
+        "Successfully released {} stock reservations for order: {}",
+        releasedCount,
+        order.getOrderNumber());
   }
 
   @Override
@@ -501,16 +536,28 @@ public class OrderServiceImpl implements OrderService {
 
     Order order = findById(orderId);
 
+    // Stock IDs come from the foreign keys, so the stock items themselves are not loaded
+    List<UUID> stockIds = new ArrayList<>();
     for (OrderItem orderItem : order.getOrderItems()) {
-      if (orderItem.getStockItem() != null && !orderItem.isStockItemSold()) {
-        orderItem.markStockItemAsSold();
-        log.debug("Marked stock item as sold: {}", orderItem.getStockItem().getId());
+      if (orderItem.getStockItem() != null) {
+        stockIds.add(orderItem.getStockItem().getId());
       }
     }
 
+    // One set-based update instead of a load and save per item
+    StockSaleResultDto result = stockService.markAsSold(stockIds);
+
+    if (!result.isComplete()) {
+      log.warn(
+          "Could not mark {} stock items as sold for order {}: {}",
+          result.getFailures().size(),
+          order.getOrderNumber(),
+          result.getFailures());
+    }
+
     log.info(
         "Successfully marked {} stock items as sold for order: {}",
-        order.getOrderItems().size(),
+        result.getSoldStockIds().size(),
         order.getOrderNumber());
   }
 
@@ -540,46 +587,36 @@ public class OrderServiceImpl implements OrderService {
   public OrderStatistics getOrderStatistics() {
     log.debug("Getting order statistics");
 
-    Object[] stats = orderRepository.getOrderStatistics();
-
-    long total = ((Number) stats[0]).longValue();
-    long pending = ((Number) stats[1]).longValue();
-    long completed = ((Number) stats[2]).longValue();
-    long failed = ((Number) stats[3]).longValue();
-
-    // Calculate processing and cancelled from additional queries
-    long processing = orderRepository.countByStatus(OrderStatus.PROCESSING);
-    long cancelled = orderRepository.countByStatus(OrderStatus.CANCELLED);
-
-    BigDecimal totalRevenue = orderRepository.calculateTotalRevenue();
-    BigDecimal averageOrderValue = orderRepository.calculateAverageOrderValue();
-
-    return new OrderStatistics(
-        total, pending, processing, completed, failed, cancelled, totalRevenue, averageOrderValue);
+    return orderStatisticsCache.get(null, null, (start, end) -> orderRepository.summarizeOrders());
   }
 
   @Override
   public OrderStatistics getOrderStatistics(LocalDateTime startDate, LocalDateTime endDate) {
     log.debug("Getting order statistics for period: {} to {}", startDate, endDate);
 
-    long total = orderRepository.countOrdersBetweenDates(startDate, endDate);
-    long completed = orderRepository.countCompletedOrdersBetweenDates(startDate, endDate);
-
-    // For status-specific counts within date range, we'll use the total counts minus completed
-    // This is a simplified approach - in production you might want to add specific queries
-    long pending = orderRepository.countByStatus(OrderStatus.PENDING);
-    long processing = orderRepository.countByStatus(OrderStatus.PROCESSING);
-    long failed = orderRepository.countByStatus(OrderStatus.FAILED);
-    long cancelled = orderRepository.countByStatus(OrderStatus.CANCELLED);
+    return orderStatisticsCache.get(
+        startDate,
+        endDate,
+        (start, end) -> averagedOverAllOrders(orderRepository.summarizeOrdersBetween(start, end)));
+  }
 
-    BigDecimal totalRevenue = orderRepository.calculateRevenueBetweenDates(startDate, endDate);
+  // The average order value of a period has always been its revenue divided by every order placed
+  // in it, rounded to cents, unlike the all-time average over completed orders
+  private static OrderStatistics averagedOverAllOrders(OrderStatistics stats) {
+    BigDecimal orderCount = BigDecimal.valueOf(stats.total());
     BigDecimal averageOrderValue =
-        total > 0
-            ? totalRevenue.divide(BigDecimal.valueOf(total), 2, java.math.RoundingMode.HALF_UP)
+        stats.total() > 0
+            ? stats.totalRevenue().divide(orderCount, 2, RoundingMode.HALF_UP)
             : BigDecimal.ZERO;
-
     return new OrderStatistics(
-        total, pending, processing, completed, failed, cancelled, totalRevenue, averageOrderValue);
+        stats.total(),
+        stats.pending(),
+        stats.processing(),
+        stats.completed(),
+        stats.failed(),
+        stats.cancelled(),
+        stats.totalRevenue(),
+        averageOrderValue);
   }
 
   @Override
@@ -587,21 +624,33 @@ public class OrderServiceImpl implements OrderService {
       LocalDateTime startDate, LocalDateTime endDate) {
     log.debug("Getting daily order statistics for period: {} to {}", startDate, endDate);
 
-    List<Object[]> dailyStats = orderRepository.getDailyOrderStatistics(startDate, endDate);
+    // Trends are read from the daily rollups, whole days from the start day to the end day
+    List<Object[]> dailyStats =
+        orderDailyRollupRepository.sumByDateBetween(
+            startDate.toLocalDate(), endDate.toLocalDate());
 
     return dailyStats.stream()
         .map(
             stat ->
                 new DailyOrderStatistics(
-                    (LocalDateTime) stat[0], ((Number) stat[1]).longValue(), (BigDecimal) stat[2]))
+                    ((LocalDate) stat[0]).atStartOfDay(),
+                    ((Number) stat[1]).longValue(),
+                    (BigDecimal) stat[2]))
         .toList();
   }
 
   @Override
-  public List<User> getTopCustomersByOrderCount(int limit) {
+  public List<TopCustomer> getTopCustomersByOrderCount(int limit) {
     log.debug("Getting top {} customers by order count", limit);
 
-    return orderRepository.findTopCustomersByOrderCount(limit);
+    return customerLeaderboardRepository.findTopByOrderCount(Limit.of(limit));
+  }
+
+  @Override
+  public List<TopCustomer> getTopCustomersByRevenue(int limit) {
+    log.debug("Getting top {} customers by revenue", limit);
+
+    return customerLeaderboardRepository.findTopByRevenue(Limit.of(limit));
   }
 
   @Override
@@ -661,12 +710,21 @@ public class OrderServiceImpl implements OrderService {
       throw new InvalidOrderStatusException("Order must be completed to download information");
     }
 
+    // One lookup for all items, which also finds stock already moved to the sold stock history
+    List<UUID> stockIds = new ArrayList<>();
+    for (OrderItem orderItem : order.getOrderItems()) {
+      if (orderItem.getStockItem() != null) {
+        stockIds.add(orderItem.getStockItem().getId());
+      }
+    }
+    Map<UUID, String> accountData = stockService.getSoldAccountData(stockIds);
+
     Map<String, String> downloadInfo = new HashMap<>();
 
     for (OrderItem orderItem : order.getOrderItems()) {
       if (orderItem.getStockItem() != null) {
         String productName = orderItem.getProductName();
-        String credentials = orderItem.getStockCredentials();
+        String credentials = accountData.get(orderItem.getStockItem().getId());
 
         if (credentials != null) {
           downloadInfo.put(productName, credentials);
@@ -703,4 +761,54 @@ public class OrderServiceImpl implements OrderService {
       }
     }
   }
+
+  /**
+   * Load the products of an order request with one query and their available stock counts with
+   * one more.
+   *
+   * @param productIds IDs of the requested products
+   * @return snapshot of the products and their available stock
+   * @throws ResourceNotFoundException if any product does not exist
+   */
+  private ProductSnapshot loadProductSnapshot(Set<UUID> productIds) {
+    Map<UUID, Product> products = loadProducts(productIds);
+    return new ProductSnapshot(products, stockService.getAvailableStockCounts(productIds));
+  }
+
+  private Map<UUID, Product> loadProducts(Set<UUID> productIds) {
+    Map<UUID, Product> products = new HashMap<>();
+    for (Product product : productRepository.findAllById(productIds)) {
+      products.put(product.getId(), product);
+    }
+    for (UUID productId : productIds) {
+      if (!products.containsKey(productId)) {
+        log.error("Product not found with ID: {}", productId);
+        throw new ResourceNotFoundException("Product not found with ID: " + productId);
+      }
+    }
+    return products;
+  }
+
+  /**
+   * Products of one order request and their available stock counts, read once at the start of the
+   * request. Counts are advisory like the counters they come from; the stock claim decides.
+   *
+   * @param products requested products keyed by ID
+   * @param availableCounts available stock counts keyed by product ID
+   */
+  private record ProductSnapshot(Map<UUID, Product> products, Map<UUID, Long> availableCounts) {
+
+    private ProductSnapshot {
+      products = Map.copyOf(products);
+      availableCounts = Map.copyOf(availableCounts);
+    }
+
+    Product getProduct(UUID productId) {
+      return products.get(productId);
+    }
+
+    long getAvailableCount(UUID productId) {
+      return availableCounts.getOrDefault(productId, 0L);
+    }
+  }
 }
@@ -9,11 +9,13 @@ import com.accountselling.platform.model.Order;
 import com.accountselling.platform.model.Payment;
 import com.accountselling.platform.model.User;
 import com.accountselling.platform.repository.OrderRepository;
+import com.accountselling.platform.repository.PaymentDailyRollupRepository;
 import com.accountselling.platform.repository.PaymentRepository;
 import com.accountselling.platform.repository.UserRepository;
 import com.accountselling.platform.service.OrderService;
 import com.accountselling.platform.service.PaymentService;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
@@ -39,6 +41,7 @@ import org.springframework.transaction.annotation.Transactional;
 public class PaymentServiceImpl implements PaymentService {
 
   private final PaymentRepository paymentRepository;
+  private final PaymentDailyRollupRepository paymentDailyRollupRepository;
   private final OrderRepository orderRepository;
   private final UserRepository userRepository;
   private final OrderService orderService;
@@ -83,6 +86,7 @@ public class PaymentServiceImpl implements PaymentService {
     payment.setQrCodeUrl(qrCodeUrl);
 
     Payment savedPayment = paymentRepository.save(payment);
+    paymentDailyRollupRepository.recordCreated(savedPayment.getId());
 
     // Update order status to processing if it was pending
     if (order.isPending()) {
@@ -303,6 +307,7 @@ public class PaymentServiceImpl implements PaymentService {
       }
 
       Payment updatedPayment = paymentRepository.save(payment);
+      paymentDailyRollupRepository.recordCompleted(paymentId, payment.getAmount());
 
       // Mark associated order as completed
       try {
@@ -448,6 +453,7 @@ public class PaymentServiceImpl implements PaymentService {
       }
 
       Payment updatedPayment = paymentRepository.save(payment);
+      paymentDailyRollupRepository.recordRefunded(paymentId, payment.getAmount(), refundAmount);
 
       log.info(
           "Successfully processed refund: {} for payment: {}",
@@ -848,13 +854,16 @@ public class PaymentServiceImpl implements PaymentService {
       LocalDateTime startDate, LocalDateTime endDate) {
     log.debug("Getting daily payment statistics for period: {} to {}", startDate, endDate);
 
-    List<Object[]> dailyStats = paymentRepository.getDailyPaymentStatistics(startDate, endDate);
+    // Trends are read from the daily rollups, whole days from the start day to the end day
+    List<Object[]> dailyStats =
+        paymentDailyRollupRepository.sumByDateBetween(
+            startDate.toLocalDate(), endDate.toLocalDate());
 
     return dailyStats.stream()
         .map(
             stat ->
                 new DailyPaymentStatistics(
-                    (LocalDateTime) stat[0],
+                    ((LocalDate) stat[0]).atStartOfDay(),
                     ((Number) stat[1]).longValue(),
                     (BigDecimal) stat[2],
                     (BigDecimal) stat[3]))
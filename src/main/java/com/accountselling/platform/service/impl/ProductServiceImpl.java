@@ -1,13 +1,18 @@
 package com.accountselling.platform.service.impl;
 
+import com.accountselling.platform.dto.stock.StockStatistics;
 import com.accountselling.platform.exception.ResourceAlreadyExistsException;
 import com.accountselling.platform.exception.ResourceNotFoundException;
 import com.accountselling.platform.model.Category;
 import com.accountselling.platform.model.Product;
+import com.accountselling.platform.model.ProductStockSummary;
 import com.accountselling.platform.repository.CategoryRepository;
 import com.accountselling.platform.repository.ProductRepository;
+import com.accountselling.platform.repository.ProductStockSummaryRepository;
 import com.accountselling.platform.repository.StockRepository;
+import com.accountselling.platform.service.LowStockWatcher;
 import com.accountselling.platform.service.ProductService;
+import com.accountselling.platform.util.TransactionCallbacks;
 import java.math.BigDecimal;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -34,6 +39,8 @@ public class ProductServiceImpl implements ProductService {
   private final ProductRepository productRepository;
   private final CategoryRepository categoryRepository;
   private final StockRepository stockRepository;
+  private final ProductStockSummaryRepository productStockSummaryRepository;
+  private final LowStockWatcher lowStockWatcher;
 
   // ========== Read Operations ==========
 
@@ -232,6 +239,10 @@ public class ProductServiceImpl implements ProductService {
   @Transactional(readOnly = true)
   public List<Product> findProductsWithLowStock() {
     log.debug("Finding products with low stock");
+
+    if (lowStockWatcher.isReady()) {
+      return findActiveProducts(lowStockWatcher.getLowStockProductIds());
+    }
     return productRepository.findProductsWithLowStock();
   }
 
@@ -239,6 +250,10 @@ public class ProductServiceImpl implements ProductService {
   @Transactional(readOnly = true)
   public List<Product> findOutOfStockProducts() {
     log.debug("Finding out of stock products");
+
+    if (lowStockWatcher.isReady()) {
+      return findActiveProducts(lowStockWatcher.getOutOfStockProductIds());
+    }
     return productRepository.findOutOfStockProducts();
   }
 
@@ -253,11 +268,19 @@ public class ProductServiceImpl implements ProductService {
             .orElseThrow(
                 () -> new ResourceNotFoundException("Product not found with ID: " + productId));
 
-    // Use direct counting queries to avoid casting issues
-    long totalStock = stockRepository.countByProduct(product);
-    long availableStock = stockRepository.countAvailableByProduct(product);
-    long soldStock = stockRepository.countByProductAndSoldTrue(product);
-    long reservedStock = stockRepository.countReservedByProduct(product);
+    // Products without a summary row yet are counted once; the drift check creates the row
+    StockStatistics statistics =
+        productStockSummaryRepository
+            .findTotalsByProductId(productId)
+            .map(StockStatistics::from)
+            .orElseGet(
+                () ->
+                    StockStatistics.fromRow(
+                        stockRepository.getStockStatisticsByProductId(productId)));
+    long totalStock = statistics.total();
+    long availableStock = statistics.available();
+    long soldStock = statistics.sold();
+    long reservedStock = statistics.reserved();
 
     boolean inStock = availableStock > 0;
     boolean lowStock =
@@ -314,6 +337,9 @@ public class ProductServiceImpl implements ProductService {
     product.setActive(true);
 
     Product savedProduct = productRepository.save(product);
+    productStockSummaryRepository.saveAll(
+        ProductStockSummary.slotsOf(new ProductStockSummary(savedProduct.getId())));
+    lowStockWatcher.watchNewProduct(savedProduct.getId(), savedProduct.getLowStockThreshold());
     log.info("Successfully created product with ID: {}", savedProduct.getId());
 
     return savedProduct;
@@ -394,6 +420,7 @@ public class ProductServiceImpl implements ProductService {
 
     if (lowStockThreshold != null) {
       product.setLowStockThreshold(lowStockThreshold);
+      TransactionCallbacks.afterCommit(() -> lowStockWatcher.watch(productId, lowStockThreshold));
     }
 
     Product updatedProduct = productRepository.save(product);
@@ -462,6 +489,8 @@ public class ProductServiceImpl implements ProductService {
     }
 
     productRepository.delete(product);
+    productStockSummaryRepository.deleteByProductId(productId);
+    TransactionCallbacks.afterCommit(() -> lowStockWatcher.unwatch(productId));
     log.info("Successfully deleted product ID: {}", productId);
   }
 
@@ -478,6 +507,8 @@ public class ProductServiceImpl implements ProductService {
 
     // Force delete will cascade to stock items
     productRepository.delete(product);
+    productStockSummaryRepository.deleteByProductId(productId);
+    TransactionCallbacks.afterCommit(() -> lowStockWatcher.unwatch(productId));
     log.info("Successfully force deleted product ID: {}", productId);
   }
 
@@ -543,6 +574,16 @@ public class ProductServiceImpl implements ProductService {
 
   // ========== Private Helper Methods ==========
 
+  /** Load the active products among the given IDs, as tracked by the low stock watcher. */
+  private List<Product> findActiveProducts(Set<UUID> productIds) {
+    if (productIds.isEmpty()) {
+      return List.of();
+    }
+    return productRepository.findAllById(productIds).stream()
+        .filter(product -> Boolean.TRUE.equals(product.getActive()))
+        .collect(Collectors.toList());
+  }
+
   private void validateProductData(String name, BigDecimal price, UUID categoryId) {
     if (!StringUtils.hasText(name)) {
       throw new IllegalArgumentException("Product name cannot be blank");
@@ -0,0 +1,149 @@
+package com.accountselling.platform.service.impl;
+
+import com.accountselling.platform.model.StockArchiveCheckpoint;
+import com.accountselling.platform.repository.StockArchiveCheckpointRepository;
+import com.accountselling.platform.repository.StockRepository;
+import com.accountselling.platform.repository.StockSoldHistoryRepository;
+import com.accountselling.platform.service.StockArchiveService;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Implementation of StockArchiveService. Moves sold stock into the monthly partitions of the sold
+ * stock history in (sold_at, id) order, one short transaction per batch, and records the position
+ * of the last moved row in the archival checkpoint within the same transaction.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockArchiveServiceImpl implements StockArchiveService {
+
+  private final StockRepository stockRepository;
+  private final StockSoldHistoryRepository stockSoldHistoryRepository;
+  private final StockArchiveCheckpointRepository stockArchiveCheckpointRepository;
+  private final TransactionTemplate transactionTemplate;
+
+  @Value("${app.stock.archive.sold-older-than-days:90}")
+  private int soldOlderThanDays;
+
+  @Value("${app.stock.archive.batch-size:500}")
+  private int batchSize;
+
+  @Value("${app.stock.archive.pause-ms:200}")
+  private long pauseMillis;
+
+  @Value("${app.stock.archive.max-batches-per-run:1000}")
+  private int maxBatchesPerRun;
+
+  // Archived rows come back from RETURNING in no particular order
+  private static final Comparator<Object[]> ARCHIVE_ORDER =
+      Comparator.<Object[], LocalDateTime>comparing(row -> toLocalDateTime(row[0]))
+          .thenComparing(row -> (UUID) row[1]);
+
+  @Override
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public int archiveSoldStock() {
+    LocalDateTime cutoff = LocalDateTime.now().minusDays(soldOlderThanDays);
+    log.debug("Archiving sold stock sold before {}", cutoff);
+
+    StockArchiveCheckpoint checkpoint =
+        stockArchiveCheckpointRepository
+            .findById(StockArchiveCheckpoint.SOLD_STOCK)
+            .orElseGet(
+                () ->
+                    stockArchiveCheckpointRepository.save(
+                        new StockArchiveCheckpoint(StockArchiveCheckpoint.SOLD_STOCK)));
+
+    LocalDateTime earliest =
+        stockRepository.findEarliestSoldAtBefore(cutoff, checkpoint.getLastSoldAt());
+    if (earliest == null) {
+      log.debug("No sold stock waiting for archival");
+      return 0;
+    }
+
+    // Rows must land in their own month; the default partition only catches mistakes
+    for (LocalDateTime month = earliest.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+        !month.isAfter(cutoff);
+        month = month.plusMonths(1)) {
+      stockSoldHistoryRepository.ensurePartition(month);
+    }
+
+    int archivedCount = 0;
+    for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+      Integer moved = transactionTemplate.execute(status -> archiveBatch(cutoff));
+      int movedCount = moved != null ? moved : 0;
+      archivedCount += movedCount;
+
+      if (movedCount < batchSize || !pauseBetweenBatches()) {
+        break;
+      }
+    }
+
+    log.info("Archived {} sold stock items sold before {}", archivedCount, cutoff);
+    return archivedCount;
+  }
+
+  /**
+   * Move one batch after the checkpoint and advance the checkpoint past it. Runs inside the batch
+   * transaction; the checkpoint row lock keeps batches of other nodes waiting until it commits.
+   *
+   * @param cutoff only stock sold before this time is archived
+   * @return number of stock items moved
+   */
+  private int archiveBatch(LocalDateTime cutoff) {
+    StockArchiveCheckpoint checkpoint =
+        stockArchiveCheckpointRepository
+            .findByNameForUpdate(StockArchiveCheckpoint.SOLD_STOCK)
+            .orElseThrow(() -> new IllegalStateException("Stock archive checkpoint is missing"));
+
+    List<Object[]> archived =
+        stockSoldHistoryRepository.archiveSoldStock(
+            cutoff, checkpoint.getLastSoldAt(), checkpoint.getLastStockId(), batchSize);
+    if (archived.isEmpty()) {
+      return 0;
+    }
+
+    Object[] last = archived.stream().max(ARCHIVE_ORDER).orElseThrow();
+    checkpoint.advance(toLocalDateTime(last[0]), (UUID) last[1], archived.size());
+
+    log.debug("Archived batch of {} sold stock items up to {}", archived.size(), last[0]);
+    return archived.size();
+  }
+
+  /**
+   * Wait between batches so archival leaves room for regular traffic.
+   *
+   * @return false if the thread was interrupted and the run should stop
+   */
+  private boolean pauseBetweenBatches() {
+    if (pauseMillis <= 0) {
+      return true;
+    }
+
+    try {
+      Thread.sleep(pauseMillis);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      log.warn("Sold stock archival interrupted, continuing from the checkpoint on the next run");
+      return false;
+    }
+  }
+
+  private static LocalDateTime toLocalDateTime(Object value) {
+    return value instanceof Timestamp timestamp
+        ? timestamp.toLocalDateTime()
+        : (LocalDateTime) value;
+  }
+}
@@ -0,0 +1,206 @@
+package com.accountselling.platform.service.impl;
+
+import com.accountselling.platform.dto.stock.StockImportRecord;
+import com.accountselling.platform.dto.stock.StockImportReportDto;
+import com.accountselling.platform.dto.stock.StockImportReportDto.ChunkReport;
+import com.accountselling.platform.enums.StockImportFormat;
+import com.accountselling.platform.exception.ResourceNotFoundException;
+import com.accountselling.platform.exception.StockException;
+import com.accountselling.platform.repository.ProductRepository;
+import com.accountselling.platform.repository.ProductStockSummaryRepository;
+import com.accountselling.platform.repository.StockBatchRepository;
+import com.accountselling.platform.service.AvailableStockCounterRegistry;
+import com.accountselling.platform.service.StockImportService;
+import com.accountselling.platform.util.AccountDataFingerprint;
+import com.accountselling.platform.util.StockImportReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Implementation of StockImportService. Reads the body record by record and keeps only one chunk
+ * in memory at a time, so memory use stays flat regardless of file size.
+ *
+ * <p>นำเข้าสต็อกจำนวนมากแบบสตรีมทีละชุด
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockImportServiceImpl implements StockImportService {
+
+  private final ProductRepository productRepository;
+  private final StockBatchRepository stockBatchRepository;
+  private final ProductStockSummaryRepository productStockSummaryRepository;
+  private final AvailableStockCounterRegistry availableStockCounters;
+  private final TransactionTemplate transactionTemplate;
+
+  // Records deduplicated and inserted per transaction
+  private static final int CHUNK_SIZE = 1000;
+
+  // Rows per insert statement within a chunk
+  private static final int JDBC_BATCH_SIZE = 500;
+
+  // Line numbers of rejected records listed in the report
+  private static final int MAX_REPORTED_INVALID_LINES = 50;
+
+  // Column limits of the stock table
+  private static final int MAX_ACCOUNT_DATA_LENGTH = 2000;
+  private static final int MAX_ADDITIONAL_INFO_LENGTH = 500;
+
+  @Override
+  public StockImportReportDto importStock(
+      UUID productId, InputStream input, StockImportFormat format) {
+    log.info("Starting {} stock import for product ID: {}", format, productId);
+
+    productRepository
+        .findById(productId)
+        .orElseThrow(
+            () -> {
+              log.error("Product not found with ID: {}", productId);
+              return new ResourceNotFoundException("Product not found with ID: " + productId);
+            });
+
+    long startedAt = System.nanoTime();
+    long totalRecords = 0;
+    long invalidCount = 0;
+    List<Long> invalidLines = new ArrayList<>();
+    List<ChunkReport> chunks = new ArrayList<>();
+
+    try (StockImportReader reader = StockImportReader.open(input, format)) {
+      List<StockImportRecord> chunk = new ArrayList<>(CHUNK_SIZE);
+      StockImportRecord record;
+
+      while ((record = reader.next()) != null) {
+        totalRecords++;
+
+        if (!isValid(record)) {
+          invalidCount++;
+          if (invalidLines.size() < MAX_REPORTED_INVALID_LINES) {
+            invalidLines.add(record.line());
+          }
+          continue;
+        }
+
+        chunk.add(record);
+        if (chunk.size() == CHUNK_SIZE) {
+          chunks.add(importChunk(productId, chunk, chunks.size() + 1, totalRecords));
+          chunk = new ArrayList<>(CHUNK_SIZE);
+        }
+      }
+
+      if (!chunk.isEmpty()) {
+        chunks.add(importChunk(productId, chunk, chunks.size() + 1, totalRecords));
+      }
+    } catch (IOException e) {
+      log.error(
+          "Stock import for product ID: {} failed after {} chunks", productId, chunks.size(), e);
+      throw new StockException("Failed to read stock import body: " + e.getMessage(), e);
+    }
+
+    long importedCount = chunks.stream().mapToLong(ChunkReport::getImported).sum();
+    long duplicateCount = chunks.stream().mapToLong(ChunkReport::getDuplicates).sum();
+    long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+    log.info(
+        "Imported {} of {} stock records for product ID: {} in {} ms ({} duplicates, {} invalid)",
+        importedCount,
+        totalRecords,
+        productId,
+        durationMillis,
+        duplicateCount,
+        invalidCount);
+
+    return StockImportReportDto.builder()
+        .productId(productId)
+        .format(format.name())
+        .totalRecords(totalRecords)
+        .importedCount(importedCount)
+        .duplicateCount(duplicateCount)
+        .invalidCount(invalidCount)
+        .invalidLines(invalidLines)
+        .durationMillis(durationMillis)
+        .chunks(chunks)
+        .build();
+  }
+
+  /**
+   * Deduplicate and insert one chunk in its own transaction.
+   *
+   * @param productId ID of the product
+   * @param records valid records of the chunk
+   * @param chunkNumber 1-based chunk number
+   * @param recordsSoFar records read so far, for progress reporting
+   * @return ChunkReport chunk progress and timings
+   */
+  private ChunkReport importChunk(
+      UUID productId, List<StockImportRecord> records, int chunkNumber, long recordsSoFar) {
+    // Drop repeats inside the chunk before asking the database about the rest
+    Map<String, StockImportRecord> unique = new LinkedHashMap<>();
+    for (StockImportRecord record : records) {
+      unique.putIfAbsent(AccountDataFingerprint.of(record.accountData()), record);
+    }
+
+    ChunkReport report =
+        transactionTemplate.execute(
+            status -> {
+              long lookupStartedAt = System.nanoTime();
+              Set<String> existing =
+                  stockBatchRepository.findExistingFingerprints(productId, unique.keySet());
+              long insertStartedAt = System.nanoTime();
+
+              List<StockImportRecord> newRecords =
+                  unique.entrySet().stream()
+                      .filter(entry -> !existing.contains(entry.getKey()))
+                      .map(Map.Entry::getValue)
+                      .toList();
+              int inserted =
+                  newRecords.isEmpty()
+                      ? 0
+                      : stockBatchRepository.insertStock(productId, newRecords, JDBC_BATCH_SIZE);
+              availableStockCounters.adjust(productId, inserted);
+              if (inserted > 0) {
+                productStockSummaryRepository.recordAdded(productId, inserted);
+              }
+
+              return ChunkReport.builder()
+                  .chunk(chunkNumber)
+                  .records(records.size())
+                  .imported(inserted)
+                  .duplicates(records.size() - inserted)
+                  .lookupMillis(TimeUnit.NANOSECONDS.toMillis(insertStartedAt - lookupStartedAt))
+                  .insertMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - insertStartedAt))
+                  .recordsSoFar(recordsSoFar)
+                  .build();
+            });
+
+    log.info(
+        "Stock import chunk {} for product ID: {}: {} imported, {} duplicates, lookup {} ms,"
+            + " insert {} ms, {} records read so far",
+        chunkNumber,
+        productId,
+        report.getImported(),
+        report.getDuplicates(),
+        report.getLookupMillis(),
+        report.getInsertMillis(),
+        recordsSoFar);
+
+    return report;
+  }
+
+  private boolean isValid(StockImportRecord record) {
+    return record.accountData() != null
+        && record.accountData().length() <= MAX_ACCOUNT_DATA_LENGTH
+        && (record.additionalInfo() == null
+            || record.additionalInfo().length() <= MAX_ADDITIONAL_INFO_LENGTH);
+  }
+}
@@ -1,24 +1,61 @@
 package com.accountselling.platform.service.impl;
 
+import com.accountselling.platform.config.NodeIdentity;
+import com.accountselling.platform.dto.stock.HotStockPoolStatsDto;
+import com.accountselling.platform.dto.stock.LowStockAlert;
+import com.accountselling.platform.dto.stock.StockSaleResultDto;
 import com.accountselling.platform.dto.stock.StockStatistics;
 import com.accountselling.platform.exception.*;
 import com.accountselling.platform.model.Product;
+import com.accountselling.platform.model.ProductStockSummary;
 import com.accountselling.platform.model.Stock;
+import com.accountselling.platform.model.StockLease;
+import com.accountselling.platform.model.StockSoldHistory;
 import com.accountselling.platform.repository.ProductRepository;
+import com.accountselling.platform.repository.ProductStockSummaryRepository;
+import com.accountselling.platform.repository.StockLeaseRepository;
 import com.accountselling.platform.repository.StockRepository;
+import com.accountselling.platform.repository.StockSoldHistoryRepository;
+import com.accountselling.platform.service.AvailableStockCounterRegistry;
+import com.accountselling.platform.service.HotStockPoolRegistry;
+import com.accountselling.platform.service.LowStockWatcher;
+import com.accountselling.platform.service.ReservationExpiryScheduler;
+import com.accountselling.platform.service.ReservationLedger;
 import com.accountselling.platform.service.StockService;
+import com.accountselling.platform.util.AccountDataFingerprint;
+import com.accountselling.platform.util.KeysetCursor;
+import com.accountselling.platform.util.TransactionCallbacks;
+import jakarta.persistence.EntityManager;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Implementation of StockService for inventory management operations. Provides comprehensive stock
@@ -36,11 +73,44 @@ import org.springframework.transaction.annotation.Transactional;
 public class StockServiceImpl implements StockService {
 
   private final StockRepository stockRepository;
+  private final StockSoldHistoryRepository stockSoldHistoryRepository;
   private final ProductRepository productRepository;
+  private final AvailableStockCounterRegistry availableStockCounters;
+  private final ReservationExpiryScheduler reservationExpiryScheduler;
+  private final LowStockWatcher lowStockWatcher;
+  private final ProductStockSummaryRepository productStockSummaryRepository;
+  private final HotStockPoolRegistry hotStockPools;
+  private final ReservationLedger reservationLedger;
+  private final StockLeaseRepository stockLeaseRepository;
+  private final NodeIdentity nodeIdentity;
+  private final TransactionTemplate transactionTemplate;
+  private final EntityManager entityManager;
 
   // Default value for low stock threshold
   private static final int DEFAULT_LOW_STOCK_THRESHOLD = 5;
 
+  // Maximum number of product IDs per grouped count query during counter reconciliation
+  private static final int RECONCILE_BATCH_SIZE = 500;
+
+  // Maximum number of products verified per transaction by the stock summary drift check
+  private static final int SUMMARY_VERIFY_BATCH_SIZE = 200;
+
+  // Maximum number of claim statements per reservation. A claim comes back short when a
+  // candidate's hold was committed by another buyer after the statement started
+  private static final int CLAIM_ATTEMPTS = 3;
+
+  // Maximum number of expired reservations released per statement
+  private static final int EXPIRY_RELEASE_BATCH_SIZE = 100;
+
+  // How long stock leased into a hot product pool stays out of the regular claim
+  private static final Duration HOT_POOL_LEASE_DURATION = Duration.ofSeconds(60);
+
+  // Leases this close to lapsing are returned instead of handed out
+  private static final Duration HOT_POOL_LEASE_RETURN_MARGIN = Duration.ofSeconds(10);
+
+  // Maximum number of reservation ledger holds persisted or verified per transaction
+  private static final int LEDGER_BATCH_SIZE = 500;
+
   // ==================== BASIC STOCK OPERATIONS ====================
 
   @Override
@@ -59,7 +129,8 @@ public class StockServiceImpl implements StockService {
                 });
 
     // Check if accountData already exist
-    if (stockRepository.existsByProductIdAndAccountData(productId, accountData)) {
+    if (stockRepository.existsByProductIdAndFingerprint(
+        productId, AccountDataFingerprint.of(accountData))) {
       log.error("Duplicate accountData for product ID: {}", productId);
       throw new StockException("Stock with identical accountData already exists for this product");
     }
@@ -67,6 +138,8 @@ public class StockServiceImpl implements StockService {
     // Create new stock
     Stock stock = new Stock(product, accountData, additionalInfo);
     Stock savedStock = stockRepository.save(stock);
+    availableStockCounters.adjust(productId, 1);
+    productStockSummaryRepository.recordAdded(productId, 1);
 
     log.info(
         "Successfully created stock ID: {} for product: {}", savedStock.getId(), product.getName());
@@ -89,18 +162,40 @@ public class StockServiceImpl implements StockService {
                   return new ResourceNotFoundException("Product not found with ID: " + productId);
                 });
 
+    // One set-based fingerprint lookup instead of an existence query per entry
+    Map<String, String> candidates = new LinkedHashMap<>();
+    for (String accountData : accountDataList) {
+      candidates.putIfAbsent(AccountDataFingerprint.of(accountData), accountData);
+    }
+    Set<String> existing =
+        candidates.isEmpty()
+            ? Set.of()
+            : new HashSet<>(
+                stockRepository.findExistingFingerprints(productId, candidates.keySet()));
+
     List<Stock> stockItems = new ArrayList<>();
 
-    for (String accountData : accountDataList) {
+    for (Map.Entry<String, String> candidate : candidates.entrySet()) {
       // Skip duplicate accountData
-      if (!stockRepository.existsByProductIdAndAccountData(productId, accountData)) {
-        stockItems.add(new Stock(product, accountData));
+      if (!existing.contains(candidate.getKey())) {
+        stockItems.add(new Stock(product, candidate.getValue()));
       } else {
         log.warn("Skipping duplicate accountData for product ID: {}", productId);
       }
     }
 
+    if (candidates.size() < accountDataList.size()) {
+      log.warn(
+          "Skipped {} repeated accountData entries for product ID: {}",
+          accountDataList.size() - candidates.size(),
+          productId);
+    }
+
     List<Stock> savedStocks = stockRepository.saveAll(stockItems);
+    availableStockCounters.adjust(productId, savedStocks.size());
+    if (!savedStocks.isEmpty()) {
+      productStockSummaryRepository.recordAdded(productId, savedStocks.size());
+    }
 
     log.info(
         "Successfully created {} stock items for product: {}",
@@ -123,6 +218,18 @@ public class StockServiceImpl implements StockService {
     return stockRepository.findByProduct(product, pageable);
   }
 
+  @Override
+  public List<Stock> getStockByProductAfter(UUID productId, KeysetCursor after, int limit) {
+    log.debug("Getting stock for product ID: {} after cursor: {}", productId, after);
+
+    if (after == null) {
+      return stockRepository.findNewestByProductId(productId, Limit.of(limit));
+    }
+
+    return stockRepository.findNewestByProductIdBefore(
+        productId, after.createdAt(), after.id(), Limit.of(limit));
+  }
+
   @Override
   public Optional<Stock> getStockById(UUID stockId) {
     log.debug("Getting stock by ID: {}", stockId);
@@ -176,8 +283,18 @@ public class StockServiceImpl implements StockService {
       throw new StockException("Cannot delete reserved stock item");
     }
 
+    // Items with a lapsed but uncleared reservation are already excluded from the counter
+    UUID productId = stock.getProduct().getId();
+    boolean wasCounted = stockRepository.releaseReservations(List.of(stockId)) == 0;
     stockRepository.delete(stock);
 
+    if (wasCounted) {
+      availableStockCounters.adjust(productId, -1);
+      productStockSummaryRepository.recordRemoved(productId, 1, 0);
+    } else {
+      productStockSummaryRepository.recordRemoved(productId, 0, 1);
+    }
+
     log.info("Successfully deleted stock ID: {}", stockId);
   }
 
@@ -186,20 +303,39 @@ public class StockServiceImpl implements StockService {
   @Override
   public long getAvailableStockCount(UUID productId) {
     log.debug("Getting available stock count for product ID: {}", productId);
-    return stockRepository.countAvailableByProductId(productId);
+    return availableStockCounters.get(
+        productId,
+        id ->
+            productStockSummaryRepository
+                .findTotalsByProductId(id)
+                .map(ProductStockSummary::getAvailableCount)
+                .orElseGet(() -> stockRepository.countAvailableByProductId(id)));
+  }
+
+  @Override
+  public Map<UUID, Long> getAvailableStockCounts(Collection<UUID> productIds) {
+    log.debug("Getting available stock counts for {} products", productIds.size());
+    return availableStockCounters.getAll(productIds, this::loadAvailableStockCounts);
   }
 
   @Override
   public long getTotalStockCount(UUID productId) {
     log.debug("Getting total stock count for product ID: {}", productId);
 
+    Optional<ProductStockSummary> summary =
+        productStockSummaryRepository.findTotalsByProductId(productId);
+    if (summary.isPresent()) {
+      return summary.get().getTotalCount();
+    }
+
     Product product =
         productRepository
             .findById(productId)
             .orElseThrow(
                 () -> new ResourceNotFoundException("Product not found with ID: " + productId));
 
-    return stockRepository.countByProduct(product);
+    return stockRepository.countByProduct(product)
+        + stockSoldHistoryRepository.countByProductId(productId);
   }
 
   @Override
@@ -229,7 +365,7 @@ public class StockServiceImpl implements StockService {
   // ==================== STOCK RESERVATION OPERATIONS ====================
 
   @Override
-  @Transactional(isolation = Isolation.SERIALIZABLE)
+  @Transactional(isolation = Isolation.READ_COMMITTED)
   public List<Stock> reserveStock(UUID productId, int quantity, int reservationDurationMinutes) {
     log.info(
         "Reserving {} stock items for product ID: {} for {} minutes",
@@ -242,63 +378,190 @@ public class StockServiceImpl implements StockService {
   }
 
   @Override
-  @Transactional(isolation = Isolation.SERIALIZABLE)
+  @Transactional(isolation = Isolation.READ_COMMITTED)
   public List<Stock> reserveStockUntil(UUID productId, int quantity, LocalDateTime reservedUntil) {
     log.info(
         "Reserving {} stock items for product ID: {} until {}", quantity, productId, reservedUntil);
 
-    // Check if product exists
-    Product product =
-        productRepository
-            .findById(productId)
-            .orElseThrow(
-                () -> {
-                  log.error("Product not found with ID: {}", productId);
-                  return new ResourceNotFoundException("Product not found with ID: " + productId);
-                });
-
-    // Clean up expired reservations first
-    cleanupExpiredReservations();
+    if (quantity <= 0) {
+      throw new StockReservationException("Reservation quantity must be positive: " + quantity);
+    }
 
-    // Get available stock
-    List<Stock> availableStock = stockRepository.findAvailableStockByProductId(productId);
+    // Check if product exists
+    productRepository
+        .findById(productId)
+        .orElseThrow(
+            () -> {
+              log.error("Product not found with ID: {}", productId);
+              return new ResourceNotFoundException("Product not found with ID: " + productId);
+            });
+
+    // Hot products are served from this node's leased pool first without selecting rows; the
+    // leases go back to the pool if the surrounding transaction rolls back
+    List<HotStockPoolRegistry.Lease> leases = hotStockPools.take(productId, quantity);
+    TransactionCallbacks.afterRollback(() -> hotStockPools.putBack(productId, leases));
+    Map<UUID, UUID> leasedProductByStock = new LinkedHashMap<>();
+    leases.forEach(lease -> leasedProductByStock.put(lease.stockId(), productId));
+    PooledReservation pooled = reservePooledStock(leasedProductByStock, reservedUntil);
+    List<UUID> claimedIds = new ArrayList<>(quantity);
+    claimedIds.addAll(pooled.stockIds());
+    int fromPool = claimedIds.size();
+
+    // Claim the rest in one statement; rows locked by concurrent buyers are skipped. Lapsed holds
+    // that are taken over were never released, so they are still counted as reserved
+    int takenOver = 0;
+    for (int attempt = 0; attempt < CLAIM_ATTEMPTS && claimedIds.size() < quantity; attempt++) {
+      for (Object[] row :
+          stockRepository.claimAvailableStock(
+              productId, reservedUntil, quantity - claimedIds.size())) {
+        claimedIds.add((UUID) row[0]);
+        if (!(Boolean) row[1]) {
+          takenOver++;
+        }
+      }
+    }
 
-    if (availableStock.size() < quantity) {
-      log.error("Insufficient stock: need {} have {} items", quantity, availableStock.size());
+    if (claimedIds.size() < quantity) {
+      // Throwing rolls back the partial claim so the claimed rows become available again, and
+      // the pooled items are put back into the pool
+      pooled.discard(reservationLedger);
+      log.error("Insufficient stock: need {} have {} items", quantity, claimedIds.size());
       throw new OutOfStockException(
           "Insufficient stock available. Required: "
               + quantity
               + ", Available: "
-              + availableStock.size());
+              + claimedIds.size());
     }
 
-    // Reserve stock according to requested quantity
-    List<Stock> reservedStock = new ArrayList<>();
-    for (int i = 0; i < quantity && i < availableStock.size(); i++) {
-      Stock stock = availableStock.get(i);
-      try {
-        stock.reserveUntil(reservedUntil);
-        Stock savedStock = stockRepository.save(stock);
-        reservedStock.add(savedStock);
-
-        log.debug("Successfully reserved stock ID: {}", stock.getId());
-      } catch (IllegalStateException e) {
-        log.error("Cannot reserve stock ID: {}", stock.getId(), e);
-        throw new StockReservationException("Failed to reserve stock item: " + stock.getId(), e);
-      }
+    hotStockPools.recordServed(productId, fromPool, quantity - fromPool);
+    availableStockCounters.adjust(productId, -(quantity - takenOver));
+    // Holds in the reservation ledger reach the summary when the ledger flushes them
+    int unlogged = (pooled.logged() ? quantity - fromPool : quantity) - takenOver;
+    if (unlogged > 0) {
+      productStockSummaryRepository.recordReserved(productId, unlogged);
     }
+    reservationExpiryScheduler.schedule(claimedIds, reservedUntil);
+    List<Stock> reservedStock = stockRepository.findAllById(claimedIds);
 
     log.info("Successfully reserved {} stock items", reservedStock.size());
 
     return reservedStock;
   }
 
+  @Override
+  @Transactional(isolation = Isolation.READ_COMMITTED)
+  public Map<UUID, List<Stock>> reserveStockForProducts(
+      Map<UUID, Integer> productQuantities, int reservationDurationMinutes) {
+    log.info(
+        "Reserving stock for {} products for {} minutes",
+        productQuantities.size(),
+        reservationDurationMinutes);
+
+    for (Map.Entry<UUID, Integer> entry : productQuantities.entrySet()) {
+      if (entry.getValue() == null || entry.getValue() <= 0) {
+        throw new StockReservationException(
+            "Reservation quantity must be positive: "
+                + entry.getValue()
+                + " for product ID: "
+                + entry.getKey());
+      }
+    }
+
+    LocalDateTime reservedUntil = LocalDateTime.now().plusMinutes(reservationDurationMinutes);
+
+    // Hot products are served from this node's leased pools first, in one statement for all
+    Map<UUID, List<HotStockPoolRegistry.Lease>> leasesByProduct = new HashMap<>();
+    Map<UUID, UUID> leasedProductByStock = new LinkedHashMap<>();
+    productQuantities.forEach(
+        (productId, quantity) -> {
+          List<HotStockPoolRegistry.Lease> leases = hotStockPools.take(productId, quantity);
+          if (!leases.isEmpty()) {
+            leasesByProduct.put(productId, leases);
+            leases.forEach(lease -> leasedProductByStock.put(lease.stockId(), productId));
+          }
+        });
+    TransactionCallbacks.afterRollback(() -> leasesByProduct.forEach(hotStockPools::putBack));
+
+    PooledReservation pooled = reservePooledStock(leasedProductByStock, reservedUntil);
+    List<UUID> claimedIds = new ArrayList<>(pooled.stockIds());
+    Map<UUID, Integer> claimedCounts = new HashMap<>();
+    for (UUID stockId : pooled.stockIds()) {
+      claimedCounts.merge(leasedProductByStock.get(stockId), 1, Integer::sum);
+    }
+    Map<UUID, Integer> fromPool = new HashMap<>(claimedCounts);
+
+    // Claim what is still missing for all products in one statement per attempt
+    Map<UUID, Integer> takenOver = new HashMap<>();
+    Map<UUID, Integer> shortfall = shortfall(productQuantities, claimedCounts);
+    for (int attempt = 0; attempt < CLAIM_ATTEMPTS && !shortfall.isEmpty(); attempt++) {
+      List<UUID> productIds = new ArrayList<>(shortfall.keySet());
+      List<Object[]> claimed =
+          stockRepository.claimAvailableStockForProducts(
+              productIds.toArray(UUID[]::new),
+              productIds.stream().map(shortfall::get).toArray(Integer[]::new),
+              reservedUntil);
+      for (Object[] row : claimed) {
+        claimedIds.add((UUID) row[0]);
+        claimedCounts.merge((UUID) row[1], 1, Integer::sum);
+        if (!(Boolean) row[2]) {
+          takenOver.merge((UUID) row[1], 1, Integer::sum);
+        }
+      }
+      shortfall = shortfall(productQuantities, claimedCounts);
+    }
+
+    if (!shortfall.isEmpty()) {
+      // Throwing rolls back every claim of this call, and the pooled items are put back into
+      // their pools
+      pooled.discard(reservationLedger);
+      throw insufficientStock(productQuantities, claimedCounts, shortfall.keySet());
+    }
+
+    // Summary rows are updated in product ID order so concurrent orders lock them consistently
+    for (UUID productId : new TreeSet<>(productQuantities.keySet())) {
+      int quantity = productQuantities.get(productId);
+      int fromPoolCount = fromPool.getOrDefault(productId, 0);
+      int takenOverCount = takenOver.getOrDefault(productId, 0);
+      hotStockPools.recordServed(productId, fromPoolCount, quantity - fromPoolCount);
+      availableStockCounters.adjust(productId, -(quantity - takenOverCount));
+      // Holds in the reservation ledger reach the summary when the ledger flushes them
+      int unlogged = (pooled.logged() ? quantity - fromPoolCount : quantity) - takenOverCount;
+      if (unlogged > 0) {
+        productStockSummaryRepository.recordReserved(productId, unlogged);
+      }
+    }
+    reservationExpiryScheduler.schedule(claimedIds, reservedUntil);
+
+    Map<UUID, List<Stock>> reservedStock = new LinkedHashMap<>();
+    for (UUID productId : productQuantities.keySet()) {
+      reservedStock.put(productId, new ArrayList<>());
+    }
+    for (Stock stock : stockRepository.findAllById(claimedIds)) {
+      reservedStock.get(stock.getProduct().getId()).add(stock);
+    }
+
+    log.info(
+        "Successfully reserved {} stock items for {} products",
+        claimedIds.size(),
+        productQuantities.size());
+
+    return reservedStock;
+  }
+
   @Override
   @Transactional
   public int releaseReservation(List<UUID> stockIds) {
     log.info("Releasing reservation for {} stock items", stockIds.size());
 
-    int releasedCount = stockRepository.releaseReservations(stockIds);
+    if (stockIds.isEmpty()) {
+      return 0;
+    }
+
+    settleLedgerHolds(stockIds);
+    List<UUID> releasedProductIds =
+        stockRepository.releaseReservationsReturningProductIds(stockIds);
+    creditReleasedStock(releasedProductIds);
+    int releasedCount = releasedProductIds.size();
 
     log.info("Successfully released {} reservations", releasedCount);
 
@@ -310,6 +573,7 @@ public class StockServiceImpl implements StockService {
   public boolean releaseReservation(UUID stockId) {
     log.info("Releasing reservation for stock ID: {}", stockId);
 
+    settleLedgerHolds(List.of(stockId));
     Stock stock =
         stockRepository
             .findById(stockId)
@@ -324,8 +588,15 @@ public class StockServiceImpl implements StockService {
       return false;
     }
 
+    List<UUID> releasedProductIds =
+        stockRepository.releaseReservationsReturningProductIds(List.of(stockId));
+    if (releasedProductIds.isEmpty()) {
+      log.warn("Stock ID: {} was released concurrently", stockId);
+      return false;
+    }
+
     stock.releaseReservation();
-    stockRepository.save(stock);
+    creditReleasedStock(releasedProductIds);
 
     log.info("Successfully released reservation for stock ID: {}", stockId);
 
@@ -352,6 +623,12 @@ public class StockServiceImpl implements StockService {
   public long getReservedStockCount(UUID productId) {
     log.debug("Getting reserved stock count for product ID: {}", productId);
 
+    Optional<ProductStockSummary> summary =
+        productStockSummaryRepository.findTotalsByProductId(productId);
+    if (summary.isPresent()) {
+      return summary.get().getReservedCount();
+    }
+
     Product product =
         productRepository
             .findById(productId)
@@ -368,6 +645,7 @@ public class StockServiceImpl implements StockService {
   public Stock markAsSold(UUID stockId) {
     log.info("Marking stock as sold ID: {}", stockId);
 
+    settleLedgerHolds(List.of(stockId));
     Stock stock =
         stockRepository
             .findById(stockId)
@@ -382,8 +660,17 @@ public class StockServiceImpl implements StockService {
       stock.markAsSold();
       Stock savedStock = stockRepository.save(stock);
 
-      // Check for low stock notification after sale
-      checkAndNotifyLowStockForProduct(productId);
+      // Selling ends any hold on the item, including one made after it was loaded
+      boolean wasCounted = stockRepository.releaseReservations(List.of(stockId)) == 0;
+
+      // Reserved items left the counter when they were claimed; the low stock watcher sees the
+      // change once it is applied
+      if (wasCounted) {
+        availableStockCounters.adjust(productId, -1);
+        productStockSummaryRepository.recordSold(productId, 1, 0);
+      } else {
+        productStockSummaryRepository.recordSold(productId, 0, 1);
+      }
 
       log.info("Successfully marked stock as sold ID: {}", stockId);
 
@@ -396,62 +683,143 @@ public class StockServiceImpl implements StockService {
 
   @Override
   @Transactional
-  public List<Stock> markAsSold(List<UUID> stockIds) {
-    log.info("Marking {} stock items as sold", stockIds.size());
-
-    List<Stock> soldStock = new ArrayList<>();
+  public StockSaleResultDto markAsSold(List<UUID> stockIds) {
+    Set<UUID> requested = new LinkedHashSet<>(stockIds);
+    log.info("Marking {} stock items as sold", requested.size());
+
+    if (requested.isEmpty()) {
+      return StockSaleResultDto.builder()
+          .requestedCount(0)
+          .soldStockIds(List.of())
+          .soldCountByProduct(Map.of())
+          .failures(Map.of())
+          .build();
+    }
 
-    for (UUID stockId : stockIds) {
-      try {
-        Stock stock = markAsSold(stockId);
-        soldStock.add(stock);
-      } catch (Exception e) {
-        log.error("Cannot mark stock as sold ID: {}", stockId, e);
-        // Skip failed items and continue
+    settleLedgerHolds(requested);
+    List<Object[]> soldRows =
+        stockRepository.markAsSoldReturningProducts(requested, LocalDateTime.now());
+
+    List<UUID> soldStockIds = new ArrayList<>(soldRows.size());
+    // Sorted so summary rows are locked in product ID order, like reservations lock them
+    Map<UUID, Long> soldCountByProduct = new TreeMap<>();
+    Map<UUID, Long> availableSoldByProduct = new HashMap<>();
+    for (Object[] row : soldRows) {
+      UUID productId = (UUID) row[1];
+      soldStockIds.add((UUID) row[0]);
+      soldCountByProduct.merge(productId, 1L, Long::sum);
+      // Reserved items left the counter when they were claimed
+      if (Boolean.TRUE.equals(row[2])) {
+        availableSoldByProduct.merge(productId, 1L, Long::sum);
       }
     }
+    availableSoldByProduct.forEach(
+        (productId, sold) -> availableStockCounters.adjust(productId, -sold));
+    soldCountByProduct.forEach(
+        (productId, sold) -> {
+          long fromAvailable = availableSoldByProduct.getOrDefault(productId, 0L);
+          productStockSummaryRepository.recordSold(productId, fromAvailable, sold - fromAvailable);
+        });
+
+    Map<UUID, String> failures = findSaleFailures(requested, soldStockIds);
+    if (!failures.isEmpty()) {
+      log.warn("Could not mark {} stock items as sold: {}", failures.size(), failures);
+    }
 
-    log.info("Successfully marked {} stock items as sold", soldStock.size());
-
-    return soldStock;
+    log.info(
+        "Successfully marked {} of {} stock items as sold across {} products",
+        soldStockIds.size(),
+        requested.size(),
+        soldCountByProduct.size());
+
+    return StockSaleResultDto.builder()
+        .requestedCount(requested.size())
+        .soldStockIds(soldStockIds)
+        .soldCountByProduct(soldCountByProduct)
+        .failures(failures)
+        .build();
   }
 
   @Override
   public List<Stock> getSoldStock(UUID productId, LocalDateTime startDate, LocalDateTime endDate) {
     log.debug("Getting sold stock for product ID: {}", productId);
 
+    List<Stock> soldStock;
     if (productId != null && startDate != null && endDate != null) {
       Product product =
           productRepository
               .findById(productId)
               .orElseThrow(
                   () -> new ResourceNotFoundException("Product not found with ID: " + productId));
-      return stockRepository.findSoldByProductBetweenDates(product, startDate, endDate);
+      soldStock = stockRepository.findSoldByProductBetweenDates(product, startDate, endDate);
     } else if (startDate != null && endDate != null) {
-      return stockRepository.findSoldBetweenDates(startDate, endDate);
+      soldStock = stockRepository.findSoldBetweenDates(startDate, endDate);
     } else if (productId != null) {
       Product product =
           productRepository
               .findById(productId)
               .orElseThrow(
                   () -> new ResourceNotFoundException("Product not found with ID: " + productId));
-      return stockRepository.findByProductAndSoldTrue(product);
+      soldStock = stockRepository.findByProductAndSoldTrue(product);
+    } else {
+      soldStock = stockRepository.findBySoldTrue();
+    }
+
+    // Dates only filter when both are given, as for the live stock above
+    boolean dated = startDate != null && endDate != null;
+    List<StockSoldHistory> archived =
+        stockSoldHistoryRepository.findSold(
+            productId, dated ? startDate : null, dated ? endDate : null);
+    if (archived.isEmpty()) {
+      return soldStock;
+    }
+
+    List<Stock> combined = new ArrayList<>(soldStock.size() + archived.size());
+    combined.addAll(soldStock);
+    archived.forEach(history -> combined.add(history.toStock()));
+    return combined;
+  }
+
+  @Override
+  public long streamSoldStock(
+      UUID productId, LocalDateTime startDate, LocalDateTime endDate, Consumer<Stock> consumer) {
+    log.debug("Streaming sold stock for product ID: {}", productId);
+
+    long count;
+    try (Stream<Stock> soldStock =
+        productId != null
+            ? stockRepository.streamSoldByProductId(productId, startDate, endDate)
+            : stockRepository.streamSold(startDate, endDate)) {
+      count = consumeDetached(soldStock, consumer);
+    }
+
+    // Stock archived to the history is older than anything left in the stock table
+    try (Stream<StockSoldHistory> archived =
+        stockSoldHistoryRepository.streamSold(productId, startDate, endDate)) {
+      count += consumeDetached(archived, history -> consumer.accept(history.toStock()));
     }
 
-    return stockRepository.findBySoldTrue();
+    return count;
   }
 
   @Override
   public long getSoldStockCount(UUID productId) {
     log.debug("Getting sold stock count for product ID: {}", productId);
 
+    Optional<ProductStockSummary> summary =
+        productStockSummaryRepository.findTotalsByProductId(productId);
+    if (summary.isPresent()) {
+      return summary.get().getSoldCount();
+    }
+
     Product product =
         productRepository
             .findById(productId)
             .orElseThrow(
                 () -> new ResourceNotFoundException("Product not found with ID: " + productId));
 
-    return stockRepository.countByProductAndSoldTrue(product);
+    return stockRepository.countByProductAndSoldTrue(product)
+        + stockSoldHistoryRepository.countByProductId(productId);
   }
 
   // ==================== INVENTORY MANAGEMENT OPERATIONS ====================
@@ -460,27 +828,36 @@ public class StockServiceImpl implements StockService {
   public StockStatistics getStockStatistics(UUID productId) {
     log.debug("Getting stock statistics for product ID: {}", productId);
 
-    Object[] stats = stockRepository.getStockStatisticsByProductId(productId);
-
-    if (stats != null && stats.length == 4) {
-      long total = ((Number) stats[0]).longValue();
-      long available = ((Number) stats[1]).longValue();
-      long sold = ((Number) stats[2]).longValue();
-      long reserved = ((Number) stats[3]).longValue();
-
-      return new StockStatistics(total, available, sold, reserved);
-    }
-
-    return new StockStatistics(0, 0, 0, 0);
+    // Products without a summary row yet are counted once; the drift check creates the row
+    return productStockSummaryRepository
+        .findTotalsByProductId(productId)
+        .map(StockStatistics::from)
+        .orElseGet(
+            () ->
+                StockStatistics.fromRow(stockRepository.getStockStatisticsByProductId(productId)));
   }
 
   @Override
   public List<Product> getProductsWithLowStock(Integer threshold) {
     log.debug("Getting products with low stock using threshold: {}", threshold);
 
-    long searchThreshold = threshold != null ? threshold : DEFAULT_LOW_STOCK_THRESHOLD;
-
-    List<Product> lowStockProducts = stockRepository.findProductsWithLowStock(searchThreshold);
+    List<Product> lowStockProducts;
+    if (lowStockWatcher.isReady()) {
+      // Read the live set kept by the watcher instead of counting stock for every product
+      Set<UUID> productIds =
+          threshold != null
+              ? lowStockWatcher.getProductIdsAtOrBelow(threshold)
+              : lowStockWatcher.getLowStockProductIds();
+      lowStockProducts =
+          productIds.isEmpty()
+              ? List.of()
+              : productRepository.findAllById(productIds).stream()
+                  .filter(product -> Boolean.TRUE.equals(product.getActive()))
+                  .toList();
+    } else {
+      long searchThreshold = threshold != null ? threshold : DEFAULT_LOW_STOCK_THRESHOLD;
+      lowStockProducts = stockRepository.findProductsWithLowStock(searchThreshold);
+    }
 
     log.info("Found {} products with low stock", lowStockProducts.size());
 
@@ -520,7 +897,12 @@ public class StockServiceImpl implements StockService {
   public int cleanupExpiredReservations() {
     log.debug("Cleaning up expired reservations");
 
-    int cleanedCount = stockRepository.clearExpiredReservations();
+    List<UUID> releasedProductIds = stockRepository.releaseExpiredReservations();
+    creditReleasedStock(releasedProductIds);
+    int cleanedCount = releasedProductIds.size();
+
+    // Stock leases of nodes that stopped are swept along with the lapsed reservations
+    stockLeaseRepository.deleteExpired(LocalDateTime.now());
 
     if (cleanedCount > 0) {
       log.info("Successfully cleaned up {} expired reservations", cleanedCount);
@@ -529,12 +911,189 @@ public class StockServiceImpl implements StockService {
     return cleanedCount;
   }
 
+  @Override
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public int releaseDueReservations() {
+    // No surrounding transaction: each batch commits on its own so row locks are held briefly
+    int releasedCount = 0;
+    List<UUID> dueIds;
+
+    while (!(dueIds = reservationExpiryScheduler.pollDue(EXPIRY_RELEASE_BATCH_SIZE)).isEmpty()) {
+      List<UUID> batch = dueIds;
+      List<UUID> releasedProductIds =
+          transactionTemplate.execute(
+              status -> {
+                settleLedgerHolds(batch);
+                List<UUID> released =
+                    stockRepository.releaseExpiredReservationsByIds(batch, LocalDateTime.now());
+                creditReleasedStock(released);
+                return released;
+              });
+      releasedCount += releasedProductIds.size();
+    }
+
+    if (releasedCount > 0) {
+      log.info("Released {} reservations at their deadline", releasedCount);
+    }
+
+    return releasedCount;
+  }
+
+  @Override
+  public int rebuildReservationExpirySchedule() {
+    log.info("Rebuilding reservation expiry schedule");
+
+    Map<UUID, LocalDateTime> reservations = new HashMap<>();
+    for (Object[] row : stockRepository.findReservationDeadlines()) {
+      reservations.put((UUID) row[0], (LocalDateTime) row[1]);
+    }
+
+    reservationExpiryScheduler.rebuild(reservations);
+
+    return reservations.size();
+  }
+
+  @Override
+  @Transactional
+  public int reconcileAvailableStockCounters() {
+    log.debug("Reconciling available stock counters");
+
+    // Release lapsed reservations first so the sweep and the recount do not both credit them
+    cleanupExpiredReservations();
+
+    // Only the products marked here are corrected, so ones loaded while counting keep their count
+    AvailableStockCounterRegistry.Recount recount = availableStockCounters.startRecount();
+    List<UUID> trackedProductIds = new ArrayList<>(recount.productIds());
+    Map<UUID, Long> actualCounts = new HashMap<>();
+
+    for (int from = 0; from < trackedProductIds.size(); from += RECONCILE_BATCH_SIZE) {
+      List<UUID> batch =
+          trackedProductIds.subList(
+              from, Math.min(from + RECONCILE_BATCH_SIZE, trackedProductIds.size()));
+
+      for (Object[] row : stockRepository.countAvailableGroupedByProductIds(batch)) {
+        actualCounts.put((UUID) row[0], ((Number) row[1]).longValue());
+      }
+    }
+
+    availableStockCounters.reconcile(recount, actualCounts);
+
+    return trackedProductIds.size();
+  }
+
+  @Override
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public int verifyStockSummaries() {
+    log.debug("Verifying product stock summaries");
+
+    // Each batch commits on its own so stock changes wait on the summary locks only briefly
+    List<UUID> productIds = productRepository.findAllIds();
+    int repairedCount = 0;
+
+    for (int from = 0; from < productIds.size(); from += SUMMARY_VERIFY_BATCH_SIZE) {
+      List<UUID> batch =
+          productIds.subList(from, Math.min(from + SUMMARY_VERIFY_BATCH_SIZE, productIds.size()));
+      Integer repaired = transactionTemplate.execute(status -> repairStockSummaries(batch));
+      repairedCount += repaired != null ? repaired : 0;
+    }
+
+    if (repairedCount > 0) {
+      log.warn("Repaired stock summaries of {} products", repairedCount);
+    }
+
+    return repairedCount;
+  }
+
+  @Override
+  public int rebuildLowStockWatch() {
+    log.info("Loading products into the low stock watcher");
+
+    Map<UUID, Integer> thresholds = new HashMap<>();
+    for (Object[] row : productRepository.findLowStockThresholds()) {
+      thresholds.put((UUID) row[0], (Integer) row[1]);
+    }
+
+    List<UUID> productIds = new ArrayList<>(thresholds.keySet());
+    Map<UUID, Long> availableCounts = new HashMap<>();
+    for (UUID productId : productIds) {
+      availableCounts.put(productId, 0L);
+    }
+    for (int from = 0; from < productIds.size(); from += RECONCILE_BATCH_SIZE) {
+      List<UUID> batch =
+          productIds.subList(from, Math.min(from + RECONCILE_BATCH_SIZE, productIds.size()));
+
+      for (Object[] row : stockRepository.countAvailableGroupedByProductIds(batch)) {
+        availableCounts.put((UUID) row[0], ((Number) row[1]).longValue());
+      }
+    }
+
+    // Track every product so later changes reach the watcher even before anyone reads them
+    availableStockCounters.track(availableCounts);
+    lowStockWatcher.rebuild(thresholds, availableCounts);
+
+    return thresholds.size();
+  }
+
+  @Override
+  public List<LowStockAlert> pollLowStockAlerts() {
+    List<LowStockAlert> alerts = lowStockWatcher.pollDueAlerts(System.currentTimeMillis());
+    if (alerts.isEmpty()) {
+      return alerts;
+    }
+
+    // Inactive products are watched too but not alerted
+    Map<UUID, String> activeProductNames =
+        productRepository
+            .findAllById(alerts.stream().map(LowStockAlert::productId).toList())
+            .stream()
+            .filter(product -> Boolean.TRUE.equals(product.getActive()))
+            .collect(Collectors.toMap(Product::getId, Product::getName));
+
+    return alerts.stream()
+        .filter(alert -> activeProductNames.containsKey(alert.productId()))
+        .map(alert -> alert.withProductName(activeProductNames.get(alert.productId())))
+        .toList();
+  }
+
   @Override
   public List<Stock> getExpiredReservations() {
     log.debug("Getting expired reservations");
     return stockRepository.findExpiredReservations();
   }
 
+  @Override
+  public Map<UUID, String> getSoldAccountData(Collection<UUID> stockIds) {
+    log.debug("Getting account data of {} sold stock items", stockIds.size());
+
+    Map<UUID, String> accountData = new HashMap<>();
+    if (stockIds.isEmpty()) {
+      return accountData;
+    }
+
+    for (Object[] row : stockRepository.findAccountDataByIds(stockIds)) {
+      accountData.put((UUID) row[0], (String) row[1]);
+    }
+
+    // Items missing from the stock table were moved to the sold stock history
+    if (accountData.size() < stockIds.size()) {
+      List<UUID> missing = stockIds.stream().filter(id -> !accountData.containsKey(id)).toList();
+      for (Object[] row : stockSoldHistoryRepository.findAccountDataByIds(missing)) {
+        accountData.put((UUID) row[0], (String) row[1]);
+      }
+    }
+
+    return accountData;
+  }
+
+  @Override
+  public long streamExpiredReservations(Consumer<Stock> consumer) {
+    log.debug("Streaming expired reservations");
+
+    try (Stream<Stock> expired = stockRepository.streamExpiredReservations()) {
+      return consumeDetached(expired, consumer);
+    }
+  }
+
   @Override
   public List<Stock> getReservationsExpiringSoon(int withinMinutes) {
     log.debug("Getting reservations expiring within {} minutes", withinMinutes);
@@ -547,6 +1106,202 @@ public class StockServiceImpl implements StockService {
     return expiringSoon;
   }
 
+  // ==================== HOT PRODUCT STOCK POOL OPERATIONS ====================
+
+  @Override
+  @Transactional
+  public HotStockPoolStatsDto enableHotStockPool(UUID productId, int leaseSize) {
+    log.info("Enabling hot stock pool for product ID: {} with lease size {}", productId, leaseSize);
+
+    if (leaseSize <= 0 || leaseSize > HotStockPoolRegistry.MAX_LEASE_SIZE) {
+      throw new StockException(
+          "Lease size must be between 1 and " + HotStockPoolRegistry.MAX_LEASE_SIZE);
+    }
+
+    // Stored on the product so the other nodes pick it up on their next refill
+    if (productRepository.updateHotLeaseSize(productId, leaseSize) == 0) {
+      throw new ResourceNotFoundException("Product not found with ID: " + productId);
+    }
+
+    hotStockPools.enable(productId, leaseSize);
+
+    return hotStockPools.getStats().stream()
+        .filter(stats -> stats.getProductId().equals(productId))
+        .findFirst()
+        .orElseThrow();
+  }
+
+  @Override
+  @Transactional
+  public int disableHotStockPool(UUID productId) {
+    log.info("Disabling hot stock pool for product ID: {}", productId);
+
+    productRepository.updateHotLeaseSize(productId, null);
+    stockLeaseRepository.deleteByProductId(productId);
+    List<UUID> unused = hotStockPools.disable(productId);
+    return unused.isEmpty() ? 0 : stockRepository.returnLeasedStock(unused);
+  }
+
+  @Override
+  public List<HotStockPoolStatsDto> getHotStockPoolStats() {
+    return hotStockPools.getStats();
+  }
+
+  @Override
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public int refillHotStockPools() {
+    // No surrounding transaction: each lease commits on its own so other nodes skip it at once
+    syncHotProducts();
+    long now = System.currentTimeMillis();
+
+    List<UUID> expiring =
+        hotStockPools.drainExpiring(now + HOT_POOL_LEASE_RETURN_MARGIN.toMillis());
+    if (!expiring.isEmpty()) {
+      stockRepository.returnLeasedStock(expiring);
+    }
+
+    int leasedCount = 0;
+    Map<UUID, Integer> wantedByProduct = new HashMap<>();
+    for (UUID productId : hotStockPools.getHotProductIds()) {
+      int refillSize = hotStockPools.getRefillSize(productId);
+      if (refillSize == 0) {
+        continue;
+      }
+
+      LocalDateTime leasedUntil = LocalDateTime.now().plus(HOT_POOL_LEASE_DURATION);
+      List<UUID> leased = stockRepository.leaseAvailableStock(productId, leasedUntil, refillSize);
+      List<UUID> rejected =
+          hotStockPools.add(productId, leased, now + HOT_POOL_LEASE_DURATION.toMillis());
+      if (!rejected.isEmpty()) {
+        // The product left hot mode while the block was being leased
+        stockRepository.returnLeasedStock(rejected);
+      }
+      leasedCount += leased.size() - rejected.size();
+      if (leased.size() < refillSize) {
+        wantedByProduct.put(productId, refillSize - leased.size());
+      }
+    }
+
+    int rebalancedCount = rebalanceHotStockLeases(wantedByProduct);
+
+    if (leasedCount > 0 || rebalancedCount > 0) {
+      log.debug(
+          "Leased {} stock items into hot product pools and returned {} to dry nodes",
+          leasedCount,
+          rebalancedCount);
+    }
+
+    return leasedCount;
+  }
+
+  @Override
+  @Transactional
+  public int returnHotStockLeases() {
+    List<UUID> unused = hotStockPools.drainAll();
+    int returnedCount = unused.isEmpty() ? 0 : stockRepository.returnLeasedStock(unused);
+    stockLeaseRepository.deleteByNodeId(nodeIdentity.getId());
+
+    if (returnedCount > 0) {
+      log.info("Returned {} hot product pool leases", returnedCount);
+    }
+
+    return returnedCount;
+  }
+
+  // ==================== RESERVATION LEDGER OPERATIONS ====================
+
+  @Override
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public int flushReservationLedger() {
+    if (!reservationLedger.isEnabled()) {
+      return 0;
+    }
+
+    // Holds logged before this point survive a machine crash from here on
+    reservationLedger.force();
+
+    // No surrounding transaction: each batch commits before its holds are settled in the log
+    Lock flushLock = reservationLedger.getFlushLock();
+    int flushedCount = 0;
+    List<ReservationLedger.Hold> batch;
+
+    do {
+      flushLock.lock();
+      try {
+        batch = reservationLedger.drainPending(LEDGER_BATCH_SIZE);
+        if (!batch.isEmpty()) {
+          flushedCount += flushLedgerBatch(batch);
+        }
+      } finally {
+        flushLock.unlock();
+      }
+    } while (batch.size() == LEDGER_BATCH_SIZE);
+
+    if (flushedCount > 0) {
+      log.debug("Flushed {} reservation ledger holds", flushedCount);
+    }
+
+    return flushedCount;
+  }
+
+  @Override
+  public int verifyReservationLedger() {
+    if (!reservationLedger.isEnabled()) {
+      return 0;
+    }
+
+    reservationLedger.prunePersisted(LocalDateTime.now());
+    List<ReservationLedger.Hold> holds = reservationLedger.getPersistedHolds();
+    int mismatchCount = 0;
+
+    for (int from = 0; from < holds.size(); from += LEDGER_BATCH_SIZE) {
+      List<ReservationLedger.Hold> batch =
+          holds.subList(from, Math.min(from + LEDGER_BATCH_SIZE, holds.size()));
+
+      Map<UUID, UUID> heldProductIds = new HashMap<>();
+      for (Object[] row :
+          stockRepository.findReservationProductsByStockIds(
+              batch.stream().map(ReservationLedger.Hold::stockId).toList())) {
+        heldProductIds.put((UUID) row[0], (UUID) row[1]);
+      }
+
+      LocalDateTime now = LocalDateTime.now();
+      List<UUID> mismatched = new ArrayList<>();
+      for (ReservationLedger.Hold hold : batch) {
+        UUID heldProductId = heldProductIds.get(hold.stockId());
+        // Holds released, sold or expired while the batch was read are not drift
+        if (hold.productId().equals(heldProductId)
+            || hold.reservedUntil().isBefore(now)
+            || !reservationLedger.isPersisted(hold.stockId())) {
+          continue;
+        }
+
+        log.warn(
+            "Reservation ledger hold on stock ID: {} for product ID: {} is held for product ID: {}"
+                + " in the database",
+            hold.stockId(),
+            hold.productId(),
+            heldProductId);
+        mismatched.add(hold.stockId());
+      }
+
+      reservationLedger.forget(mismatched);
+      mismatchCount += mismatched.size();
+    }
+
+    log.info(
+        "Verified {} reservation ledger holds: {} mismatched, {} pending, {} recorded, {} flushed,"
+            + " {} refused",
+        holds.size(),
+        mismatchCount,
+        reservationLedger.getPendingCount(),
+        reservationLedger.getRecordedCount(),
+        reservationLedger.getFlushedCount(),
+        reservationLedger.getConflictCount());
+
+    return mismatchCount;
+  }
+
   // ==================== UTILITY OPERATIONS ====================
 
   @Override
@@ -565,7 +1320,8 @@ public class StockServiceImpl implements StockService {
   @Override
   public boolean accountDataExists(UUID productId, String accountData) {
     log.debug("Checking accountData existence for product ID: {}", productId);
-    return stockRepository.existsByProductIdAndAccountData(productId, accountData);
+    return stockRepository.existsByProductIdAndFingerprint(
+        productId, AccountDataFingerprint.of(accountData));
   }
 
   @Override
@@ -584,10 +1340,427 @@ public class StockServiceImpl implements StockService {
 
     product.setLowStockThreshold(threshold);
     productRepository.save(product);
+    TransactionCallbacks.afterCommit(() -> lowStockWatcher.watch(productId, threshold));
 
     log.info("Successfully updated low stock threshold for product: {}", product.getName());
   }
 
+  /**
+   * Load available stock counts from the stock summaries, counting the stock table only for
+   * products without a summary.
+   *
+   * @param productIds IDs of the products
+   * @return available stock counts keyed by product ID; products without stock may be left out
+   */
+  private Map<UUID, Long> loadAvailableStockCounts(List<UUID> productIds) {
+    Map<UUID, Long> counts = new HashMap<>();
+    for (ProductStockSummary summary :
+        productStockSummaryRepository.findTotalsByProductIds(productIds)) {
+      counts.put(summary.getProductId(), summary.getAvailableCount());
+    }
+
+    List<UUID> unsummarized = productIds.stream().filter(id -> !counts.containsKey(id)).toList();
+    if (!unsummarized.isEmpty()) {
+      for (Object[] row : stockRepository.countAvailableGroupedByProductIds(unsummarized)) {
+        counts.put((UUID) row[0], ((Number) row[1]).longValue());
+      }
+    }
+    return counts;
+  }
+
+  /**
+   * Follow hot mode changes made on any node: enable pools of products switched to hot mode, apply
+   * changed lease sizes and disable pools of products that left hot mode, returning their leases.
+   */
+  private void syncHotProducts() {
+    Map<UUID, Integer> leaseSizes = new HashMap<>();
+    for (Object[] row : productRepository.findHotLeaseSizes()) {
+      leaseSizes.put((UUID) row[0], ((Number) row[1]).intValue());
+    }
+
+    leaseSizes.forEach(hotStockPools::enable);
+    for (UUID productId : hotStockPools.getHotProductIds()) {
+      if (!leaseSizes.containsKey(productId)) {
+        List<UUID> unused = hotStockPools.disable(productId);
+        if (!unused.isEmpty()) {
+          stockRepository.returnLeasedStock(unused);
+        }
+      }
+    }
+  }
+
+  /**
+   * Publish this node's stock lease for every hot product and return pooled stock to nodes that ran
+   * dry. When another live node is missing items, this node keeps only an even share of the
+   * product's pooled stock across the live nodes and returns the rest, up to what the other nodes
+   * are missing; the dry nodes lease it on their next refill.
+   *
+   * @param wantedByProduct items this node could not lease per product at this refill
+   * @return number of leases returned to other nodes
+   */
+  private int rebalanceHotStockLeases(Map<UUID, Integer> wantedByProduct) {
+    Set<UUID> hotProductIds = hotStockPools.getHotProductIds();
+    if (hotProductIds.isEmpty()) {
+      return 0;
+    }
+
+    String nodeId = nodeIdentity.getId();
+    LocalDateTime now = LocalDateTime.now();
+    Map<UUID, List<StockLease>> otherLeasesByProduct =
+        stockLeaseRepository.findLiveByProductIds(hotProductIds, now).stream()
+            .filter(lease -> !lease.getNodeId().equals(nodeId))
+            .collect(Collectors.groupingBy(StockLease::getProductId));
+
+    int returnedCount = 0;
+    for (UUID productId : hotProductIds) {
+      List<StockLease> others = otherLeasesByProduct.getOrDefault(productId, List.of());
+      int pooled = hotStockPools.getPooledCount(productId);
+      int wantedElsewhere = others.stream().mapToInt(StockLease::getWantedCount).sum();
+
+      if (wantedElsewhere > 0) {
+        int totalPooled = pooled + others.stream().mapToInt(StockLease::getPooledCount).sum();
+        int fairShare = totalPooled / (others.size() + 1);
+        int surplus = Math.min(pooled - fairShare, wantedElsewhere);
+        if (surplus > 0) {
+          List<UUID> released = hotStockPools.drain(productId, surplus);
+          if (!released.isEmpty()) {
+            stockRepository.returnLeasedStock(released);
+          }
+          pooled -= released.size();
+          returnedCount += released.size();
+        }
+      }
+
+      stockLeaseRepository.upsertLease(
+          productId,
+          nodeId,
+          pooled,
+          wantedByProduct.getOrDefault(productId, 0),
+          now.plus(HOT_POOL_LEASE_DURATION));
+    }
+
+    return returnedCount;
+  }
+
+  /**
+   * Reserve stock items taken from hot product pools. With the reservation ledger enabled the holds
+   * only go to its log and are persisted by the ledger flush; otherwise, or when the log is full,
+   * they are inserted right away. Pooled items the insert skips were sold or reserved since they
+   * were leased; their lease is cleared so they do not stay hidden from other buyers.
+   *
+   * @param leasedProductByStock product ID of each pooled stock ID
+   * @param reservedUntil reservation end time
+   * @return the reserved items and the holds recorded in the ledger
+   */
+  private PooledReservation reservePooledStock(
+      Map<UUID, UUID> leasedProductByStock, LocalDateTime reservedUntil) {
+    if (leasedProductByStock.isEmpty()) {
+      return new PooledReservation(List.of(), List.of());
+    }
+
+    if (reservationLedger.isEnabled()) {
+      List<ReservationLedger.Hold> holds =
+          leasedProductByStock.entrySet().stream()
+              .map(
+                  entry ->
+                      new ReservationLedger.Hold(entry.getKey(), entry.getValue(), reservedUntil))
+              .toList();
+      if (reservationLedger.record(holds)) {
+        // The flush only sees the holds once the reservation commits
+        TransactionCallbacks.afterCommit(() -> reservationLedger.publish(holds));
+        TransactionCallbacks.afterRollback(() -> reservationLedger.discard(holds));
+        return new PooledReservation(List.copyOf(leasedProductByStock.keySet()), holds);
+      }
+    }
+
+    List<UUID> reservedIds =
+        stockRepository.reserveLeasedStock(
+            new ArrayList<>(leasedProductByStock.keySet()), reservedUntil);
+    if (reservedIds.size() < leasedProductByStock.size()) {
+      Set<UUID> reserved = new HashSet<>(reservedIds);
+      List<UUID> skipped =
+          leasedProductByStock.keySet().stream().filter(id -> !reserved.contains(id)).toList();
+      stockRepository.returnLeasedStock(skipped);
+    }
+    return new PooledReservation(reservedIds, List.of());
+  }
+
+  /**
+   * Persist the reservation ledger holds of stock items about to be released or sold, so the
+   * statement that follows finds them in the database, and stop tracking the items in the ledger.
+   *
+   * @param stockIds IDs of the stock items
+   */
+  private void settleLedgerHolds(Collection<UUID> stockIds) {
+    if (!reservationLedger.isEnabled()) {
+      return;
+    }
+
+    List<UUID> ids = List.copyOf(stockIds);
+    List<ReservationLedger.Hold> holds = reservationLedger.takePending(ids);
+    if (!holds.isEmpty()) {
+      TransactionCallbacks.afterRollback(() -> reservationLedger.restore(holds));
+      List<UUID> persistedIds = persistLedgerHolds(holds);
+      TransactionCallbacks.afterCommit(() -> reservationLedger.markPersisted(holds, persistedIds));
+    }
+    TransactionCallbacks.afterCommit(() -> reservationLedger.forget(ids));
+  }
+
+  /**
+   * Persist one batch of drained reservation ledger holds in its own transaction and settle them in
+   * the log once it commits.
+   *
+   * @param holds holds drained from the ledger
+   * @return number of holds the database accepted
+   */
+  private int flushLedgerBatch(List<ReservationLedger.Hold> holds) {
+    List<UUID> persistedIds;
+    try {
+      persistedIds = transactionTemplate.execute(status -> persistLedgerHolds(holds));
+    } catch (RuntimeException e) {
+      reservationLedger.restore(holds);
+      throw e;
+    }
+
+    reservationLedger.markPersisted(holds, persistedIds != null ? persistedIds : List.of());
+    return persistedIds != null ? persistedIds.size() : 0;
+  }
+
+  /**
+   * Insert reservation ledger holds into stock_reservation and count them in the product stock
+   * summaries. Holds on items sold or reserved elsewhere in the meantime are skipped.
+   *
+   * @param holds holds to persist
+   * @return IDs of the stock items whose hold was inserted
+   */
+  private List<UUID> persistLedgerHolds(List<ReservationLedger.Hold> holds) {
+    // Holds of one reservation share a deadline, so this is usually one statement per reservation
+    Map<LocalDateTime, List<UUID>> stockIdsByDeadline = new LinkedHashMap<>();
+    Map<UUID, UUID> productByStock = new HashMap<>();
+    for (ReservationLedger.Hold hold : holds) {
+      stockIdsByDeadline
+          .computeIfAbsent(hold.reservedUntil(), deadline -> new ArrayList<>())
+          .add(hold.stockId());
+      productByStock.put(hold.stockId(), hold.productId());
+    }
+
+    List<UUID> persistedIds = new ArrayList<>(holds.size());
+    stockIdsByDeadline.forEach(
+        (reservedUntil, stockIds) ->
+            persistedIds.addAll(stockRepository.reserveLeasedStock(stockIds, reservedUntil)));
+
+    // Summary rows are updated in product ID order so concurrent flushes lock them consistently
+    Map<UUID, Integer> reservedByProduct = new TreeMap<>();
+    persistedIds.forEach(
+        stockId -> reservedByProduct.merge(productByStock.get(stockId), 1, Integer::sum));
+    reservedByProduct.forEach(productStockSummaryRepository::recordReserved);
+
+    return persistedIds;
+  }
+
+  /**
+   * Work out how many items each product still needs.
+   *
+   * @param requested number of items requested per product ID
+   * @param claimed number of items claimed so far per product ID
+   * @return missing number of items per product ID; empty when every product is served
+   */
+  private Map<UUID, Integer> shortfall(Map<UUID, Integer> requested, Map<UUID, Integer> claimed) {
+    Map<UUID, Integer> missing = new HashMap<>();
+    requested.forEach(
+        (productId, quantity) -> {
+          int remaining = quantity - claimed.getOrDefault(productId, 0);
+          if (remaining > 0) {
+            missing.put(productId, remaining);
+          }
+        });
+    return missing;
+  }
+
+  /**
+   * Build the error for a multi-product reservation that came up short. Only queries the database
+   * on this failure path, to tell unknown products apart from products that ran out.
+   *
+   * @param requested number of items requested per product ID
+   * @param claimed number of items claimed per product ID
+   * @param shortProductIds product IDs that did not get enough items
+   * @return exception to throw
+   */
+  private RuntimeException insufficientStock(
+      Map<UUID, Integer> requested, Map<UUID, Integer> claimed, Set<UUID> shortProductIds) {
+    Set<UUID> knownProductIds =
+        productRepository.findAllById(shortProductIds).stream()
+            .map(Product::getId)
+            .collect(Collectors.toSet());
+
+    for (UUID productId : shortProductIds) {
+      if (!knownProductIds.contains(productId)) {
+        log.error("Product not found with ID: {}", productId);
+        return new ResourceNotFoundException("Product not found with ID: " + productId);
+      }
+    }
+
+    UUID productId = shortProductIds.iterator().next();
+    int available = claimed.getOrDefault(productId, 0);
+    log.error(
+        "Insufficient stock for product ID: {}: need {} have {} items",
+        productId,
+        requested.get(productId),
+        available);
+    return new OutOfStockException(
+        "Insufficient stock available for product ID: "
+            + productId
+            + ". Required: "
+            + requested.get(productId)
+            + ", Available: "
+            + available);
+  }
+
+  /**
+   * Hand each streamed entity to the consumer and detach it afterwards, so the persistence context
+   * does not grow with the number of rows. Products and categories stay attached; there are few of
+   * them and they are shared between items.
+   *
+   * @param rows stream of stock or sold stock history entities read through a database cursor
+   * @param consumer receives each entity
+   * @return number of entities consumed
+   */
+  private <T> long consumeDetached(Stream<T> rows, Consumer<T> consumer) {
+    long[] count = {0};
+    rows.forEach(
+        item -> {
+          consumer.accept(item);
+          entityManager.detach(item);
+          count[0]++;
+        });
+    return count[0];
+  }
+
+  /**
+   * Credit released stock items back to the available stock counters and the product stock
+   * summaries. Must run in the transaction that released the items.
+   *
+   * @param releasedProductIds product ID of each released stock item
+   */
+  private void creditReleasedStock(List<UUID> releasedProductIds) {
+    // Summary rows are updated in product ID order so releases and reservations lock them alike
+    releasedProductIds.stream()
+        .collect(
+            Collectors.groupingBy(Function.identity(), TreeMap::new, Collectors.counting()))
+        .forEach(
+            (productId, released) -> {
+              availableStockCounters.adjust(productId, released);
+              productStockSummaryRepository.recordReleased(productId, released);
+            });
+  }
+
+  /**
+   * Recount the stock of a batch of products and overwrite summaries that drifted, creating missing
+   * ones. The summary rows are locked before counting: a stock change that committed earlier is
+   * seen by the count, and one still in flight applies its delta on top of the repaired rows once
+   * the lock is released. A repaired summary carries its counts in its first slot with the others
+   * zeroed, and slots missing from a summary are created so no delta is dropped.
+   *
+   * @param productIds the product IDs to verify
+   * @return number of summaries repaired or created
+   */
+  private int repairStockSummaries(List<UUID> productIds) {
+    Map<UUID, List<ProductStockSummary>> slotsByProduct = new HashMap<>();
+    for (ProductStockSummary slot :
+        productStockSummaryRepository.findAllSlotsForUpdate(productIds)) {
+      slotsByProduct.computeIfAbsent(slot.getProductId(), id -> new ArrayList<>()).add(slot);
+    }
+
+    Map<UUID, ProductStockSummary> actual = new HashMap<>();
+    for (Object[] row : stockRepository.countByStateGroupedByProductIds(productIds)) {
+      UUID productId = (UUID) row[0];
+      actual.put(
+          productId,
+          new ProductStockSummary(
+              productId,
+              ((Number) row[1]).longValue(),
+              ((Number) row[2]).longValue(),
+              ((Number) row[3]).longValue(),
+              ((Number) row[4]).longValue()));
+    }
+
+    int repaired = 0;
+    for (UUID productId : productIds) {
+      ProductStockSummary counted =
+          actual.getOrDefault(productId, new ProductStockSummary(productId));
+      List<ProductStockSummary> slots = slotsByProduct.getOrDefault(productId, List.of());
+
+      if (slots.isEmpty()) {
+        productStockSummaryRepository.saveAll(ProductStockSummary.slotsOf(counted));
+        repaired++;
+        continue;
+      }
+
+      ProductStockSummary summary = sumSlots(productId, slots);
+      if (!summary.hasSameCounts(counted)) {
+        log.warn("Stock summary drifted for product ID: {}: {} -> {}", productId, summary, counted);
+        for (int i = 0; i < slots.size(); i++) {
+          slots.get(i).copyCounts(i == 0 ? counted : new ProductStockSummary(productId));
+        }
+        repaired++;
+      }
+
+      if (slots.size() < ProductStockSummary.SLOTS) {
+        Set<Short> present =
+            slots.stream().map(ProductStockSummary::getSlot).collect(Collectors.toSet());
+        productStockSummaryRepository.saveAll(
+            ProductStockSummary.slotsOf(new ProductStockSummary(productId)).stream()
+                .filter(slot -> !present.contains(slot.getSlot()))
+                .toList());
+      }
+    }
+
+    return repaired;
+  }
+
+  private static ProductStockSummary sumSlots(UUID productId, List<ProductStockSummary> slots) {
+    ProductStockSummary sum = new ProductStockSummary(productId);
+    for (ProductStockSummary slot : slots) {
+      sum.setTotalCount(sum.getTotalCount() + slot.getTotalCount());
+      sum.setAvailableCount(sum.getAvailableCount() + slot.getAvailableCount());
+      sum.setReservedCount(sum.getReservedCount() + slot.getReservedCount());
+      sum.setSoldCount(sum.getSoldCount() + slot.getSoldCount());
+    }
+    return sum;
+  }
+
+  /**
+   * Explain why requested stock items were not sold by a batch sale. Only queries the database when
+   * some items were skipped.
+   *
+   * @param requested stock IDs requested for sale
+   * @param soldStockIds stock IDs actually sold
+   * @return reason per stock ID that was not sold
+   */
+  private Map<UUID, String> findSaleFailures(Set<UUID> requested, List<UUID> soldStockIds) {
+    if (soldStockIds.size() == requested.size()) {
+      return Map.of();
+    }
+
+    Set<UUID> skipped = new LinkedHashSet<>(requested);
+    soldStockIds.forEach(skipped::remove);
+
+    Map<UUID, Boolean> soldFlags = new HashMap<>();
+    for (Object[] row : stockRepository.findSoldFlagsByIds(skipped)) {
+      soldFlags.put((UUID) row[0], (Boolean) row[1]);
+    }
+
+    Map<UUID, String> failures = new LinkedHashMap<>();
+    for (UUID stockId : skipped) {
+      failures.put(
+          stockId,
+          soldFlags.containsKey(stockId)
+              ? StockSaleResultDto.REASON_ALREADY_SOLD
+              : StockSaleResultDto.REASON_NOT_FOUND);
+    }
+    return failures;
+  }
+
   // ==================== LOW STOCK NOTIFICATION OPERATIONS ====================
 
   /**
@@ -667,4 +1840,24 @@ public class StockServiceImpl implements StockService {
 
     return false;
   }
+
+  /**
+   * Stock items reserved from hot product pools.
+   *
+   * @param stockIds IDs of the reserved items
+   * @param holds holds recorded in the reservation ledger; empty when the items were reserved in
+   *     the database
+   */
+  private record PooledReservation(List<UUID> stockIds, List<ReservationLedger.Hold> holds) {
+
+    private boolean logged() {
+      return !holds.isEmpty();
+    }
+
+    private void discard(ReservationLedger ledger) {
+      if (logged()) {
+        ledger.discard(holds);
+      }
+    }
+  }
 }
@@ -0,0 +1,57 @@
+package com.accountselling.platform.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Content fingerprint for stock account data, used for duplicate detection instead of comparing the
+ * full account_data column. The fingerprint is the hex SHA-256 of the normalized plaintext, so it
+ * stays stable if account data is later stored encrypted.
+ *
+ * <p>Normalization must match the backfill in V2__stock_account_data_fingerprint.sql: CRLF line
+ * endings become LF and leading/trailing spaces, tabs and line breaks are removed.
+ */
+public final class AccountDataFingerprint {
+
+  /** Length of a hex encoded SHA-256 digest. */
+  public static final int LENGTH = 64;
+
+  private static final String TRIMMED_CHARACTERS = " \t\r\n";
+
+  private AccountDataFingerprint() {}
+
+  /**
+   * Compute the fingerprint of the given account data.
+   *
+   * @param accountData account data in plaintext
+   * @return hex encoded SHA-256 digest, or null when account data is null
+   */
+  public static String of(String accountData) {
+    if (accountData == null) {
+      return null;
+    }
+
+    byte[] normalized = normalize(accountData).getBytes(StandardCharsets.UTF_8);
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(normalized));
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  static String normalize(String accountData) {
+    String value = accountData.replace("\r\n", "\n");
+    int start = 0;
+    int end = value.length();
+    while (start < end && TRIMMED_CHARACTERS.indexOf(value.charAt(start)) >= 0) {
+      start++;
+    }
+    while (end > start && TRIMMED_CHARACTERS.indexOf(value.charAt(end - 1)) >= 0) {
+      end--;
+    }
+    return value.substring(start, end);
+  }
+}
@@ -0,0 +1,176 @@
+package com.accountselling.platform.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel for scheduling items against a deadline. The lowest wheel has {@code
+ * wheelSize} buckets of {@code tickMillis} each; deadlines beyond its span go to an overflow wheel
+ * whose tick equals the span of the wheel below, created on demand. When a lower wheel wraps, the
+ * next bucket of the overflow wheel is cascaded down, so scheduling and expiry stay O(1) per item
+ * regardless of how far out the deadline is.
+ *
+ * <p>The wheel does not own a thread: callers drive it with {@link #advance(long)} and receive the
+ * items whose deadline has passed. Items fire at most one tick after their deadline, never before.
+ * All methods are synchronized, so a single instance can be shared between producers and the
+ * thread that advances it.
+ *
+ * @param <T> type of the scheduled items
+ */
+public class HierarchicalTimingWheel<T> {
+
+  private final long tickMillis;
+  private final int wheelSize;
+  private final List<T> overdue = new ArrayList<>();
+
+  private Level root;
+  private int size;
+
+  /**
+   * Create a timing wheel.
+   *
+   * @param tickMillis duration of one bucket in the lowest wheel, in milliseconds
+   * @param wheelSize number of buckets per wheel
+   * @param startMillis current time in epoch milliseconds
+   */
+  public HierarchicalTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+    if (tickMillis <= 0) {
+      throw new IllegalArgumentException("Tick must be positive: " + tickMillis);
+    }
+    if (wheelSize < 2) {
+      throw new IllegalArgumentException("Wheel size must be at least 2: " + wheelSize);
+    }
+    this.tickMillis = tickMillis;
+    this.wheelSize = wheelSize;
+    this.root = new Level(tickMillis, startMillis);
+  }
+
+  /**
+   * Schedule an item. Items whose deadline has already passed are returned by the next call to
+   * {@link #advance(long)}.
+   *
+   * @param item item to schedule
+   * @param deadlineMillis deadline in epoch milliseconds
+   */
+  public synchronized void schedule(T item, long deadlineMillis) {
+    if (!root.add(new Entry<>(item, deadlineMillis))) {
+      overdue.add(item);
+    }
+    size++;
+  }
+
+  /**
+   * Advance the wheel to the given time and collect every item whose deadline has passed.
+   *
+   * @param nowMillis current time in epoch milliseconds
+   * @return expired items, in no particular order
+   */
+  public synchronized List<T> advance(long nowMillis) {
+    List<T> expired = new ArrayList<>(overdue);
+    overdue.clear();
+
+    while (root.currentTime + tickMillis <= nowMillis) {
+      root.currentTime += tickMillis;
+
+      for (Entry<T> entry : root.drain(root.currentTime - tickMillis)) {
+        expired.add(entry.item);
+      }
+
+      // The drained bucket is reused for the far end of the window, so refill it only afterwards
+      if (root.overflow != null && root.currentTime % root.interval == 0) {
+        cascade(root.overflow, root.currentTime, expired);
+      }
+    }
+
+    size -= expired.size();
+    return expired;
+  }
+
+  /**
+   * Get the number of scheduled items that have not been returned by {@link #advance(long)} yet.
+   *
+   * @return number of pending items
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Drop every scheduled item and restart the wheel at the given time.
+   *
+   * @param startMillis current time in epoch milliseconds
+   */
+  public synchronized void clear(long startMillis) {
+    root = new Level(tickMillis, startMillis);
+    overdue.clear();
+    size = 0;
+  }
+
+  private void cascade(Level level, long time, List<T> expired) {
+    level.currentTime = time;
+
+    if (level.overflow != null && time % level.interval == 0) {
+      cascade(level.overflow, time, expired);
+    }
+
+    for (Entry<T> entry : level.drain(time)) {
+      if (!root.add(entry)) {
+        expired.add(entry.item);
+      }
+    }
+  }
+
+  private record Entry<T>(T item, long deadline) {}
+
+  /** One wheel of the hierarchy. Buckets are indexed by absolute time so wrap-around is free. */
+  private final class Level {
+
+    private final long tick;
+    private final long interval;
+    private final List<List<Entry<T>>> buckets;
+    private long currentTime;
+    private Level overflow;
+
+    private Level(long tick, long startMillis) {
+      this.tick = tick;
+      this.interval = tick * wheelSize;
+      this.currentTime = startMillis - Math.floorMod(startMillis, tick);
+      this.buckets = new ArrayList<>(wheelSize);
+      for (int i = 0; i < wheelSize; i++) {
+        buckets.add(new ArrayList<>());
+      }
+    }
+
+    /** Add an entry to this wheel or an overflow wheel; false when the deadline has passed. */
+    private boolean add(Entry<T> entry) {
+      if (entry.deadline() < currentTime) {
+        return false;
+      }
+
+      if (entry.deadline() < currentTime + interval) {
+        buckets.get(index(entry.deadline())).add(entry);
+        return true;
+      }
+
+      if (overflow == null) {
+        overflow = new Level(interval, currentTime);
+      }
+      return overflow.add(entry);
+    }
+
+    /** Remove and return the bucket covering [time, time + tick). */
+    private List<Entry<T>> drain(long time) {
+      int index = index(time);
+      List<Entry<T>> bucket = buckets.get(index);
+      if (bucket.isEmpty()) {
+        return List.of();
+      }
+      buckets.set(index, new ArrayList<>());
+      return bucket;
+    }
+
+    private int index(long time) {
+      return (int) Math.floorMod(Math.floorDiv(time, tick), (long) wheelSize);
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package com.accountselling.platform.util;
+
+/**
+ * Source of unique numeric IDs for business reference numbers such as order numbers and payment
+ * references. Implementations must be thread-safe and must never return the same ID twice across
+ * all nodes sharing one database.
+ */
+public interface IdGenerator {
+
+  /**
+   * Get the next ID.
+   *
+   * @return a positive ID, unique across nodes
+   */
+  long nextId();
+}
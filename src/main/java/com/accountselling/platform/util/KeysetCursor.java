@@ -0,0 +1,67 @@
+package com.accountselling.platform.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in a listing ordered by (created_at, id). The next page is read with a keyset predicate
+ * on both columns instead of an offset, so every page costs the same index range scan no matter
+ * how deep it is. The id breaks ties between rows created in the same instant.
+ *
+ * <p>Clients receive the cursor as an opaque URL-safe token and send it back unchanged.
+ *
+ * @param createdAt creation time of the last row of the previous page
+ * @param id ID of the last row of the previous page
+ */
+public record KeysetCursor(LocalDateTime createdAt, UUID id) {
+
+  private static final String SEPARATOR = "|";
+
+  /**
+   * Encode the cursor as an opaque token.
+   *
+   * @return URL-safe token
+   */
+  public String encode() {
+    String raw = createdAt + SEPARATOR + id;
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decode a token produced by {@link #encode()}.
+   *
+   * @param token cursor token from the client
+   * @return the cursor, or null when the token is null or blank (first page)
+   * @throws IllegalArgumentException if the token is malformed
+   */
+  public static KeysetCursor decode(String token) {
+    if (token == null || token.isBlank()) {
+      return null;
+    }
+
+    String raw;
+    try {
+      raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Invalid cursor", e);
+    }
+
+    int separator = raw.indexOf(SEPARATOR);
+    if (separator < 0) {
+      throw new IllegalArgumentException("Invalid cursor");
+    }
+
+    try {
+      return new KeysetCursor(
+          LocalDateTime.parse(raw.substring(0, separator)),
+          UUID.fromString(raw.substring(separator + 1)));
+    } catch (DateTimeParseException | IllegalArgumentException e) {
+      throw new IllegalArgumentException("Invalid cursor", e);
+    }
+  }
+}
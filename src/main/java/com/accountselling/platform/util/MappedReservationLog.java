@@ -0,0 +1,199 @@
+package com.accountselling.platform.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead log of reservation holds in a memory-mapped file. Appending copies fixed
+ * size records into the mapped region, so it costs a memory copy instead of a system call; the
+ * operating system writes the pages back, which survives a crash of the process but not of the
+ * machine unless {@link #force()} ran after the append.
+ *
+ * <p>Each record carries a CRC32 of its content. Reading stops at the first empty slot or at a
+ * record whose checksum does not match, so a record torn by a crash is ignored. The file has a
+ * fixed capacity; {@link #reset()} starts it over once every logged hold has been settled.
+ *
+ * <p>Appends, reads and resets are synchronized, so one log can be shared between threads.
+ */
+public final class MappedReservationLog implements Closeable {
+
+  /** Record type of a hold taken in memory that is not persisted yet. */
+  public static final byte HOLD = 1;
+
+  /** Record type of a hold that was persisted to the database or discarded. */
+  public static final byte SETTLED = 2;
+
+  /** Size of one record in bytes: type, stock ID, product ID, deadline and checksum. */
+  public static final int RECORD_SIZE = 1 + 16 + 16 + 8 + 4;
+
+  private static final int CHECKSUM_OFFSET = RECORD_SIZE - 4;
+
+  private final FileChannel channel;
+  private final MappedByteBuffer buffer;
+  private final CRC32 crc = new CRC32();
+  private final byte[] scratch = new byte[CHECKSUM_OFFSET];
+
+  private MappedReservationLog(FileChannel channel, MappedByteBuffer buffer) {
+    this.channel = channel;
+    this.buffer = buffer;
+  }
+
+  /**
+   * Open or create a log file and map it into memory. The write position is placed after the last
+   * valid record.
+   *
+   * @param path location of the log file
+   * @param capacityBytes size of the mapped region; rounded down to whole records
+   * @return the opened log
+   * @throws IOException if the file cannot be created or mapped
+   */
+  public static MappedReservationLog open(Path path, int capacityBytes) throws IOException {
+    if (capacityBytes < RECORD_SIZE) {
+      throw new IllegalArgumentException("Log capacity must hold at least one record");
+    }
+
+    Path parent = path.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+
+    FileChannel channel =
+        FileChannel.open(
+            path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    int capacity = capacityBytes - capacityBytes % RECORD_SIZE;
+    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+
+    MappedReservationLog log = new MappedReservationLog(channel, buffer);
+    log.readAll();
+    return log;
+  }
+
+  /**
+   * Append records of one type. Either every record is appended or none is.
+   *
+   * @param type {@link #HOLD} or {@link #SETTLED}
+   * @param records records to append
+   * @return false when the log has no room for all records
+   */
+  public synchronized boolean append(byte type, Collection<Record> records) {
+    if (remainingRecords() < records.size()) {
+      return false;
+    }
+
+    for (Record record : records) {
+      int start = buffer.position();
+      buffer.put(type);
+      buffer.putLong(record.stockId().getMostSignificantBits());
+      buffer.putLong(record.stockId().getLeastSignificantBits());
+      buffer.putLong(record.productId().getMostSignificantBits());
+      buffer.putLong(record.productId().getLeastSignificantBits());
+      buffer.putLong(record.deadlineMillis());
+      // The checksum goes last so a record cut short by a crash never reads as valid
+      buffer.putInt(checksum(start));
+    }
+    return true;
+  }
+
+  /**
+   * Read every valid record from the start of the log and move the write position after the last
+   * one.
+   *
+   * @return records with their type, in append order
+   */
+  public synchronized List<TypedRecord> readAll() {
+    List<TypedRecord> records = new ArrayList<>();
+    int position = 0;
+
+    while (position + RECORD_SIZE <= buffer.capacity()) {
+      byte type = buffer.get(position);
+      if ((type != HOLD && type != SETTLED)
+          || buffer.getInt(position + CHECKSUM_OFFSET) != checksum(position)) {
+        break;
+      }
+
+      UUID stockId = new UUID(buffer.getLong(position + 1), buffer.getLong(position + 9));
+      UUID productId = new UUID(buffer.getLong(position + 17), buffer.getLong(position + 25));
+      records.add(
+          new TypedRecord(type, new Record(stockId, productId, buffer.getLong(position + 33))));
+      position += RECORD_SIZE;
+    }
+
+    buffer.position(position);
+    return records;
+  }
+
+  /**
+   * Start the log over. The used region is zeroed so old records are not read back after a
+   * restart.
+   */
+  public synchronized void reset() {
+    int used = buffer.position();
+    for (int position = 0; position < used; position++) {
+      buffer.put(position, (byte) 0);
+    }
+    buffer.position(0);
+  }
+
+  /** Write the mapped pages to the storage device. */
+  public void force() {
+    buffer.force();
+  }
+
+  /**
+   * Get the number of records that still fit.
+   *
+   * @return free record slots
+   */
+  public synchronized int remainingRecords() {
+    return buffer.remaining() / RECORD_SIZE;
+  }
+
+  /**
+   * Get the number of records in the log.
+   *
+   * @return used record slots
+   */
+  public synchronized int size() {
+    return buffer.position() / RECORD_SIZE;
+  }
+
+  @Override
+  public void close() throws IOException {
+    force();
+    channel.close();
+  }
+
+  private int checksum(int start) {
+    buffer.get(start, scratch);
+    crc.reset();
+    crc.update(scratch);
+    return (int) crc.getValue();
+  }
+
+  /**
+   * Content of one record.
+   *
+   * @param stockId ID of the held stock item
+   * @param productId ID of the product of the stock item
+   * @param deadlineMillis hold deadline in epoch milliseconds
+   */
+  public record Record(UUID stockId, UUID productId, long deadlineMillis) {}
+
+  /**
+   * A record read back from the log.
+   *
+   * @param type {@link #HOLD} or {@link #SETTLED}
+   * @param record record content
+   */
+  public record TypedRecord(byte type, Record record) {}
+}
@@ -0,0 +1,51 @@
+package com.accountselling.platform.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Issues order numbers and payment references for entities, which are not Spring beans and so
+ * cannot have the {@link IdGenerator} injected. The application installs its configured generator
+ * on startup; until then, for example in plain unit tests, a generator with a random node ID is
+ * used.
+ */
+public final class ReferenceNumbers {
+
+  /** Prefix of order numbers. */
+  public static final String ORDER_PREFIX = "ORD-";
+
+  /** Prefix of payment references. */
+  public static final String PAYMENT_PREFIX = "PAY-";
+
+  private static volatile IdGenerator generator =
+      new SnowflakeIdGenerator(
+          ThreadLocalRandom.current().nextInt(SnowflakeIdGenerator.MAX_NODE_ID + 1));
+
+  private ReferenceNumbers() {}
+
+  /**
+   * Install the generator used for new reference numbers.
+   *
+   * @param idGenerator generator to use
+   */
+  public static void use(IdGenerator idGenerator) {
+    generator = idGenerator;
+  }
+
+  /**
+   * Get a new order number.
+   *
+   * @return order number such as {@code ORD-1234567890123456789}
+   */
+  public static String nextOrderNumber() {
+    return ORDER_PREFIX + generator.nextId();
+  }
+
+  /**
+   * Get a new payment reference.
+   *
+   * @return payment reference such as {@code PAY-1234567890123456789}
+   */
+  public static String nextPaymentReference() {
+    return PAYMENT_PREFIX + generator.nextId();
+  }
+}
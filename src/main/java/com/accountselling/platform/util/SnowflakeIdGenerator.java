@@ -0,0 +1,97 @@
+package com.accountselling.platform.util;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered 64-bit IDs built from a millisecond timestamp, a node ID and a per-node sequence:
+ * 41 bits of milliseconds since {@link #EPOCH}, 10 bits of node ID and 12 bits of sequence. IDs
+ * from one node always increase, and IDs from different nodes never collide as long as every node
+ * uses its own node ID.
+ *
+ * <p>The last timestamp and sequence are kept together in one {@link AtomicLong} and advanced with
+ * compare-and-set, so no lock is taken. When the 4096 IDs of a millisecond are used up, or the
+ * clock moves backwards, the generator continues from the last timestamp it issued instead of
+ * waiting for the clock; the timestamp then runs slightly ahead until the clock catches up.
+ */
+public final class SnowflakeIdGenerator implements IdGenerator {
+
+  /** Start of the timestamp range, 2024-01-01T00:00:00Z; IDs last about 69 years from it. */
+  public static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+  /** Number of bits of the node ID. */
+  public static final int NODE_BITS = 10;
+
+  /** Number of bits of the per-node sequence. */
+  public static final int SEQUENCE_BITS = 12;
+
+  /** Highest allowed node ID. */
+  public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+  private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+  private final long nodeBits;
+  private final LongSupplier clock;
+
+  // Last issued timestamp shifted left by SEQUENCE_BITS, plus the last issued sequence. Adding one
+  // moves to the next sequence and carries into the next millisecond when the sequence is full
+  private final AtomicLong last = new AtomicLong();
+
+  /**
+   * Create a generator using the system clock.
+   *
+   * @param nodeId ID of this node, from 0 to {@link #MAX_NODE_ID}
+   */
+  public SnowflakeIdGenerator(int nodeId) {
+    this(nodeId, System::currentTimeMillis);
+  }
+
+  /**
+   * Create a generator using the given clock.
+   *
+   * @param nodeId ID of this node, from 0 to {@link #MAX_NODE_ID}
+   * @param clock current time in epoch milliseconds
+   */
+  public SnowflakeIdGenerator(int nodeId, LongSupplier clock) {
+    if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+      throw new IllegalArgumentException("Node ID must be between 0 and " + MAX_NODE_ID);
+    }
+    this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+    this.clock = clock;
+  }
+
+  @Override
+  public long nextId() {
+    long now = (clock.getAsLong() - EPOCH) << SEQUENCE_BITS;
+    long previous;
+    long next;
+    do {
+      previous = last.get();
+      next = now > previous ? now : previous + 1;
+    } while (!last.compareAndSet(previous, next));
+
+    long timestamp = next >>> SEQUENCE_BITS;
+    return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | (next & SEQUENCE_MASK);
+  }
+
+  /**
+   * Get the time an ID was issued, accurate to the millisecond unless its node ran ahead.
+   *
+   * @param id ID from a generator of this kind
+   * @return issue time in epoch milliseconds
+   */
+  public static long timestampOf(long id) {
+    return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH;
+  }
+
+  /**
+   * Get the node ID an ID was issued by.
+   *
+   * @param id ID from a generator of this kind
+   * @return node ID
+   */
+  public static int nodeIdOf(long id) {
+    return (int) ((id >>> SEQUENCE_BITS) & MAX_NODE_ID);
+  }
+}
@@ -0,0 +1,200 @@
+package com.accountselling.platform.util;
+
+import com.accountselling.platform.dto.stock.StockImportRecord;
+import com.accountselling.platform.enums.StockImportFormat;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental reader for stock import bodies. Records are read one at a time from the underlying
+ * stream, so memory use does not depend on the size of the body.
+ *
+ * <p>Malformed records do not abort the import: {@link #next()} returns a record with a null
+ * {@code accountData} and the caller counts it as invalid.
+ */
+public abstract class StockImportReader implements Closeable {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  protected final BufferedReader reader;
+  protected long lineNumber;
+
+  protected StockImportReader(InputStream input) {
+    this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Open a reader for the given body format.
+   *
+   * @param input request body
+   * @param format body format
+   * @return reader positioned at the first record
+   */
+  public static StockImportReader open(InputStream input, StockImportFormat format) {
+    return format == StockImportFormat.NDJSON ? new NdjsonReader(input) : new CsvReader(input);
+  }
+
+  /**
+   * Read the next record.
+   *
+   * @return next record, or null at the end of the body
+   * @throws IOException if the body cannot be read
+   */
+  public abstract StockImportRecord next() throws IOException;
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+  private static String emptyToNull(String value) {
+    return value == null || value.isBlank() ? null : value;
+  }
+
+  /** CSV reader: accountData[,additionalInfo] with RFC 4180 quoting and an optional header row. */
+  private static final class CsvReader extends StockImportReader {
+
+    private boolean firstRecord = true;
+
+    private CsvReader(InputStream input) {
+      super(input);
+    }
+
+    @Override
+    public StockImportRecord next() throws IOException {
+      List<String> fields;
+      long startLine;
+
+      do {
+        startLine = lineNumber + 1;
+        fields = readRecord();
+        if (fields == null) {
+          return null;
+        }
+
+        if (firstRecord) {
+          firstRecord = false;
+          if (isHeader(fields.get(0))) {
+            fields = List.of();
+          }
+        }
+      } while (fields.isEmpty() || (fields.size() == 1 && fields.get(0).isBlank()));
+
+      String accountData = emptyToNull(fields.get(0));
+      String additionalInfo = fields.size() > 1 ? emptyToNull(fields.get(1)) : null;
+      return new StockImportRecord(startLine, accountData, additionalInfo);
+    }
+
+    private boolean isHeader(String field) {
+      String value = field.trim();
+      return value.equalsIgnoreCase("accountData")
+          || value.equalsIgnoreCase("account_data")
+          || value.equalsIgnoreCase("credentials");
+    }
+
+    /** Read one CSV record; quoted fields may contain commas, doubled quotes and line breaks. */
+    private List<String> readRecord() throws IOException {
+      int c = reader.read();
+      if (c == -1) {
+        return null;
+      }
+
+      List<String> fields = new ArrayList<>(2);
+      StringBuilder field = new StringBuilder();
+      boolean quoted = false;
+
+      while (true) {
+        if (quoted) {
+          if (c == -1) {
+            // Unterminated quote; keep what was read
+            fields.add(field.toString());
+            return fields;
+          }
+          if (c == '"') {
+            reader.mark(1);
+            int nextChar = reader.read();
+            if (nextChar == '"') {
+              field.append('"');
+            } else {
+              quoted = false;
+              reader.reset();
+            }
+          } else {
+            if (c == '\n') {
+              lineNumber++;
+            }
+            field.append((char) c);
+          }
+        } else if (c == '"' && field.isEmpty()) {
+          quoted = true;
+        } else if (c == ',') {
+          fields.add(field.toString());
+          field.setLength(0);
+        } else if (c == '\n' || c == -1) {
+          lineNumber++;
+          fields.add(stripCarriageReturn(field));
+          return fields;
+        } else {
+          field.append((char) c);
+        }
+        c = reader.read();
+      }
+    }
+
+    private String stripCarriageReturn(StringBuilder field) {
+      int length = field.length();
+      return length > 0 && field.charAt(length - 1) == '\r'
+          ? field.substring(0, length - 1)
+          : field.toString();
+    }
+  }
+
+  /** NDJSON reader: each line is a JSON string or an object with accountData/additionalInfo. */
+  private static final class NdjsonReader extends StockImportReader {
+
+    private NdjsonReader(InputStream input) {
+      super(input);
+    }
+
+    @Override
+    public StockImportRecord next() throws IOException {
+      String line;
+      do {
+        line = reader.readLine();
+        if (line == null) {
+          return null;
+        }
+        lineNumber++;
+      } while (line.isBlank());
+
+      try {
+        JsonNode node = OBJECT_MAPPER.readTree(line);
+        if (node.isTextual()) {
+          return new StockImportRecord(lineNumber, emptyToNull(node.asText()), null);
+        }
+        if (node.isObject()) {
+          JsonNode accountData =
+              node.has("accountData") ? node.get("accountData") : node.get("credentials");
+          return new StockImportRecord(
+              lineNumber, textOrNull(accountData), textOrNull(node.get("additionalInfo")));
+        }
+      } catch (JsonProcessingException e) {
+        // Fall through and report the line as invalid
+      }
+      return new StockImportRecord(lineNumber, null, null);
+    }
+
+    private String textOrNull(JsonNode node) {
+      return node != null && node.isTextual() ? emptyToNull(node.asText()) : null;
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package com.accountselling.platform.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Helpers for deferring in-memory side effects until the surrounding transaction completes. Used by
+ * in-process caches and schedulers that must never observe changes which are later rolled back.
+ */
+public final class TransactionCallbacks {
+
+  private TransactionCallbacks() {}
+
+  /**
+   * Run the action after the current transaction commits, or immediately when no transaction
+   * synchronization is active. Actions registered in the same transaction run in registration
+   * order.
+   *
+   * @param action action to run
+   */
+  public static void afterCommit(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              action.run();
+            }
+          });
+    } else {
+      action.run();
+    }
+  }
+
+  /**
+   * Run the action after the current transaction rolls back. Does nothing when no transaction
+   * synchronization is active, since there is nothing to roll back.
+   *
+   * @param action action to run
+   */
+  public static void afterRollback(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+              if (status == STATUS_ROLLED_BACK) {
+                action.run();
+              }
+            }
+          });
+    }
+  }
+}
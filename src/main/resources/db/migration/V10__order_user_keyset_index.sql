@@ -0,0 +1,13 @@
+-- V10: Index for keyset pagination of user order history
+
+SET search_path TO account_selling, public;
+
+-- Order history is read newest first with a (created_at, id) < (:createdAt, :id) predicate, so
+-- each page is one range scan on this index however many orders the user has.
+DO $$
+BEGIN
+    IF to_regclass('account_selling.orders') IS NOT NULL THEN
+        CREATE INDEX IF NOT EXISTS idx_order_user_created
+            ON orders (user_id, created_at DESC, id DESC);
+    END IF;
+END $$;
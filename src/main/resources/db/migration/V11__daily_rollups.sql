@@ -0,0 +1,56 @@
+-- V11: Daily order and payment rollups for trend charts
+
+SET search_path TO account_selling, public;
+
+-- Maintained by the order and payment services in the same transaction as each creation,
+-- completion and refund, and rebuilt for a date range by DailyRollupService. Deltas are spread
+-- over 16 slots per day so concurrent orders do not contend on one row; readers sum the slots.
+CREATE TABLE IF NOT EXISTS order_daily_rollup (
+    rollup_date DATE NOT NULL,
+    slot SMALLINT NOT NULL,
+    order_count BIGINT NOT NULL DEFAULT 0,
+    revenue NUMERIC(18, 2) NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (rollup_date, slot)
+);
+
+CREATE TABLE IF NOT EXISTS payment_daily_rollup (
+    rollup_date DATE NOT NULL,
+    slot SMALLINT NOT NULL,
+    payment_count BIGINT NOT NULL DEFAULT 0,
+    revenue NUMERIC(18, 2) NOT NULL DEFAULT 0,
+    refunds NUMERIC(18, 2) NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (rollup_date, slot)
+);
+
+-- The order and payment tables are created by Hibernate, so on a fresh database there is nothing
+-- to backfill
+DO $$
+BEGIN
+    IF to_regclass('account_selling.orders') IS NOT NULL THEN
+        INSERT INTO order_daily_rollup (rollup_date, slot, order_count, revenue, updated_at)
+        SELECT CAST(o.created_at AS DATE),
+               0,
+               COUNT(*),
+               COALESCE(SUM(o.total_amount) FILTER (WHERE o.status = 'COMPLETED'), 0),
+               CURRENT_TIMESTAMP
+        FROM orders o
+        GROUP BY CAST(o.created_at AS DATE)
+        ON CONFLICT (rollup_date, slot) DO NOTHING;
+    END IF;
+
+    IF to_regclass('account_selling.payments') IS NOT NULL THEN
+        INSERT INTO payment_daily_rollup
+            (rollup_date, slot, payment_count, revenue, refunds, updated_at)
+        SELECT CAST(p.created_at AS DATE),
+               0,
+               COUNT(*),
+               COALESCE(SUM(p.amount) FILTER (WHERE p.status = 'COMPLETED'), 0),
+               COALESCE(SUM(p.refund_amount) FILTER (WHERE p.status = 'REFUNDED'), 0),
+               CURRENT_TIMESTAMP
+        FROM payments p
+        GROUP BY CAST(p.created_at AS DATE)
+        ON CONFLICT (rollup_date, slot) DO NOTHING;
+    END IF;
+END $$;
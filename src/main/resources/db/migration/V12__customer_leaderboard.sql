@@ -0,0 +1,37 @@
+-- V12: Customer leaderboard of completed order counts and revenue
+
+SET search_path TO account_selling, public;
+
+-- Maintained by the order service in the same transaction as each order completion. The indexes
+-- match the top customer queries, so a top-K read stops after K index entries.
+CREATE TABLE IF NOT EXISTS customer_leaderboard (
+    user_id UUID PRIMARY KEY,
+    completed_order_count BIGINT NOT NULL DEFAULT 0,
+    total_revenue NUMERIC(18, 2) NOT NULL DEFAULT 0,
+    last_completed_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_customer_leaderboard_orders
+    ON customer_leaderboard (completed_order_count DESC, total_revenue DESC, user_id);
+
+CREATE INDEX IF NOT EXISTS idx_customer_leaderboard_revenue
+    ON customer_leaderboard (total_revenue DESC, completed_order_count DESC, user_id);
+
+-- The orders table is created by Hibernate, so on a fresh database there is nothing to backfill
+DO $$
+BEGIN
+    IF to_regclass('account_selling.orders') IS NOT NULL THEN
+        INSERT INTO customer_leaderboard
+            (user_id, completed_order_count, total_revenue, last_completed_at, updated_at)
+        SELECT o.user_id,
+               COUNT(*),
+               COALESCE(SUM(o.total_amount), 0),
+               MAX(o.updated_at),
+               CURRENT_TIMESTAMP
+        FROM orders o
+        WHERE o.status = 'COMPLETED'
+        GROUP BY o.user_id
+        ON CONFLICT (user_id) DO NOTHING;
+    END IF;
+END $$;
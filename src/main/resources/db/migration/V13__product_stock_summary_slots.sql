@@ -0,0 +1,23 @@
+-- V13: Spread product stock summaries over slot rows
+
+SET search_path TO account_selling, public;
+
+-- Every stock change of a product used to update its one summary row, so concurrent buyers of a
+-- hot product queued on that row lock. Each product now has 16 rows; a transaction applies its
+-- deltas to the slot of its thread and readers sum the slots. Existing counts stay in slot 0.
+ALTER TABLE product_stock_summary ADD COLUMN IF NOT EXISTS slot SMALLINT NOT NULL DEFAULT 0;
+
+ALTER TABLE product_stock_summary DROP CONSTRAINT IF EXISTS product_stock_summary_pkey;
+ALTER TABLE product_stock_summary ADD CONSTRAINT product_stock_summary_pkey
+    PRIMARY KEY (product_id, slot);
+
+ALTER TABLE product_stock_summary ALTER COLUMN slot DROP DEFAULT;
+
+-- Deltas to a missing slot row are dropped, so every product gets all of its slots up front
+INSERT INTO product_stock_summary
+    (product_id, slot, total_count, available_count, reserved_count, sold_count, updated_at)
+SELECT s.product_id, CAST(g.slot AS SMALLINT), 0, 0, 0, 0, CURRENT_TIMESTAMP
+FROM product_stock_summary s
+CROSS JOIN generate_series(1, 15) AS g (slot)
+WHERE s.slot = 0
+ON CONFLICT (product_id, slot) DO NOTHING;
@@ -0,0 +1,24 @@
+-- V14: Foreign key from reservation holds to stock items
+
+SET search_path TO account_selling, public;
+
+-- V5 skipped the constraint when Hibernate had not created the stock table yet. Fresh databases
+-- get it from the entity mapping; databases created before that mapping get it here.
+DO $$
+BEGIN
+    IF to_regclass('account_selling.stock') IS NULL THEN
+        RETURN;
+    END IF;
+
+    IF NOT EXISTS (
+        SELECT 1 FROM pg_constraint WHERE conname = 'fk_stock_reservation_stock'
+    ) THEN
+        -- Holds of items deleted while there was no constraint
+        DELETE FROM stock_reservation r
+        WHERE NOT EXISTS (SELECT 1 FROM stock s WHERE s.id = r.stock_id);
+
+        ALTER TABLE stock_reservation
+            ADD CONSTRAINT fk_stock_reservation_stock
+            FOREIGN KEY (stock_id) REFERENCES stock (id) ON DELETE CASCADE;
+    END IF;
+END $$;
@@ -0,0 +1,13 @@
+-- V15: Worker ID leases of nodes without a configured worker ID
+
+SET search_path TO account_selling, public;
+
+-- One row per worker ID in use. A node without app.node.worker-id takes the lowest ID that is free
+-- or whose lease lapsed, and refreshes leased_until while it runs, so two live nodes never share a
+-- worker ID and never issue the same order number or payment reference.
+CREATE TABLE IF NOT EXISTS node_worker_lease (
+    worker_id INTEGER PRIMARY KEY,
+    node_id VARCHAR(100) NOT NULL,
+    leased_until TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
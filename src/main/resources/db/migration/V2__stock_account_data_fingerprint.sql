@@ -0,0 +1,45 @@
+-- V2: Account data fingerprint for stock duplicate detection
+
+SET search_path TO account_selling, public;
+
+-- The stock table is created by Hibernate, so on a fresh database there is nothing to backfill.
+-- Fingerprint = hex SHA-256 of account data with CRLF -> LF and surrounding whitespace trimmed;
+-- it must stay in sync with AccountDataFingerprint.
+DO $$
+BEGIN
+    IF to_regclass('account_selling.stock') IS NULL THEN
+        RETURN;
+    END IF;
+
+    ALTER TABLE stock ADD COLUMN IF NOT EXISTS fingerprint VARCHAR(64);
+
+    -- Keep the oldest row of each duplicate group; the others stay null and are reported
+    -- by findDuplicateAccountDataByProductId
+    WITH computed AS (
+        SELECT id,
+               product_id,
+               encode(sha256(convert_to(
+                   btrim(replace(account_data, E'\r\n', E'\n'), E' \t\r\n'), 'UTF8')), 'hex') AS value,
+               row_number() OVER (
+                   PARTITION BY product_id,
+                       encode(sha256(convert_to(
+                           btrim(replace(account_data, E'\r\n', E'\n'), E' \t\r\n'), 'UTF8')), 'hex')
+                   ORDER BY created_at, id) AS position
+        FROM stock
+        WHERE fingerprint IS NULL
+    )
+    UPDATE stock s
+    SET fingerprint = c.value
+    FROM computed c
+    WHERE s.id = c.id
+      AND c.position = 1
+      AND NOT EXISTS (
+          SELECT 1 FROM stock existing
+          WHERE existing.product_id = c.product_id AND existing.fingerprint = c.value);
+
+    -- Same name as the Stock entity's unique constraint so Hibernate recognizes it
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_stock_product_fingerprint') THEN
+        ALTER TABLE stock
+            ADD CONSTRAINT uk_stock_product_fingerprint UNIQUE (product_id, fingerprint);
+    END IF;
+END $$;
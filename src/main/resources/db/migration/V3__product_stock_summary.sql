@@ -0,0 +1,38 @@
+-- V3: Materialized per-product stock counts
+
+SET search_path TO account_selling, public;
+
+-- Maintained by the stock services in the same transaction as each stock change and verified by
+-- InventoryManagementService.verifyStockSummaries. Reserved counts unsold rows that still hold a
+-- reservation (reserved_until IS NOT NULL) until the expiry scheduler releases them.
+CREATE TABLE IF NOT EXISTS product_stock_summary (
+    product_id UUID PRIMARY KEY,
+    total_count BIGINT NOT NULL DEFAULT 0,
+    available_count BIGINT NOT NULL DEFAULT 0,
+    reserved_count BIGINT NOT NULL DEFAULT 0,
+    sold_count BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- The product and stock tables are created by Hibernate, so on a fresh database there is nothing
+-- to backfill
+DO $$
+BEGIN
+    IF to_regclass('account_selling.products') IS NULL
+        OR to_regclass('account_selling.stock') IS NULL THEN
+        RETURN;
+    END IF;
+
+    INSERT INTO product_stock_summary
+        (product_id, total_count, available_count, reserved_count, sold_count, updated_at)
+    SELECT p.id,
+           COUNT(s.id),
+           COUNT(s.id) FILTER (WHERE s.sold = false AND s.reserved_until IS NULL),
+           COUNT(s.id) FILTER (WHERE s.sold = false AND s.reserved_until IS NOT NULL),
+           COUNT(s.id) FILTER (WHERE s.sold = true),
+           CURRENT_TIMESTAMP
+    FROM products p
+    LEFT JOIN stock s ON s.product_id = p.id
+    GROUP BY p.id
+    ON CONFLICT (product_id) DO NOTHING;
+END $$;
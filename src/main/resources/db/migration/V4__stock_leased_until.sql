@@ -0,0 +1,15 @@
+-- V4: Lease column for hot product stock pools
+
+SET search_path TO account_selling, public;
+
+-- Set while a stock item sits in a node's hot product pool. Leased items still count as available
+-- but are skipped by the regular claim until the lease lapses or is returned. The stock table is
+-- created by Hibernate, so on a fresh database the column comes with it.
+DO $$
+BEGIN
+    IF to_regclass('account_selling.stock') IS NULL THEN
+        RETURN;
+    END IF;
+
+    ALTER TABLE stock ADD COLUMN IF NOT EXISTS leased_until TIMESTAMP(6);
+END $$;
@@ -0,0 +1,47 @@
+-- V5: Reservation holds in their own narrow table
+
+SET search_path TO account_selling, public;
+
+-- Reserving inserts a row and releasing, expiring or selling deletes it, so reservation traffic no
+-- longer rewrites the wide stock row. Rows only exist while a hold is in place, so the stock_id
+-- primary key is the unique index on active holds.
+CREATE TABLE IF NOT EXISTS stock_reservation (
+    stock_id UUID PRIMARY KEY,
+    product_id UUID NOT NULL,
+    reserved_until TIMESTAMP(6) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_stock_reservation_until ON stock_reservation (reserved_until);
+
+-- The stock table is created by Hibernate, so on a fresh database there is nothing to move
+DO $$
+BEGIN
+    IF to_regclass('account_selling.stock') IS NULL THEN
+        RETURN;
+    END IF;
+
+    IF NOT EXISTS (
+        SELECT 1 FROM pg_constraint WHERE conname = 'fk_stock_reservation_stock'
+    ) THEN
+        ALTER TABLE stock_reservation
+            ADD CONSTRAINT fk_stock_reservation_stock
+            FOREIGN KEY (stock_id) REFERENCES stock (id) ON DELETE CASCADE;
+    END IF;
+
+    IF EXISTS (
+        SELECT 1 FROM information_schema.columns
+        WHERE table_schema = 'account_selling'
+        AND table_name = 'stock'
+        AND column_name = 'reserved_until'
+    ) THEN
+        INSERT INTO stock_reservation (stock_id, product_id, reserved_until, created_at)
+        SELECT id, product_id, reserved_until, CURRENT_TIMESTAMP
+        FROM stock
+        WHERE sold = false AND reserved_until IS NOT NULL
+        ON CONFLICT (stock_id) DO NOTHING;
+
+        DROP INDEX IF EXISTS idx_stock_reserved;
+        ALTER TABLE stock DROP COLUMN reserved_until;
+    END IF;
+END $$;
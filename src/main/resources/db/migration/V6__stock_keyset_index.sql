@@ -0,0 +1,13 @@
+-- V6: Index for keyset pagination of the admin stock listing
+
+SET search_path TO account_selling, public;
+
+-- Pages are read newest first with a (created_at, id) < (:createdAt, :id) predicate, so each page
+-- is one range scan on this index however deep the client has paged.
+DO $$
+BEGIN
+    IF to_regclass('account_selling.stock') IS NOT NULL THEN
+        CREATE INDEX IF NOT EXISTS idx_stock_product_created
+            ON stock (product_id, created_at DESC, id DESC);
+    END IF;
+END $$;
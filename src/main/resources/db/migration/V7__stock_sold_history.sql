@@ -0,0 +1,87 @@
+-- V7: Sold stock history, range partitioned by sold_at per month
+
+SET search_path TO account_selling, public;
+
+-- Sold stock is moved here in small batches, so the stock table only holds sellable inventory.
+-- The primary key must include the partition key; the stock ID stays unique because it is the
+-- primary key of the stock table the row came from.
+CREATE TABLE IF NOT EXISTS stock_sold_history (
+    id UUID NOT NULL,
+    product_id UUID NOT NULL,
+    account_data VARCHAR(2000) NOT NULL,
+    fingerprint VARCHAR(64),
+    account_type VARCHAR(100),
+    price FLOAT(53),
+    additional_info VARCHAR(500),
+    sold_at TIMESTAMP(6) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL,
+    archived_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, sold_at)
+) PARTITION BY RANGE (sold_at);
+
+-- Safety net only: the archival job creates the monthly partition before moving rows into it
+CREATE TABLE IF NOT EXISTS stock_sold_history_default PARTITION OF stock_sold_history DEFAULT;
+
+CREATE INDEX IF NOT EXISTS idx_stock_sold_history_id ON stock_sold_history (id);
+CREATE INDEX IF NOT EXISTS idx_stock_sold_history_product
+    ON stock_sold_history (product_id, sold_at);
+-- Duplicate checks on stock creation and import probe archived items by fingerprint too
+CREATE INDEX IF NOT EXISTS idx_stock_sold_history_fingerprint
+    ON stock_sold_history (product_id, fingerprint);
+
+CREATE OR REPLACE FUNCTION ensure_stock_sold_history_partition(sold_at TIMESTAMP)
+RETURNS TEXT AS $$
+DECLARE
+    month_start TIMESTAMP := date_trunc('month', sold_at);
+    partition_name TEXT := 'stock_sold_history_' || to_char(month_start, 'YYYY_MM');
+BEGIN
+    IF to_regclass('account_selling.' || partition_name) IS NULL THEN
+        EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS account_selling.%I PARTITION OF '
+                || 'account_selling.stock_sold_history FOR VALUES FROM (%L) TO (%L)',
+            partition_name,
+            month_start,
+            month_start + INTERVAL '1 month');
+    END IF;
+    RETURN partition_name;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Position of the last archived row in (sold_at, id) order
+CREATE TABLE IF NOT EXISTS stock_archive_checkpoint (
+    name VARCHAR(50) PRIMARY KEY,
+    last_sold_at TIMESTAMP(6) NOT NULL,
+    last_stock_id UUID NOT NULL,
+    archived_count BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+INSERT INTO stock_archive_checkpoint (name, last_sold_at, last_stock_id)
+VALUES ('sold-stock', TIMESTAMP '1970-01-01 00:00:00', '00000000-0000-0000-0000-000000000000')
+ON CONFLICT (name) DO NOTHING;
+
+-- The stock and order_items tables are created by Hibernate. On a fresh database the entity
+-- mappings already leave out the foreign key and create a plain index under the same name
+DO $$
+DECLARE
+    fk_name TEXT;
+BEGIN
+    IF to_regclass('account_selling.order_items') IS NOT NULL
+        AND to_regclass('account_selling.stock') IS NOT NULL THEN
+        -- Order items keep the ID of stock moved to the history, so the reference is unenforced
+        FOR fk_name IN
+            SELECT conname FROM pg_constraint
+            WHERE conrelid = 'account_selling.order_items'::regclass
+            AND confrelid = 'account_selling.stock'::regclass
+            AND contype = 'f'
+        LOOP
+            EXECUTE format('ALTER TABLE account_selling.order_items DROP CONSTRAINT %I', fk_name);
+        END LOOP;
+    END IF;
+
+    IF to_regclass('account_selling.stock') IS NOT NULL THEN
+        -- Archival scans sold rows in (sold_at, id) order from the checkpoint
+        CREATE INDEX IF NOT EXISTS idx_stock_sold_at ON stock (sold_at, id) WHERE sold = true;
+    END IF;
+END $$;
@@ -0,0 +1,28 @@
+-- V8: Node-level hot product stock leases
+
+SET search_path TO account_selling, public;
+
+-- One row per hot product and node, refreshed on every pool refill. Rows past leased_until belong
+-- to nodes that stopped; wanted_count > 0 asks the other nodes to return surplus leased stock.
+CREATE TABLE IF NOT EXISTS stock_lease (
+    product_id UUID NOT NULL,
+    node_id VARCHAR(100) NOT NULL,
+    pooled_count INTEGER NOT NULL DEFAULT 0,
+    wanted_count INTEGER NOT NULL DEFAULT 0,
+    leased_until TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (product_id, node_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_stock_lease_until ON stock_lease (leased_until);
+
+-- Hot mode is kept on the product so every node pools the same products. The products table is
+-- created by Hibernate, so on a fresh database the column comes with it.
+DO $$
+BEGIN
+    IF to_regclass('account_selling.products') IS NULL THEN
+        RETURN;
+    END IF;
+
+    ALTER TABLE products ADD COLUMN IF NOT EXISTS hot_lease_size INTEGER;
+END $$;
@@ -0,0 +1,18 @@
+-- V9: Idempotency keys of order and payment creation requests
+
+SET search_path TO account_selling, public;
+
+-- One row per client key and scope (operation and user). status_code stays NULL while the first
+-- request is being processed; the stored response is replayed to retries until expires_at.
+CREATE TABLE IF NOT EXISTS idempotency_key (
+    scope VARCHAR(100) NOT NULL,
+    idempotency_key VARCHAR(255) NOT NULL,
+    request_hash VARCHAR(64) NOT NULL,
+    status_code INTEGER,
+    response_body TEXT,
+    created_at TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (scope, idempotency_key)
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_key_expires ON idempotency_key (expires_at);
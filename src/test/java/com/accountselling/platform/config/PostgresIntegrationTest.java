@@ -0,0 +1,28 @@
+package com.accountselling.platform.config;
+
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Base class of tests that run against PostgreSQL. Subclasses add {@code @SpringBootTest} or
+ * {@code @DataJpaTest}; the tests run on the shared container of TestContainersConfig with the test
+ * and integration-test profiles, and are skipped when Docker is not available. A data JPA slice
+ * also needs {@code @AutoConfigureTestDatabase(replace = Replace.NONE)} on the test class itself,
+ * or the slice swaps the container for an embedded database.
+ *
+ * <p>The database is shared by every test class of the run, so tests create their own rows and
+ * assert only on them.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@ActiveProfiles({"test", "integration-test"})
+@Import(TestContainersConfig.class)
+public abstract class PostgresIntegrationTest {
+
+  @DynamicPropertySource
+  static void registerDataSource(DynamicPropertyRegistry registry) {
+    TestContainersConfig.registerDataSource(registry);
+  }
+}
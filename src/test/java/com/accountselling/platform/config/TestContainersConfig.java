@@ -3,27 +3,47 @@ package com.accountselling.platform.config;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Profile;
+import org.springframework.test.context.DynamicPropertyRegistry;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.utility.DockerImageName;
 
+/**
+ * PostgreSQL container of the integration-test profile. One container is started per test JVM and
+ * shared by every test context, so the tests see the real PostgreSQL behaviour of the native
+ * queries (SKIP LOCKED, ON CONFLICT, advisory locks, partitions) rather than H2's.
+ */
 @TestConfiguration
 @Profile("integration-test")
 public class TestContainersConfig {
 
-  @Bean
-  public PostgreSQLContainer<?> postgreSQLContainer() {
-    PostgreSQLContainer<?> container =
-        new PostgreSQLContainer<>(DockerImageName.parse("postgres:14"))
-            .withDatabaseName("accountselling_test")
-            .withUsername("test")
-            .withPassword("test");
-    container.start();
+  private static final PostgreSQLContainer<?> POSTGRES =
+      new PostgreSQLContainer<>(DockerImageName.parse("postgres:14"))
+          .withDatabaseName("accountselling_test")
+          .withUsername("test")
+          .withPassword("test");
+
+  /**
+   * Start the shared container if needed and point the data source at it. The search path puts
+   * the Flyway schema first, as the native queries use unqualified table names.
+   *
+   * @param registry registry of the test context's dynamic properties
+   */
+  public static synchronized void registerDataSource(DynamicPropertyRegistry registry) {
+    if (!POSTGRES.isRunning()) {
+      POSTGRES.start();
+    }
 
-    // Set system properties for Spring Boot to use
-    System.setProperty("spring.datasource.url", container.getJdbcUrl());
-    System.setProperty("spring.datasource.username", container.getUsername());
-    System.setProperty("spring.datasource.password", container.getPassword());
+    String jdbcUrl = POSTGRES.getJdbcUrl();
+    String separator = jdbcUrl.contains("?") ? "&" : "?";
+    registry.add(
+        "spring.datasource.url",
+        () -> jdbcUrl + separator + "currentSchema=account_selling,public");
+    registry.add("spring.datasource.username", POSTGRES::getUsername);
+    registry.add("spring.datasource.password", POSTGRES::getPassword);
+  }
 
-    return container;
+  @Bean
+  public PostgreSQLContainer<?> postgreSQLContainer() {
+    return POSTGRES;
   }
 }
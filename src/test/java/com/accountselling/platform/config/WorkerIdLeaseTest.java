@@ -0,0 +1,131 @@
+package com.accountselling.platform.config;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.accountselling.platform.repository.NodeWorkerLeaseRepository;
+import com.accountselling.platform.util.SnowflakeIdGenerator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Unit tests for WorkerIdLease. Tests leasing a worker ID, failing when none is free, renewing and
+ * giving up the lease, and refusing to issue IDs once the lease is lost or may have lapsed.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("WorkerIdLease Tests")
+class WorkerIdLeaseTest {
+
+  private static final String NODE_ID = "node-1";
+
+  @Mock private NodeWorkerLeaseRepository nodeWorkerLeaseRepository;
+  @Mock private NodeIdentity nodeIdentity;
+
+  private final AtomicLong clock = new AtomicLong(SnowflakeIdGenerator.EPOCH);
+
+  private WorkerIdLease workerIdLease;
+
+  @BeforeEach
+  void setUp() {
+    when(nodeIdentity.getId()).thenReturn(NODE_ID);
+    workerIdLease = new WorkerIdLease(nodeWorkerLeaseRepository, nodeIdentity, clock::get);
+  }
+
+  @Test
+  @DisplayName("Should retry when another node leased the same worker ID first")
+  void shouldRetryWhenAnotherNodeLeasedSameId() {
+    when(nodeWorkerLeaseRepository.claim(
+            eq(NODE_ID), eq(SnowflakeIdGenerator.MAX_NODE_ID), any(), any()))
+        .thenReturn(List.of())
+        .thenReturn(List.of(3));
+
+    assertThat(workerIdLease.claim()).isEqualTo(3);
+    verify(nodeWorkerLeaseRepository, times(2)).claim(any(), anyInt(), any(), any());
+  }
+
+  @Test
+  @DisplayName("Should fail to start when no worker ID is free")
+  void shouldFailWhenNoWorkerIdIsFree() {
+    when(nodeWorkerLeaseRepository.claim(any(), anyInt(), any(), any())).thenReturn(List.of());
+
+    assertThatThrownBy(() -> workerIdLease.claim())
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("app.node.worker-id");
+  }
+
+  @Test
+  @DisplayName("Should renew and give up the leased worker ID")
+  void shouldRenewAndReleaseLeasedWorkerId() {
+    when(nodeWorkerLeaseRepository.claim(any(), anyInt(), any(), any())).thenReturn(List.of(7));
+    when(nodeWorkerLeaseRepository.renew(eq(7), eq(NODE_ID), any(), any())).thenReturn(1);
+    workerIdLease.claim();
+
+    workerIdLease.renew();
+    workerIdLease.release();
+
+    verify(nodeWorkerLeaseRepository).renew(eq(7), eq(NODE_ID), any(), any());
+    verify(nodeWorkerLeaseRepository).release(7, NODE_ID);
+  }
+
+  @Test
+  @DisplayName("Should stop issuing IDs and lease a new worker ID when another node took it")
+  void shouldLeaseNewWorkerIdWhenTakenOver() {
+    when(nodeWorkerLeaseRepository.claim(any(), anyInt(), any(), any()))
+        .thenReturn(List.of(7))
+        .thenReturn(List.of(9));
+    workerIdLease.claim();
+    assertThat(SnowflakeIdGenerator.nodeIdOf(workerIdLease.nextId())).isEqualTo(7);
+
+    // Another node leased worker ID 7 after this node's lease lapsed
+    when(nodeWorkerLeaseRepository.renew(eq(7), eq(NODE_ID), any(), any())).thenReturn(0);
+    workerIdLease.renew();
+
+    assertThat(SnowflakeIdGenerator.nodeIdOf(workerIdLease.nextId())).isEqualTo(9);
+    workerIdLease.release();
+    verify(nodeWorkerLeaseRepository).release(9, NODE_ID);
+    verify(nodeWorkerLeaseRepository, never()).release(eq(7), any());
+  }
+
+  @Test
+  @DisplayName("Should refuse IDs after a takeover until a new worker ID is leased")
+  void shouldRefuseIdsUntilNewWorkerIdIsLeased() {
+    when(nodeWorkerLeaseRepository.claim(any(), anyInt(), any(), any()))
+        .thenReturn(List.of(7))
+        .thenReturn(List.of());
+    workerIdLease.claim();
+    when(nodeWorkerLeaseRepository.renew(eq(7), eq(NODE_ID), any(), any())).thenReturn(0);
+
+    workerIdLease.renew();
+
+    assertThatThrownBy(() -> workerIdLease.nextId()).isInstanceOf(IllegalStateException.class);
+
+    // The next renewal leases a worker ID that came free
+    when(nodeWorkerLeaseRepository.claim(any(), anyInt(), any(), any())).thenReturn(List.of(12));
+    workerIdLease.renew();
+
+    assertThat(SnowflakeIdGenerator.nodeIdOf(workerIdLease.nextId())).isEqualTo(12);
+  }
+
+  @Test
+  @DisplayName("Should refuse IDs once the lease may have lapsed without renewal")
+  void shouldRefuseIdsWhenLeaseMayHaveLapsed() {
+    when(nodeWorkerLeaseRepository.claim(any(), anyInt(), any(), any())).thenReturn(List.of(7));
+    workerIdLease.claim();
+    when(nodeWorkerLeaseRepository.renew(anyInt(), any(), any(), any()))
+        .thenThrow(new IllegalStateException("Database unavailable"));
+
+    clock.addAndGet(WorkerIdLease.LEASE_DURATION.toMillis() / 2);
+    workerIdLease.renew();
+    assertThat(workerIdLease.nextId()).isPositive();
+
+    clock.addAndGet(WorkerIdLease.LEASE_DURATION.toMillis() / 2);
+    assertThatThrownBy(() -> workerIdLease.nextId()).isInstanceOf(IllegalStateException.class);
+  }
+}
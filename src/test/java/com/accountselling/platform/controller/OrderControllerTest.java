@@ -3,6 +3,7 @@ package com.accountselling.platform.controller;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
@@ -11,7 +12,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.accountselling.platform.config.TestSecurityConfig;
+import com.accountselling.platform.dto.common.CursorPageDto;
 import com.accountselling.platform.dto.order.OrderCreateRequestDto;
+import com.accountselling.platform.dto.order.OrderResponseDto;
 import com.accountselling.platform.enums.OrderStatus;
 import com.accountselling.platform.exception.InsufficientStockException;
 import com.accountselling.platform.exception.InvalidOrderStatusException;
@@ -23,8 +26,11 @@ import com.accountselling.platform.model.OrderItem;
 import com.accountselling.platform.model.Product;
 import com.accountselling.platform.model.Stock;
 import com.accountselling.platform.model.User;
+import com.accountselling.platform.service.IdempotencyKeyStore;
+import com.accountselling.platform.service.OrderQueryService;
 import com.accountselling.platform.service.OrderService;
 import com.accountselling.platform.service.UserService;
+import com.accountselling.platform.util.KeysetCursor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -33,6 +39,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -64,8 +71,12 @@ class OrderControllerTest {
 
   @MockBean private OrderService orderService;
 
+  @MockBean private OrderQueryService orderQueryService;
+
   @MockBean private UserService userService;
 
+  @MockBean private IdempotencyKeyStore idempotencyKeyStore;
+
   private User testUser;
   private Order testOrder;
   private Product testProduct;
@@ -76,6 +87,10 @@ class OrderControllerTest {
 
   @BeforeEach
   void setUp() {
+    // Run create requests straight through the idempotency key store
+    when(idempotencyKeyStore.execute(any(), any(), any(), any(), any()))
+        .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(4).get());
+
     // Setup test user
     testUser = new User();
     testUser.setId(UUID.randomUUID());
@@ -163,6 +178,33 @@ class OrderControllerTest {
         .andExpect(jsonPath("$.orderItems[0].price").value(99.99));
   }
 
+  @Test
+  @DisplayName("Create Order - Idempotency-Key Scoped To User")
+  void createOrder_WithIdempotencyKey_ShouldScopeKeyToUser() throws Exception {
+    // Arrange
+    when(userService.findByUsername(any(String.class))).thenReturn(Optional.of(testUser));
+    when(orderService.createOrder(eq(testUser), any())).thenReturn(testOrder);
+
+    // Act & Assert
+    mockMvc
+        .perform(
+            post("/api/orders")
+                .with(user("testuser").roles("USER"))
+                .with(csrf())
+                .header("Idempotency-Key", "checkout-42")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(orderRequest)))
+        .andExpect(status().isCreated());
+
+    verify(idempotencyKeyStore)
+        .execute(
+            eq("order.create:" + testUser.getId()),
+            eq("checkout-42"),
+            eq(orderRequest),
+            eq(OrderResponseDto.class),
+            any());
+  }
+
   @Test
   @DisplayName("Create Order - Invalid Request Data")
   void createOrder_InvalidRequestData() throws Exception {
@@ -238,9 +280,11 @@ class OrderControllerTest {
   @DisplayName("Get User Orders - Success")
   void getUserOrders_Success() throws Exception {
     // Arrange
-    Page<Order> orderPage = new PageImpl<>(List.of(testOrder), PageRequest.of(0, 20), 1);
+    Page<OrderResponseDto> orderPage =
+        new PageImpl<>(List.of(toResponse(testOrder)), PageRequest.of(0, 20), 1);
     when(userService.findByUsername(any(String.class))).thenReturn(Optional.of(testUser));
-    when(orderService.getOrdersByUser(eq(testUser), any(Pageable.class))).thenReturn(orderPage);
+    when(orderQueryService.getOrdersByUser(eq(testUser.getId()), any(Pageable.class)))
+        .thenReturn(orderPage);
 
     // Act & Assert
     mockMvc
@@ -262,6 +306,48 @@ class OrderControllerTest {
         .andExpect(jsonPath("$.number").value(0));
   }
 
+  @Test
+  @DisplayName("Get User Orders Cursor - Success")
+  void getUserOrdersCursor_Success() throws Exception {
+    // Arrange
+    KeysetCursor cursor = new KeysetCursor(LocalDateTime.now(), UUID.randomUUID());
+    CursorPageDto<OrderResponseDto> orderPage =
+        CursorPageDto.<OrderResponseDto>builder()
+            .content(List.of(toResponse(testOrder)))
+            .size(1)
+            .hasNext(true)
+            .nextCursor("next-cursor")
+            .build();
+    when(userService.findByUsername(any(String.class))).thenReturn(Optional.of(testUser));
+    when(orderQueryService.getOrdersByUserAfter(testUser.getId(), cursor, 1))
+        .thenReturn(orderPage);
+
+    // Act & Assert
+    mockMvc
+        .perform(
+            get("/api/orders/cursor")
+                .with(user("testuser").roles("USER"))
+                .param("cursor", cursor.encode())
+                .param("size", "1"))
+        .andDo(print())
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content", hasSize(1)))
+        .andExpect(jsonPath("$.content[0].id").value(testOrder.getId().toString()))
+        .andExpect(jsonPath("$.hasNext").value(true))
+        .andExpect(jsonPath("$.nextCursor").value("next-cursor"));
+  }
+
+  @Test
+  @DisplayName("Get User Orders Cursor - Invalid Page Size")
+  void getUserOrdersCursor_InvalidPageSize() throws Exception {
+    // Act & Assert
+    mockMvc
+        .perform(
+            get("/api/orders/cursor").with(user("testuser").roles("USER")).param("size", "101"))
+        .andDo(print())
+        .andExpect(status().isBadRequest());
+  }
+
   @Test
   @DisplayName("Get User Orders - Unauthorized")
   void getUserOrders_Unauthorized() throws Exception {
@@ -277,7 +363,7 @@ class OrderControllerTest {
   void getOrderById_Success() throws Exception {
     // Arrange
     when(userService.findByUsername(any(String.class))).thenReturn(Optional.of(testUser));
-    when(orderService.findById(testOrder.getId())).thenReturn(testOrder);
+    when(orderQueryService.getOrder(testOrder.getId())).thenReturn(toResponse(testOrder));
 
     // Act & Assert
     mockMvc
@@ -299,7 +385,7 @@ class OrderControllerTest {
     // Arrange
     UUID nonExistentOrderId = UUID.randomUUID();
     when(userService.findByUsername(any(String.class))).thenReturn(Optional.of(testUser));
-    when(orderService.findById(nonExistentOrderId))
+    when(orderQueryService.getOrder(nonExistentOrderId))
         .thenThrow(new ResourceNotFoundException("Order not found"));
 
     // Act & Assert
@@ -321,9 +407,11 @@ class OrderControllerTest {
     Order differentUserOrder = new Order();
     differentUserOrder.setId(testOrder.getId());
     differentUserOrder.setUser(differentUser);
+    differentUserOrder.setTotalAmount(new BigDecimal("99.99"));
 
     when(userService.findByUsername(any(String.class))).thenReturn(Optional.of(testUser));
-    when(orderService.findById(testOrder.getId())).thenReturn(differentUserOrder);
+    when(orderQueryService.getOrder(testOrder.getId()))
+        .thenReturn(toResponse(differentUserOrder));
 
     // Act & Assert
     mockMvc
@@ -334,6 +422,30 @@ class OrderControllerTest {
         .andExpect(jsonPath("$.message").value(containsString("Access denied")));
   }
 
+  @Test
+  @DisplayName("Get Order By ID - Same Username but Different User ID")
+  void getOrderById_SameUsernameDifferentUserId() throws Exception {
+    // Arrange - ownership is decided by user ID, not by the username in the read model
+    User sameNameUser = new User();
+    sameNameUser.setId(UUID.randomUUID());
+    sameNameUser.setUsername(testUser.getUsername());
+
+    Order sameNameUserOrder = new Order();
+    sameNameUserOrder.setId(testOrder.getId());
+    sameNameUserOrder.setUser(sameNameUser);
+    sameNameUserOrder.setTotalAmount(new BigDecimal("99.99"));
+
+    when(userService.findByUsername(any(String.class))).thenReturn(Optional.of(testUser));
+    when(orderQueryService.getOrder(testOrder.getId())).thenReturn(toResponse(sameNameUserOrder));
+
+    // Act & Assert
+    mockMvc
+        .perform(
+            get("/api/orders/{orderId}", testOrder.getId()).with(user("testuser").roles("USER")))
+        .andDo(print())
+        .andExpect(status().isForbidden());
+  }
+
   @Test
   @DisplayName("Cancel Order - Success")
   void cancelOrder_Success() throws Exception {
@@ -478,4 +590,40 @@ class OrderControllerTest {
         .andDo(print())
         .andExpect(status().isForbidden()); // Spring Security returns 403 when no auth provided
   }
+
+  // Response the order read model would return for an order
+  private static OrderResponseDto toResponse(Order order) {
+    List<OrderResponseDto.OrderItemResponseDto> items =
+        order.getOrderItems().stream()
+            .map(
+                item ->
+                    new OrderResponseDto.OrderItemResponseDto(
+                        item.getId(),
+                        item.getStockItem().getId(),
+                        item.getProduct().getName(),
+                        item.getProduct().getDescription(),
+                        item.getProduct().getCategory().getName(),
+                        item.getProduct().getServer(),
+                        item.getPrice(),
+                        "$" + item.getPrice(),
+                        item.getNotes(),
+                        item.isStockItemSold()))
+            .toList();
+
+    return new OrderResponseDto(
+        order.getId(),
+        order.getOrderNumber(),
+        order.getUser().getId(),
+        order.getUser().getUsername(),
+        order.getUser().getFullName(),
+        order.getTotalAmount(),
+        "$" + order.getTotalAmount(),
+        order.getStatus(),
+        order.getStatus().getDisplayName(),
+        order.getNotes(),
+        order.getCreatedAt(),
+        order.getUpdatedAt(),
+        items,
+        null);
+  }
 }
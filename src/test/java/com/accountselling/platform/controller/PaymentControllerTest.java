@@ -18,6 +18,7 @@ import com.accountselling.platform.exception.WebhookProcessingException;
 import com.accountselling.platform.model.Order;
 import com.accountselling.platform.model.Payment;
 import com.accountselling.platform.model.User;
+import com.accountselling.platform.service.IdempotencyKeyStore;
 import com.accountselling.platform.service.OrderService;
 import com.accountselling.platform.service.PaymentService;
 import com.accountselling.platform.service.UserService;
@@ -28,6 +29,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -60,6 +62,8 @@ class PaymentControllerTest {
 
   @MockBean private UserService userService;
 
+  @MockBean private IdempotencyKeyStore idempotencyKeyStore;
+
   private User testUser;
   private Order testOrder;
   private Payment testPayment;
@@ -67,6 +71,10 @@ class PaymentControllerTest {
 
   @BeforeEach
   void setUp() {
+    // Run create requests straight through the idempotency key store
+    when(idempotencyKeyStore.execute(any(), any(), any(), any(), any()))
+        .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(4).get());
+
     // Setup test user
     testUser = new User();
     testUser.setId(UUID.randomUUID());
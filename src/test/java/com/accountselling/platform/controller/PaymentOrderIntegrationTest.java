@@ -7,6 +7,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import com.accountselling.platform.config.PostgresIntegrationTest;
 import com.accountselling.platform.config.TestRateLimitConfig;
 import com.accountselling.platform.dto.order.OrderCreateRequestDto;
 import com.accountselling.platform.dto.payment.PaymentCreateRequestDto;
@@ -43,7 +44,6 @@ import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.test.context.support.WithMockUser;
-import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
@@ -53,7 +53,8 @@ import org.springframework.web.context.WebApplicationContext;
 /**
  * Integration tests for Payment and Order workflows. Tests complete end-to-end functionality
  * including order creation, payment processing, and account download workflows with real database
- * and application context.
+ * and application context. Runs against PostgreSQL, as stock claims and order numbering use native
+ * PostgreSQL SQL.
  *
  * <p>Integration tests สำหรับ Payment และ Order workflows ทดสอบฟังก์ชันการทำงานแบบ end-to-end
  * รวมถึงการสร้างออเดอร์ การประมวลผลการชำระเงิน และ workflow การดาวน์โหลดบัญชี พร้อมฐานข้อมูลจริงและ
@@ -61,15 +62,11 @@ import org.springframework.web.context.WebApplicationContext;
  */
 @SpringBootTest
 @AutoConfigureWebMvc
-@ActiveProfiles("test")
 @Import(TestRateLimitConfig.class)
 @TestPropertySource(
-    properties = {
-      "spring.profiles.active=test",
-      "logging.level.com.accountselling.platform.security.RateLimitingFilter=DEBUG"
-    })
+    properties = {"logging.level.com.accountselling.platform.security.RateLimitingFilter=DEBUG"})
 @Transactional
-class PaymentOrderIntegrationTest {
+class PaymentOrderIntegrationTest extends PostgresIntegrationTest {
 
   @Autowired private WebApplicationContext context;
 
@@ -106,11 +103,8 @@ class PaymentOrderIntegrationTest {
   }
 
   private void setupTestData() {
-    // Create USER role
-    userRole = new Role();
-    userRole.setName("USER");
-    userRole.setDescription("Standard user role");
-    userRole = roleRepository.save(userRole);
+    // USER role, seeded by the V1 migration
+    userRole = roleRepository.findByName("ROLE_USER").orElseThrow();
 
     // Create test user
     testUser = new User();
@@ -17,6 +17,7 @@ import com.accountselling.platform.model.User;
 import com.accountselling.platform.service.*;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
@@ -54,6 +55,8 @@ class AdminDashboardControllerTest {
 
   @MockBean private StockService stockService;
 
+  @MockBean private DailyRollupService dailyRollupService;
+
   @Autowired private ObjectMapper objectMapper;
 
   private User testUser;
@@ -353,6 +356,44 @@ class AdminDashboardControllerTest {
     verify(orderService, never()).getDailyOrderStatistics(any(), any());
   }
 
+  // ==================== REBUILD DAILY TRENDS TESTS ====================
+
+  @Test
+  @DisplayName("Rebuild daily trends - Success")
+  @WithMockUser(roles = "ADMIN")
+  void rebuildDailyTrends_Success() throws Exception {
+    // Arrange
+    LocalDate startDate = LocalDate.of(2024, 1, 1);
+    LocalDate endDate = LocalDate.of(2024, 3, 31);
+    when(dailyRollupService.rebuildRollups(startDate, endDate)).thenReturn(150);
+
+    // Act & Assert
+    mockMvc
+        .perform(
+            post("/api/admin/dashboard/trends/rebuild")
+                .param("startDate", "2024-01-01")
+                .param("endDate", "2024-03-31"))
+        .andExpect(status().isOk())
+        .andExpect(content().string("150"));
+
+    verify(dailyRollupService).rebuildRollups(startDate, endDate);
+  }
+
+  @Test
+  @DisplayName("Rebuild daily trends - Access denied for non-admin")
+  @WithMockUser(roles = "USER")
+  void rebuildDailyTrends_AccessDenied() throws Exception {
+    // Act & Assert
+    mockMvc
+        .perform(
+            post("/api/admin/dashboard/trends/rebuild")
+                .param("startDate", "2024-01-01")
+                .param("endDate", "2024-03-31"))
+        .andExpect(status().isForbidden());
+
+    verify(dailyRollupService, never()).rebuildRollups(any(), any());
+  }
+
   // ==================== GET SYSTEM HEALTH TESTS ====================
 
   @Test
@@ -9,11 +9,15 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.accountselling.platform.config.TestSecurityConfig;
+import com.accountselling.platform.dto.order.OrderResponseDto;
 import com.accountselling.platform.dto.statistics.DailyOrderStatistics;
 import com.accountselling.platform.dto.statistics.OrderStatistics;
+import com.accountselling.platform.dto.statistics.TopCustomer;
 import com.accountselling.platform.enums.OrderStatus;
 import com.accountselling.platform.exception.ResourceNotFoundException;
 import com.accountselling.platform.model.*;
+import com.accountselling.platform.service.CustomerLeaderboardService;
+import com.accountselling.platform.service.OrderQueryService;
 import com.accountselling.platform.service.OrderService;
 import com.accountselling.platform.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -53,8 +57,12 @@ class AdminOrderControllerTest {
 
   @MockBean private OrderService orderService;
 
+  @MockBean private OrderQueryService orderQueryService;
+
   @MockBean private UserService userService;
 
+  @MockBean private CustomerLeaderboardService customerLeaderboardService;
+
   @Autowired private ObjectMapper objectMapper;
 
   private Order testOrder;
@@ -111,6 +119,15 @@ class AdminOrderControllerTest {
 
     testOrderItem.setOrder(testOrder);
 
+    // Read model returns the test order for its ID
+    when(orderQueryService.getOrders(anyList()))
+        .thenAnswer(
+            invocation ->
+                invocation.<List<UUID>>getArgument(0).stream()
+                    .filter(testOrder.getId()::equals)
+                    .map(id -> toResponse(testOrder))
+                    .toList());
+
     // Setup order statistics
     testOrderStatistics =
         new OrderStatistics(
@@ -268,7 +285,7 @@ class AdminOrderControllerTest {
   @WithMockUser(roles = "ADMIN")
   void getOrderById_Success() throws Exception {
     // Arrange
-    when(orderService.findById(testOrder.getId())).thenReturn(testOrder);
+    when(orderQueryService.getOrder(testOrder.getId())).thenReturn(toResponse(testOrder));
 
     // Act & Assert
     mockMvc
@@ -286,7 +303,7 @@ class AdminOrderControllerTest {
         .andExpect(jsonPath("$.orderItems[0].server").value("US-West"))
         .andExpect(jsonPath("$.orderItems[0].price").value(99.99));
 
-    verify(orderService).findById(testOrder.getId());
+    verify(orderQueryService).getOrder(testOrder.getId());
   }
 
   @Test
@@ -295,13 +312,13 @@ class AdminOrderControllerTest {
   void getOrderById_NotFound() throws Exception {
     // Arrange
     UUID nonExistentId = UUID.randomUUID();
-    when(orderService.findById(nonExistentId))
+    when(orderQueryService.getOrder(nonExistentId))
         .thenThrow(new ResourceNotFoundException("Order", nonExistentId.toString()));
 
     // Act & Assert
     mockMvc.perform(get("/api/admin/orders/{id}", nonExistentId)).andExpect(status().isNotFound());
 
-    verify(orderService).findById(nonExistentId);
+    verify(orderQueryService).getOrder(nonExistentId);
   }
 
   // ==================== GET ORDERS BY USER TESTS ====================
@@ -311,11 +328,12 @@ class AdminOrderControllerTest {
   @WithMockUser(roles = "ADMIN")
   void getOrdersByUser_Success() throws Exception {
     // Arrange
-    List<Order> orders = Arrays.asList(testOrder);
-    Page<Order> orderPage = new PageImpl<>(orders, PageRequest.of(0, 20), 1);
+    Page<OrderResponseDto> orderPage =
+        new PageImpl<>(List.of(toResponse(testOrder)), PageRequest.of(0, 20), 1);
 
     when(userService.findById(testUser.getId())).thenReturn(Optional.of(testUser));
-    when(orderService.getOrdersByUser(eq(testUser), any(Pageable.class))).thenReturn(orderPage);
+    when(orderQueryService.getOrdersByUser(eq(testUser.getId()), any(Pageable.class)))
+        .thenReturn(orderPage);
 
     // Act & Assert
     mockMvc
@@ -329,7 +347,7 @@ class AdminOrderControllerTest {
         .andExpect(jsonPath("$.content[0].username").value("johndoe"));
 
     verify(userService).findById(testUser.getId());
-    verify(orderService).getOrdersByUser(eq(testUser), any(Pageable.class));
+    verify(orderQueryService).getOrdersByUser(eq(testUser.getId()), any(Pageable.class));
   }
 
   @Test
@@ -346,7 +364,7 @@ class AdminOrderControllerTest {
         .andExpect(status().isNotFound());
 
     verify(userService).findById(nonExistentUserId);
-    verify(orderService, never()).getOrdersByUser(any(), any());
+    verify(orderQueryService, never()).getOrdersByUser(any(), any());
   }
 
   // ==================== GET ORDERS BY STATUS TESTS ====================
@@ -356,10 +374,10 @@ class AdminOrderControllerTest {
   @WithMockUser(roles = "ADMIN")
   void getOrdersByStatus_Success() throws Exception {
     // Arrange
-    List<Order> orders = Arrays.asList(testOrder);
-    Page<Order> orderPage = new PageImpl<>(orders, PageRequest.of(0, 20), 1);
+    Page<OrderResponseDto> orderPage =
+        new PageImpl<>(List.of(toResponse(testOrder)), PageRequest.of(0, 20), 1);
 
-    when(orderService.getOrdersByStatus(eq(OrderStatus.PENDING), any(Pageable.class)))
+    when(orderQueryService.getOrdersByStatus(eq(OrderStatus.PENDING), any(Pageable.class)))
         .thenReturn(orderPage);
 
     // Act & Assert
@@ -372,7 +390,7 @@ class AdminOrderControllerTest {
         .andExpect(jsonPath("$.content", hasSize(1)))
         .andExpect(jsonPath("$.content[0].status").value("PENDING"));
 
-    verify(orderService).getOrdersByStatus(eq(OrderStatus.PENDING), any(Pageable.class));
+    verify(orderQueryService).getOrdersByStatus(eq(OrderStatus.PENDING), any(Pageable.class));
   }
 
   // ==================== MARK ORDER AS PROCESSING TESTS ====================
@@ -391,6 +409,7 @@ class AdminOrderControllerTest {
     processingOrder.setOrderItems(testOrder.getOrderItems());
 
     when(orderService.markOrderAsProcessing(testOrder.getId())).thenReturn(processingOrder);
+    when(orderQueryService.getOrder(testOrder.getId())).thenReturn(toResponse(processingOrder));
 
     // Act & Assert
     mockMvc
@@ -451,6 +470,7 @@ class AdminOrderControllerTest {
     completedOrder.setOrderItems(testOrder.getOrderItems());
 
     when(orderService.markOrderAsCompleted(testOrder.getId())).thenReturn(completedOrder);
+    when(orderQueryService.getOrder(testOrder.getId())).thenReturn(toResponse(completedOrder));
 
     // Act & Assert
     mockMvc
@@ -479,6 +499,7 @@ class AdminOrderControllerTest {
 
     when(orderService.markOrderAsFailed(testOrder.getId(), "Payment failed"))
         .thenReturn(failedOrder);
+    when(orderQueryService.getOrder(testOrder.getId())).thenReturn(toResponse(failedOrder));
 
     // Act & Assert
     mockMvc
@@ -506,6 +527,7 @@ class AdminOrderControllerTest {
 
     when(orderService.markOrderAsFailed(testOrder.getId(), "Order marked as failed by admin"))
         .thenReturn(failedOrder);
+    when(orderQueryService.getOrder(testOrder.getId())).thenReturn(toResponse(failedOrder));
 
     // Act & Assert
     mockMvc
@@ -532,6 +554,7 @@ class AdminOrderControllerTest {
     cancelledOrder.setOrderItems(testOrder.getOrderItems());
 
     when(orderService.cancelOrder(testOrder.getId(), "Out of stock")).thenReturn(cancelledOrder);
+    when(orderQueryService.getOrder(testOrder.getId())).thenReturn(toResponse(cancelledOrder));
 
     // Act & Assert
     mockMvc
@@ -645,7 +668,8 @@ class AdminOrderControllerTest {
   @WithMockUser(roles = "ADMIN")
   void getTopCustomers_Success() throws Exception {
     // Arrange
-    List<User> topCustomers = Arrays.asList(testUser);
+    List<TopCustomer> topCustomers =
+        List.of(new TopCustomer(testUser.getId(), "johndoe", 12, new BigDecimal("1200.00")));
     when(orderService.getTopCustomersByOrderCount(10)).thenReturn(topCustomers);
 
     // Act & Assert
@@ -653,7 +677,10 @@ class AdminOrderControllerTest {
         .perform(get("/api/admin/orders/top-customers").param("limit", "10"))
         .andExpect(status().isOk())
         .andExpect(jsonPath("$", hasSize(1)))
-        .andExpect(jsonPath("$[0]").value(testUser.getId().toString()));
+        .andExpect(jsonPath("$[0].userId").value(testUser.getId().toString()))
+        .andExpect(jsonPath("$[0].username").value("johndoe"))
+        .andExpect(jsonPath("$[0].completedOrderCount").value(12))
+        .andExpect(jsonPath("$[0].totalRevenue").value(1200.00));
 
     verify(orderService).getTopCustomersByOrderCount(10);
   }
@@ -663,7 +690,8 @@ class AdminOrderControllerTest {
   @WithMockUser(roles = "ADMIN")
   void getTopCustomers_DefaultLimit() throws Exception {
     // Arrange
-    List<User> topCustomers = Arrays.asList(testUser);
+    List<TopCustomer> topCustomers =
+        List.of(new TopCustomer(testUser.getId(), "johndoe", 12, new BigDecimal("1200.00")));
     when(orderService.getTopCustomersByOrderCount(10)).thenReturn(topCustomers);
 
     // Act & Assert
@@ -675,6 +703,54 @@ class AdminOrderControllerTest {
     verify(orderService).getTopCustomersByOrderCount(10);
   }
 
+  @Test
+  @DisplayName("Get top customers - Ranked by revenue")
+  @WithMockUser(roles = "ADMIN")
+  void getTopCustomers_RankedByRevenue() throws Exception {
+    // Arrange
+    List<TopCustomer> topCustomers =
+        List.of(new TopCustomer(testUser.getId(), "johndoe", 2, new BigDecimal("5000.00")));
+    when(orderService.getTopCustomersByRevenue(5)).thenReturn(topCustomers);
+
+    // Act & Assert
+    mockMvc
+        .perform(
+            get("/api/admin/orders/top-customers").param("limit", "5").param("rankBy", "revenue"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].totalRevenue").value(5000.00));
+
+    verify(orderService).getTopCustomersByRevenue(5);
+    verify(orderService, never()).getTopCustomersByOrderCount(anyInt());
+  }
+
+  @Test
+  @DisplayName("Rebuild top customers - Success")
+  @WithMockUser(roles = "ADMIN")
+  void rebuildTopCustomers_Success() throws Exception {
+    // Arrange
+    when(customerLeaderboardService.rebuildLeaderboard()).thenReturn(42);
+
+    // Act & Assert
+    mockMvc
+        .perform(post("/api/admin/orders/top-customers/rebuild").with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(content().string("42"));
+
+    verify(customerLeaderboardService).rebuildLeaderboard();
+  }
+
+  @Test
+  @DisplayName("Rebuild top customers - Access denied for non-admin")
+  @WithMockUser(roles = "USER")
+  void rebuildTopCustomers_AccessDenied() throws Exception {
+    // Act & Assert
+    mockMvc
+        .perform(post("/api/admin/orders/top-customers/rebuild").with(csrf()))
+        .andExpect(status().isForbidden());
+
+    verify(customerLeaderboardService, never()).rebuildLeaderboard();
+  }
+
   // ==================== GET RECENT ORDERS TESTS ====================
 
   @Test
@@ -760,11 +836,12 @@ class AdminOrderControllerTest {
   @WithMockUser(roles = "ADMIN")
   void getOrdersByUser_CustomSorting() throws Exception {
     // Arrange
-    List<Order> orders = Arrays.asList(testOrder);
-    Page<Order> orderPage = new PageImpl<>(orders, PageRequest.of(0, 10), 1);
+    Page<OrderResponseDto> orderPage =
+        new PageImpl<>(List.of(toResponse(testOrder)), PageRequest.of(0, 10), 1);
 
     when(userService.findById(testUser.getId())).thenReturn(Optional.of(testUser));
-    when(orderService.getOrdersByUser(eq(testUser), any(Pageable.class))).thenReturn(orderPage);
+    when(orderQueryService.getOrdersByUser(eq(testUser.getId()), any(Pageable.class)))
+        .thenReturn(orderPage);
 
     // Act & Assert
     mockMvc
@@ -777,6 +854,42 @@ class AdminOrderControllerTest {
         .andExpect(status().isOk())
         .andExpect(jsonPath("$.content", hasSize(1)));
 
-    verify(orderService).getOrdersByUser(eq(testUser), any(Pageable.class));
+    verify(orderQueryService).getOrdersByUser(eq(testUser.getId()), any(Pageable.class));
+  }
+
+  // Response the order read model would return for an order
+  private static OrderResponseDto toResponse(Order order) {
+    List<OrderResponseDto.OrderItemResponseDto> items =
+        order.getOrderItems().stream()
+            .map(
+                item ->
+                    new OrderResponseDto.OrderItemResponseDto(
+                        item.getId(),
+                        item.getStockItem().getId(),
+                        item.getProduct().getName(),
+                        item.getProduct().getDescription(),
+                        item.getProduct().getCategory().getName(),
+                        item.getProduct().getServer(),
+                        item.getPrice(),
+                        String.format("$%.2f", item.getPrice()),
+                        item.getNotes(),
+                        false))
+            .toList();
+
+    return new OrderResponseDto(
+        order.getId(),
+        order.getOrderNumber(),
+        order.getUser().getId(),
+        order.getUser().getUsername(),
+        order.getUser().getFullName(),
+        order.getTotalAmount(),
+        order.getTotalAmount() != null ? String.format("$%.2f", order.getTotalAmount()) : null,
+        order.getStatus(),
+        order.getStatus().getDisplayName(),
+        order.getNotes(),
+        order.getCreatedAt(),
+        order.getUpdatedAt(),
+        items,
+        null);
   }
 }
@@ -10,23 +10,28 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import com.accountselling.platform.config.TestSecurityConfig;
 import com.accountselling.platform.dto.stock.*;
+import com.accountselling.platform.enums.StockImportFormat;
 import com.accountselling.platform.exception.ResourceNotFoundException;
 import com.accountselling.platform.model.Category;
 import com.accountselling.platform.model.Product;
 import com.accountselling.platform.model.Stock;
 import com.accountselling.platform.service.ProductService;
+import com.accountselling.platform.service.StockImportService;
 import com.accountselling.platform.service.StockService;
+import com.accountselling.platform.util.KeysetCursor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -38,6 +43,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 /**
  * Comprehensive unit tests for AdminStockController. Tests all stock management operations,
@@ -54,6 +60,8 @@ class AdminStockControllerTest {
 
   @MockBean private ProductService productService;
 
+  @MockBean private StockImportService stockImportService;
+
   @Autowired private ObjectMapper objectMapper;
 
   private Stock testStock;
@@ -214,6 +222,77 @@ class AdminStockControllerTest {
     verify(stockService, never()).getStockByProduct(any(), any());
   }
 
+  // ==================== GET STOCK BY PRODUCT CURSOR TESTS ====================
+
+  @Test
+  @DisplayName("Get stock by product cursor - First page returns next cursor")
+  @WithMockUser(roles = "ADMIN")
+  void getStockByProductCursor_FirstPage() throws Exception {
+    // Arrange
+    Stock olderStock = new Stock();
+    olderStock.setId(UUID.randomUUID());
+    olderStock.setProduct(testProduct);
+    olderStock.setSold(false);
+    olderStock.setCreatedAt(testStock.getCreatedAt().minusHours(1));
+
+    when(productService.findById(testProduct.getId())).thenReturn(Optional.of(testProduct));
+    when(stockService.getStockByProductAfter(testProduct.getId(), null, 2))
+        .thenReturn(Arrays.asList(testStock, olderStock));
+
+    String expectedCursor =
+        new KeysetCursor(testStock.getCreatedAt(), testStock.getId()).encode();
+
+    // Act & Assert
+    mockMvc
+        .perform(
+            get("/api/admin/stock/product/{productId}/cursor", testProduct.getId())
+                .param("size", "1"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content", hasSize(1)))
+        .andExpect(jsonPath("$.content[0].id").value(testStock.getId().toString()))
+        .andExpect(jsonPath("$.size").value(1))
+        .andExpect(jsonPath("$.hasNext").value(true))
+        .andExpect(jsonPath("$.nextCursor").value(expectedCursor));
+
+    verify(stockService).getStockByProductAfter(testProduct.getId(), null, 2);
+  }
+
+  @Test
+  @DisplayName("Get stock by product cursor - Last page has no next cursor")
+  @WithMockUser(roles = "ADMIN")
+  void getStockByProductCursor_LastPage() throws Exception {
+    // Arrange
+    KeysetCursor cursor = new KeysetCursor(LocalDateTime.now(), UUID.randomUUID());
+
+    when(productService.findById(testProduct.getId())).thenReturn(Optional.of(testProduct));
+    when(stockService.getStockByProductAfter(testProduct.getId(), cursor, 21))
+        .thenReturn(List.of(testStock));
+
+    // Act & Assert
+    mockMvc
+        .perform(
+            get("/api/admin/stock/product/{productId}/cursor", testProduct.getId())
+                .param("cursor", cursor.encode()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.content", hasSize(1)))
+        .andExpect(jsonPath("$.hasNext").value(false))
+        .andExpect(jsonPath("$.nextCursor").doesNotExist());
+  }
+
+  @Test
+  @DisplayName("Get stock by product cursor - Invalid cursor")
+  @WithMockUser(roles = "ADMIN")
+  void getStockByProductCursor_InvalidCursor() throws Exception {
+    // Act & Assert
+    mockMvc
+        .perform(
+            get("/api/admin/stock/product/{productId}/cursor", testProduct.getId())
+                .param("cursor", "not-a-cursor"))
+        .andExpect(status().isBadRequest());
+
+    verify(stockService, never()).getStockByProductAfter(any(), any(), anyInt());
+  }
+
   // ==================== GET STOCK BY ID TESTS ====================
 
   @Test
@@ -438,6 +517,70 @@ class AdminStockControllerTest {
     verify(stockService, never()).createBulkStock(any(), any());
   }
 
+  // ==================== STOCK IMPORT TESTS ====================
+
+  @Test
+  @DisplayName("Import stock - CSV body")
+  @WithMockUser(roles = "ADMIN")
+  void importStock_Csv() throws Exception {
+    // Arrange
+    StockImportReportDto report =
+        StockImportReportDto.builder()
+            .productId(testProduct.getId())
+            .format("CSV")
+            .totalRecords(2)
+            .importedCount(2)
+            .chunks(List.of())
+            .build();
+
+    when(stockImportService.importStock(
+            eq(testProduct.getId()), any(), eq(StockImportFormat.CSV)))
+        .thenReturn(report);
+
+    // Act & Assert
+    mockMvc
+        .perform(
+            post("/api/admin/stock/product/{productId}/import", testProduct.getId())
+                .with(csrf())
+                .contentType("text/csv")
+                .content("accountData,additionalInfo\nuser1:pass1,\nuser2:pass2,vip\n"))
+        .andExpect(status().isCreated())
+        .andExpect(jsonPath("$.format").value("CSV"))
+        .andExpect(jsonPath("$.importedCount").value(2));
+
+    verify(stockImportService)
+        .importStock(eq(testProduct.getId()), any(), eq(StockImportFormat.CSV));
+  }
+
+  @Test
+  @DisplayName("Import stock - NDJSON body")
+  @WithMockUser(roles = "ADMIN")
+  void importStock_Ndjson() throws Exception {
+    // Arrange
+    StockImportReportDto report =
+        StockImportReportDto.builder()
+            .productId(testProduct.getId())
+            .format("NDJSON")
+            .totalRecords(1)
+            .importedCount(1)
+            .chunks(List.of())
+            .build();
+
+    when(stockImportService.importStock(
+            eq(testProduct.getId()), any(), eq(StockImportFormat.NDJSON)))
+        .thenReturn(report);
+
+    // Act & Assert
+    mockMvc
+        .perform(
+            post("/api/admin/stock/product/{productId}/import", testProduct.getId())
+                .with(csrf())
+                .contentType("application/x-ndjson")
+                .content("{\"accountData\":\"user1:pass1\"}\n"))
+        .andExpect(status().isCreated())
+        .andExpect(jsonPath("$.format").value("NDJSON"));
+  }
+
   // ==================== UPDATE STOCK TESTS ====================
 
   @Test
@@ -566,6 +709,48 @@ class AdminStockControllerTest {
     verify(stockService).releaseReservation(testStock.getId());
   }
 
+  // ==================== HOT STOCK POOL TESTS ====================
+
+  @Test
+  @DisplayName("Enable hot stock pool - Success")
+  @WithMockUser(roles = "ADMIN")
+  void enableHotStockPool_Success() throws Exception {
+    // Arrange
+    HotStockPoolStatsDto stats =
+        HotStockPoolStatsDto.builder().productId(testProduct.getId()).leaseSize(200).build();
+    when(stockService.enableHotStockPool(testProduct.getId(), 200)).thenReturn(stats);
+
+    // Act & Assert
+    mockMvc
+        .perform(
+            put("/api/admin/stock/product/{productId}/hot-pool", testProduct.getId())
+                .param("leaseSize", "200")
+                .with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.productId").value(testProduct.getId().toString()))
+        .andExpect(jsonPath("$.leaseSize").value(200));
+
+    verify(stockService).enableHotStockPool(testProduct.getId(), 200);
+  }
+
+  @Test
+  @DisplayName("Disable hot stock pool - Returns unused leases")
+  @WithMockUser(roles = "ADMIN")
+  void disableHotStockPool_ReturnsUnusedLeases() throws Exception {
+    // Arrange
+    when(stockService.disableHotStockPool(testProduct.getId())).thenReturn(12);
+
+    // Act & Assert
+    mockMvc
+        .perform(
+            delete("/api/admin/stock/product/{productId}/hot-pool", testProduct.getId())
+                .with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(content().string("12"));
+
+    verify(stockService).disableHotStockPool(testProduct.getId());
+  }
+
   // ==================== DELETE STOCK TESTS ====================
 
   @Test
@@ -693,20 +878,26 @@ class AdminStockControllerTest {
     expiredStock.setProduct(testProduct);
     expiredStock.setReservedUntil(LocalDateTime.now().minusHours(1));
 
-    List<Stock> expiredReservations = Arrays.asList(expiredStock);
-    when(stockService.getExpiredReservations()).thenReturn(expiredReservations);
+    doAnswer(streamStock(0, expiredStock)).when(stockService).streamExpiredReservations(any());
 
     // Act & Assert
+    MvcResult mvcResult =
+        mockMvc
+            .perform(get("/api/admin/stock/expired-reservations"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
     mockMvc
-        .perform(get("/api/admin/stock/expired-reservations"))
+        .perform(asyncDispatch(mvcResult))
         .andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
         .andExpect(jsonPath("$", hasSize(1)))
         .andExpect(jsonPath("$[0].id").value(expiredStock.getId().toString()))
         .andExpect(
             jsonPath("$[0].status")
                 .value("AVAILABLE")); // Expired reservation should show as available
 
-    verify(stockService).getExpiredReservations();
+    verify(stockService).streamExpiredReservations(any());
   }
 
   // ==================== CLEANUP EXPIRED RESERVATIONS TESTS ====================
@@ -740,19 +931,26 @@ class AdminStockControllerTest {
     soldStock.setSold(true);
     soldStock.setSoldAt(LocalDateTime.now().minusDays(1));
 
-    List<Stock> soldStockList = Arrays.asList(soldStock);
-    when(stockService.getSoldStock(null, null, null)).thenReturn(soldStockList);
+    doAnswer(streamStock(3, soldStock))
+        .when(stockService)
+        .streamSoldStock(isNull(), isNull(), isNull(), any());
 
     // Act & Assert
+    MvcResult mvcResult =
+        mockMvc
+            .perform(get("/api/admin/stock/sold"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
     mockMvc
-        .perform(get("/api/admin/stock/sold"))
+        .perform(asyncDispatch(mvcResult))
         .andExpect(status().isOk())
         .andExpect(jsonPath("$", hasSize(1)))
         .andExpect(jsonPath("$[0].id").value(soldStock.getId().toString()))
         .andExpect(jsonPath("$[0].sold").value(true))
         .andExpect(jsonPath("$[0].status").value("SOLD"));
 
-    verify(stockService).getSoldStock(null, null, null);
+    verify(stockService).streamSoldStock(isNull(), isNull(), isNull(), any());
   }
 
   @Test
@@ -765,18 +963,42 @@ class AdminStockControllerTest {
     soldStock.setProduct(testProduct);
     soldStock.setSold(true);
 
-    List<Stock> soldStockList = Arrays.asList(soldStock);
-    when(stockService.getSoldStock(eq(testProduct.getId()), any(), any()))
-        .thenReturn(soldStockList);
+    when(productService.findById(testProduct.getId())).thenReturn(Optional.of(testProduct));
+    doAnswer(streamStock(3, soldStock))
+        .when(stockService)
+        .streamSoldStock(eq(testProduct.getId()), any(), any(), any());
 
     // Act & Assert
+    MvcResult mvcResult =
+        mockMvc
+            .perform(
+                get("/api/admin/stock/sold").param("productId", testProduct.getId().toString()))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
     mockMvc
-        .perform(get("/api/admin/stock/sold").param("productId", testProduct.getId().toString()))
+        .perform(asyncDispatch(mvcResult))
         .andExpect(status().isOk())
         .andExpect(jsonPath("$", hasSize(1)))
         .andExpect(jsonPath("$[0].product.id").value(testProduct.getId().toString()));
 
-    verify(stockService).getSoldStock(eq(testProduct.getId()), any(), any());
+    verify(stockService).streamSoldStock(eq(testProduct.getId()), any(), any(), any());
+  }
+
+  @Test
+  @DisplayName("Get sold stock - Unknown product returns 404 before streaming")
+  @WithMockUser(roles = "ADMIN")
+  void getSoldStock_ProductNotFound() throws Exception {
+    // Arrange
+    UUID unknownProductId = UUID.randomUUID();
+    when(productService.findById(unknownProductId)).thenReturn(Optional.empty());
+
+    // Act & Assert
+    mockMvc
+        .perform(get("/api/admin/stock/sold").param("productId", unknownProductId.toString()))
+        .andExpect(status().isNotFound());
+
+    verify(stockService, never()).streamSoldStock(any(), any(), any(), any());
   }
 
   @Test
@@ -792,19 +1014,36 @@ class AdminStockControllerTest {
     soldStock.setProduct(testProduct);
     soldStock.setSold(true);
 
-    List<Stock> soldStockList = Arrays.asList(soldStock);
-    when(stockService.getSoldStock(any(), any(LocalDateTime.class), any(LocalDateTime.class)))
-        .thenReturn(soldStockList);
+    doAnswer(streamStock(3, soldStock))
+        .when(stockService)
+        .streamSoldStock(any(), any(LocalDateTime.class), any(LocalDateTime.class), any());
 
     // Act & Assert
+    MvcResult mvcResult =
+        mockMvc
+            .perform(
+                get("/api/admin/stock/sold")
+                    .param("startDate", startDate.toString())
+                    .param("endDate", endDate.toString()))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
     mockMvc
-        .perform(
-            get("/api/admin/stock/sold")
-                .param("startDate", startDate.toString())
-                .param("endDate", endDate.toString()))
+        .perform(asyncDispatch(mvcResult))
         .andExpect(status().isOk())
         .andExpect(jsonPath("$", hasSize(1)));
 
-    verify(stockService).getSoldStock(any(), any(LocalDateTime.class), any(LocalDateTime.class));
+    verify(stockService)
+        .streamSoldStock(any(), any(LocalDateTime.class), any(LocalDateTime.class), any());
+  }
+
+  /** Answer handing the given stock items to the consumer argument of a streaming call. */
+  @SuppressWarnings("unchecked")
+  private Answer<Long> streamStock(int consumerIndex, Stock... stock) {
+    return invocation -> {
+      Consumer<Stock> consumer = invocation.getArgument(consumerIndex, Consumer.class);
+      Arrays.stream(stock).forEach(consumer);
+      return (long) stock.length;
+    };
   }
 }
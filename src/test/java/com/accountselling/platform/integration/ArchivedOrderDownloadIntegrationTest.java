@@ -0,0 +1,103 @@
+package com.accountselling.platform.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.accountselling.platform.config.PostgresIntegrationTest;
+import com.accountselling.platform.enums.OrderStatus;
+import com.accountselling.platform.model.Category;
+import com.accountselling.platform.model.Order;
+import com.accountselling.platform.model.OrderItem;
+import com.accountselling.platform.model.Product;
+import com.accountselling.platform.model.Stock;
+import com.accountselling.platform.model.User;
+import com.accountselling.platform.repository.CategoryRepository;
+import com.accountselling.platform.repository.OrderRepository;
+import com.accountselling.platform.repository.ProductRepository;
+import com.accountselling.platform.repository.RoleRepository;
+import com.accountselling.platform.repository.StockRepository;
+import com.accountselling.platform.repository.UserRepository;
+import com.accountselling.platform.service.OrderService;
+import com.accountselling.platform.service.StockArchiveService;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Integration tests of downloading completed orders whose sold stock was moved to the sold stock
+ * history. The order items are loaded in a fresh persistence context after archival, as in
+ * production, so a stock row that is gone must never be loaded through an order item.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@DisplayName("Archived Order Download Integration Tests")
+class ArchivedOrderDownloadIntegrationTest extends PostgresIntegrationTest {
+
+  @Autowired private MockMvc mockMvc;
+
+  @Autowired private OrderService orderService;
+
+  @Autowired private StockArchiveService stockArchiveService;
+
+  @Autowired private UserRepository userRepository;
+
+  @Autowired private RoleRepository roleRepository;
+
+  @Autowired private CategoryRepository categoryRepository;
+
+  @Autowired private ProductRepository productRepository;
+
+  @Autowired private StockRepository stockRepository;
+
+  @Autowired private OrderRepository orderRepository;
+
+  @Test
+  @DisplayName("Should download a completed order after its stock was archived")
+  void shouldDownloadOrderWithArchivedStock() throws Exception {
+    // Given - a completed order whose stock was sold long enough ago to be archived
+    String suffix = UUID.randomUUID().toString().substring(0, 8);
+    User buyer = new User("archive" + suffix, "password", suffix + "@archive.test");
+    buyer.setRoles(Set.of(roleRepository.findByName("ROLE_USER").orElseThrow()));
+    buyer = userRepository.save(buyer);
+    Category category = categoryRepository.save(new Category("Archive Category " + suffix));
+    Product product =
+        productRepository.save(
+            new Product("Archive Product " + suffix, new BigDecimal("25.00"), category));
+    Stock stock = stockRepository.save(new Stock(product, "archived" + suffix + ":secret"));
+
+    Order order = new Order(buyer, product.getPrice(), OrderStatus.COMPLETED);
+    order.addOrderItem(new OrderItem(order, product, stock, product.getPrice()));
+    UUID orderId = orderRepository.save(order).getId();
+    stockRepository.markAsSoldReturningProducts(
+        List.of(stock.getId()), LocalDateTime.now().minusDays(100));
+
+    // When
+    int archived = stockArchiveService.archiveSoldStock();
+
+    // Then - the stock row is gone, and both download paths still find the account data
+    assertThat(archived).isPositive();
+    assertThat(stockRepository.existsById(stock.getId())).isFalse();
+
+    Map<String, String> downloadInfo = orderService.getOrderDownloadInfo(orderId, buyer);
+    assertThat(downloadInfo).containsEntry(product.getName(), stock.getAccountData());
+
+    mockMvc
+        .perform(
+            get("/api/users/download/{orderId}", orderId)
+                .with(user(buyer.getUsername()).roles("USER")))
+        .andExpect(status().isOk())
+        .andExpect(content().string(containsString(stock.getAccountData())));
+  }
+}
@@ -0,0 +1,152 @@
+package com.accountselling.platform.performance;
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.accountselling.platform.util.UuidV7;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+/**
+ * Benchmark of random version 4 against time-ordered version 7 UUID primary keys. Inserts the same
+ * number of rows into tables shaped like stock and orders with each kind of key and reports insert
+ * throughput and primary key index size. Random keys split pages all over the index, which leaves
+ * it larger with partly empty pages; time-ordered keys only fill the rightmost page.
+ *
+ * <p>Runs against a PostgreSQL container and is skipped when Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("UUID Key Insert Benchmark")
+class UuidKeyInsertBenchmarkTest {
+
+  private static final int ROWS = 200_000;
+  private static final int BATCH_SIZE = 1_000;
+
+  private static final String STOCK_TABLE =
+      "CREATE TABLE %s (id UUID PRIMARY KEY, product_id UUID NOT NULL,"
+          + " account_data TEXT NOT NULL, fingerprint VARCHAR(64) NOT NULL,"
+          + " sold BOOLEAN NOT NULL, created_at TIMESTAMP NOT NULL)";
+  private static final String STOCK_INSERT =
+      "INSERT INTO %s (id, product_id, account_data, fingerprint, sold, created_at)"
+          + " VALUES (?, ?, ?, ?, false, ?)";
+
+  private static final String ORDER_TABLE =
+      "CREATE TABLE %s (id UUID PRIMARY KEY, user_id UUID NOT NULL,"
+          + " order_number VARCHAR(50) NOT NULL, total_amount NUMERIC(10, 2) NOT NULL,"
+          + " status VARCHAR(20) NOT NULL, created_at TIMESTAMP NOT NULL)";
+  private static final String ORDER_INSERT =
+      "INSERT INTO %s (id, user_id, order_number, total_amount, status, created_at)"
+          + " VALUES (?, ?, ?, ?, 'COMPLETED', ?)";
+
+  @Container
+  private static final PostgreSQLContainer<?> POSTGRES =
+      new PostgreSQLContainer<>(DockerImageName.parse("postgres:14"))
+          .withDatabaseName("uuid_benchmark")
+          .withUsername("test")
+          .withPassword("test");
+
+  @Test
+  @DisplayName("Should keep the stock primary key index smaller with version 7 keys")
+  void shouldCompareStockKeys() throws SQLException {
+    Result v4 = run("bench_stock_v4", STOCK_TABLE, STOCK_INSERT, UUID::randomUUID);
+    Result v7 = run("bench_stock_v7", STOCK_TABLE, STOCK_INSERT, UuidV7::randomUuid);
+
+    report("stock", v4, v7);
+    assertThat(v7.indexBytes()).isLessThan(v4.indexBytes());
+  }
+
+  @Test
+  @DisplayName("Should keep the orders primary key index smaller with version 7 keys")
+  void shouldCompareOrderKeys() throws SQLException {
+    Result v4 = run("bench_orders_v4", ORDER_TABLE, ORDER_INSERT, UUID::randomUUID);
+    Result v7 = run("bench_orders_v7", ORDER_TABLE, ORDER_INSERT, UuidV7::randomUuid);
+
+    report("orders", v4, v7);
+    assertThat(v7.indexBytes()).isLessThan(v4.indexBytes());
+  }
+
+  private Result run(String table, String ddl, String insert, Supplier<UUID> keys)
+      throws SQLException {
+    try (Connection connection =
+        DriverManager.getConnection(
+            POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())) {
+      try (Statement statement = connection.createStatement()) {
+        statement.execute(String.format(ddl, table));
+      }
+
+      connection.setAutoCommit(false);
+      UUID owner = UUID.randomUUID();
+      Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+      long start = System.nanoTime();
+
+      try (PreparedStatement statement =
+          connection.prepareStatement(String.format(insert, table))) {
+        for (int row = 0; row < ROWS; row++) {
+          statement.setObject(1, keys.get());
+          statement.setObject(2, owner);
+          if (table.startsWith("bench_stock")) {
+            statement.setString(3, "user" + row + ":password" + row);
+            statement.setString(4, String.format("%064x", row));
+          } else {
+            statement.setString(3, "ORD-" + row);
+            statement.setBigDecimal(4, BigDecimal.valueOf(row % 10_000, 2));
+          }
+          statement.setTimestamp(5, now);
+          statement.addBatch();
+
+          if ((row + 1) % BATCH_SIZE == 0) {
+            statement.executeBatch();
+            connection.commit();
+          }
+        }
+      }
+
+      long elapsedNanos = System.nanoTime() - start;
+      connection.setAutoCommit(true);
+      return new Result(ROWS * 1_000_000_000L / elapsedNanos, indexSize(connection, table));
+    }
+  }
+
+  private static long indexSize(Connection connection, String table) throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("VACUUM ANALYZE " + table);
+      try (ResultSet resultSet =
+          statement.executeQuery("SELECT pg_relation_size('" + table + "_pkey')")) {
+        resultSet.next();
+        return resultSet.getLong(1);
+      }
+    }
+  }
+
+  private static void report(String table, Result v4, Result v7) {
+    System.out.printf(
+        "%s: v4 %,d rows/s, index %,d KB | v7 %,d rows/s, index %,d KB%n",
+        table,
+        v4.rowsPerSecond(),
+        v4.indexBytes() / 1024,
+        v7.rowsPerSecond(),
+        v7.indexBytes() / 1024);
+  }
+
+  /**
+   * Measurements of one run.
+   *
+   * @param rowsPerSecond insert throughput
+   * @param indexBytes size of the primary key index
+   */
+  private record Result(long rowsPerSecond, long indexBytes) {}
+}
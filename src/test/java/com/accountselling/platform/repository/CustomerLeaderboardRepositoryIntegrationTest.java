@@ -0,0 +1,183 @@
+package com.accountselling.platform.repository;
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.accountselling.platform.config.PostgresIntegrationTest;
+import com.accountselling.platform.dto.statistics.TopCustomer;
+import com.accountselling.platform.enums.OrderStatus;
+import com.accountselling.platform.model.CustomerLeaderboardEntry;
+import com.accountselling.platform.model.Order;
+import com.accountselling.platform.model.User;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * PostgreSQL tests of the customer leaderboard: the completion upsert and the drift comparison and
+ * corrections of a rebuild, including a completion committed between the two.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Customer Leaderboard Repository PostgreSQL Tests")
+class CustomerLeaderboardRepositoryIntegrationTest extends PostgresIntegrationTest {
+
+  // Range of every user ID, in PostgreSQL's unsigned UUID order
+  private static final UUID BEFORE_ALL = new UUID(0L, 0L);
+  private static final UUID LAST_OF_ALL = new UUID(-1L, -1L);
+
+  @Autowired private CustomerLeaderboardRepository customerLeaderboardRepository;
+
+  @Autowired private UserRepository userRepository;
+
+  @Autowired private OrderRepository orderRepository;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @Autowired private TransactionTemplate transactionTemplate;
+
+  @Test
+  @DisplayName("Should add completed orders to the customer's row")
+  void shouldRecordCompletedOrders() {
+    // Given
+    User user = createUser();
+    Order first = createOrder(user, "30.00", OrderStatus.COMPLETED);
+    Order second = createOrder(user, "20.00", OrderStatus.COMPLETED);
+
+    // When
+    recordCompleted(first, second);
+
+    // Then
+    CustomerLeaderboardEntry entry =
+        customerLeaderboardRepository.findById(user.getId()).orElseThrow();
+    assertThat(entry.getCompletedOrderCount()).isEqualTo(2);
+    assertThat(entry.getTotalRevenue()).isEqualByComparingTo("50.00");
+    assertThat(entry.getLastCompletedAt()).isNotNull();
+    assertThat(customerLeaderboardRepository.findTopByOrderCount(Limit.of(10_000)))
+        .extracting(TopCustomer::userId)
+        .contains(user.getId());
+  }
+
+  @Test
+  @DisplayName("Should correct drifted rows while keeping completions made since the comparison")
+  void shouldCorrectDrift() {
+    // Given - an overcounted customer, a missed customer and a customer without orders
+    User overcounted = createUser();
+    Order first = createOrder(overcounted, "30.00", OrderStatus.COMPLETED);
+    Order second = createOrder(overcounted, "20.00", OrderStatus.COMPLETED);
+    recordCompleted(first, second);
+    setRow(overcounted, 7, "0.00");
+
+    User missed = createUser();
+    createOrder(missed, "15.00", OrderStatus.COMPLETED);
+
+    User empty = createUser();
+    createOrder(empty, "9.00", OrderStatus.CANCELLED);
+    setRow(empty, 3, "9.00");
+
+    Set<UUID> userIds = Set.of(overcounted.getId(), missed.getId(), empty.getId());
+
+    // When - the rows are compared from one snapshot
+    List<Object[]> drift =
+        transactionTemplate
+            .execute(
+                status -> customerLeaderboardRepository.findDriftBetween(BEFORE_ALL, LAST_OF_ALL))
+            .stream()
+            .filter(row -> userIds.contains((UUID) row[0]))
+            .toList();
+
+    // Then - [userId, orderCountDifference, revenueDifference, lastCompletedAt]
+    assertThat(drift).hasSize(3);
+    assertDrift(drift, overcounted, -5, "50.00");
+    assertDrift(drift, missed, 1, "15.00");
+    assertDrift(drift, empty, -3, "-9.00");
+
+    // When - an order completes before the corrections are applied
+    Order third = createOrder(overcounted, "25.00", OrderStatus.COMPLETED);
+    recordCompleted(third);
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          for (Object[] row : drift) {
+            customerLeaderboardRepository.applyCorrection(
+                (UUID) row[0],
+                ((Number) row[1]).longValue(),
+                (BigDecimal) row[2],
+                toLocalDateTime(row[3]));
+          }
+          customerLeaderboardRepository.deleteEmptyByUserIdIn(userIds);
+        });
+
+    // Then
+    assertRow(overcounted, 3, "75.00");
+    assertRow(missed, 1, "15.00");
+    assertThat(customerLeaderboardRepository.findById(empty.getId())).isEmpty();
+  }
+
+  private User createUser() {
+    String suffix = UUID.randomUUID().toString().substring(0, 8);
+    return userRepository.save(new User("board" + suffix, "password", suffix + "@board.test"));
+  }
+
+  private Order createOrder(User user, String totalAmount, OrderStatus status) {
+    return orderRepository.save(new Order(user, new BigDecimal(totalAmount), status));
+  }
+
+  private void recordCompleted(Order... orders) {
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          for (Order order : orders) {
+            customerLeaderboardRepository.recordCompletedOrder(order.getId());
+          }
+        });
+  }
+
+  private void setRow(User user, long orderCount, String revenue) {
+    jdbcTemplate.update(
+        "INSERT INTO customer_leaderboard"
+            + " (user_id, completed_order_count, total_revenue, last_completed_at, updated_at)"
+            + " VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP)"
+            + " ON CONFLICT (user_id) DO UPDATE SET completed_order_count ="
+            + " EXCLUDED.completed_order_count, total_revenue = EXCLUDED.total_revenue",
+        user.getId(),
+        orderCount,
+        new BigDecimal(revenue),
+        Timestamp.valueOf(LocalDateTime.now()));
+  }
+
+  private void assertDrift(List<Object[]> drift, User user, long orderCount, String revenue) {
+    assertThat(drift)
+        .filteredOn(row -> user.getId().equals(row[0]))
+        .singleElement()
+        .satisfies(
+            row -> {
+              assertThat(((Number) row[1]).longValue()).isEqualTo(orderCount);
+              assertThat((BigDecimal) row[2]).isEqualByComparingTo(revenue);
+            });
+  }
+
+  private static LocalDateTime toLocalDateTime(Object value) {
+    return value instanceof Timestamp timestamp
+        ? timestamp.toLocalDateTime()
+        : (LocalDateTime) value;
+  }
+
+  private void assertRow(User user, long orderCount, String revenue) {
+    CustomerLeaderboardEntry entry =
+        customerLeaderboardRepository.findById(user.getId()).orElseThrow();
+    assertThat(entry.getCompletedOrderCount()).isEqualTo(orderCount);
+    assertThat(entry.getTotalRevenue()).isEqualByComparingTo(revenue);
+  }
+}
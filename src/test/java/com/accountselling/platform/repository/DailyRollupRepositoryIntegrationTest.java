@@ -0,0 +1,215 @@
+package com.accountselling.platform.repository;
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.accountselling.platform.config.PostgresIntegrationTest;
+import com.accountselling.platform.enums.OrderStatus;
+import com.accountselling.platform.model.Order;
+import com.accountselling.platform.model.Payment;
+import com.accountselling.platform.model.User;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * PostgreSQL tests of the daily order and payment rollups: slot upserts of the deltas, the per-day
+ * advisory lock a rebuild takes against them and the recount. Every test writes to a random day
+ * in the past, so tests do not share rollup rows.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Daily Rollup Repository PostgreSQL Tests")
+class DailyRollupRepositoryIntegrationTest extends PostgresIntegrationTest {
+
+  @Autowired private OrderDailyRollupRepository orderDailyRollupRepository;
+
+  @Autowired private PaymentDailyRollupRepository paymentDailyRollupRepository;
+
+  @Autowired private UserRepository userRepository;
+
+  @Autowired private OrderRepository orderRepository;
+
+  @Autowired private PaymentRepository paymentRepository;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @Autowired private TransactionTemplate transactionTemplate;
+
+  private User user;
+  private LocalDate day;
+
+  @BeforeEach
+  void setUp() {
+    String suffix = UUID.randomUUID().toString().substring(0, 8);
+    user =
+        userRepository.save(new User("rollup" + suffix, "password", suffix + "@rollup.test"));
+    day = LocalDate.of(1990, 1, 1).plusDays(ThreadLocalRandom.current().nextInt(10_000));
+  }
+
+  @Test
+  @DisplayName("Should add order deltas to the day and recount it after drift")
+  void shouldRebuildOrderRollup() {
+    // Given
+    Order pending = createOrder(new BigDecimal("20.00"), OrderStatus.PENDING);
+    Order completed = createOrder(new BigDecimal("50.00"), OrderStatus.COMPLETED);
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          orderDailyRollupRepository.recordCreated(pending.getId());
+          orderDailyRollupRepository.recordCreated(completed.getId());
+          orderDailyRollupRepository.recordCompleted(completed.getId(), completed.getTotalAmount());
+        });
+    assertOrderRollup(2, "50.00");
+
+    // When - the rollup drifts and the day is rebuilt
+    jdbcTemplate.update(
+        "UPDATE order_daily_rollup SET order_count = order_count + 5 WHERE rollup_date = ?", day);
+    int written = rebuildOrderDay();
+
+    // Then
+    assertThat(written).isEqualTo(1);
+    assertOrderRollup(2, "50.00");
+  }
+
+  @Test
+  @DisplayName("Should make a rebuild of the day wait for open deltas but not other deltas")
+  void shouldLockDayAgainstDeltas() throws Exception {
+    Order first = createOrder(new BigDecimal("10.00"), OrderStatus.PENDING);
+    Order second = createOrder(new BigDecimal("10.00"), OrderStatus.PENDING);
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    CountDownLatch deltaApplied = new CountDownLatch(1);
+    CountDownLatch commitDelta = new CountDownLatch(1);
+    try {
+      // Given - an order transaction that added its delta and has not committed
+      Future<?> delta =
+          executor.submit(
+              () ->
+                  transactionTemplate.executeWithoutResult(
+                      status -> {
+                        orderDailyRollupRepository.applyDelta(
+                            first.getId(), (short) 0, 1, BigDecimal.ZERO);
+                        deltaApplied.countDown();
+                        await(commitDelta);
+                      }));
+      assertThat(deltaApplied.await(10, TimeUnit.SECONDS)).isTrue();
+
+      // When - a delta to another slot of the day and a rebuild of the day start
+      executor
+          .submit(
+              () ->
+                  transactionTemplate.executeWithoutResult(
+                      status ->
+                          orderDailyRollupRepository.applyDelta(
+                              second.getId(), (short) 1, 1, BigDecimal.ZERO)))
+          .get(5, TimeUnit.SECONDS);
+      Future<Integer> rebuild = executor.submit(this::rebuildOrderDay);
+
+      // Then - only the rebuild waits, and it counts the delta's order once it commits
+      assertThatThrownBy(() -> rebuild.get(500, TimeUnit.MILLISECONDS))
+          .isInstanceOf(TimeoutException.class);
+      commitDelta.countDown();
+      delta.get(10, TimeUnit.SECONDS);
+      assertThat(rebuild.get(10, TimeUnit.SECONDS)).isEqualTo(1);
+      assertOrderRollup(2, "0.00");
+    } finally {
+      commitDelta.countDown();
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  @DisplayName("Should add payment deltas to the day and recount it after drift")
+  void shouldRebuildPaymentRollup() {
+    // Given
+    Order order = createOrder(new BigDecimal("40.00"), OrderStatus.COMPLETED);
+    Payment payment = new Payment(order, new BigDecimal("40.00"), "QRCODE");
+    payment.markAsCompleted("TX-" + UUID.randomUUID());
+    Payment saved = paymentRepository.save(payment);
+    jdbcTemplate.update(
+        "UPDATE payments SET created_at = ? WHERE id = ?", noonOf(day), saved.getId());
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          paymentDailyRollupRepository.recordCreated(saved.getId());
+          paymentDailyRollupRepository.recordCompleted(saved.getId(), saved.getAmount());
+        });
+
+    // When - the rollup drifts and the day is rebuilt
+    jdbcTemplate.update(
+        "UPDATE payment_daily_rollup SET revenue = revenue + 100 WHERE rollup_date = ?", day);
+    Integer written =
+        transactionTemplate.execute(
+            status -> {
+              paymentDailyRollupRepository.lockDayForRebuild(day);
+              paymentDailyRollupRepository.deleteByDateBetween(day, day);
+              return paymentDailyRollupRepository.recountBetween(
+                  day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+            });
+
+    // Then - [date, paymentCount, revenue, refunds]
+    assertThat(written).isEqualTo(1);
+    List<Object[]> rollups = paymentDailyRollupRepository.sumByDateBetween(day, day);
+    assertThat(rollups).hasSize(1);
+    assertThat(((Number) rollups.get(0)[1]).longValue()).isEqualTo(1L);
+    assertThat((BigDecimal) rollups.get(0)[2]).isEqualByComparingTo("40.00");
+    assertThat((BigDecimal) rollups.get(0)[3]).isEqualByComparingTo("0");
+  }
+
+  private Order createOrder(BigDecimal totalAmount, OrderStatus status) {
+    Order order = orderRepository.save(new Order(user, totalAmount, status));
+    jdbcTemplate.update(
+        "UPDATE orders SET created_at = ? WHERE id = ?", noonOf(day), order.getId());
+    return order;
+  }
+
+  private int rebuildOrderDay() {
+    Integer written =
+        transactionTemplate.execute(
+            status -> {
+              orderDailyRollupRepository.lockDayForRebuild(day);
+              orderDailyRollupRepository.deleteByDateBetween(day, day);
+              return orderDailyRollupRepository.recountBetween(
+                  day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+            });
+    return written != null ? written : 0;
+  }
+
+  // Rollup of the test day as [date, orderCount, revenue]
+  private void assertOrderRollup(long orderCount, String revenue) {
+    List<Object[]> rollups = orderDailyRollupRepository.sumByDateBetween(day, day);
+    assertThat(rollups).hasSize(1);
+    assertThat(rollups.get(0)[0]).isEqualTo(day);
+    assertThat(((Number) rollups.get(0)[1]).longValue()).isEqualTo(orderCount);
+    assertThat((BigDecimal) rollups.get(0)[2]).isEqualByComparingTo(revenue);
+  }
+
+  private static Timestamp noonOf(LocalDate date) {
+    return Timestamp.valueOf(date.atTime(12, 0));
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
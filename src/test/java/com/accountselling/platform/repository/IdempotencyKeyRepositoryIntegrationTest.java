@@ -0,0 +1,45 @@
+package com.accountselling.platform.repository;
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.accountselling.platform.config.PostgresIntegrationTest;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+/** PostgreSQL tests of the Idempotency-Key claim upsert. */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DisplayName("Idempotency Key Repository PostgreSQL Tests")
+class IdempotencyKeyRepositoryIntegrationTest extends PostgresIntegrationTest {
+
+  @Autowired private IdempotencyKeyRepository idempotencyKeyRepository;
+
+  @Test
+  @DisplayName("Should claim a key once until it expires")
+  void shouldClaimKeyOnceUntilExpired() {
+    String key = UUID.randomUUID().toString();
+    LocalDateTime now = LocalDateTime.now();
+
+    List<String> first =
+        idempotencyKeyRepository.claim("orders", key, "hash-1", now, now.plusHours(1));
+    List<String> again =
+        idempotencyKeyRepository.claim(
+            "orders", key, "hash-2", now.plusMinutes(1), now.plusHours(2));
+    List<String> otherScope =
+        idempotencyKeyRepository.claim("payments", key, "hash-1", now, now.plusHours(1));
+    List<String> afterExpiry =
+        idempotencyKeyRepository.claim(
+            "orders", key, "hash-3", now.plusHours(2), now.plusHours(3));
+
+    assertThat(first).containsExactly(key);
+    assertThat(again).isEmpty();
+    assertThat(otherScope).containsExactly(key);
+    assertThat(afterExpiry).containsExactly(key);
+  }
+}
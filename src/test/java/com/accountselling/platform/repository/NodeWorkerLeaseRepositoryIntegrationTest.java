@@ -0,0 +1,69 @@
+package com.accountselling.platform.repository;
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.accountselling.platform.config.PostgresIntegrationTest;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+/** PostgreSQL tests of the worker ID lease claim, renewal and takeover of lapsed leases. */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DisplayName("Node Worker Lease Repository PostgreSQL Tests")
+class NodeWorkerLeaseRepositoryIntegrationTest extends PostgresIntegrationTest {
+
+  private static final int MAX_WORKER_ID = 1023;
+
+  @Autowired private NodeWorkerLeaseRepository nodeWorkerLeaseRepository;
+
+  @Test
+  @DisplayName("Should lease distinct worker IDs to live nodes and keep a node's own lease")
+  void shouldLeaseDistinctWorkerIds() {
+    LocalDateTime now = LocalDateTime.now();
+    String nodeA = node();
+    String nodeB = node();
+
+    List<Integer> first =
+        nodeWorkerLeaseRepository.claim(nodeA, MAX_WORKER_ID, now, now.plusHours(1));
+    List<Integer> second =
+        nodeWorkerLeaseRepository.claim(nodeB, MAX_WORKER_ID, now, now.plusHours(1));
+    List<Integer> again =
+        nodeWorkerLeaseRepository.claim(nodeA, MAX_WORKER_ID, now, now.plusHours(1));
+
+    assertThat(first).hasSize(1);
+    assertThat(second).hasSize(1).doesNotContainAnyElementsOf(first);
+    assertThat(again).isEqualTo(first);
+  }
+
+  @Test
+  @DisplayName("Should let another node take over a lapsed lease, which the old node cannot renew")
+  void shouldTakeOverLapsedLease() {
+    LocalDateTime now = LocalDateTime.now();
+    String oldNode = node();
+    String newNode = node();
+    int workerId =
+        nodeWorkerLeaseRepository.claim(oldNode, MAX_WORKER_ID, now, now.plusMinutes(1)).get(0);
+
+    // When - the lease lapses and the lowest free worker ID is claimed
+    LocalDateTime later = now.plusMinutes(2);
+    List<Integer> taken =
+        nodeWorkerLeaseRepository.claim(newNode, MAX_WORKER_ID, later, later.plusHours(1));
+
+    // Then
+    assertThat(taken).containsExactly(workerId);
+    assertThat(nodeWorkerLeaseRepository.renew(workerId, oldNode, later, later.plusMinutes(10)))
+        .isZero();
+    assertThat(nodeWorkerLeaseRepository.renew(workerId, newNode, later, later.plusHours(1)))
+        .isEqualTo(1);
+  }
+
+  private static String node() {
+    return "test-node-" + UUID.randomUUID();
+  }
+}
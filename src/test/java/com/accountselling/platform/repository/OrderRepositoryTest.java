@@ -2,6 +2,7 @@ package com.accountselling.platform.repository;
 
 import static org.assertj.core.api.Assertions.*;
 
+import com.accountselling.platform.dto.statistics.OrderStatistics;
 import com.accountselling.platform.enums.OrderStatus;
 import com.accountselling.platform.model.*;
 import java.math.BigDecimal;
@@ -493,6 +494,43 @@ class OrderRepositoryTest {
     assertThat(totalCount).isEqualTo(5L); // All our test orders
   }
 
+  @Test
+  @DisplayName("Should summarize all orders in one query")
+  void shouldSummarizeOrders() {
+    // When
+    OrderStatistics result = orderRepository.summarizeOrders();
+
+    // Then
+    assertThat(result.total()).isEqualTo(5L);
+    assertThat(result.pending()).isEqualTo(1L);
+    assertThat(result.processing()).isEqualTo(1L);
+    assertThat(result.completed()).isEqualTo(1L);
+    assertThat(result.failed()).isEqualTo(1L);
+    assertThat(result.cancelled()).isEqualTo(1L);
+    assertThat(result.totalRevenue()).isEqualByComparingTo(new BigDecimal("300.00"));
+    assertThat(result.averageOrderValue()).isEqualByComparingTo(new BigDecimal("300.00"));
+  }
+
+  @Test
+  @DisplayName("Should summarize only orders within date range")
+  void shouldSummarizeOrdersWithinDateRange() {
+    // Given
+    LocalDateTime now = LocalDateTime.now();
+
+    // When
+    OrderStatistics current = orderRepository.summarizeOrdersBetween(now.minusHours(1), now);
+    OrderStatistics past =
+        orderRepository.summarizeOrdersBetween(now.minusDays(2), now.minusDays(1));
+
+    // Then
+    assertThat(current.total()).isEqualTo(5L);
+    assertThat(current.pending()).isEqualTo(1L);
+    assertThat(past.total()).isZero();
+    assertThat(past.pending()).isZero();
+    assertThat(past.totalRevenue()).isEqualByComparingTo(BigDecimal.ZERO);
+    assertThat(past.averageOrderValue()).isEqualByComparingTo(BigDecimal.ZERO);
+  }
+
   @Test
   @DisplayName("Should get top spending users")
   void shouldGetTopSpendingUsers() {
@@ -0,0 +1,317 @@
+package com.accountselling.platform.repository;
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.accountselling.platform.config.PostgresIntegrationTest;
+import com.accountselling.platform.model.Category;
+import com.accountselling.platform.model.Product;
+import com.accountselling.platform.model.Stock;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * PostgreSQL tests of the native stock statements: SKIP LOCKED claims, hot pool leases, batch
+ * sales and archival into the partitioned history. Tests are not wrapped in a transaction, so
+ * concurrent claims in other threads see the committed fixtures.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Stock Repository PostgreSQL Tests")
+class StockRepositoryIntegrationTest extends PostgresIntegrationTest {
+
+  @Autowired private StockRepository stockRepository;
+
+  @Autowired private StockSoldHistoryRepository stockSoldHistoryRepository;
+
+  @Autowired private CategoryRepository categoryRepository;
+
+  @Autowired private ProductRepository productRepository;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @Autowired private TransactionTemplate transactionTemplate;
+
+  private Category category;
+  private Product product;
+  // Stock of the product, oldest first
+  private List<Stock> stock;
+
+  @BeforeEach
+  void setUp() {
+    category = categoryRepository.save(new Category("PG Category " + suffix()));
+    product = createProduct();
+    stock = createStock(product, 5);
+  }
+
+  // ==================== CLAIMS ====================
+
+  @Test
+  @DisplayName("Should claim the oldest available stock and insert holds")
+  void shouldClaimOldestAvailableStock() {
+    List<Object[]> claimed =
+        stockRepository.claimAvailableStock(product.getId(), inMinutes(15), 2);
+
+    assertThat(stockIds(claimed)).containsExactlyInAnyOrder(stockId(0), stockId(1));
+    assertThat(claimed).allSatisfy(row -> assertThat(row[1]).isEqualTo(true));
+    assertThat(holdCount(stockId(0))).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Should take over a lapsed hold in place")
+  void shouldTakeOverLapsedHold() {
+    // Given - the oldest item holds a lapsed reservation that was never released
+    stockRepository.claimAvailableStock(product.getId(), inMinutes(-1), 1);
+
+    // When
+    List<Object[]> claimed =
+        stockRepository.claimAvailableStock(product.getId(), inMinutes(15), 1);
+
+    // Then
+    assertThat(stockIds(claimed)).containsExactly(stockId(0));
+    assertThat(claimed.get(0)[1]).isEqualTo(false);
+    assertThat(holdCount(stockId(0))).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Should claim several products in one statement")
+  void shouldClaimSeveralProducts() {
+    Product other = createProduct();
+    List<Stock> otherStock = createStock(other, 2);
+
+    List<Object[]> claimed =
+        stockRepository.claimAvailableStockForProducts(
+            new UUID[] {product.getId(), other.getId()}, new Integer[] {3, 1}, inMinutes(15));
+
+    assertThat(stockIds(claimed))
+        .containsExactlyInAnyOrder(stockId(0), stockId(1), stockId(2), otherStock.get(0).getId());
+    assertThat(claimed).filteredOn(row -> other.getId().equals(row[1])).hasSize(1);
+    assertThat(claimed).allSatisfy(row -> assertThat(row[2]).isEqualTo(true));
+  }
+
+  @Test
+  @DisplayName("Should skip stock locked by a concurrent claim instead of waiting")
+  void shouldSkipStockLockedByConcurrentClaim() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    CountDownLatch firstClaimed = new CountDownLatch(1);
+    CountDownLatch commitFirst = new CountDownLatch(1);
+    try {
+      // Given - a claim that holds its row locks until told to commit
+      Future<List<Object[]>> first =
+          executor.submit(
+              () ->
+                  transactionTemplate.execute(
+                      status -> {
+                        List<Object[]> rows =
+                            stockRepository.claimAvailableStock(
+                                product.getId(), inMinutes(15), 2);
+                        firstClaimed.countDown();
+                        await(commitFirst);
+                        return rows;
+                      }));
+      assertThat(firstClaimed.await(10, TimeUnit.SECONDS)).isTrue();
+
+      // When - a second buyer claims while the first transaction is open
+      Future<List<Object[]>> second =
+          executor.submit(
+              () -> stockRepository.claimAvailableStock(product.getId(), inMinutes(15), 2));
+      List<Object[]> secondRows = second.get(5, TimeUnit.SECONDS);
+      commitFirst.countDown();
+      List<Object[]> firstRows = first.get(10, TimeUnit.SECONDS);
+
+      // Then - the second claim took the next items without blocking
+      assertThat(stockIds(firstRows)).containsExactlyInAnyOrder(stockId(0), stockId(1));
+      assertThat(stockIds(secondRows)).containsExactlyInAnyOrder(stockId(2), stockId(3));
+    } finally {
+      commitFirst.countDown();
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  @DisplayName("Should hand out every item at most once to concurrent buyers")
+  void shouldHandOutEachItemOnce() throws Exception {
+    int buyers = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(buyers);
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      List<Future<List<Object[]>>> claims = new ArrayList<>();
+      for (int i = 0; i < buyers; i++) {
+        claims.add(
+            executor.submit(
+                () -> {
+                  await(start);
+                  return stockRepository.claimAvailableStock(product.getId(), inMinutes(15), 1);
+                }));
+      }
+      start.countDown();
+
+      List<UUID> claimed = new ArrayList<>();
+      for (Future<List<Object[]>> claim : claims) {
+        claimed.addAll(stockIds(claim.get(10, TimeUnit.SECONDS)));
+      }
+
+      // Claims may come back short under contention, but never share an item
+      assertThat(claimed).doesNotHaveDuplicates().hasSizeLessThanOrEqualTo(stock.size());
+      assertThat(claimed).isNotEmpty();
+      assertThat(stock.stream().mapToInt(s -> holdCount(s.getId())).sum())
+          .isEqualTo(claimed.size());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  // ==================== HOT POOL LEASES ====================
+
+  @Test
+  @DisplayName("Should keep leased stock out of claims until it is reserved or returned")
+  void shouldLeaseAndReserveLeasedStock() {
+    // Given
+    List<UUID> leased = stockRepository.leaseAvailableStock(product.getId(), inMinutes(5), 2);
+    assertThat(leased).containsExactlyInAnyOrder(stockId(0), stockId(1));
+
+    // When - a buyer claims from the table while the items are leased
+    List<Object[]> claimed =
+        stockRepository.claimAvailableStock(product.getId(), inMinutes(15), 5);
+
+    // Then
+    assertThat(stockIds(claimed)).containsExactlyInAnyOrder(stockId(2), stockId(3), stockId(4));
+    assertThat(stockRepository.reserveLeasedStock(leased, inMinutes(15)))
+        .containsExactlyInAnyOrderElementsOf(leased);
+    assertThat(stockRepository.reserveLeasedStock(leased, inMinutes(15))).isEmpty();
+    assertThat(stockRepository.returnLeasedStock(leased)).isEqualTo(2);
+  }
+
+  // ==================== SALES AND ARCHIVAL ====================
+
+  @Test
+  @DisplayName("Should mark stock sold once and report which items were still available")
+  void shouldMarkStockSold() {
+    // Given - the oldest item is reserved, the next one is not
+    stockRepository.claimAvailableStock(product.getId(), inMinutes(15), 1);
+
+    // When
+    List<Object[]> sold =
+        stockRepository.markAsSoldReturningProducts(
+            List.of(stockId(0), stockId(1)), LocalDateTime.now());
+
+    // Then
+    assertThat(sold).hasSize(2).allSatisfy(row -> assertThat(row[1]).isEqualTo(product.getId()));
+    assertThat(sold)
+        .filteredOn(row -> stockId(0).equals(row[0]))
+        .singleElement()
+        .satisfies(row -> assertThat(row[2]).isEqualTo(false));
+    assertThat(sold)
+        .filteredOn(row -> stockId(1).equals(row[0]))
+        .singleElement()
+        .satisfies(row -> assertThat(row[2]).isEqualTo(true));
+    assertThat(holdCount(stockId(0))).isZero();
+    assertThat(
+            stockRepository.markAsSoldReturningProducts(
+                List.of(stockId(0), stockId(1)), LocalDateTime.now()))
+        .isEmpty();
+  }
+
+  @Test
+  @DisplayName("Should move old sold stock into the history and keep counting it")
+  void shouldArchiveSoldStock() {
+    // Given - two items sold long before the cutoff
+    LocalDateTime soldAt = LocalDateTime.now().minusDays(100);
+    stockRepository.markAsSoldReturningProducts(List.of(stockId(0), stockId(1)), soldAt);
+    transactionTemplate.execute(status -> stockSoldHistoryRepository.ensurePartition(soldAt));
+
+    // When
+    List<Object[]> archived =
+        transactionTemplate.execute(
+            status ->
+                stockSoldHistoryRepository.archiveSoldStock(
+                    LocalDateTime.now().minusDays(90),
+                    LocalDateTime.of(1970, 1, 1, 0, 0),
+                    new UUID(0L, 0L),
+                    1000));
+
+    // Then
+    assertThat(archived)
+        .extracting(row -> (UUID) row[1])
+        .contains(stockId(0), stockId(1))
+        .doesNotContain(stockId(2));
+    assertThat(stockRepository.findAllById(List.of(stockId(0), stockId(1)))).isEmpty();
+    assertThat(stockSoldHistoryRepository.findAccountDataByIds(List.of(stockId(0), stockId(1))))
+        .hasSize(2);
+    assertThat(
+            stockRepository.existsByProductIdAndFingerprint(
+                product.getId(), stock.get(0).getFingerprint()))
+        .isTrue();
+
+    // [total, available, reserved, sold] of the product, live and archived
+    List<Object[]> counts =
+        stockRepository.countByStateGroupedByProductIds(List.of(product.getId()));
+    assertThat(counts).hasSize(1);
+    Object[] row = counts.get(0);
+    assertThat(Arrays.stream(row, 1, row.length).map(value -> ((Number) value).longValue()))
+        .containsExactly(5L, 3L, 0L, 2L);
+  }
+
+  // ==================== HELPERS ====================
+
+  private Product createProduct() {
+    return productRepository.save(
+        new Product("PG Product " + suffix(), new BigDecimal("10.00"), category));
+  }
+
+  private List<Stock> createStock(Product owner, int count) {
+    List<Stock> created = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      created.add(stockRepository.save(new Stock(owner, "user" + suffix() + ":password" + i)));
+    }
+    return created;
+  }
+
+  private UUID stockId(int index) {
+    return stock.get(index).getId();
+  }
+
+  private int holdCount(UUID stockId) {
+    return jdbcTemplate.queryForObject(
+        "SELECT COUNT(*) FROM stock_reservation WHERE stock_id = ?", Integer.class, stockId);
+  }
+
+  private static List<UUID> stockIds(List<Object[]> rows) {
+    return rows.stream().map(row -> (UUID) row[0]).toList();
+  }
+
+  private static LocalDateTime inMinutes(long minutes) {
+    return LocalDateTime.now().plusMinutes(minutes);
+  }
+
+  private static String suffix() {
+    return UUID.randomUUID().toString().substring(0, 8);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
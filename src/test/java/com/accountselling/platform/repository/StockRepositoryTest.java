@@ -5,6 +5,10 @@ import static org.assertj.core.api.Assertions.*;
 import com.accountselling.platform.model.Category;
 import com.accountselling.platform.model.Product;
 import com.accountselling.platform.model.Stock;
+import com.accountselling.platform.model.StockReservation;
+import com.accountselling.platform.model.StockSoldHistory;
+import com.accountselling.platform.util.AccountDataFingerprint;
+import jakarta.persistence.PersistenceException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -75,13 +79,16 @@ class StockRepositoryTest {
 
     // Create reserved stock item
     reservedStock = new Stock(testProduct2, "username4:password4");
-    reservedStock.reserve(30); // Reserve for 30 minutes
     entityManager.persistAndFlush(reservedStock);
+    entityManager.persistAndFlush(
+        new StockReservation(reservedStock, LocalDateTime.now().plusMinutes(30)));
 
     // Create expired reservation stock item
     expiredReservationStock = new Stock(testProduct2, "username5:password5");
-    expiredReservationStock.reserveUntil(LocalDateTime.now().minusHours(1)); // Expired 1 hour ago
     entityManager.persistAndFlush(expiredReservationStock);
+    entityManager.persistAndFlush(
+        new StockReservation(
+            expiredReservationStock, LocalDateTime.now().minusHours(1))); // Expired 1 hour ago
 
     entityManager.clear(); // Clear persistence context to ensure fresh queries
   }
@@ -443,13 +450,15 @@ class StockRepositoryTest {
     List<UUID> stockIds = List.of(reservedStock.getId());
 
     // Verify reservation exists
-    assertThat(reservedStock.isReserved()).isTrue();
+    assertThat(stockRepository.findById(reservedStock.getId()).orElseThrow().isReserved()).isTrue();
+    entityManager.clear();
 
     // When
     int releasedCount = stockRepository.releaseReservations(stockIds);
 
     // Then
     assertThat(releasedCount).isEqualTo(1);
+    assertThat(entityManager.find(StockReservation.class, reservedStock.getId())).isNull();
 
     Stock updatedStock = stockRepository.findById(reservedStock.getId()).orElseThrow();
     assertThat(updatedStock.getReservedUntil()).isNull();
@@ -476,19 +485,75 @@ class StockRepositoryTest {
   void shouldCheckIfStockExistsWithSpecificCredentials() {
     // When & Then
     assertThat(
-            stockRepository.existsByProductIdAndAccountData(
-                testProduct1.getId(), "username1:password1"))
+            stockRepository.existsByProductIdAndFingerprint(
+                testProduct1.getId(), AccountDataFingerprint.of("username1:password1")))
         .isTrue();
     assertThat(
-            stockRepository.existsByProductIdAndAccountData(
-                testProduct1.getId(), "nonexistent:credentials"))
+            stockRepository.existsByProductIdAndFingerprint(
+                testProduct1.getId(), AccountDataFingerprint.of("nonexistent:credentials")))
         .isFalse();
     assertThat(
-            stockRepository.existsByProductIdAndAccountData(
-                testProduct2.getId(), "username1:password1"))
+            stockRepository.existsByProductIdAndFingerprint(
+                testProduct2.getId(), AccountDataFingerprint.of("username1:password1")))
         .isFalse();
   }
 
+  @Test
+  @DisplayName("Should find existing fingerprints in one query")
+  void shouldFindExistingFingerprints() {
+    // When
+    List<String> result =
+        stockRepository.findExistingFingerprints(
+            testProduct1.getId(),
+            List.of(
+                AccountDataFingerprint.of("username1:password1"),
+                AccountDataFingerprint.of("username4:password4"),
+                AccountDataFingerprint.of("nonexistent:credentials")));
+
+    // Then - username4 belongs to testProduct2
+    assertThat(result).containsExactly(AccountDataFingerprint.of("username1:password1"));
+  }
+
+  @Test
+  @DisplayName("Should find fingerprints of sold stock moved to history")
+  void shouldFindFingerprintsOfArchivedSoldStock() {
+    // Given - The sold item is archived the way the archival job moves it
+    Stock sold = entityManager.find(Stock.class, soldStock.getId());
+    StockSoldHistory archived = new StockSoldHistory();
+    archived.setId(sold.getId());
+    archived.setProduct(sold.getProduct());
+    archived.setAccountData(sold.getAccountData());
+    archived.setFingerprint(sold.getFingerprint());
+    archived.setSoldAt(sold.getSoldAt());
+    archived.setCreatedAt(sold.getCreatedAt());
+    archived.setUpdatedAt(sold.getUpdatedAt());
+    archived.setArchivedAt(LocalDateTime.now());
+    entityManager.persist(archived);
+    entityManager.remove(sold);
+    entityManager.flush();
+    entityManager.clear();
+
+    // When - The same account is imported again
+    String fingerprint = AccountDataFingerprint.of("username3:password3");
+
+    // Then - It is still reported as existing
+    assertThat(stockRepository.existsByProductIdAndFingerprint(testProduct1.getId(), fingerprint))
+        .isTrue();
+    assertThat(stockRepository.findExistingFingerprints(testProduct1.getId(), List.of(fingerprint)))
+        .containsExactly(fingerprint);
+  }
+
+  @Test
+  @DisplayName("Should reject duplicate credentials for the same product")
+  void shouldRejectDuplicateCredentialsForSameProduct() {
+    // Given - Same credentials after normalization
+    Stock duplicateStock = new Stock(testProduct1, "username1:password1\r\n");
+
+    // When & Then
+    assertThatThrownBy(() -> entityManager.persistAndFlush(duplicateStock))
+        .isInstanceOf(PersistenceException.class);
+  }
+
   @Test
   @DisplayName("Should find oldest unsold stock by product")
   void shouldFindOldestUnsoldStockByProduct() {
@@ -536,8 +601,9 @@ class StockRepositoryTest {
   @Test
   @DisplayName("Should find duplicate credentials by product ID")
   void shouldFindDuplicateCredentialsByProductId() {
-    // Given - Add a duplicate credential
+    // Given - Add a legacy duplicate credential left without fingerprint by the backfill
     Stock duplicateStock = new Stock(testProduct1, "username1:password1", "Duplicate credentials");
+    duplicateStock.setFingerprint(null);
     entityManager.persistAndFlush(duplicateStock);
 
     // When
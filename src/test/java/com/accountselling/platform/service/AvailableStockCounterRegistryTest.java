@@ -0,0 +1,77 @@
+package com.accountselling.platform.service;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for AvailableStockCounterRegistry. Tests recounts racing with counter adjustments and
+ * with products loaded while the database was counted.
+ */
+@DisplayName("AvailableStockCounterRegistry Tests")
+class AvailableStockCounterRegistryTest {
+
+  private AvailableStockCounterRegistry counters;
+  private UUID productId;
+
+  @BeforeEach
+  void setUp() {
+    counters = new AvailableStockCounterRegistry();
+    productId = UUID.randomUUID();
+  }
+
+  @Test
+  @DisplayName("Should correct a drifted counter to the recounted value")
+  void shouldCorrectDriftedCounter() {
+    counters.track(Map.of(productId, 9L));
+
+    AvailableStockCounterRegistry.Recount recount = counters.startRecount();
+    counters.reconcile(recount, Map.of(productId, 4L));
+
+    assertThat(counters.get(productId, id -> -1L)).isEqualTo(4L);
+  }
+
+  @Test
+  @DisplayName("Should keep deltas applied while the recount was running")
+  void shouldKeepDeltasAppliedDuringRecount() {
+    counters.track(Map.of(productId, 10L));
+
+    AvailableStockCounterRegistry.Recount recount = counters.startRecount();
+    // A reservation commits after the count was read
+    counters.adjust(productId, -1);
+    counters.reconcile(recount, Map.of(productId, 8L));
+
+    assertThat(counters.get(productId, id -> -1L)).isEqualTo(7L);
+  }
+
+  @Test
+  @DisplayName("Should leave products loaded after the recount started untouched")
+  void shouldLeaveProductsLoadedDuringRecount() {
+    UUID loadedLater = UUID.randomUUID();
+    counters.track(Map.of(productId, 3L));
+
+    AvailableStockCounterRegistry.Recount recount = counters.startRecount();
+    counters.get(loadedLater, id -> 5L);
+    counters.reconcile(recount, Map.of(productId, 3L));
+
+    assertThat(recount.productIds()).containsExactly(productId);
+    assertThat(counters.get(loadedLater, id -> -1L)).isEqualTo(5L);
+  }
+
+  @Test
+  @DisplayName("Should leave a counter reloaded after the recount started untouched")
+  void shouldLeaveReloadedCounter() {
+    counters.track(Map.of(productId, 3L));
+
+    AvailableStockCounterRegistry.Recount recount = counters.startRecount();
+    counters.invalidate(productId);
+    counters.get(productId, id -> 6L);
+    counters.reconcile(recount, Map.of());
+
+    assertThat(counters.get(productId, id -> -1L)).isEqualTo(6L);
+  }
+}
@@ -0,0 +1,200 @@
+package com.accountselling.platform.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.accountselling.platform.exception.IdempotencyConflictException;
+import com.accountselling.platform.exception.InvalidOrderException;
+import com.accountselling.platform.model.IdempotencyRecord;
+import com.accountselling.platform.repository.IdempotencyKeyRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Isolation;
+
+/**
+ * Unit tests for IdempotencyKeyStore. Tests running a request once per key, replaying stored
+ * responses from memory and from the database, refusing keys that are busy or reused, and rolling
+ * back requests that lost their claim.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("IdempotencyKeyStore Tests")
+class IdempotencyKeyStoreTest {
+
+  private static final String SCOPE = "order.create:user-1";
+  private static final String KEY = "retry-key-1";
+
+  @Mock private IdempotencyKeyRepository idempotencyKeyRepository;
+  @Mock private TransactionRetryExecutor transactionRetryExecutor;
+
+  private IdempotencyKeyStore store;
+  private AtomicInteger runs;
+
+  @BeforeEach
+  void setUp() {
+    store =
+        new IdempotencyKeyStore(
+            idempotencyKeyRepository, new ObjectMapper(), transactionRetryExecutor);
+    ReflectionTestUtils.setField(store, "ttlHours", 24);
+    ReflectionTestUtils.setField(store, "cacheSize", 100);
+    runs = new AtomicInteger();
+    lenient()
+        .when(transactionRetryExecutor.execute(anyString(), any(), any()))
+        .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(2).get());
+  }
+
+  @Test
+  @DisplayName("Should run requests without a key every time")
+  void shouldRunRequestsWithoutKey() {
+    store.execute(SCOPE, null, request(1), Map.class, this::createOrder);
+    store.execute(SCOPE, " ", request(1), Map.class, this::createOrder);
+
+    assertThat(runs).hasValue(2);
+    verifyNoInteractions(idempotencyKeyRepository);
+  }
+
+  @Test
+  @DisplayName("Should replay the stored response to a retry with the same key")
+  void shouldReplayResponseToRetry() {
+    when(idempotencyKeyRepository.claim(eq(SCOPE), eq(KEY), anyString(), any(), any()))
+        .thenReturn(List.of(KEY));
+    when(idempotencyKeyRepository.complete(
+            eq(SCOPE), eq(KEY), any(), anyInt(), anyString(), any()))
+        .thenReturn(1);
+
+    ResponseEntity<Map> first = store.execute(SCOPE, KEY, request(1), Map.class, this::createOrder);
+    ResponseEntity<Map> retry = store.execute(SCOPE, KEY, request(1), Map.class, this::createOrder);
+
+    assertThat(runs).hasValue(1);
+    assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+    assertThat(retry.getBody()).isEqualTo(first.getBody());
+    assertThat(retry.getHeaders().getFirst(IdempotencyKeyStore.REPLAYED_HEADER)).isEqualTo("true");
+    verify(idempotencyKeyRepository)
+        .complete(
+            eq(SCOPE), eq(KEY), any(), eq(201), eq("{\"orderNumber\":\"ORD-1\"}"), any());
+    verify(idempotencyKeyRepository, times(1)).claim(any(), any(), any(), any(), any());
+    verify(transactionRetryExecutor)
+        .execute(eq("idempotent.order.create"), eq(Isolation.READ_COMMITTED), any());
+  }
+
+  @Test
+  @DisplayName("Should replay a response stored by another node")
+  void shouldReplayResponseStoredByAnotherNode() {
+    // First request ran on another node with the same body
+    ResponseEntity<Map> original =
+        store.execute(SCOPE, null, request(1), Map.class, this::createOrder);
+    IdempotencyRecord stored = new IdempotencyRecord();
+    stored.setRequestHash(hashOf(request(1)));
+    stored.setStatusCode(201);
+    stored.setResponseBody("{\"orderNumber\":\"ORD-1\"}");
+    stored.setExpiresAt(LocalDateTime.now().plusHours(1));
+
+    when(idempotencyKeyRepository.claim(eq(SCOPE), eq(KEY), anyString(), any(), any()))
+        .thenReturn(List.of());
+    when(idempotencyKeyRepository.findById(new IdempotencyRecord.Key(SCOPE, KEY)))
+        .thenReturn(Optional.of(stored));
+
+    ResponseEntity<Map> retry = store.execute(SCOPE, KEY, request(1), Map.class, this::createOrder);
+
+    assertThat(runs).hasValue(1);
+    assertThat(retry.getBody()).isEqualTo(original.getBody());
+  }
+
+  @Test
+  @DisplayName("Should refuse a retry while the first request is still running")
+  void shouldRefuseRetryWhileFirstRequestRuns() {
+    IdempotencyRecord running = new IdempotencyRecord();
+    running.setRequestHash(hashOf(request(1)));
+
+    when(idempotencyKeyRepository.claim(eq(SCOPE), eq(KEY), anyString(), any(), any()))
+        .thenReturn(List.of());
+    when(idempotencyKeyRepository.findById(new IdempotencyRecord.Key(SCOPE, KEY)))
+        .thenReturn(Optional.of(running));
+
+    assertThatThrownBy(() -> store.execute(SCOPE, KEY, request(1), Map.class, this::createOrder))
+        .isInstanceOf(IdempotencyConflictException.class);
+    assertThat(runs).hasValue(0);
+  }
+
+  @Test
+  @DisplayName("Should refuse a key reused for a different request")
+  void shouldRefuseKeyReusedForDifferentRequest() {
+    when(idempotencyKeyRepository.claim(eq(SCOPE), eq(KEY), anyString(), any(), any()))
+        .thenReturn(List.of(KEY));
+    when(idempotencyKeyRepository.complete(
+            eq(SCOPE), eq(KEY), any(), anyInt(), anyString(), any()))
+        .thenReturn(1);
+    store.execute(SCOPE, KEY, request(1), Map.class, this::createOrder);
+
+    assertThatThrownBy(() -> store.execute(SCOPE, KEY, request(2), Map.class, this::createOrder))
+        .isInstanceOf(IdempotencyConflictException.class);
+    assertThat(runs).hasValue(1);
+  }
+
+  @Test
+  @DisplayName("Should release the key when the request fails")
+  void shouldReleaseKeyWhenRequestFails() {
+    when(idempotencyKeyRepository.claim(eq(SCOPE), eq(KEY), anyString(), any(), any()))
+        .thenReturn(List.of(KEY));
+
+    assertThatThrownBy(
+            () ->
+                store.execute(
+                    SCOPE,
+                    KEY,
+                    request(1),
+                    Map.class,
+                    () -> {
+                      throw new InvalidOrderException("Insufficient stock");
+                    }))
+        .isInstanceOf(InvalidOrderException.class);
+
+    verify(idempotencyKeyRepository).release(eq(SCOPE), eq(KEY), any());
+    verify(idempotencyKeyRepository, never())
+        .complete(any(), any(), any(), anyInt(), any(), any());
+  }
+
+  @Test
+  @DisplayName("Should roll back a request whose lapsed claim was taken over by a retry")
+  void shouldRollBackRequestWhoseClaimWasTakenOver() {
+    when(idempotencyKeyRepository.claim(eq(SCOPE), eq(KEY), anyString(), any(), any()))
+        .thenReturn(List.of(KEY));
+    when(idempotencyKeyRepository.complete(
+            eq(SCOPE), eq(KEY), any(), anyInt(), anyString(), any()))
+        .thenReturn(0);
+
+    assertThatThrownBy(() -> store.execute(SCOPE, KEY, request(1), Map.class, this::createOrder))
+        .isInstanceOf(IdempotencyConflictException.class);
+
+    // The claim time passed to the claim identifies it when storing and releasing
+    verify(idempotencyKeyRepository)
+        .release(eq(SCOPE), eq(KEY), argThat(claimedAt -> claimedAt.getNano() % 1000 == 0));
+  }
+
+  private ResponseEntity<Map> createOrder() {
+    runs.incrementAndGet();
+    return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("orderNumber", "ORD-1"));
+  }
+
+  private static Map<String, Integer> request(int quantity) {
+    return Map.of("product-1", quantity);
+  }
+
+  private String hashOf(Object request) {
+    return ReflectionTestUtils.invokeMethod(store, "hash", request);
+  }
+}
@@ -0,0 +1,114 @@
+package com.accountselling.platform.service;
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.accountselling.platform.dto.stock.LowStockAlert;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for LowStockWatcher. Tests threshold crossings driven by available stock counter
+ * changes, the live low stock sets and debounced alerts.
+ */
+@DisplayName("LowStockWatcher Tests")
+class LowStockWatcherTest {
+
+  private static final long NOW = 1_000_000L;
+  private static final long DEBOUNCE = LowStockWatcher.ALERT_DEBOUNCE_MILLIS;
+
+  private AvailableStockCounterRegistry counters;
+  private LowStockWatcher watcher;
+  private UUID productId;
+
+  @BeforeEach
+  void setUp() {
+    counters = new AvailableStockCounterRegistry();
+    watcher = new LowStockWatcher(counters);
+    productId = UUID.randomUUID();
+  }
+
+  @Test
+  @DisplayName("Should track low and out of stock products from counter changes")
+  void shouldTrackLowAndOutOfStockFromCounterChanges() {
+    watcher.rebuild(Map.of(productId, 2), Map.of(productId, 3L));
+    counters.track(Map.of(productId, 3L));
+    assertThat(watcher.getLowStockProductIds()).isEmpty();
+
+    counters.adjust(productId, -1);
+    assertThat(watcher.getLowStockProductIds()).containsExactly(productId);
+    assertThat(watcher.getOutOfStockProductIds()).isEmpty();
+
+    counters.adjust(productId, -2);
+    assertThat(watcher.getOutOfStockProductIds()).containsExactly(productId);
+
+    counters.adjust(productId, 5);
+    assertThat(watcher.getLowStockProductIds()).isEmpty();
+    assertThat(watcher.getOutOfStockProductIds()).isEmpty();
+  }
+
+  @Test
+  @DisplayName("Should alert only after the product stays low for the debounce period")
+  void shouldAlertAfterDebouncePeriod() {
+    watcher.rebuild(Map.of(productId, 5), Map.of(productId, 10L));
+
+    watcher.onAvailableStockChanged(productId, 4, NOW);
+    assertThat(watcher.pollDueAlerts(NOW + DEBOUNCE - 1)).isEmpty();
+
+    assertThat(watcher.pollDueAlerts(NOW + DEBOUNCE))
+        .containsExactly(new LowStockAlert(productId, null, 4, 5, false));
+
+    // Further sales at the same level do not alert again
+    watcher.onAvailableStockChanged(productId, 3, NOW + DEBOUNCE + 1);
+    assertThat(watcher.pollDueAlerts(NOW + 3 * DEBOUNCE)).isEmpty();
+  }
+
+  @Test
+  @DisplayName("Should drop alert when stock recovers within the debounce period")
+  void shouldDropAlertWhenStockRecoversWithinDebounce() {
+    watcher.rebuild(Map.of(productId, 5), Map.of(productId, 10L));
+
+    watcher.onAvailableStockChanged(productId, 5, NOW);
+    watcher.onAvailableStockChanged(productId, 6, NOW + 1000);
+
+    assertThat(watcher.pollDueAlerts(NOW + DEBOUNCE)).isEmpty();
+  }
+
+  @Test
+  @DisplayName("Should alert again when a low stock product runs out")
+  void shouldAlertAgainWhenLowStockProductRunsOut() {
+    watcher.rebuild(Map.of(productId, 5), Map.of(productId, 2L));
+    watcher.pollDueAlerts(System.currentTimeMillis() + DEBOUNCE);
+
+    watcher.onAvailableStockChanged(productId, 0, NOW);
+
+    assertThat(watcher.pollDueAlerts(NOW + DEBOUNCE))
+        .containsExactly(new LowStockAlert(productId, null, 0, 5, true));
+  }
+
+  @Test
+  @DisplayName("Should answer custom thresholds and ignore unwatched products")
+  void shouldAnswerCustomThresholdsAndIgnoreUnwatchedProducts() {
+    UUID otherProductId = UUID.randomUUID();
+    watcher.rebuild(Map.of(productId, 5, otherProductId, 5), Map.of(productId, 8L));
+
+    watcher.onAvailableStockChanged(UUID.randomUUID(), 0, NOW);
+
+    assertThat(watcher.getProductIdsAtOrBelow(10))
+        .containsExactlyInAnyOrder(productId, otherProductId);
+    assertThat(watcher.getProductIdsAtOrBelow(5)).containsExactly(otherProductId);
+    assertThat(watcher.getOutOfStockProductIds()).containsExactly(otherProductId);
+  }
+
+  @Test
+  @DisplayName("Should re-evaluate product when its threshold changes")
+  void shouldReevaluateWhenThresholdChanges() {
+    watcher.rebuild(Map.of(productId, 5), Map.of(productId, 8L));
+
+    watcher.watch(productId, 10);
+
+    assertThat(watcher.getLowStockProductIds()).containsExactly(productId);
+  }
+}
@@ -0,0 +1,153 @@
+package com.accountselling.platform.service;
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.accountselling.platform.dto.statistics.OrderStatistics;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.support.ExecutorServiceAdapter;
+
+/**
+ * Unit tests for OrderStatisticsCache. Tests serving fresh snapshots, serving stale snapshots
+ * while refreshing them in the background, and sharing snapshots of windows ending now.
+ */
+@DisplayName("OrderStatisticsCache Tests")
+class OrderStatisticsCacheTest {
+
+  private static final Duration TTL = Duration.ofSeconds(10);
+  private static final Duration STALE_FOR = Duration.ofSeconds(60);
+
+  private final AtomicLong clock = new AtomicLong();
+  private final List<Runnable> refreshes = new ArrayList<>();
+  private final AtomicInteger loads = new AtomicInteger();
+
+  private OrderStatisticsCache cache;
+
+  @BeforeEach
+  void setUp() {
+    // Background refreshes are queued and run by the test
+    cache =
+        new OrderStatisticsCache(
+            TTL, STALE_FOR, clock::get, new ExecutorServiceAdapter(refreshes::add));
+  }
+
+  @Test
+  @DisplayName("Should serve a fresh snapshot without loading again")
+  void shouldServeFreshSnapshot() {
+    OrderStatistics first = cache.get(null, null, this::load);
+    advance(TTL.minusSeconds(1));
+    OrderStatistics second = cache.get(null, null, this::load);
+
+    assertThat(second).isSameAs(first);
+    assertThat(loads).hasValue(1);
+    assertThat(refreshes).isEmpty();
+  }
+
+  @Test
+  @DisplayName("Should serve a stale snapshot and refresh it once in the background")
+  void shouldServeStaleSnapshotWhileRefreshing() {
+    // Given
+    OrderStatistics first = cache.get(null, null, this::load);
+    advance(TTL.plusSeconds(1));
+
+    // When - Two requests see the stale snapshot
+    OrderStatistics stale = cache.get(null, null, this::load);
+    cache.get(null, null, this::load);
+
+    // Then - Both get it at once and only one refresh is queued
+    assertThat(stale).isSameAs(first);
+    assertThat(loads).hasValue(1);
+    assertThat(refreshes).hasSize(1);
+
+    // When - The refresh runs
+    refreshes.get(0).run();
+
+    // Then
+    assertThat(loads).hasValue(2);
+    assertThat(cache.get(null, null, this::load).total()).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("Should load in the caller once the snapshot is past the stale window")
+  void shouldLoadExpiredSnapshot() {
+    cache.get(null, null, this::load);
+    advance(TTL.plus(STALE_FOR));
+
+    OrderStatistics statistics = cache.get(null, null, this::load);
+
+    assertThat(statistics.total()).isEqualTo(2);
+    assertThat(refreshes).isEmpty();
+  }
+
+  @Test
+  @DisplayName("Should allow another refresh after a failed one")
+  void shouldRetryFailedRefresh() {
+    // Given
+    cache.get(null, null, this::load);
+    advance(TTL.plusSeconds(1));
+    BiFunction<LocalDateTime, LocalDateTime, OrderStatistics> failing =
+        (start, end) -> {
+          throw new IllegalStateException("database unavailable");
+        };
+
+    // When
+    cache.get(null, null, failing);
+    refreshes.get(0).run();
+    cache.get(null, null, this::load);
+
+    // Then
+    assertThat(refreshes).hasSize(2);
+  }
+
+  @Test
+  @DisplayName("Should share one snapshot between windows ending now")
+  void shouldShareSnapshotOfWindowsEndingNow() {
+    // Given
+    LocalDateTime startOfDay = LocalDateTime.now().toLocalDate().atStartOfDay();
+    List<LocalDateTime> loadedEnds = new ArrayList<>();
+    BiFunction<LocalDateTime, LocalDateTime, OrderStatistics> loader =
+        (start, end) -> {
+          loadedEnds.add(end);
+          return load(start, end);
+        };
+
+    // When
+    cache.get(startOfDay, LocalDateTime.now(), loader);
+    cache.get(startOfDay, LocalDateTime.now(), loader);
+
+    // Then
+    assertThat(loads).hasValue(1);
+    assertThat(loadedEnds).singleElement().isNotNull();
+  }
+
+  @Test
+  @DisplayName("Should keep separate snapshots of windows in the past")
+  void shouldKeepSeparateSnapshotsOfPastWindows() {
+    LocalDateTime start = LocalDateTime.now().minusDays(7);
+
+    OrderStatistics firstDay = cache.get(start, start.plusDays(1), this::load);
+    OrderStatistics twoDays = cache.get(start, start.plusDays(2), this::load);
+
+    assertThat(twoDays).isNotSameAs(firstDay);
+    assertThat(cache.get(start, start.plusDays(1), this::load)).isSameAs(firstDay);
+    assertThat(loads).hasValue(2);
+  }
+
+  private OrderStatistics load(LocalDateTime startDate, LocalDateTime endDate) {
+    long total = loads.incrementAndGet();
+    return new OrderStatistics(total, 0, 0, 0, 0, 0, BigDecimal.ZERO, BigDecimal.ZERO);
+  }
+
+  private void advance(Duration duration) {
+    clock.addAndGet(duration.toNanos());
+  }
+}
@@ -0,0 +1,166 @@
+package com.accountselling.platform.service;
+
+import static org.assertj.core.api.Assertions.*;
+
+import com.accountselling.platform.util.MappedReservationLog;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Unit tests for ReservationLedger. Tests replaying unflushed holds from the log, publishing
+ * holds after commit, settling persisted and discarded holds and falling back when the log is full.
+ */
+@DisplayName("ReservationLedger Tests")
+class ReservationLedgerTest {
+
+  @TempDir Path directory;
+
+  private ReservationLedger ledger;
+  private UUID productId;
+  private LocalDateTime reservedUntil;
+
+  @BeforeEach
+  void setUp() {
+    productId = UUID.randomUUID();
+    // The log keeps deadlines in milliseconds
+    reservedUntil = LocalDateTime.now().plusMinutes(15).truncatedTo(ChronoUnit.MILLIS);
+    ledger = openLedger(1);
+  }
+
+  @AfterEach
+  void tearDown() {
+    ledger.close();
+  }
+
+  @Test
+  @DisplayName("Should replay holds that were not flushed before a restart")
+  void shouldReplayUnflushedHolds() {
+    ReservationLedger.Hold flushed = hold();
+    ReservationLedger.Hold unflushed = hold();
+    ledger.record(List.of(flushed, unflushed));
+    ledger.publish(List.of(flushed, unflushed));
+    ledger.markPersisted(
+        ledger.takePending(List.of(flushed.stockId())), List.of(flushed.stockId()));
+    ledger.close();
+
+    ledger = openLedger(1);
+
+    assertThat(ledger.getPendingCount()).isEqualTo(1);
+    assertThat(ledger.drainPending(10)).containsExactly(unflushed);
+  }
+
+  @Test
+  @DisplayName("Should start the log over once every hold is settled")
+  void shouldStartLogOverOnceEveryHoldIsSettled() {
+    ReservationLedger.Hold kept = hold();
+    ReservationLedger.Hold dropped = hold();
+    ledger.record(List.of(kept, dropped));
+    ledger.publish(List.of(kept, dropped));
+
+    ledger.discard(List.of(dropped));
+    List<ReservationLedger.Hold> drained = ledger.drainPending(10);
+    ledger.markPersisted(drained, List.of(kept.stockId()));
+    ledger.close();
+
+    ledger = openLedger(1);
+
+    assertThat(ledger.getPendingCount()).isZero();
+    assertThat(ledger.drainPending(10)).isEmpty();
+  }
+
+  @Test
+  @DisplayName("Should keep a hold taken again after an earlier reservation rolled back")
+  void shouldKeepHoldTakenAgainAfterRollback() {
+    UUID stockId = UUID.randomUUID();
+    ReservationLedger.Hold first = new ReservationLedger.Hold(stockId, productId, reservedUntil);
+    ReservationLedger.Hold second =
+        new ReservationLedger.Hold(stockId, productId, reservedUntil.plusMinutes(1));
+    ledger.record(List.of(first));
+    ledger.record(List.of(second));
+
+    ledger.discard(List.of(first));
+    ledger.publish(List.of(second));
+
+    assertThat(ledger.drainPending(10)).containsExactly(second);
+  }
+
+  @Test
+  @DisplayName("Should not hand holds to the flush before their reservation commits")
+  void shouldNotDrainUnpublishedHolds() {
+    ReservationLedger.Hold hold = hold();
+    ledger.record(List.of(hold));
+
+    assertThat(ledger.drainPending(10)).isEmpty();
+
+    ledger.publish(List.of(hold));
+
+    assertThat(ledger.drainPending(10)).containsExactly(hold);
+  }
+
+  @Test
+  @DisplayName("Should settle holds of a reservation that rolled back before it was published")
+  void shouldSettleUnpublishedHoldsOnDiscard() {
+    ReservationLedger.Hold hold = hold();
+    ledger.record(List.of(hold));
+
+    ledger.discard(List.of(hold));
+    ledger.publish(List.of(hold));
+    ledger.close();
+
+    ledger = openLedger(1);
+
+    assertThat(ledger.getPendingCount()).isZero();
+  }
+
+  @Test
+  @DisplayName("Should count holds refused by the database as conflicts")
+  void shouldCountRefusedHoldsAsConflicts() {
+    ReservationLedger.Hold accepted = hold();
+    ReservationLedger.Hold refused = hold();
+    ledger.record(List.of(accepted, refused));
+    ledger.publish(List.of(accepted, refused));
+
+    ledger.markPersisted(ledger.drainPending(10), List.of(accepted.stockId()));
+
+    assertThat(ledger.getConflictCount()).isEqualTo(1);
+    assertThat(ledger.getPersistedHolds()).containsExactly(accepted);
+    ledger.forget(List.of(accepted.stockId()));
+    assertThat(ledger.getPersistedHolds()).isEmpty();
+  }
+
+  @Test
+  @DisplayName("Should refuse holds once the log cannot settle them")
+  void shouldRefuseHoldsWhenLogIsFull() {
+    // Every accepted hold keeps a second slot free for its settled record
+    int capacity = 1024 * 1024 / MappedReservationLog.RECORD_SIZE;
+    List<ReservationLedger.Hold> holds =
+        IntStream.range(0, capacity / 2).mapToObj(i -> hold()).toList();
+
+    assertThat(ledger.record(holds)).isTrue();
+    assertThat(ledger.record(List.of(hold()))).isFalse();
+  }
+
+  private ReservationLedger openLedger(int sizeMb) {
+    ReservationLedger opened = new ReservationLedger();
+    ReflectionTestUtils.setField(opened, "enabled", true);
+    ReflectionTestUtils.setField(opened, "path", directory.resolve("ledger.wal").toString());
+    ReflectionTestUtils.setField(opened, "sizeMb", sizeMb);
+    opened.open();
+    assertThat(opened.isEnabled()).isTrue();
+    return opened;
+  }
+
+  private ReservationLedger.Hold hold() {
+    return new ReservationLedger.Hold(UUID.randomUUID(), productId, reservedUntil);
+  }
+}
@@ -0,0 +1,147 @@
+package com.accountselling.platform.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.accountselling.platform.exception.InvalidOrderException;
+import com.accountselling.platform.exception.TransactionConflictException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.orm.jpa.JpaSystemException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+/**
+ * Unit tests for TransactionRetryExecutor. Tests classifying conflicts, retrying them up to the
+ * attempt budget and recording every attempt.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TransactionRetryExecutor Tests")
+class TransactionRetryExecutorTest {
+
+  @Mock private PlatformTransactionManager transactionManager;
+
+  private SimpleMeterRegistry meterRegistry;
+  private TransactionRetryExecutor executor;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    executor = new TransactionRetryExecutor(transactionManager, meterRegistry);
+    ReflectionTestUtils.setField(executor, "maxAttempts", 3);
+    ReflectionTestUtils.setField(executor, "initialBackoffMs", 0L);
+    ReflectionTestUtils.setField(executor, "maxBackoffMs", 0L);
+
+    lenient()
+        .when(transactionManager.getTransaction(any()))
+        .thenReturn(new SimpleTransactionStatus());
+  }
+
+  @Test
+  @DisplayName("Should retry serialization failures until an attempt commits")
+  void shouldRetrySerializationFailures() {
+    AtomicInteger attempts = new AtomicInteger();
+
+    String result =
+        executor.execute(
+            "order.create",
+            Isolation.READ_COMMITTED,
+            () -> {
+              if (attempts.incrementAndGet() < 3) {
+                throw new CannotAcquireLockException("conflict", sqlFailure("40001"));
+              }
+              return "created";
+            });
+
+    assertThat(result).isEqualTo("created");
+    assertThat(attempts).hasValue(3);
+    verify(transactionManager, times(2)).rollback(any());
+    verify(transactionManager).commit(any());
+    assertThat(attemptCount("1", "serialization_failure")).isEqualTo(1);
+    assertThat(attemptCount("3", "committed")).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Should give up with a conflict exception once the attempts run out")
+  void shouldGiveUpAfterMaxAttempts() {
+    AtomicInteger attempts = new AtomicInteger();
+
+    assertThatThrownBy(
+            () ->
+                executor.execute(
+                    "order.create",
+                    Isolation.READ_COMMITTED,
+                    () -> {
+                      attempts.incrementAndGet();
+                      throw new JpaSystemException(new RuntimeException(sqlFailure("40P01")));
+                    }))
+        .isInstanceOf(TransactionConflictException.class);
+
+    assertThat(attempts).hasValue(3);
+    assertThat(attemptCount("3", "deadlock")).isEqualTo(1);
+    assertThat(
+            meterRegistry
+                .counter("transaction.retries.exhausted", "operation", "order.create")
+                .count())
+        .isEqualTo(1.0);
+  }
+
+  @Test
+  @DisplayName("Should not retry other failures")
+  void shouldNotRetryOtherFailures() {
+    AtomicInteger attempts = new AtomicInteger();
+
+    assertThatThrownBy(
+            () ->
+                executor.execute(
+                    "order.create",
+                    Isolation.READ_COMMITTED,
+                    () -> {
+                      attempts.incrementAndGet();
+                      throw new InvalidOrderException("Product quantities cannot be empty");
+                    }))
+        .isInstanceOf(InvalidOrderException.class);
+
+    assertThat(attempts).hasValue(1);
+    assertThat(attemptCount("1", "failed")).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Should classify conflicts by SQLSTATE anywhere in the cause chain")
+  void shouldClassifyConflictsBySqlState() {
+    assertThat(TransactionRetryExecutor.classify(new RuntimeException(sqlFailure("40001"))))
+        .isEqualTo(TransactionRetryExecutor.Conflict.SERIALIZATION_FAILURE);
+    assertThat(TransactionRetryExecutor.classify(sqlFailure("40P01")))
+        .isEqualTo(TransactionRetryExecutor.Conflict.DEADLOCK);
+    assertThat(TransactionRetryExecutor.classify(sqlFailure("23505"))).isNull();
+    assertThat(TransactionRetryExecutor.classify(new IllegalStateException())).isNull();
+  }
+
+  private static SQLException sqlFailure(String sqlState) {
+    return new SQLException("database conflict", sqlState);
+  }
+
+  private long attemptCount(String attempt, String outcome) {
+    return meterRegistry
+        .timer(
+            "transaction.attempts",
+            "operation",
+            "order.create",
+            "attempt",
+            attempt,
+            "outcome",
+            outcome)
+        .count();
+  }
+}
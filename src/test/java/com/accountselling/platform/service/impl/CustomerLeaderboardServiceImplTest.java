@@ -0,0 +1,119 @@
+package com.accountselling.platform.service.impl;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.accountselling.platform.repository.CustomerLeaderboardRepository;
+import com.accountselling.platform.service.TransactionRetryExecutor;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Unit tests for CustomerLeaderboardServiceImpl. Tests walking the customers in batches, comparing
+ * each batch in a REPEATABLE READ transaction and applying only the differences with mock
+ * dependencies.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CustomerLeaderboardService Implementation Tests")
+class CustomerLeaderboardServiceImplTest {
+
+  private static final UUID FIRST_BATCH_END =
+      UUID.fromString("01890000-0000-7000-8000-000000000001");
+  private static final UUID SECOND_BATCH_END =
+      UUID.fromString("01890000-0000-7000-8000-000000000002");
+
+  @Mock private CustomerLeaderboardRepository customerLeaderboardRepository;
+
+  @Mock private TransactionRetryExecutor transactionRetryExecutor;
+
+  @Mock private TransactionTemplate transactionTemplate;
+
+  @InjectMocks private CustomerLeaderboardServiceImpl customerLeaderboardService;
+
+  @BeforeEach
+  void setUp() {
+    ReflectionTestUtils.setField(customerLeaderboardService, "batchSize", 1000);
+    when(transactionRetryExecutor.execute(anyString(), eq(Isolation.REPEATABLE_READ), any()))
+        .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(2).get());
+    when(customerLeaderboardRepository.findBatchEnd(
+            CustomerLeaderboardServiceImpl.FIRST_BATCH_START, 1000))
+        .thenReturn(FIRST_BATCH_END);
+    when(customerLeaderboardRepository.findBatchEnd(FIRST_BATCH_END, 1000))
+        .thenReturn(SECOND_BATCH_END);
+    when(customerLeaderboardRepository.findBatchEnd(SECOND_BATCH_END, 1000)).thenReturn(null);
+  }
+
+  @Test
+  @DisplayName("Should compare every batch without writing when nothing drifted")
+  void shouldCompareEveryBatch() {
+    // Given
+    when(customerLeaderboardRepository.findDriftBetween(any(), any())).thenReturn(List.of());
+
+    // When
+    int corrected = customerLeaderboardService.rebuildLeaderboard();
+
+    // Then
+    assertThat(corrected).isZero();
+    verify(customerLeaderboardRepository)
+        .findDriftBetween(CustomerLeaderboardServiceImpl.FIRST_BATCH_START, FIRST_BATCH_END);
+    verify(customerLeaderboardRepository).findDriftBetween(FIRST_BATCH_END, SECOND_BATCH_END);
+    verifyNoInteractions(transactionTemplate);
+    verify(customerLeaderboardRepository, never())
+        .applyCorrection(any(), anyLong(), any(), any());
+  }
+
+  @Test
+  @DisplayName("Should add the differences of drifted customers to their rows")
+  void shouldApplyDifferences() {
+    // Given - one customer missed an order, another counted a cancelled one
+    stubTransactions();
+    UUID missedUserId = UUID.randomUUID();
+    UUID overcountedUserId = UUID.randomUUID();
+    LocalDateTime completedAt = LocalDateTime.of(2024, 5, 1, 10, 0);
+    when(customerLeaderboardRepository.findDriftBetween(
+            CustomerLeaderboardServiceImpl.FIRST_BATCH_START, FIRST_BATCH_END))
+        .thenReturn(
+            List.of(
+                new Object[] {
+                  missedUserId, 1L, new BigDecimal("25.00"), Timestamp.valueOf(completedAt)
+                },
+                new Object[] {overcountedUserId, -1L, new BigDecimal("-10.00"), null}));
+    when(customerLeaderboardRepository.findDriftBetween(FIRST_BATCH_END, SECOND_BATCH_END))
+        .thenReturn(List.of());
+
+    // When
+    int corrected = customerLeaderboardService.rebuildLeaderboard();
+
+    // Then
+    assertThat(corrected).isEqualTo(2);
+    verify(customerLeaderboardRepository)
+        .applyCorrection(missedUserId, 1L, new BigDecimal("25.00"), completedAt);
+    verify(customerLeaderboardRepository)
+        .applyCorrection(overcountedUserId, -1L, new BigDecimal("-10.00"), null);
+    verify(customerLeaderboardRepository)
+        .deleteEmptyByUserIdIn(List.of(missedUserId, overcountedUserId));
+    verify(transactionTemplate, times(1)).execute(any());
+  }
+
+  private void stubTransactions() {
+    when(transactionTemplate.execute(any()))
+        .thenAnswer(
+            invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+  }
+}
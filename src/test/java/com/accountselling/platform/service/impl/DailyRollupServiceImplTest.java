@@ -0,0 +1,121 @@
+package com.accountselling.platform.service.impl;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.accountselling.platform.repository.OrderDailyRollupRepository;
+import com.accountselling.platform.repository.PaymentDailyRollupRepository;
+import java.time.LocalDate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Unit tests for DailyRollupServiceImpl. Tests rebuilding day by day, locking each day before
+ * recounting it and the rebuilt day counts with mock dependencies.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("DailyRollupService Implementation Tests")
+class DailyRollupServiceImplTest {
+
+  @Mock private OrderDailyRollupRepository orderDailyRollupRepository;
+
+  @Mock private PaymentDailyRollupRepository paymentDailyRollupRepository;
+
+  @Mock private TransactionTemplate transactionTemplate;
+
+  @InjectMocks private DailyRollupServiceImpl dailyRollupService;
+
+  @BeforeEach
+  void setUp() {
+    ReflectionTestUtils.setField(dailyRollupService, "recentDays", 3);
+  }
+
+  @Test
+  @DisplayName("Should rebuild a range one day at a time for both tables")
+  void shouldRebuildOneDayAtATime() {
+    // Given - the middle day has no orders or payments
+    LocalDate start = LocalDate.of(2024, 1, 1);
+    LocalDate end = start.plusDays(2);
+    stubTransactions();
+    when(orderDailyRollupRepository.recountBetween(any(), any())).thenReturn(1, 0, 1);
+    when(paymentDailyRollupRepository.recountBetween(any(), any())).thenReturn(1, 0, 1);
+
+    // When
+    int written = dailyRollupService.rebuildRollups(start, end);
+
+    // Then
+    assertThat(written).isEqualTo(4);
+    verify(transactionTemplate, times(6)).execute(any());
+    verify(orderDailyRollupRepository).lockDayForRebuild(start.plusDays(1));
+    verify(orderDailyRollupRepository).deleteByDateBetween(start.plusDays(1), start.plusDays(1));
+    verify(orderDailyRollupRepository)
+        .recountBetween(start.plusDays(1).atStartOfDay(), start.plusDays(2).atStartOfDay());
+    verify(paymentDailyRollupRepository).deleteByDateBetween(end, end);
+  }
+
+  @Test
+  @DisplayName("Should lock the day before deleting and recounting it")
+  void shouldLockBeforeRecounting() {
+    // Given
+    LocalDate day = LocalDate.of(2024, 3, 15);
+    stubTransactions();
+
+    // When
+    dailyRollupService.rebuildRollups(day, day);
+
+    // Then
+    InOrder inOrder = inOrder(orderDailyRollupRepository, paymentDailyRollupRepository);
+    inOrder.verify(orderDailyRollupRepository).lockDayForRebuild(day);
+    inOrder.verify(orderDailyRollupRepository).deleteByDateBetween(day, day);
+    inOrder
+        .verify(orderDailyRollupRepository)
+        .recountBetween(day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+    inOrder.verify(paymentDailyRollupRepository).lockDayForRebuild(day);
+    inOrder.verify(paymentDailyRollupRepository).deleteByDateBetween(day, day);
+    inOrder
+        .verify(paymentDailyRollupRepository)
+        .recountBetween(day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+  }
+
+  @Test
+  @DisplayName("Should rebuild the recent days up to today")
+  void shouldRebuildRecentDays() {
+    // Given
+    LocalDate today = LocalDate.now();
+    stubTransactions();
+
+    // When
+    dailyRollupService.rebuildRecentRollups();
+
+    // Then
+    verify(orderDailyRollupRepository).deleteByDateBetween(today.minusDays(2), today.minusDays(2));
+    verify(orderDailyRollupRepository).deleteByDateBetween(today, today);
+    verify(paymentDailyRollupRepository, times(3)).deleteByDateBetween(any(), any());
+  }
+
+  @Test
+  @DisplayName("Should reject an end date before the start date")
+  void shouldRejectEndBeforeStart() {
+    LocalDate start = LocalDate.of(2024, 3, 15);
+
+    assertThatThrownBy(() -> dailyRollupService.rebuildRollups(start, start.minusDays(1)))
+        .isInstanceOf(IllegalArgumentException.class);
+    verifyNoInteractions(transactionTemplate);
+  }
+
+  private void stubTransactions() {
+    when(transactionTemplate.execute(any()))
+        .thenAnswer(
+            invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+  }
+}
@@ -0,0 +1,221 @@
+package com.accountselling.platform.service.impl;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.accountselling.platform.dto.common.CursorPageDto;
+import com.accountselling.platform.dto.order.OrderHeaderView;
+import com.accountselling.platform.dto.order.OrderItemView;
+import com.accountselling.platform.dto.order.OrderResponseDto;
+import com.accountselling.platform.enums.OrderStatus;
+import com.accountselling.platform.enums.PaymentStatus;
+import com.accountselling.platform.exception.ResourceNotFoundException;
+import com.accountselling.platform.repository.OrderItemRepository;
+import com.accountselling.platform.repository.OrderRepository;
+import com.accountselling.platform.util.KeysetCursor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Unit tests for OrderQueryServiceImpl. Tests assembling order responses from header and item
+ * projections with a fixed number of repository calls, payment summaries and result ordering.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OrderQueryService Implementation Tests")
+class OrderQueryServiceImplTest {
+
+  @Mock private OrderRepository orderRepository;
+
+  @Mock private OrderItemRepository orderItemRepository;
+
+  @InjectMocks private OrderQueryServiceImpl orderQueryService;
+
+  @Test
+  @DisplayName("Should read a page of orders with one header and one item query")
+  void shouldReadPageWithOneItemQuery() {
+    // Given - Two orders on the page, one with two items and one with none
+    UUID userId = UUID.randomUUID();
+    Pageable pageable = PageRequest.of(0, 2);
+    OrderHeaderView first = header(UUID.randomUUID(), OrderStatus.PENDING, null);
+    OrderHeaderView second = header(UUID.randomUUID(), OrderStatus.COMPLETED, null);
+    when(orderRepository.findHeadersByUserId(userId, pageable))
+        .thenReturn(new PageImpl<>(List.of(first, second), pageable, 5));
+    when(orderItemRepository.findViewsByOrderIds(List.of(first.id(), second.id())))
+        .thenReturn(List.of(item(first.id(), "Gold Account"), item(first.id(), "Silver Account")));
+
+    // When
+    Page<OrderResponseDto> page = orderQueryService.getOrdersByUser(userId, pageable);
+
+    // Then
+    assertThat(page.getTotalElements()).isEqualTo(5);
+    assertThat(page.getContent())
+        .extracting(OrderResponseDto::id)
+        .containsExactly(first.id(), second.id());
+    assertThat(page.getContent().get(0).orderItems())
+        .extracting(OrderResponseDto.OrderItemResponseDto::productName)
+        .containsExactly("Gold Account", "Silver Account");
+    assertThat(page.getContent().get(1).orderItems()).isEmpty();
+    assertThat(page.getContent().get(0).userDisplayName()).isEqualTo("John Doe");
+    assertThat(page.getContent().get(0).formattedTotalAmount()).isEqualTo("$99.99");
+    verify(orderItemRepository, times(1)).findViewsByOrderIds(any());
+  }
+
+  @Test
+  @DisplayName("Should read the first cursor page and return the cursor of its last order")
+  void shouldReadFirstCursorPage() {
+    // Given - One row more than the page size comes back, so another page follows
+    UUID userId = UUID.randomUUID();
+    OrderHeaderView first = header(UUID.randomUUID(), OrderStatus.PENDING, null);
+    OrderHeaderView second = header(UUID.randomUUID(), OrderStatus.COMPLETED, null);
+    OrderHeaderView extra = header(UUID.randomUUID(), OrderStatus.COMPLETED, null);
+    when(orderRepository.findNewestHeadersByUserId(userId, Limit.of(3)))
+        .thenReturn(List.of(first, second, extra));
+    when(orderItemRepository.findViewsByOrderIds(List.of(first.id(), second.id())))
+        .thenReturn(List.of(item(second.id(), "Gold Account")));
+
+    // When
+    CursorPageDto<OrderResponseDto> page = orderQueryService.getOrdersByUserAfter(userId, null, 2);
+
+    // Then
+    assertThat(page.getContent())
+        .extracting(OrderResponseDto::id)
+        .containsExactly(first.id(), second.id());
+    assertThat(page.getContent().get(1).orderItems()).hasSize(1);
+    assertThat(page.getSize()).isEqualTo(2);
+    assertThat(page.isHasNext()).isTrue();
+    assertThat(KeysetCursor.decode(page.getNextCursor()))
+        .isEqualTo(new KeysetCursor(second.createdAt(), second.id()));
+    verify(orderRepository, never()).findNewestHeadersByUserIdBefore(any(), any(), any(), any());
+  }
+
+  @Test
+  @DisplayName("Should read the orders after a cursor and end on the last page")
+  void shouldReadLastCursorPage() {
+    // Given
+    UUID userId = UUID.randomUUID();
+    KeysetCursor after = new KeysetCursor(LocalDateTime.now(), UUID.randomUUID());
+    OrderHeaderView last = header(UUID.randomUUID(), OrderStatus.PENDING, null);
+    when(orderRepository.findNewestHeadersByUserIdBefore(
+            userId, after.createdAt(), after.id(), Limit.of(3)))
+        .thenReturn(List.of(last));
+    when(orderItemRepository.findViewsByOrderIds(List.of(last.id()))).thenReturn(List.of());
+
+    // When
+    CursorPageDto<OrderResponseDto> page = orderQueryService.getOrdersByUserAfter(userId, after, 2);
+
+    // Then
+    assertThat(page.getContent()).extracting(OrderResponseDto::id).containsExactly(last.id());
+    assertThat(page.isHasNext()).isFalse();
+    assertThat(page.getNextCursor()).isNull();
+  }
+
+  @Test
+  @DisplayName("Should include the payment summary loaded with the order")
+  void shouldIncludePaymentSummary() {
+    // Given
+    UUID orderId = UUID.randomUUID();
+    LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(30);
+    when(orderRepository.findHeaderById(orderId))
+        .thenReturn(Optional.of(header(orderId, OrderStatus.PENDING, expiresAt)));
+    when(orderItemRepository.findViewsByOrderIds(List.of(orderId)))
+        .thenReturn(List.of(item(orderId, "Gold Account")));
+
+    // When
+    OrderResponseDto response = orderQueryService.getOrder(orderId);
+
+    // Then
+    assertThat(response.hasPayment()).isTrue();
+    assertThat(response.payment().paymentReference()).isEqualTo("PAY-1");
+    assertThat(response.payment().status()).isEqualTo("PENDING");
+    assertThat(response.payment().formattedAmount()).isEqualTo("฿99.99");
+    assertThat(response.payment().isExpired()).isFalse();
+    assertThat(response.payment().remainingMinutes()).isBetween(28L, 30L);
+  }
+
+  @Test
+  @DisplayName("Should throw when the order does not exist")
+  void shouldThrowWhenOrderDoesNotExist() {
+    UUID orderId = UUID.randomUUID();
+    when(orderRepository.findHeaderById(orderId)).thenReturn(Optional.empty());
+
+    assertThatThrownBy(() -> orderQueryService.getOrder(orderId))
+        .isInstanceOf(ResourceNotFoundException.class);
+    verifyNoInteractions(orderItemRepository);
+  }
+
+  @Test
+  @DisplayName("Should return orders in the order of the requested IDs")
+  void shouldKeepRequestedOrder() {
+    // Given - Headers come back in a different order and one ID is missing
+    UUID first = UUID.randomUUID();
+    UUID second = UUID.randomUUID();
+    UUID missing = UUID.randomUUID();
+    when(orderRepository.findHeadersByIds(List.of(first, missing, second)))
+        .thenReturn(
+            List.of(
+                header(second, OrderStatus.PENDING, null),
+                header(first, OrderStatus.PENDING, null)));
+    when(orderItemRepository.findViewsByOrderIds(List.of(first, second))).thenReturn(List.of());
+
+    // When
+    List<OrderResponseDto> responses = orderQueryService.getOrders(List.of(first, missing, second));
+
+    // Then
+    assertThat(responses).extracting(OrderResponseDto::id).containsExactly(first, second);
+  }
+
+  private static OrderHeaderView header(
+      UUID orderId, OrderStatus status, LocalDateTime paymentExpiresAt) {
+    boolean paid = paymentExpiresAt != null;
+    return new OrderHeaderView(
+        orderId,
+        "ORD-" + orderId,
+        UUID.randomUUID(),
+        "johndoe",
+        "John",
+        "Doe",
+        new BigDecimal("99.99"),
+        status,
+        null,
+        LocalDateTime.now(),
+        LocalDateTime.now(),
+        paid ? UUID.randomUUID() : null,
+        paid ? "PAY-1" : null,
+        null,
+        paid ? new BigDecimal("99.99") : null,
+        paid ? PaymentStatus.PENDING : null,
+        paid ? "QR_CODE" : null,
+        null,
+        null,
+        paymentExpiresAt);
+  }
+
+  private static OrderItemView item(UUID orderId, String productName) {
+    return new OrderItemView(
+        orderId,
+        UUID.randomUUID(),
+        UUID.randomUUID(),
+        productName,
+        null,
+        "Gaming",
+        "US-West",
+        new BigDecimal("49.99"),
+        null,
+        false);
+  }
+}
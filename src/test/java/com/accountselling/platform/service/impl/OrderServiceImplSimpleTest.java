@@ -25,8 +25,6 @@ class OrderServiceImplSimpleTest {
 
   @Mock private ProductRepository productRepository;
 
-  @Mock private StockRepository stockRepository;
-
   @Mock private StockService stockService;
 
   @InjectMocks private OrderServiceImpl orderService;
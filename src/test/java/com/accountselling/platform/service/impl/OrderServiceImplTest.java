@@ -4,25 +4,35 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
+import com.accountselling.platform.dto.statistics.DailyOrderStatistics;
 import com.accountselling.platform.dto.statistics.OrderStatistics;
+import com.accountselling.platform.dto.statistics.TopCustomer;
+import com.accountselling.platform.dto.stock.StockSaleResultDto;
 import com.accountselling.platform.enums.OrderStatus;
 import com.accountselling.platform.exception.*;
 import com.accountselling.platform.model.*;
 import com.accountselling.platform.repository.*;
+import com.accountselling.platform.service.OrderStatisticsCache;
 import com.accountselling.platform.service.StockService;
+import com.accountselling.platform.service.TransactionRetryExecutor;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Isolation;
 
 @ExtendWith(MockitoExtension.class)
 class OrderServiceImplTest {
@@ -31,14 +41,20 @@ class OrderServiceImplTest {
 
   @Mock private OrderItemRepository orderItemRepository;
 
+  @Mock private OrderDailyRollupRepository orderDailyRollupRepository;
+
+  @Mock private CustomerLeaderboardRepository customerLeaderboardRepository;
+
   @Mock private UserRepository userRepository;
 
   @Mock private ProductRepository productRepository;
 
-  @Mock private StockRepository stockRepository;
-
   @Mock private StockService stockService;
 
+  @Mock private TransactionRetryExecutor transactionRetryExecutor;
+
+  @Mock private OrderStatisticsCache orderStatisticsCache;
+
   @InjectMocks private OrderServiceImpl orderService;
 
   private User testUser;
@@ -65,6 +81,20 @@ class OrderServiceImplTest {
 
     testOrder = new Order(testUser, BigDecimal.valueOf(100.00));
     testOrder.setId(UUID.randomUUID());
+
+    // Run order creation attempts inline
+    lenient()
+        .when(transactionRetryExecutor.execute(any(), any(), any()))
+        .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(2).get());
+
+    // Load order statistics without caching
+    lenient()
+        .when(orderStatisticsCache.get(any(), any(), any()))
+        .thenAnswer(
+            invocation ->
+                invocation
+                    .<BiFunction<LocalDateTime, LocalDateTime, OrderStatistics>>getArgument(2)
+                    .apply(invocation.getArgument(0), invocation.getArgument(1)));
   }
 
   // ==================== ORDER CREATION TESTS ====================
@@ -75,10 +105,13 @@ class OrderServiceImplTest {
     Map<UUID, Integer> productQuantities = Map.of(testProduct.getId(), 1);
     List<Stock> reservedStocks = List.of(testStock);
 
-    when(productRepository.findById(testProduct.getId())).thenReturn(Optional.of(testProduct));
-    when(stockRepository.countAvailableByProductId(testProduct.getId())).thenReturn(5L);
+    when(productRepository.findAllById(productQuantities.keySet()))
+        .thenReturn(List.of(testProduct));
+    when(stockService.getAvailableStockCounts(productQuantities.keySet()))
+        .thenReturn(Map.of(testProduct.getId(), 5L));
     when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
-    when(stockService.reserveStock(testProduct.getId(), 1, 30)).thenReturn(reservedStocks);
+    when(stockService.reserveStockForProducts(productQuantities, 30))
+        .thenReturn(Map.of(testProduct.getId(), reservedStocks));
 
     // Act
     Order result = orderService.createOrder(testUser, productQuantities);
@@ -88,7 +121,10 @@ class OrderServiceImplTest {
     assertEquals(testUser, result.getUser());
     assertEquals(BigDecimal.valueOf(100.00), result.getTotalAmount());
     verify(orderRepository).save(any(Order.class));
-    verify(stockService).reserveStock(testProduct.getId(), 1, 30);
+    verify(stockService).reserveStockForProducts(productQuantities, 30);
+    verify(orderDailyRollupRepository).recordCreated(testOrder.getId());
+    verify(transactionRetryExecutor)
+        .execute(eq("order.create"), eq(Isolation.READ_COMMITTED), any());
   }
 
   @Test
@@ -96,8 +132,10 @@ class OrderServiceImplTest {
     // Arrange
     Map<UUID, Integer> productQuantities = Map.of(testProduct.getId(), 5);
 
-    when(productRepository.findById(testProduct.getId())).thenReturn(Optional.of(testProduct));
-    when(stockRepository.countAvailableByProductId(testProduct.getId())).thenReturn(2L);
+    when(productRepository.findAllById(productQuantities.keySet()))
+        .thenReturn(List.of(testProduct));
+    when(stockService.getAvailableStockCounts(productQuantities.keySet()))
+        .thenReturn(Map.of(testProduct.getId(), 2L));
 
     // Act & Assert
     assertThrows(
@@ -110,12 +148,49 @@ class OrderServiceImplTest {
     // Arrange
     Map<UUID, Integer> productQuantities = Map.of(UUID.randomUUID(), 1);
 
-    when(productRepository.findById(any(UUID.class))).thenReturn(Optional.empty());
+    when(productRepository.findAllById(productQuantities.keySet())).thenReturn(List.of());
 
     // Act & Assert
     assertThrows(
         ResourceNotFoundException.class,
         () -> orderService.createOrder(testUser, productQuantities));
+    verifyNoInteractions(stockService);
+  }
+
+  @Test
+  void createOrder_WithSeveralProducts_ShouldReadProductsAndStockOnce() {
+    // Arrange
+    Product otherProduct = new Product();
+    otherProduct.setId(UUID.randomUUID());
+    otherProduct.setName("Other Product");
+    otherProduct.setPrice(BigDecimal.valueOf(50.00));
+
+    Stock otherStock = new Stock();
+    otherStock.setId(UUID.randomUUID());
+    otherStock.setProduct(otherProduct);
+
+    Map<UUID, Integer> productQuantities =
+        Map.of(testProduct.getId(), 1, otherProduct.getId(), 1);
+
+    when(productRepository.findAllById(productQuantities.keySet()))
+        .thenReturn(List.of(testProduct, otherProduct));
+    when(stockService.getAvailableStockCounts(productQuantities.keySet()))
+        .thenReturn(Map.of(testProduct.getId(), 5L, otherProduct.getId(), 3L));
+    when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
+    when(stockService.reserveStockForProducts(productQuantities, 30))
+        .thenReturn(
+            Map.of(
+                testProduct.getId(), List.of(testStock),
+                otherProduct.getId(), List.of(otherStock)));
+
+    // Act
+    Order result = orderService.createOrder(testUser, productQuantities);
+
+    // Assert
+    assertEquals(2, result.getOrderItems().size());
+    verify(productRepository, times(1)).findAllById(productQuantities.keySet());
+    verify(productRepository, never()).findById(any());
+    verify(stockService, never()).getAvailableStockCount(any());
   }
 
   @Test
@@ -135,10 +210,13 @@ class OrderServiceImplTest {
     List<Stock> reservedStocks = List.of(testStock);
 
     when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-    when(productRepository.findById(testProduct.getId())).thenReturn(Optional.of(testProduct));
-    when(stockRepository.countAvailableByProductId(testProduct.getId())).thenReturn(5L);
+    when(productRepository.findAllById(productQuantities.keySet()))
+        .thenReturn(List.of(testProduct));
+    when(stockService.getAvailableStockCounts(productQuantities.keySet()))
+        .thenReturn(Map.of(testProduct.getId(), 5L));
     when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
-    when(stockService.reserveStock(testProduct.getId(), 1, 30)).thenReturn(reservedStocks);
+    when(stockService.reserveStockForProducts(productQuantities, 30))
+        .thenReturn(Map.of(testProduct.getId(), reservedStocks));
 
     // Act
     Order result = orderService.createOrderByUsername("testuser", productQuantities);
@@ -251,6 +329,14 @@ class OrderServiceImplTest {
 
     when(orderRepository.findById(testOrder.getId())).thenReturn(Optional.of(testOrder));
     when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
+    when(stockService.markAsSold(List.of(testStock.getId())))
+        .thenReturn(
+            StockSaleResultDto.builder()
+                .requestedCount(1)
+                .soldStockIds(List.of(testStock.getId()))
+                .soldCountByProduct(Map.of(testProduct.getId(), 1L))
+                .failures(Map.of())
+                .build());
 
     // Act
     Order result = orderService.markOrderAsCompleted(testOrder.getId());
@@ -259,6 +345,10 @@ class OrderServiceImplTest {
     assertNotNull(result);
     assertEquals(OrderStatus.COMPLETED, result.getStatus());
     verify(orderRepository).save(testOrder);
+    verify(stockService).markAsSold(List.of(testStock.getId()));
+    verify(orderDailyRollupRepository)
+        .recordCompleted(testOrder.getId(), BigDecimal.valueOf(100.00));
+    verify(customerLeaderboardRepository).recordCompletedOrder(testOrder.getId());
   }
 
   @Test
@@ -323,8 +413,10 @@ class OrderServiceImplTest {
     // Arrange
     Map<UUID, Integer> productQuantities = Map.of(testProduct.getId(), 1);
 
-    when(productRepository.findById(testProduct.getId())).thenReturn(Optional.of(testProduct));
-    when(stockRepository.countAvailableByProductId(testProduct.getId())).thenReturn(5L);
+    when(productRepository.findAllById(productQuantities.keySet()))
+        .thenReturn(List.of(testProduct));
+    when(stockService.getAvailableStockCounts(productQuantities.keySet()))
+        .thenReturn(Map.of(testProduct.getId(), 5L));
 
     // Act & Assert
     assertDoesNotThrow(() -> orderService.validateOrder(testUser, productQuantities));
@@ -381,7 +473,8 @@ class OrderServiceImplTest {
     // Arrange
     Map<UUID, Integer> productQuantities = Map.of(testProduct.getId(), 2);
 
-    when(productRepository.findById(testProduct.getId())).thenReturn(Optional.of(testProduct));
+    when(productRepository.findAllById(productQuantities.keySet()))
+        .thenReturn(List.of(testProduct));
 
     // Act
     BigDecimal result = orderService.calculateOrderTotal(productQuantities);
@@ -394,7 +487,7 @@ class OrderServiceImplTest {
   void getAvailableQuantityForProduct_WithValidProduct_ShouldReturnQuantity() {
     // Arrange
     when(productRepository.findById(testProduct.getId())).thenReturn(Optional.of(testProduct));
-    when(stockRepository.countAvailableByProductId(testProduct.getId())).thenReturn(5L);
+    when(stockService.getAvailableStockCount(testProduct.getId())).thenReturn(5L);
 
     // Act
     int result = orderService.getAvailableQuantityForProduct(testProduct.getId());
@@ -409,14 +502,65 @@ class OrderServiceImplTest {
     Map<UUID, Integer> productQuantities = Map.of(testProduct.getId(), 1);
     List<Stock> reservedStocks = List.of(testStock);
 
-    when(productRepository.findById(testProduct.getId())).thenReturn(Optional.of(testProduct));
-    when(stockService.reserveStock(testProduct.getId(), 1, 30)).thenReturn(reservedStocks);
+    when(productRepository.findAllById(productQuantities.keySet()))
+        .thenReturn(List.of(testProduct));
+    when(stockService.reserveStockForProducts(productQuantities, 30))
+        .thenReturn(Map.of(testProduct.getId(), reservedStocks));
 
     // Act
     assertDoesNotThrow(() -> orderService.reserveStockForOrder(testOrder, productQuantities));
 
     // Assert
-    verify(stockService).reserveStock(testProduct.getId(), 1, 30);
+    verify(stockService).reserveStockForProducts(productQuantities, 30);
+    assertEquals(1, testOrder.getOrderItems().size());
+  }
+
+  @Test
+  void reserveStockForOrder_WithSeveralProducts_ShouldReserveAllInOneCall() {
+    // Arrange
+    Product otherProduct = new Product();
+    otherProduct.setId(UUID.randomUUID());
+    otherProduct.setName("Other Product");
+    otherProduct.setPrice(BigDecimal.valueOf(50.00));
+
+    Stock otherStock = new Stock();
+    otherStock.setId(UUID.randomUUID());
+    otherStock.setProduct(otherProduct);
+    Stock secondOtherStock = new Stock();
+    secondOtherStock.setId(UUID.randomUUID());
+    secondOtherStock.setProduct(otherProduct);
+
+    Map<UUID, Integer> productQuantities =
+        Map.of(testProduct.getId(), 1, otherProduct.getId(), 2);
+
+    when(productRepository.findAllById(productQuantities.keySet()))
+        .thenReturn(List.of(testProduct, otherProduct));
+    when(stockService.reserveStockForProducts(productQuantities, 30))
+        .thenReturn(
+            Map.of(
+                testProduct.getId(), List.of(testStock),
+                otherProduct.getId(), List.of(otherStock, secondOtherStock)));
+
+    // Act
+    orderService.reserveStockForOrder(testOrder, productQuantities);
+
+    // Assert
+    assertEquals(3, testOrder.getOrderItems().size());
+    assertEquals(0, BigDecimal.valueOf(200.00).compareTo(testOrder.getTotalAmount()));
+    verify(stockService, never()).reserveStock(any(), anyInt(), anyInt());
+  }
+
+  @Test
+  void reserveStockForOrder_WithUnknownProduct_ShouldThrowBeforeReserving() {
+    // Arrange
+    Map<UUID, Integer> productQuantities = Map.of(testProduct.getId(), 1);
+    when(productRepository.findAllById(productQuantities.keySet())).thenReturn(List.of());
+
+    // Act & Assert
+    assertThrows(
+        ResourceNotFoundException.class,
+        () -> orderService.reserveStockForOrder(testOrder, productQuantities));
+    verifyNoInteractions(stockService);
   }
 
   // ==================== ORDER SEARCH AND REPORTING TESTS ====================
@@ -459,12 +603,10 @@ class OrderServiceImplTest {
   @Test
   void getOrderStatistics_ShouldReturnStatistics() {
     // Arrange
-    Object[] stats = {10L, 3L, 5L, 2L}; // total, pending, completed, failed
-    when(orderRepository.getOrderStatistics()).thenReturn(stats);
-    when(orderRepository.countByStatus(OrderStatus.PROCESSING)).thenReturn(1L);
-    when(orderRepository.countByStatus(OrderStatus.CANCELLED)).thenReturn(1L);
-    when(orderRepository.calculateTotalRevenue()).thenReturn(BigDecimal.valueOf(1000));
-    when(orderRepository.calculateAverageOrderValue()).thenReturn(BigDecimal.valueOf(100));
+    OrderStatistics stats =
+        new OrderStatistics(
+            10L, 3L, 1L, 5L, 2L, 1L, BigDecimal.valueOf(1000), BigDecimal.valueOf(100));
+    when(orderRepository.summarizeOrders()).thenReturn(stats);
 
     // Act
     OrderStatistics result = orderService.getOrderStatistics();
@@ -475,21 +617,83 @@ class OrderServiceImplTest {
     assertEquals(3L, result.pending());
     assertEquals(5L, result.completed());
     assertEquals(2L, result.failed());
+    verify(orderRepository, never()).countByStatus(any());
   }
 
   @Test
-  void getTopCustomersByOrderCount_ShouldReturnTopCustomers() {
+  void getOrderStatistics_WithDateRange_ShouldSummarizeRangeInOneQuery() {
     // Arrange
-    List<User> topCustomers = List.of(testUser);
-    when(orderRepository.findTopCustomersByOrderCount(5)).thenReturn(topCustomers);
+    LocalDateTime startDate = LocalDateTime.now().minusDays(30);
+    LocalDateTime endDate = LocalDateTime.now().minusDays(1);
+    OrderStatistics stats =
+        new OrderStatistics(
+            4L, 1L, 0L, 2L, 1L, 0L, BigDecimal.valueOf(500), BigDecimal.valueOf(250));
+    when(orderRepository.summarizeOrdersBetween(startDate, endDate)).thenReturn(stats);
 
     // Act
-    List<User> result = orderService.getTopCustomersByOrderCount(5);
+    OrderStatistics result = orderService.getOrderStatistics(startDate, endDate);
+
+    // Assert - The average of a range is its revenue over every order in it
+    assertEquals(4L, result.total());
+    assertEquals(2L, result.completed());
+    assertEquals(0, new BigDecimal("125.00").compareTo(result.averageOrderValue()));
+    assertEquals(2, result.averageOrderValue().scale());
+    verify(orderStatisticsCache).get(eq(startDate), eq(endDate), any());
+    verify(orderRepository, never()).countByStatus(any());
+  }
+
+  @Test
+  void getDailyOrderStatistics_ShouldReadDailyRollups() {
+    // Arrange
+    LocalDateTime startDate = LocalDateTime.of(2024, 3, 1, 10, 30);
+    LocalDateTime endDate = LocalDateTime.of(2024, 3, 7, 18, 0);
+    List<Object[]> rollups =
+        List.of(
+            new Object[] {LocalDate.of(2024, 3, 1), 4L, BigDecimal.valueOf(300)},
+            new Object[] {LocalDate.of(2024, 3, 5), 2L, BigDecimal.ZERO});
+    when(orderDailyRollupRepository.sumByDateBetween(
+            LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 7)))
+        .thenReturn(rollups);
+
+    // Act
+    List<DailyOrderStatistics> result = orderService.getDailyOrderStatistics(startDate, endDate);
 
     // Assert
-    assertNotNull(result);
-    assertEquals(1, result.size());
-    assertEquals(testUser, result.get(0));
+    assertEquals(2, result.size());
+    assertEquals(LocalDate.of(2024, 3, 1).atStartOfDay(), result.get(0).date());
+    assertEquals(4L, result.get(0).orderCount());
+    assertEquals(BigDecimal.valueOf(300), result.get(0).revenue());
+    verify(orderRepository, never()).getDailyOrderStatistics(any(), any());
+  }
+
+  @Test
+  void getTopCustomersByOrderCount_ShouldReadLeaderboard() {
+    // Arrange
+    List<TopCustomer> topCustomers =
+        List.of(new TopCustomer(testUser.getId(), "testuser", 3, BigDecimal.valueOf(300)));
+    when(customerLeaderboardRepository.findTopByOrderCount(Limit.of(5))).thenReturn(topCustomers);
+
+    // Act
+    List<TopCustomer> result = orderService.getTopCustomersByOrderCount(5);
+
+    // Assert
+    assertEquals(topCustomers, result);
+    verifyNoInteractions(orderRepository);
+  }
+
+  @Test
+  void getTopCustomersByRevenue_ShouldReadLeaderboard() {
+    // Arrange
+    List<TopCustomer> topCustomers =
+        List.of(new TopCustomer(testUser.getId(), "testuser", 3, BigDecimal.valueOf(300)));
+    when(customerLeaderboardRepository.findTopByRevenue(Limit.of(5))).thenReturn(topCustomers);
+
+    // Act
+    List<TopCustomer> result = orderService.getTopCustomersByRevenue(5);
+
+    // Assert
+    assertEquals(topCustomers, result);
+    verifyNoInteractions(orderRepository);
   }
 
   @Test
@@ -546,6 +750,8 @@ class OrderServiceImplTest {
     testOrder.addOrderItem(orderItem);
 
     when(orderRepository.findById(testOrder.getId())).thenReturn(Optional.of(testOrder));
+    when(stockService.getSoldAccountData(List.of(testStock.getId())))
+        .thenReturn(Map.of(testStock.getId(), testStock.getAccountData()));
 
     // Act
     Map<String, String> result = orderService.getOrderDownloadInfo(testOrder.getId(), testUser);
@@ -556,6 +762,25 @@ class OrderServiceImplTest {
     assertEquals(testStock.getAccountData(), result.get(testProduct.getName()));
   }
 
+  @Test
+  void getOrderDownloadInfo_WithArchivedStock_ShouldReturnArchivedAccountData() {
+    // Arrange - the stock item was moved to the sold stock history, so it is not loaded
+    testOrder.setStatus(OrderStatus.COMPLETED);
+    testOrder.setUser(testUser);
+    OrderItem orderItem = new OrderItem(testOrder, testProduct, testStock, testProduct.getPrice());
+    testOrder.addOrderItem(orderItem);
+
+    when(orderRepository.findById(testOrder.getId())).thenReturn(Optional.of(testOrder));
+    when(stockService.getSoldAccountData(List.of(testStock.getId())))
+        .thenReturn(Map.of(testStock.getId(), "username:archived\npassword:archived"));
+
+    // Act
+    Map<String, String> result = orderService.getOrderDownloadInfo(testOrder.getId(), testUser);
+
+    // Assert
+    assertEquals("username:archived\npassword:archived", result.get(testProduct.getName()));
+  }
+
   @Test
   void getOrderDownloadInfo_WithUnauthorizedUser_ShouldThrowException() {
     // Arrange
@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
+import com.accountselling.platform.dto.statistics.DailyPaymentStatistics;
 import com.accountselling.platform.dto.statistics.PaymentStatistics;
 import com.accountselling.platform.enums.PaymentStatus;
 import com.accountselling.platform.exception.*;
@@ -11,6 +12,7 @@ import com.accountselling.platform.model.*;
 import com.accountselling.platform.repository.*;
 import com.accountselling.platform.service.OrderService;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 import org.junit.jupiter.api.BeforeEach;
@@ -30,6 +32,8 @@ class PaymentServiceImplTest {
 
   @Mock private PaymentRepository paymentRepository;
 
+  @Mock private PaymentDailyRollupRepository paymentDailyRollupRepository;
+
   @Mock private OrderRepository orderRepository;
 
   @Mock private UserRepository userRepository;
@@ -77,6 +81,7 @@ class PaymentServiceImplTest {
     assertEquals(BigDecimal.valueOf(100.00), result.getAmount());
     assertEquals("QR_CODE", result.getPaymentMethod());
     verify(paymentRepository).save(any(Payment.class));
+    verify(paymentDailyRollupRepository).recordCreated(testPayment.getId());
   }
 
   @Test
@@ -311,6 +316,8 @@ class PaymentServiceImplTest {
     assertEquals("TXN-123", result.getTransactionId());
     verify(paymentRepository).save(testPayment);
     verify(orderService).processOrderCompletion(testOrder.getId(), "TXN-123");
+    verify(paymentDailyRollupRepository)
+        .recordCompleted(testPayment.getId(), BigDecimal.valueOf(100.00));
   }
 
   @Test
@@ -379,6 +386,8 @@ class PaymentServiceImplTest {
     assertEquals(PaymentStatus.REFUNDED, result.getStatus());
     assertEquals(refundAmount, result.getRefundAmount());
     verify(paymentRepository).save(testPayment);
+    verify(paymentDailyRollupRepository)
+        .recordRefunded(testPayment.getId(), BigDecimal.valueOf(100.00), refundAmount);
   }
 
   @Test
@@ -757,6 +766,33 @@ class PaymentServiceImplTest {
     assertEquals(1, result.getTotalElements());
   }
 
+  @Test
+  void getDailyPaymentStatistics_ShouldReadDailyRollups() {
+    // Arrange
+    LocalDateTime startDate = LocalDateTime.of(2024, 3, 1, 10, 30);
+    LocalDateTime endDate = LocalDateTime.of(2024, 3, 7, 18, 0);
+    List<Object[]> rollups =
+        List.<Object[]>of(
+            new Object[] {
+              LocalDate.of(2024, 3, 2), 3L, BigDecimal.valueOf(200), BigDecimal.valueOf(50)
+            });
+    when(paymentDailyRollupRepository.sumByDateBetween(
+            LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 7)))
+        .thenReturn(rollups);
+
+    // Act
+    List<DailyPaymentStatistics> result =
+        paymentService.getDailyPaymentStatistics(startDate, endDate);
+
+    // Assert
+    assertEquals(1, result.size());
+    assertEquals(LocalDate.of(2024, 3, 2).atStartOfDay(), result.get(0).date());
+    assertEquals(3L, result.get(0).paymentCount());
+    assertEquals(BigDecimal.valueOf(200), result.get(0).revenue());
+    assertEquals(BigDecimal.valueOf(50), result.get(0).refunds());
+    verify(paymentRepository, never()).getDailyPaymentStatistics(any(), any());
+  }
+
   @Test
   void getPaymentStatistics_ShouldReturnStatistics() {
     // Arrange
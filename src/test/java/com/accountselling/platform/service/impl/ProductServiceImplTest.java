@@ -8,10 +8,13 @@ import com.accountselling.platform.exception.ResourceAlreadyExistsException;
 import com.accountselling.platform.exception.ResourceNotFoundException;
 import com.accountselling.platform.model.Category;
 import com.accountselling.platform.model.Product;
+import com.accountselling.platform.model.ProductStockSummary;
 import com.accountselling.platform.model.Stock;
 import com.accountselling.platform.repository.CategoryRepository;
 import com.accountselling.platform.repository.ProductRepository;
+import com.accountselling.platform.repository.ProductStockSummaryRepository;
 import com.accountselling.platform.repository.StockRepository;
+import com.accountselling.platform.service.LowStockWatcher;
 import com.accountselling.platform.service.ProductService;
 import java.math.BigDecimal;
 import java.util.*;
@@ -37,6 +40,8 @@ class ProductServiceImplTest {
 
   @Mock private CategoryRepository categoryRepository;
   @Mock private StockRepository stockRepository;
+  @Mock private ProductStockSummaryRepository productStockSummaryRepository;
+  @Mock private LowStockWatcher lowStockWatcher;
 
   @InjectMocks private ProductServiceImpl productService;
 
@@ -280,12 +285,19 @@ class ProductServiceImplTest {
   void getProductStockInfo_WithValidProduct_ShouldReturnStockInfo() {
     UUID productId = testProduct1.getId();
     when(productRepository.findById(productId)).thenReturn(Optional.of(testProduct1));
+    when(productStockSummaryRepository.findTotalsByProductId(productId))
+        .thenReturn(Optional.of(new ProductStockSummary(productId, 10, 3, 2, 5)));
 
     ProductService.ProductStockInfo result = productService.getProductStockInfo(productId);
 
     assertThat(result).isNotNull();
     assertThat(result.getProductId()).isEqualTo(productId);
+    assertThat(result.getTotalStock()).isEqualTo(10);
+    assertThat(result.getAvailableStock()).isEqualTo(3);
+    assertThat(result.getSoldStock()).isEqualTo(5);
+    assertThat(result.getReservedStock()).isEqualTo(2);
     verify(productRepository).findById(productId);
+    verify(stockRepository, never()).getStockStatisticsByProductId(any());
   }
 
   @Test
@@ -354,6 +366,11 @@ class ProductServiceImplTest {
     assertThat(result.getServer()).isEqualTo(server);
     assertThat(result.getImageUrl()).isEqualTo(imageUrl);
     verify(productRepository).save(any(Product.class));
+    verify(productStockSummaryRepository)
+        .saveAll(
+            argThat(
+                (List<ProductStockSummary> slots) -> slots.size() == ProductStockSummary.SLOTS));
+    verify(lowStockWatcher).watchNewProduct(result.getId(), 5);
   }
 
   @Test
@@ -477,6 +494,8 @@ class ProductServiceImplTest {
     productService.deleteProduct(productId);
 
     verify(productRepository).delete(testProduct1);
+    verify(productStockSummaryRepository).deleteByProductId(productId);
+    verify(lowStockWatcher).unwatch(productId);
   }
 
   @Test
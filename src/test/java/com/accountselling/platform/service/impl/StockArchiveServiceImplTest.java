@@ -0,0 +1,142 @@
+package com.accountselling.platform.service.impl;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.accountselling.platform.model.StockArchiveCheckpoint;
+import com.accountselling.platform.repository.StockArchiveCheckpointRepository;
+import com.accountselling.platform.repository.StockRepository;
+import com.accountselling.platform.repository.StockSoldHistoryRepository;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Unit tests for StockArchiveServiceImpl. Tests batching, checkpoint progress and partition setup
+ * of the sold stock archival with mock dependencies.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("StockArchiveService Implementation Tests")
+class StockArchiveServiceImplTest {
+
+  @Mock private StockRepository stockRepository;
+
+  @Mock private StockSoldHistoryRepository stockSoldHistoryRepository;
+
+  @Mock private StockArchiveCheckpointRepository stockArchiveCheckpointRepository;
+
+  @Mock private TransactionTemplate transactionTemplate;
+
+  @InjectMocks private StockArchiveServiceImpl stockArchiveService;
+
+  private StockArchiveCheckpoint checkpoint;
+
+  @BeforeEach
+  void setUp() {
+    ReflectionTestUtils.setField(stockArchiveService, "soldOlderThanDays", 90);
+    ReflectionTestUtils.setField(stockArchiveService, "batchSize", 2);
+    ReflectionTestUtils.setField(stockArchiveService, "pauseMillis", 0L);
+    ReflectionTestUtils.setField(stockArchiveService, "maxBatchesPerRun", 10);
+
+    checkpoint = new StockArchiveCheckpoint(StockArchiveCheckpoint.SOLD_STOCK);
+  }
+
+  @Test
+  @DisplayName("Should archive in batches until a short batch and advance the checkpoint")
+  void shouldArchiveInBatchesUntilShortBatch() {
+    // Given - Prepare data
+    LocalDateTime earliest = LocalDateTime.now().minusDays(150);
+    UUID firstId = UUID.randomUUID();
+    UUID secondId = UUID.randomUUID();
+    UUID thirdId = UUID.randomUUID();
+    LocalDateTime lastSoldAt = earliest.plusDays(1);
+
+    when(stockArchiveCheckpointRepository.findById(StockArchiveCheckpoint.SOLD_STOCK))
+        .thenReturn(Optional.of(checkpoint));
+    when(stockArchiveCheckpointRepository.findByNameForUpdate(StockArchiveCheckpoint.SOLD_STOCK))
+        .thenReturn(Optional.of(checkpoint));
+    when(stockRepository.findEarliestSoldAtBefore(any(), eq(checkpoint.getLastSoldAt())))
+        .thenReturn(earliest);
+    when(transactionTemplate.execute(any()))
+        .thenAnswer(
+            invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    // Rows come back out of order, as RETURNING does not sort
+    when(stockSoldHistoryRepository.archiveSoldStock(any(), any(), any(), eq(2)))
+        .thenReturn(
+            List.<Object[]>of(
+                new Object[] {Timestamp.valueOf(earliest.plusHours(1)), secondId},
+                new Object[] {Timestamp.valueOf(earliest), firstId}),
+            List.<Object[]>of(new Object[] {Timestamp.valueOf(lastSoldAt), thirdId}));
+
+    // When - Execute method
+    int archived = stockArchiveService.archiveSoldStock();
+
+    // Then - Verify results
+    assertThat(archived).isEqualTo(3);
+    assertThat(checkpoint.getLastSoldAt()).isEqualTo(lastSoldAt);
+    assertThat(checkpoint.getLastStockId()).isEqualTo(thirdId);
+    assertThat(checkpoint.getArchivedCount()).isEqualTo(3);
+
+    verify(stockSoldHistoryRepository, times(2)).archiveSoldStock(any(), any(), any(), eq(2));
+    // One partition per month from the earliest sale up to the cutoff
+    verify(stockSoldHistoryRepository, atLeast(2)).ensurePartition(any());
+    verify(stockSoldHistoryRepository)
+        .ensurePartition(earliest.toLocalDate().withDayOfMonth(1).atStartOfDay());
+  }
+
+  @Test
+  @DisplayName("Should skip archival when no sold stock is old enough")
+  void shouldSkipArchivalWhenNothingIsWaiting() {
+    // Given - Prepare data
+    when(stockArchiveCheckpointRepository.findById(StockArchiveCheckpoint.SOLD_STOCK))
+        .thenReturn(Optional.of(checkpoint));
+    when(stockRepository.findEarliestSoldAtBefore(any(), any())).thenReturn(null);
+
+    // When - Execute method
+    int archived = stockArchiveService.archiveSoldStock();
+
+    // Then - Verify results
+    assertThat(archived).isZero();
+    verifyNoInteractions(stockSoldHistoryRepository, transactionTemplate);
+  }
+
+  @Test
+  @DisplayName("Should stop at the batch limit per run")
+  void shouldStopAtBatchLimitPerRun() {
+    // Given - Prepare data
+    ReflectionTestUtils.setField(stockArchiveService, "maxBatchesPerRun", 1);
+    LocalDateTime earliest = LocalDateTime.now().minusDays(100);
+
+    when(stockArchiveCheckpointRepository.findById(StockArchiveCheckpoint.SOLD_STOCK))
+        .thenReturn(Optional.of(checkpoint));
+    when(stockArchiveCheckpointRepository.findByNameForUpdate(StockArchiveCheckpoint.SOLD_STOCK))
+        .thenReturn(Optional.of(checkpoint));
+    when(stockRepository.findEarliestSoldAtBefore(any(), any())).thenReturn(earliest);
+    when(transactionTemplate.execute(any()))
+        .thenAnswer(
+            invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    when(stockSoldHistoryRepository.archiveSoldStock(any(), any(), any(), eq(2)))
+        .thenReturn(
+            List.<Object[]>of(
+                new Object[] {earliest, UUID.randomUUID()},
+                new Object[] {earliest, UUID.randomUUID()}));
+
+    // When - Execute method
+    int archived = stockArchiveService.archiveSoldStock();
+
+    // Then - Verify results
+    assertThat(archived).isEqualTo(2);
+    verify(stockSoldHistoryRepository, times(1)).archiveSoldStock(any(), any(), any(), eq(2));
+  }
+}
@@ -0,0 +1,180 @@
+package com.accountselling.platform.service.impl;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import com.accountselling.platform.dto.stock.StockImportRecord;
+import com.accountselling.platform.dto.stock.StockImportReportDto;
+import com.accountselling.platform.enums.StockImportFormat;
+import com.accountselling.platform.exception.ResourceNotFoundException;
+import com.accountselling.platform.model.Product;
+import com.accountselling.platform.repository.ProductRepository;
+import com.accountselling.platform.repository.ProductStockSummaryRepository;
+import com.accountselling.platform.repository.StockBatchRepository;
+import com.accountselling.platform.service.AvailableStockCounterRegistry;
+import com.accountselling.platform.util.AccountDataFingerprint;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Unit tests for StockImportServiceImpl. Tests streaming CSV and NDJSON imports, chunked duplicate
+ * detection and validation of individual records.
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("StockImportService Implementation Tests")
+class StockImportServiceImplTest {
+
+  @Mock private ProductRepository productRepository;
+
+  @Mock private StockBatchRepository stockBatchRepository;
+
+  @Mock private ProductStockSummaryRepository productStockSummaryRepository;
+
+  @Spy private AvailableStockCounterRegistry availableStockCounters;
+
+  @Mock private TransactionTemplate transactionTemplate;
+
+  @InjectMocks private StockImportServiceImpl stockImportService;
+
+  private UUID productId;
+  private Product testProduct;
+
+  @BeforeEach
+  void setUp() {
+    productId = UUID.randomUUID();
+    testProduct = new Product("Test Product", BigDecimal.valueOf(100.00), null);
+    testProduct.setId(productId);
+
+    // Run chunk callbacks inline
+    lenient()
+        .when(transactionTemplate.execute(any()))
+        .thenAnswer(
+            invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+  }
+
+  @Test
+  @DisplayName("Should import CSV body and skip existing and repeated records")
+  void shouldImportCsvAndSkipDuplicates() {
+    // Given - Prepare data
+    String body =
+        "accountData,additionalInfo\n"
+            + "user1:pass1,first\n"
+            + "\"user2:pass2\nemail:two@example.com\",\"quoted, info\"\n"
+            + "user1:pass1,repeat\n"
+            + "existing:pass\n";
+
+    when(productRepository.findById(productId)).thenReturn(Optional.of(testProduct));
+    when(stockBatchRepository.findExistingFingerprints(eq(productId), anyCollection()))
+        .thenReturn(Set.of(AccountDataFingerprint.of("existing:pass")));
+    when(stockBatchRepository.insertStock(eq(productId), anyList(), anyInt())).thenReturn(2);
+
+    // When - Execute method
+    StockImportReportDto report =
+        stockImportService.importStock(productId, stream(body), StockImportFormat.CSV);
+
+    // Then - Verify results
+    assertThat(report.getTotalRecords()).isEqualTo(4);
+    assertThat(report.getImportedCount()).isEqualTo(2);
+    assertThat(report.getDuplicateCount()).isEqualTo(2);
+    assertThat(report.getInvalidCount()).isZero();
+    assertThat(report.getChunks()).hasSize(1);
+
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<StockImportRecord>> inserted = ArgumentCaptor.forClass(List.class);
+    verify(stockBatchRepository).insertStock(eq(productId), inserted.capture(), anyInt());
+    assertThat(inserted.getValue())
+        .extracting(StockImportRecord::accountData)
+        .containsExactly("user1:pass1", "user2:pass2\nemail:two@example.com");
+    assertThat(inserted.getValue().get(1).additionalInfo()).isEqualTo("quoted, info");
+    verify(availableStockCounters).adjust(productId, 2);
+  }
+
+  @Test
+  @DisplayName("Should import NDJSON body and count malformed lines as invalid")
+  void shouldImportNdjsonAndCountInvalidLines() {
+    // Given - Prepare data
+    String body =
+        "{\"accountData\":\"user1:pass1\",\"additionalInfo\":\"vip\"}\n"
+            + "\n"
+            + "\"user2:pass2\"\n"
+            + "{not json}\n"
+            + "{\"additionalInfo\":\"missing data\"}\n";
+
+    when(productRepository.findById(productId)).thenReturn(Optional.of(testProduct));
+    when(stockBatchRepository.findExistingFingerprints(eq(productId), anyCollection()))
+        .thenReturn(Set.of());
+    when(stockBatchRepository.insertStock(eq(productId), anyList(), anyInt())).thenReturn(2);
+
+    // When - Execute method
+    StockImportReportDto report =
+        stockImportService.importStock(productId, stream(body), StockImportFormat.NDJSON);
+
+    // Then - Verify results
+    assertThat(report.getTotalRecords()).isEqualTo(4);
+    assertThat(report.getImportedCount()).isEqualTo(2);
+    assertThat(report.getInvalidCount()).isEqualTo(2);
+    assertThat(report.getInvalidLines()).containsExactly(4L, 5L);
+  }
+
+  @Test
+  @DisplayName("Should split large bodies into chunks with one lookup each")
+  void shouldSplitLargeBodiesIntoChunks() {
+    // Given - Prepare data
+    StringBuilder body = new StringBuilder();
+    for (int i = 0; i < 2500; i++) {
+      body.append("user").append(i).append(":pass\n");
+    }
+
+    when(productRepository.findById(productId)).thenReturn(Optional.of(testProduct));
+    when(stockBatchRepository.findExistingFingerprints(eq(productId), anyCollection()))
+        .thenReturn(Set.of());
+    when(stockBatchRepository.insertStock(eq(productId), anyList(), anyInt()))
+        .thenAnswer(invocation -> invocation.<List<?>>getArgument(1).size());
+
+    // When - Execute method
+    StockImportReportDto report =
+        stockImportService.importStock(productId, stream(body.toString()), StockImportFormat.CSV);
+
+    // Then - Verify results
+    assertThat(report.getImportedCount()).isEqualTo(2500);
+    assertThat(report.getChunks())
+        .extracting(StockImportReportDto.ChunkReport::getRecords)
+        .containsExactly(1000, 1000, 500);
+    assertThat(report.getChunks().get(2).getRecordsSoFar()).isEqualTo(2500);
+
+    verify(stockBatchRepository, times(3)).findExistingFingerprints(eq(productId), anyCollection());
+  }
+
+  @Test
+  @DisplayName("Should throw exception when product not found")
+  void shouldThrowExceptionWhenProductNotFound() {
+    // Given - Prepare data
+    when(productRepository.findById(productId)).thenReturn(Optional.empty());
+
+    // When & Then - Execute and verify exception
+    assertThatThrownBy(
+            () -> stockImportService.importStock(productId, stream("a\n"), StockImportFormat.CSV))
+        .isInstanceOf(ResourceNotFoundException.class);
+
+    verifyNoInteractions(stockBatchRepository);
+  }
+
+  private InputStream stream(String body) {
+    return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -4,26 +4,53 @@ import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
+import com.accountselling.platform.config.NodeIdentity;
+import com.accountselling.platform.dto.stock.LowStockAlert;
+import com.accountselling.platform.dto.stock.StockSaleResultDto;
 import com.accountselling.platform.dto.stock.StockStatistics;
 import com.accountselling.platform.exception.*;
 import com.accountselling.platform.model.Category;
 import com.accountselling.platform.model.Product;
+import com.accountselling.platform.model.ProductStockSummary;
 import com.accountselling.platform.model.Stock;
+import com.accountselling.platform.model.StockLease;
+import com.accountselling.platform.model.StockSoldHistory;
 import com.accountselling.platform.repository.ProductRepository;
+import com.accountselling.platform.repository.ProductStockSummaryRepository;
+import com.accountselling.platform.repository.StockLeaseRepository;
 import com.accountselling.platform.repository.StockRepository;
+import com.accountselling.platform.repository.StockSoldHistoryRepository;
+import com.accountselling.platform.service.AvailableStockCounterRegistry;
+import com.accountselling.platform.service.HotStockPoolRegistry;
+import com.accountselling.platform.service.LowStockWatcher;
+import com.accountselling.platform.service.ReservationExpiryScheduler;
+import com.accountselling.platform.service.ReservationLedger;
+import com.accountselling.platform.util.AccountDataFingerprint;
+import com.accountselling.platform.util.KeysetCursor;
+import jakarta.persistence.EntityManager;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Unit tests for StockServiceImpl. Tests comprehensive stock management operations including
@@ -38,8 +65,30 @@ class StockServiceImplTest {
 
   @Mock private StockRepository stockRepository;
 
+  @Mock private StockSoldHistoryRepository stockSoldHistoryRepository;
+
   @Mock private ProductRepository productRepository;
 
+  @Spy private AvailableStockCounterRegistry availableStockCounters;
+
+  @Spy private ReservationExpiryScheduler reservationExpiryScheduler;
+
+  @Mock private LowStockWatcher lowStockWatcher;
+
+  @Spy private HotStockPoolRegistry hotStockPools;
+
+  @Mock private ReservationLedger reservationLedger;
+
+  @Mock private StockLeaseRepository stockLeaseRepository;
+
+  @Mock private NodeIdentity nodeIdentity;
+
+  @Mock private ProductStockSummaryRepository productStockSummaryRepository;
+
+  @Mock private TransactionTemplate transactionTemplate;
+
+  @Mock private EntityManager entityManager;
+
   @InjectMocks private StockServiceImpl stockService;
 
   private Product testProduct;
@@ -79,7 +128,9 @@ class StockServiceImplTest {
     String additionalInfo = "test_additional_info";
 
     when(productRepository.findById(productId)).thenReturn(Optional.of(testProduct));
-    when(stockRepository.existsByProductIdAndAccountData(productId, accountData)).thenReturn(false);
+    when(stockRepository.existsByProductIdAndFingerprint(
+            productId, AccountDataFingerprint.of(accountData)))
+        .thenReturn(false);
     when(stockRepository.save(any(Stock.class))).thenReturn(testStock);
 
     // When - Execute method
@@ -91,7 +142,8 @@ class StockServiceImplTest {
     assertThat(result.getAccountData()).isEqualTo("encrypted_credentials_123");
 
     verify(productRepository).findById(productId);
-    verify(stockRepository).existsByProductIdAndAccountData(productId, accountData);
+    verify(stockRepository)
+        .existsByProductIdAndFingerprint(productId, AccountDataFingerprint.of(accountData));
     verify(stockRepository).save(any(Stock.class));
   }
 
@@ -119,7 +171,9 @@ class StockServiceImplTest {
     String accountData = "duplicate_credentials";
 
     when(productRepository.findById(productId)).thenReturn(Optional.of(testProduct));
-    when(stockRepository.existsByProductIdAndAccountData(productId, accountData)).thenReturn(true);
+    when(stockRepository.existsByProductIdAndFingerprint(
+            productId, AccountDataFingerprint.of(accountData)))
+        .thenReturn(true);
 
     // When & Then - Execute and verify exception
     assertThatThrownBy(() -> stockService.createStock(productId, accountData, null))
@@ -127,7 +181,8 @@ class StockServiceImplTest {
         .hasMessageContaining("Stock with identical accountData already exists for this product");
 
     verify(productRepository).findById(productId);
-    verify(stockRepository).existsByProductIdAndAccountData(productId, accountData);
+    verify(stockRepository)
+        .existsByProductIdAndFingerprint(productId, AccountDataFingerprint.of(accountData));
     verify(stockRepository, never()).save(any());
   }
 
@@ -143,8 +198,8 @@ class StockServiceImplTest {
             new Stock(testProduct, "cred3"));
 
     when(productRepository.findById(productId)).thenReturn(Optional.of(testProduct));
-    when(stockRepository.existsByProductIdAndAccountData(eq(productId), anyString()))
-        .thenReturn(false);
+    when(stockRepository.findExistingFingerprints(eq(productId), anyCollection()))
+        .thenReturn(List.of());
     when(stockRepository.saveAll(anyList())).thenReturn(expectedStocks);
 
     // When - Execute method
@@ -155,10 +210,33 @@ class StockServiceImplTest {
     assertThat(result).extracting(Stock::getAccountData).containsExactly("cred1", "cred2", "cred3");
 
     verify(productRepository).findById(productId);
-    verify(stockRepository, times(3)).existsByProductIdAndAccountData(eq(productId), anyString());
+    verify(stockRepository).findExistingFingerprints(eq(productId), anyCollection());
+    verify(stockRepository, never()).existsByProductIdAndFingerprint(any(), anyString());
     verify(stockRepository).saveAll(anyList());
   }
 
+  @Test
+  @DisplayName("Should skip bulk entries whose fingerprint already exists")
+  void shouldSkipBulkEntriesWithExistingFingerprint() {
+    // Given - Prepare data
+    List<String> accountDataList = Arrays.asList("cred1", "cred2\r\n", " cred2", "cred3");
+
+    when(productRepository.findById(productId)).thenReturn(Optional.of(testProduct));
+    when(stockRepository.findExistingFingerprints(eq(productId), anyCollection()))
+        .thenReturn(List.of(AccountDataFingerprint.of("cred3")));
+    when(stockRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+    // When - Execute method
+    List<Stock> result = stockService.createBulkStock(productId, accountDataList);
+
+    // Then - Verify results
+    assertThat(result).extracting(Stock::getAccountData).containsExactly("cred1", "cred2\r\n");
+    assertThat(result)
+        .extracting(Stock::getFingerprint)
+        .containsExactly(AccountDataFingerprint.of("cred1"), AccountDataFingerprint.of("cred2"));
+    verify(availableStockCounters).adjust(productId, 2);
+  }
+
   // ==================== STOCK AVAILABILITY TESTS ====================
 
   @Test
@@ -208,6 +286,119 @@ class StockServiceImplTest {
     verify(stockRepository).countAvailableByProductId(productId);
   }
 
+  @Test
+  @DisplayName("Should serve available stock count from memory after first load")
+  void shouldServeAvailableStockCountFromMemoryAfterFirstLoad() {
+    // Given - Prepare data
+    when(stockRepository.countAvailableByProductId(productId)).thenReturn(7L);
+
+    // When - Execute method
+    stockService.getAvailableStockCount(productId);
+    stockService.isInStock(productId);
+    long result = stockService.getAvailableStockCount(productId);
+
+    // Then - Verify results
+    assertThat(result).isEqualTo(7L);
+
+    verify(stockRepository, times(1)).countAvailableByProductId(productId);
+  }
+
+  @Test
+  @DisplayName("Should load available stock counts of several products together")
+  void shouldLoadAvailableStockCountsTogether() {
+    // Given - One product is tracked, one has a summary and one has neither
+    UUID trackedProductId = UUID.randomUUID();
+    UUID summarizedProductId = UUID.randomUUID();
+    when(stockRepository.countAvailableByProductId(trackedProductId)).thenReturn(4L);
+    stockService.getAvailableStockCount(trackedProductId);
+
+    when(productStockSummaryRepository.findTotalsByProductIds(
+            List.of(summarizedProductId, productId)))
+        .thenReturn(List.of(new ProductStockSummary(summarizedProductId, 10, 7, 1, 2)));
+    when(stockRepository.countAvailableGroupedByProductIds(List.of(productId)))
+        .thenReturn(List.<Object[]>of(new Object[] {productId, 3L}));
+
+    // When - Execute method
+    Map<UUID, Long> result =
+        stockService.getAvailableStockCounts(
+            List.of(trackedProductId, summarizedProductId, productId));
+
+    // Then - Later reads come from memory
+    assertThat(result)
+        .containsEntry(trackedProductId, 4L)
+        .containsEntry(summarizedProductId, 7L)
+        .containsEntry(productId, 3L);
+    assertThat(stockService.getAvailableStockCount(productId)).isEqualTo(3L);
+    verify(stockRepository, never()).countAvailableByProductId(productId);
+  }
+
+  @Test
+  @DisplayName("Should decrement available stock counter when reserving")
+  void shouldDecrementAvailableStockCounterWhenReserving() {
+    // Given - Prepare data
+    List<UUID> claimedIds = Arrays.asList(UUID.randomUUID(), UUID.randomUUID());
+
+    when(stockRepository.countAvailableByProductId(productId)).thenReturn(5L);
+    when(productRepository.findById(productId)).thenReturn(Optional.of(testProduct));
+    when(stockRepository.claimAvailableStock(eq(productId), any(), eq(2)))
+        .thenReturn(inserted(claimedIds));
+    when(stockRepository.findAllById(claimedIds)).thenReturn(List.of());
+
+    // When - Execute method
+    stockService.getAvailableStockCount(productId);
+    stockService.reserveStock(productId, 2, 15);
+
+    // Then - Verify results
+    assertThat(stockService.getAvailableStockCount(productId)).isEqualTo(3L);
+
+    verify(stockRepository, times(1)).countAvailableByProductId(productId);
+    verify(productStockSummaryRepository).recordReserved(productId, 2);
+  }
+
+  @Test
+  @DisplayName("Should credit available stock counter when releasing reservations")
+  void shouldCreditAvailableStockCounterWhenReleasingReservations() {
+    // Given - Prepare data
+    List<UUID> stockIds = Arrays.asList(UUID.randomUUID(), UUID.randomUUID());
+
+    when(stockRepository.countAvailableByProductId(productId)).thenReturn(1L);
+    when(stockRepository.releaseReservationsReturningProductIds(stockIds))
+        .thenReturn(Arrays.asList(productId, productId));
+
+    // When - Execute method
+    stockService.getAvailableStockCount(productId);
+    int result = stockService.releaseReservation(stockIds);
+
+    // Then - Verify results
+    assertThat(result).isEqualTo(2);
+    assertThat(stockService.getAvailableStockCount(productId)).isEqualTo(3L);
+
+    verify(productStockSummaryRepository).recordReleased(productId, 2L);
+  }
+
+  @Test
+  @DisplayName("Should reconcile drifted available stock counters with database")
+  void shouldReconcileDriftedAvailableStockCounters() {
+    // Given - Prepare data
+    List<Object[]> actualCounts = new ArrayList<>();
+    actualCounts.add(new Object[] {productId, 4L});
+
+    when(stockRepository.countAvailableByProductId(productId)).thenReturn(9L);
+    when(stockRepository.releaseExpiredReservations()).thenReturn(List.of());
+    when(stockRepository.countAvailableGroupedByProductIds(List.of(productId)))
+        .thenReturn(actualCounts);
+
+    // When - Execute method
+    stockService.getAvailableStockCount(productId);
+    int checked = stockService.reconcileAvailableStockCounters();
+
+    // Then - Verify results
+    assertThat(checked).isEqualTo(1);
+    assertThat(stockService.getAvailableStockCount(productId)).isEqualTo(4L);
+
+    verify(stockRepository, times(1)).countAvailableByProductId(productId);
+  }
+
   @Test
   @DisplayName("Should get first available stock")
   void shouldGetFirstAvailableStock() {
@@ -233,17 +424,18 @@ class StockServiceImplTest {
     // Given - Prepare data
     int quantity = 2;
     int reservationMinutes = 15;
-    List<Stock> availableStocks =
-        Arrays.asList(
-            new Stock(testProduct, "cred1"),
-            new Stock(testProduct, "cred2"),
-            new Stock(testProduct, "cred3"));
+    Stock first = new Stock(testProduct, "cred1");
+    first.setId(UUID.randomUUID());
+    first.reserve(reservationMinutes);
+    Stock second = new Stock(testProduct, "cred2");
+    second.setId(UUID.randomUUID());
+    second.reserve(reservationMinutes);
+    List<UUID> claimedIds = Arrays.asList(first.getId(), second.getId());
 
     when(productRepository.findById(productId)).thenReturn(Optional.of(testProduct));
-    when(stockRepository.clearExpiredReservations()).thenReturn(0);
-    when(stockRepository.findAvailableStockByProductId(productId)).thenReturn(availableStocks);
-    when(stockRepository.save(any(Stock.class)))
-        .thenAnswer(invocation -> invocation.getArgument(0));
+    when(stockRepository.claimAvailableStock(eq(productId), any(), eq(quantity)))
+        .thenReturn(inserted(claimedIds));
+    when(stockRepository.findAllById(claimedIds)).thenReturn(Arrays.asList(first, second));
 
     // When - Execute method
     List<Stock> result = stockService.reserveStock(productId, quantity, reservationMinutes);
@@ -253,9 +445,11 @@ class StockServiceImplTest {
     assertThat(result).allMatch(stock -> stock.getReservedUntil() != null);
 
     verify(productRepository).findById(productId);
-    verify(stockRepository).clearExpiredReservations();
-    verify(stockRepository).findAvailableStockByProductId(productId);
-    verify(stockRepository, times(quantity)).save(any(Stock.class));
+    verify(stockRepository, never()).releaseExpiredReservations();
+    verify(stockRepository).claimAvailableStock(eq(productId), any(), eq(quantity));
+    verify(stockRepository, never()).findAvailableStockByProductId(any());
+    verify(reservationExpiryScheduler).schedule(eq(claimedIds), any());
+    verify(stockRepository, never()).save(any(Stock.class));
   }
 
   @Test
@@ -264,14 +458,13 @@ class StockServiceImplTest {
     // Given - Prepare data
     int quantity = 5;
     int reservationMinutes = 15;
-    List<Stock> availableStocks =
-        Arrays.asList(
-            new Stock(testProduct, "cred1"),
-            new Stock(testProduct, "cred2")); // Only 2 items available but 5 requested
+    List<UUID> claimedIds =
+        Arrays.asList(UUID.randomUUID(), UUID.randomUUID()); // Only 2 items claimed but 5 requested
 
     when(productRepository.findById(productId)).thenReturn(Optional.of(testProduct));
-    when(stockRepository.clearExpiredReservations()).thenReturn(0);
-    when(stockRepository.findAvailableStockByProductId(productId)).thenReturn(availableStocks);
+    when(stockRepository.claimAvailableStock(eq(productId), any(), eq(quantity)))
+        .thenReturn(inserted(claimedIds));
+    when(stockRepository.claimAvailableStock(eq(productId), any(), eq(3))).thenReturn(List.of());
 
     // When & Then - Execute and verify exception
     assertThatThrownBy(() -> stockService.reserveStock(productId, quantity, reservationMinutes))
@@ -279,9 +472,418 @@ class StockServiceImplTest {
         .hasMessageContaining("Insufficient stock available. Required: 5, Available: 2");
 
     verify(productRepository).findById(productId);
-    verify(stockRepository).clearExpiredReservations();
-    verify(stockRepository).findAvailableStockByProductId(productId);
-    verify(stockRepository, never()).save(any());
+    verify(stockRepository, never()).releaseExpiredReservations();
+    verify(stockRepository).claimAvailableStock(eq(productId), any(), eq(quantity));
+    verify(stockRepository, times(2)).claimAvailableStock(eq(productId), any(), eq(3));
+    verify(stockRepository, never()).findAllById(any());
+  }
+
+  @Test
+  @DisplayName("Should retry claim for items taken by concurrent buyers")
+  void shouldRetryClaimForItemsTakenByConcurrentBuyers() {
+    // Given - The first claim loses one candidate to a concurrent buyer
+    UUID first = UUID.randomUUID();
+    UUID second = UUID.randomUUID();
+
+    when(productRepository.findById(productId)).thenReturn(Optional.of(testProduct));
+    when(stockRepository.claimAvailableStock(eq(productId), any(), eq(2)))
+        .thenReturn(inserted(List.of(first)));
+    when(stockRepository.claimAvailableStock(eq(productId), any(), eq(1)))
+        .thenReturn(inserted(List.of(second)));
+
+    // When - Execute method
+    stockService.reserveStock(productId, 2, 15);
+
+    // Then - Only the remainder is claimed again
+    verify(stockRepository).claimAvailableStock(eq(productId), any(), eq(1));
+    verify(stockRepository).findAllById(List.of(first, second));
+    verify(productStockSummaryRepository).recordReserved(productId, 2);
+  }
+
+  @Test
+  @DisplayName("Should not count a taken over lapsed hold as newly reserved")
+  void shouldNotCountTakenOverLapsedHoldAsReserved() {
+    // Given - The second item still had a lapsed hold that was not released yet
+    UUID fresh = UUID.randomUUID();
+    UUID takenOver = UUID.randomUUID();
+
+    when(stockRepository.countAvailableByProductId(productId)).thenReturn(5L);
+    when(productRepository.findById(productId)).thenReturn(Optional.of(testProduct));
+    when(stockRepository.claimAvailableStock(eq(productId), any(), eq(2)))
+        .thenReturn(List.of(new Object[] {fresh, true}, new Object[] {takenOver, false}));
+
+    // When - Execute method
+    stockService.getAvailableStockCount(productId);
+    stockService.reserveStock(productId, 2, 15);
+
+    // Then - Only the inserted hold moves an item from available to reserved
+    assertThat(stockService.getAvailableStockCount(productId)).isEqualTo(4L);
+    verify(productStockSummaryRepository).recordReserved(productId, 1);
+    verify(reservationExpiryScheduler).schedule(eq(List.of(fresh, takenOver)), any());
+  }
+
+  @Test
+  @DisplayName("Should reject non-positive reservation quantity")
+  void shouldRejectNonPositiveReservationQuantity() {
+    // When & Then - Execute and verify exception
+    assertThatThrownBy(() -> stockService.reserveStock(productId, 0, 15))
+        .isInstanceOf(StockReservationException.class)
+        .hasMessageContaining("Reservation quantity must be positive");
+
+    verify(stockRepository, never()).claimAvailableStock(any(), any(), anyInt());
+  }
+
+  @Test
+  @DisplayName("Should reserve several products in one claim statement")
+  void shouldReserveSeveralProductsInOneClaim() {
+    // Given - Two products on one order
+    Product otherProduct = new Product("Other Product", BigDecimal.valueOf(50.00), testCategory);
+    otherProduct.setId(UUID.randomUUID());
+    Stock first = new Stock(testProduct, "cred1");
+    first.setId(UUID.randomUUID());
+    Stock second = new Stock(otherProduct, "cred2");
+    second.setId(UUID.randomUUID());
+    Stock third = new Stock(otherProduct, "cred3");
+    third.setId(UUID.randomUUID());
+    Map<UUID, Integer> quantities = new LinkedHashMap<>();
+    quantities.put(productId, 1);
+    quantities.put(otherProduct.getId(), 2);
+
+    when(stockRepository.claimAvailableStockForProducts(any(), any(), any()))
+        .thenReturn(
+            List.of(
+                new Object[] {first.getId(), productId, true},
+                new Object[] {second.getId(), otherProduct.getId(), true},
+                new Object[] {third.getId(), otherProduct.getId(), true}));
+    when(stockRepository.findAllById(List.of(first.getId(), second.getId(), third.getId())))
+        .thenReturn(List.of(first, second, third));
+
+    // When - Execute method
+    Map<UUID, List<Stock>> result = stockService.reserveStockForProducts(quantities, 30);
+
+    // Then - Items are grouped per product and each product is booked once
+    assertThat(result.get(productId)).containsExactly(first);
+    assertThat(result.get(otherProduct.getId())).containsExactly(second, third);
+
+    verify(stockRepository).claimAvailableStockForProducts(any(), any(), any());
+    verify(stockRepository, never()).claimAvailableStock(any(), any(), anyInt());
+    verify(productRepository, never()).findById(any());
+    verify(productStockSummaryRepository).recordReserved(productId, 1);
+    verify(productStockSummaryRepository).recordReserved(otherProduct.getId(), 2);
+    verify(reservationExpiryScheduler)
+        .schedule(eq(List.of(first.getId(), second.getId(), third.getId())), any());
+  }
+
+  @Test
+  @DisplayName("Should fail whole multi-product reservation when one product runs out")
+  void shouldFailMultiProductReservationWhenOneProductRunsOut() {
+    // Given - Only one of the two requested items exists
+    UUID claimed = UUID.randomUUID();
+    when(stockRepository.claimAvailableStockForProducts(any(), any(), any()))
+        .thenReturn(List.<Object[]>of(new Object[] {claimed, productId, true}))
+        .thenReturn(List.of());
+    when(productRepository.findAllById(Set.of(productId))).thenReturn(List.of(testProduct));
+
+    // When & Then - Execute and verify exception
+    assertThatThrownBy(() -> stockService.reserveStockForProducts(Map.of(productId, 2), 30))
+        .isInstanceOf(OutOfStockException.class)
+        .hasMessageContaining("Insufficient stock available");
+
+    verify(stockRepository, times(3)).claimAvailableStockForProducts(any(), any(), any());
+    verify(productStockSummaryRepository, never()).recordReserved(any(), anyInt());
+    verify(stockRepository, never()).findAllById(any());
+  }
+
+  @Test
+  @DisplayName("Should report unknown product when multi-product reservation comes up short")
+  void shouldReportUnknownProductInMultiProductReservation() {
+    // Given - Nothing can be claimed for a product that does not exist
+    UUID unknownProductId = UUID.randomUUID();
+    when(stockRepository.claimAvailableStockForProducts(any(), any(), any()))
+        .thenReturn(List.of());
+    when(productRepository.findAllById(Set.of(unknownProductId))).thenReturn(List.of());
+
+    // When & Then - Execute and verify exception
+    assertThatThrownBy(
+            () -> stockService.reserveStockForProducts(Map.of(unknownProductId, 1), 30))
+        .isInstanceOf(ResourceNotFoundException.class)
+        .hasMessageContaining("Product not found with ID: " + unknownProductId);
+  }
+
+  @Test
+  @DisplayName("Should reject non-positive quantity in multi-product reservation")
+  void shouldRejectNonPositiveQuantityInMultiProductReservation() {
+    // When & Then - Execute and verify exception
+    assertThatThrownBy(() -> stockService.reserveStockForProducts(Map.of(productId, 0), 30))
+        .isInstanceOf(StockReservationException.class)
+        .hasMessageContaining("Reservation quantity must be positive");
+
+    verify(stockRepository, never()).claimAvailableStockForProducts(any(), any(), any());
+  }
+
+  // ==================== HOT PRODUCT STOCK POOL TESTS ====================
+
+  @Test
+  @DisplayName("Should reserve hot product stock from leased pool before claiming rows")
+  void shouldReserveHotProductStockFromPool() {
+    // Given - Two items leased into the pool, three requested
+    UUID pooledA = UUID.randomUUID();
+    UUID pooledB = UUID.randomUUID();
+    UUID claimed = UUID.randomUUID();
+    hotStockPools.enable(productId, 2);
+    hotStockPools.add(productId, List.of(pooledA, pooledB), Long.MAX_VALUE);
+
+    when(productRepository.findById(productId)).thenReturn(Optional.of(testProduct));
+    when(stockRepository.reserveLeasedStock(eq(List.of(pooledA, pooledB)), any()))
+        .thenReturn(List.of(pooledA, pooledB));
+    when(stockRepository.claimAvailableStock(eq(productId), any(), eq(1)))
+        .thenReturn(inserted(List.of(claimed)));
+
+    // When - Execute method
+    stockService.reserveStock(productId, 3, 15);
+
+    // Then - Only the shortfall is claimed from the table
+    verify(stockRepository).claimAvailableStock(eq(productId), any(), eq(1));
+    verify(stockRepository).findAllById(List.of(pooledA, pooledB, claimed));
+    verify(productStockSummaryRepository).recordReserved(productId, 3);
+
+    assertThat(hotStockPools.getStats())
+        .singleElement()
+        .satisfies(
+            stats -> {
+              assertThat(stats.getPooledCount()).isZero();
+              assertThat(stats.getPoolHits()).isEqualTo(2);
+              assertThat(stats.getPoolMisses()).isEqualTo(1);
+            });
+  }
+
+  @Test
+  @DisplayName("Should put leases back into pool when hot product reservation fails")
+  void shouldPutLeasesBackWhenHotProductReservationFails() {
+    // Given - One pooled item and nothing left in the table
+    UUID pooled = UUID.randomUUID();
+    hotStockPools.enable(productId, 1);
+    hotStockPools.add(productId, List.of(pooled), Long.MAX_VALUE);
+
+    when(productRepository.findById(productId)).thenReturn(Optional.of(testProduct));
+    when(stockRepository.reserveLeasedStock(eq(List.of(pooled)), any()))
+        .thenReturn(List.of(pooled));
+    when(stockRepository.claimAvailableStock(eq(productId), any(), eq(1))).thenReturn(List.of());
+
+    // When & Then - Execute and verify exception, then roll the transaction back
+    inRolledBackTransaction(
+        () ->
+            assertThatThrownBy(() -> stockService.reserveStock(productId, 2, 15))
+                .isInstanceOf(OutOfStockException.class));
+
+    assertThat(hotStockPools.take(productId, 2))
+        .extracting(HotStockPoolRegistry.Lease::stockId)
+        .containsExactly(pooled);
+    verify(productStockSummaryRepository, never()).recordReserved(any(), anyLong());
+  }
+
+  @Test
+  @DisplayName("Should put leases back into pool when the order transaction rolls back later")
+  void shouldPutLeasesBackWhenOrderTransactionRollsBack() {
+    // Given - Both lines of the order are served from the pools
+    UUID pooled = UUID.randomUUID();
+    UUID otherPooled = UUID.randomUUID();
+    Product otherProduct = new Product();
+    otherProduct.setId(UUID.randomUUID());
+    hotStockPools.enable(productId, 1);
+    hotStockPools.add(productId, List.of(pooled), Long.MAX_VALUE);
+    hotStockPools.enable(otherProduct.getId(), 1);
+    hotStockPools.add(otherProduct.getId(), List.of(otherPooled), Long.MAX_VALUE);
+
+    when(stockRepository.reserveLeasedStock(any(), any()))
+        .thenReturn(List.of(pooled, otherPooled));
+
+    // When - The reservation succeeds but a later step of the order fails
+    Map<UUID, Integer> quantities = Map.of(productId, 1, otherProduct.getId(), 1);
+    inRolledBackTransaction(() -> stockService.reserveStockForProducts(quantities, 15));
+
+    // Then
+    assertThat(hotStockPools.getPooledCount(productId)).isEqualTo(1);
+    assertThat(hotStockPools.getPooledCount(otherProduct.getId())).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Should clear the lease of pooled items that were reserved or sold meanwhile")
+  void shouldClearLeaseOfSkippedPooledItems() {
+    // Given - The second pooled item was sold after it was leased
+    UUID pooled = UUID.randomUUID();
+    UUID sold = UUID.randomUUID();
+    UUID claimed = UUID.randomUUID();
+    hotStockPools.enable(productId, 2);
+    hotStockPools.add(productId, List.of(pooled, sold), Long.MAX_VALUE);
+
+    when(productRepository.findById(productId)).thenReturn(Optional.of(testProduct));
+    when(stockRepository.reserveLeasedStock(eq(List.of(pooled, sold)), any()))
+        .thenReturn(List.of(pooled));
+    when(stockRepository.claimAvailableStock(eq(productId), any(), eq(1)))
+        .thenReturn(inserted(List.of(claimed)));
+
+    // When - Execute method
+    stockService.reserveStock(productId, 2, 15);
+
+    // Then - The shortfall is claimed and the skipped item is no longer leased
+    verify(stockRepository).returnLeasedStock(List.of(sold));
+    verify(stockRepository).findAllById(List.of(pooled, claimed));
+  }
+
+  @Test
+  @DisplayName("Should lease blocks for hot pools and return expiring leases")
+  void shouldRefillHotStockPoolsAndReturnExpiringLeases() {
+    // Given - A hot product with an empty pool and an expiring lease on another product
+    UUID otherProductId = UUID.randomUUID();
+    UUID expiring = UUID.randomUUID();
+    List<UUID> leased = List.of(UUID.randomUUID(), UUID.randomUUID());
+    hotStockPools.enable(productId, 2);
+    hotStockPools.enable(otherProductId, 1);
+    hotStockPools.add(otherProductId, List.of(expiring), System.currentTimeMillis());
+
+    when(productRepository.findHotLeaseSizes())
+        .thenReturn(List.of(new Object[] {productId, 2}, new Object[] {otherProductId, 1}));
+    when(stockRepository.leaseAvailableStock(eq(productId), any(), eq(2))).thenReturn(leased);
+    when(stockRepository.leaseAvailableStock(eq(otherProductId), any(), eq(1)))
+        .thenReturn(List.of());
+
+    // When - Execute method
+    int leasedCount = stockService.refillHotStockPools();
+
+    // Then - Verify results
+    assertThat(leasedCount).isEqualTo(2);
+    verify(stockRepository).returnLeasedStock(List.of(expiring));
+    assertThat(hotStockPools.getRefillSize(productId)).isZero();
+  }
+
+  @Test
+  @DisplayName("Should follow hot mode changes made on other nodes")
+  void shouldFollowHotModeChangesFromOtherNodes() {
+    // Given - This node still pools a product another node took out of hot mode
+    UUID formerProductId = UUID.randomUUID();
+    UUID pooled = UUID.randomUUID();
+    List<UUID> leased = List.of(UUID.randomUUID(), UUID.randomUUID());
+    hotStockPools.enable(formerProductId, 1);
+    hotStockPools.add(formerProductId, List.of(pooled), Long.MAX_VALUE);
+
+    when(productRepository.findHotLeaseSizes())
+        .thenReturn(List.<Object[]>of(new Object[] {productId, 2}));
+    when(stockRepository.leaseAvailableStock(eq(productId), any(), eq(2))).thenReturn(leased);
+
+    // When - Execute method
+    stockService.refillHotStockPools();
+
+    // Then - The former pool is returned and the new one filled
+    assertThat(hotStockPools.getHotProductIds()).containsExactly(productId);
+    verify(stockRepository).returnLeasedStock(List.of(pooled));
+    assertThat(hotStockPools.getPooledCount(productId)).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("Should publish the items a node could not lease")
+  void shouldPublishWantedCountWhenPoolCannotBeFilled() {
+    // Given - Only one of four items is left to lease
+    UUID leased = UUID.randomUUID();
+    hotStockPools.enable(productId, 4);
+
+    when(nodeIdentity.getId()).thenReturn("node-a");
+    when(productRepository.findHotLeaseSizes())
+        .thenReturn(List.<Object[]>of(new Object[] {productId, 4}));
+    when(stockRepository.leaseAvailableStock(eq(productId), any(), eq(4)))
+        .thenReturn(List.of(leased));
+
+    // When - Execute method
+    stockService.refillHotStockPools();
+
+    // Then - The lease row asks the other nodes for the missing three
+    verify(stockLeaseRepository).upsertLease(eq(productId), eq("node-a"), eq(1), eq(3), any());
+  }
+
+  @Test
+  @DisplayName("Should return surplus leases to a node that ran dry")
+  void shouldReturnSurplusLeasesToDryNode() {
+    // Given - This node holds four items, another live node holds none and wants four
+    List<UUID> pooled = List.of(UUID.randomUUID(), UUID.randomUUID());
+    List<UUID> expiringLater = List.of(UUID.randomUUID(), UUID.randomUUID());
+    hotStockPools.enable(productId, 4);
+    hotStockPools.add(productId, pooled, System.currentTimeMillis() + 30_000);
+    hotStockPools.add(productId, expiringLater, System.currentTimeMillis() + 50_000);
+
+    StockLease dryNode = new StockLease();
+    dryNode.setProductId(productId);
+    dryNode.setNodeId("node-b");
+    dryNode.setPooledCount(0);
+    dryNode.setWantedCount(4);
+
+    when(nodeIdentity.getId()).thenReturn("node-a");
+    when(productRepository.findHotLeaseSizes())
+        .thenReturn(List.<Object[]>of(new Object[] {productId, 4}));
+    when(stockLeaseRepository.findLiveByProductIds(eq(Set.of(productId)), any()))
+        .thenReturn(List.of(dryNode));
+
+    // When - Execute method
+    stockService.refillHotStockPools();
+
+    // Then - Half of the pooled stock goes back, the leases closest to lapsing first
+    verify(stockRepository).returnLeasedStock(pooled);
+    verify(stockLeaseRepository).upsertLease(eq(productId), eq("node-a"), eq(2), eq(0), any());
+    assertThat(hotStockPools.getPooledCount(productId)).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("Should store hot mode on the product so every node follows it")
+  void shouldStoreHotModeOnProduct() {
+    // Given - Prepare data
+    when(productRepository.updateHotLeaseSize(productId, 20)).thenReturn(1);
+
+    // When - Execute method
+    HotStockPoolStatsDto stats = stockService.enableHotStockPool(productId, 20);
+
+    // Then - Verify results
+    assertThat(stats.getLeaseSize()).isEqualTo(20);
+    assertThat(hotStockPools.isHot(productId)).isTrue();
+  }
+
+  @Test
+  @DisplayName("Should reject hot mode for unknown product")
+  void shouldRejectHotModeForUnknownProduct() {
+    // Given - No product row is updated
+    when(productRepository.updateHotLeaseSize(productId, 20)).thenReturn(0);
+
+    // When & Then - Execute and verify exception
+    assertThatThrownBy(() -> stockService.enableHotStockPool(productId, 20))
+        .isInstanceOf(ResourceNotFoundException.class);
+
+    assertThat(hotStockPools.isHot(productId)).isFalse();
+  }
+
+  @Test
+  @DisplayName("Should return unused leases when hot pool is disabled")
+  void shouldReturnUnusedLeasesWhenHotPoolDisabled() {
+    // Given - Prepare data
+    UUID pooled = UUID.randomUUID();
+    hotStockPools.enable(productId, 1);
+    hotStockPools.add(productId, List.of(pooled), Long.MAX_VALUE);
+    when(stockRepository.returnLeasedStock(List.of(pooled))).thenReturn(1);
+
+    // When - Execute method
+    int returned = stockService.disableHotStockPool(productId);
+
+    // Then - Verify results
+    assertThat(returned).isEqualTo(1);
+    assertThat(hotStockPools.isHot(productId)).isFalse();
+  }
+
+  @Test
+  @DisplayName("Should reject hot pool lease size out of range")
+  void shouldRejectHotPoolLeaseSizeOutOfRange() {
+    // When & Then - Execute and verify exception
+    assertThatThrownBy(() -> stockService.enableHotStockPool(productId, 0))
+        .isInstanceOf(StockException.class)
+        .hasMessageContaining("Lease size must be between 1 and");
+
+    assertThat(hotStockPools.isHot(productId)).isFalse();
   }
 
   @Test
@@ -291,7 +893,8 @@ class StockServiceImplTest {
     testStock.reserve(15); // Reserve stock first
 
     when(stockRepository.findById(stockId)).thenReturn(Optional.of(testStock));
-    when(stockRepository.save(testStock)).thenReturn(testStock);
+    when(stockRepository.releaseReservationsReturningProductIds(List.of(stockId)))
+        .thenReturn(List.of(productId));
 
     // When - Execute method
     boolean result = stockService.releaseReservation(stockId);
@@ -301,7 +904,8 @@ class StockServiceImplTest {
     assertThat(testStock.getReservedUntil()).isNull();
 
     verify(stockRepository).findById(stockId);
-    verify(stockRepository).save(testStock);
+    verify(stockRepository, never()).save(any()); // The hold is deleted, the stock row is kept
+    verify(productStockSummaryRepository).recordReleased(productId, 1L);
   }
 
   @Test
@@ -320,6 +924,175 @@ class StockServiceImplTest {
     verify(stockRepository, never()).save(any());
   }
 
+  // ==================== RESERVATION LEDGER TESTS ====================
+
+  @Test
+  @DisplayName("Should log pooled holds in reservation ledger instead of inserting them")
+  void shouldLogPooledHoldsInReservationLedger() {
+    // Given - One pooled item, one more claimed from the table
+    UUID pooled = UUID.randomUUID();
+    UUID claimed = UUID.randomUUID();
+    hotStockPools.enable(productId, 1);
+    hotStockPools.add(productId, List.of(pooled), Long.MAX_VALUE);
+
+    when(reservationLedger.isEnabled()).thenReturn(true);
+    when(reservationLedger.record(any())).thenReturn(true);
+    when(productRepository.findById(productId)).thenReturn(Optional.of(testProduct));
+    when(stockRepository.claimAvailableStock(eq(productId), any(), eq(1)))
+        .thenReturn(inserted(List.of(claimed)));
+
+    // When - Execute method
+    stockService.reserveStock(productId, 2, 15);
+
+    // Then - The pooled hold waits for the flush, only the claimed item reaches the summary
+    verify(reservationLedger)
+        .record(
+            argThat(
+                holds -> holds.size() == 1 && holds.iterator().next().stockId().equals(pooled)));
+    verify(reservationLedger).publish(any());
+    verify(stockRepository, never()).reserveLeasedStock(any(), any());
+    verify(productStockSummaryRepository).recordReserved(productId, 1);
+    verify(reservationExpiryScheduler).schedule(eq(List.of(pooled, claimed)), any());
+  }
+
+  @Test
+  @DisplayName("Should discard ledger holds of a reservation that rolls back unpublished")
+  void shouldDiscardUnpublishedLedgerHoldsOnRollback() {
+    // Given - The pooled item goes through the ledger
+    UUID pooled = UUID.randomUUID();
+    hotStockPools.enable(productId, 1);
+    hotStockPools.add(productId, List.of(pooled), Long.MAX_VALUE);
+
+    when(reservationLedger.isEnabled()).thenReturn(true);
+    when(reservationLedger.record(any())).thenReturn(true);
+    when(productRepository.findById(productId)).thenReturn(Optional.of(testProduct));
+
+    // When - The reservation succeeds but the order transaction rolls back
+    inRolledBackTransaction(() -> stockService.reserveStock(productId, 1, 15));
+
+    // Then - The flush never got the hold
+    verify(reservationLedger, never()).publish(any());
+    verify(reservationLedger)
+        .discard(argThat(holds -> holds.iterator().next().stockId().equals(pooled)));
+  }
+
+  @Test
+  @DisplayName("Should flush reservation ledger holds and settle them in the log")
+  void shouldFlushReservationLedgerHolds() {
+    // Given - Two pending holds, the database refuses one
+    LocalDateTime reservedUntil = LocalDateTime.now().plusMinutes(15);
+    ReservationLedger.Hold accepted =
+        new ReservationLedger.Hold(UUID.randomUUID(), productId, reservedUntil);
+    ReservationLedger.Hold refused =
+        new ReservationLedger.Hold(UUID.randomUUID(), productId, reservedUntil);
+    List<ReservationLedger.Hold> holds = List.of(accepted, refused);
+
+    when(reservationLedger.isEnabled()).thenReturn(true);
+    when(reservationLedger.getFlushLock()).thenReturn(new ReentrantLock());
+    when(reservationLedger.drainPending(anyInt())).thenReturn(holds);
+    when(transactionTemplate.execute(any()))
+        .thenAnswer(
+            invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    when(stockRepository.reserveLeasedStock(
+            List.of(accepted.stockId(), refused.stockId()), reservedUntil))
+        .thenReturn(List.of(accepted.stockId()));
+
+    // When - Execute method
+    int flushed = stockService.flushReservationLedger();
+
+    // Then - One statement per deadline, settled after commit
+    assertThat(flushed).isEqualTo(1);
+    verify(reservationLedger).force();
+    verify(productStockSummaryRepository).recordReserved(productId, 1);
+    verify(reservationLedger).markPersisted(holds, List.of(accepted.stockId()));
+    verify(reservationLedger, never()).restore(any());
+  }
+
+  @Test
+  @DisplayName("Should put reservation ledger holds back when the flush fails")
+  void shouldRestoreReservationLedgerHoldsWhenFlushFails() {
+    // Given - The batch transaction fails
+    List<ReservationLedger.Hold> holds =
+        List.of(
+            new ReservationLedger.Hold(
+                UUID.randomUUID(), productId, LocalDateTime.now().plusMinutes(15)));
+
+    when(reservationLedger.isEnabled()).thenReturn(true);
+    when(reservationLedger.getFlushLock()).thenReturn(new ReentrantLock());
+    when(reservationLedger.drainPending(anyInt())).thenReturn(holds);
+    when(transactionTemplate.execute(any())).thenThrow(new IllegalStateException("db down"));
+
+    // When & Then - Execute and verify exception
+    assertThatThrownBy(() -> stockService.flushReservationLedger())
+        .isInstanceOf(IllegalStateException.class);
+
+    verify(reservationLedger).restore(holds);
+    verify(reservationLedger, never()).markPersisted(any(), any());
+  }
+
+  @Test
+  @DisplayName("Should persist pending reservation ledger hold before releasing it")
+  void shouldPersistPendingLedgerHoldBeforeRelease() {
+    // Given - The hold is still only in the ledger log
+    LocalDateTime reservedUntil = LocalDateTime.now().plusMinutes(15);
+    ReservationLedger.Hold hold = new ReservationLedger.Hold(stockId, productId, reservedUntil);
+
+    when(reservationLedger.isEnabled()).thenReturn(true);
+    when(reservationLedger.takePending(List.of(stockId))).thenReturn(List.of(hold));
+    when(stockRepository.reserveLeasedStock(List.of(stockId), reservedUntil))
+        .thenReturn(List.of(stockId));
+    when(stockRepository.releaseReservationsReturningProductIds(List.of(stockId)))
+        .thenReturn(List.of(productId));
+
+    // When - Execute method
+    int released = stockService.releaseReservation(List.of(stockId));
+
+    // Then - The hold is inserted first so the release finds it
+    assertThat(released).isEqualTo(1);
+    InOrder order = inOrder(stockRepository);
+    order.verify(stockRepository).reserveLeasedStock(List.of(stockId), reservedUntil);
+    order.verify(stockRepository).releaseReservationsReturningProductIds(List.of(stockId));
+    verify(reservationLedger).markPersisted(List.of(hold), List.of(stockId));
+    verify(reservationLedger).forget(List.of(stockId));
+  }
+
+  @Test
+  @DisplayName("Should report reservation ledger holds that disagree with the database")
+  void shouldReportReservationLedgerMismatches() {
+    // Given - One hold matches, one is missing from stock_reservation
+    LocalDateTime reservedUntil = LocalDateTime.now().plusMinutes(15);
+    ReservationLedger.Hold matching =
+        new ReservationLedger.Hold(UUID.randomUUID(), productId, reservedUntil);
+    ReservationLedger.Hold missing =
+        new ReservationLedger.Hold(UUID.randomUUID(), productId, reservedUntil);
+    List<Object[]> rows = new ArrayList<>();
+    rows.add(new Object[] {matching.stockId(), productId});
+
+    when(reservationLedger.isEnabled()).thenReturn(true);
+    when(reservationLedger.getPersistedHolds()).thenReturn(List.of(matching, missing));
+    when(reservationLedger.isPersisted(missing.stockId())).thenReturn(true);
+    when(stockRepository.findReservationProductsByStockIds(
+            List.of(matching.stockId(), missing.stockId())))
+        .thenReturn(rows);
+
+    // When - Execute method
+    int mismatched = stockService.verifyReservationLedger();
+
+    // Then - Only the missing hold is reported and dropped
+    assertThat(mismatched).isEqualTo(1);
+    verify(reservationLedger).forget(List.of(missing.stockId()));
+  }
+
+  @Test
+  @DisplayName("Should skip reservation ledger work while it is disabled")
+  void shouldSkipReservationLedgerWorkWhileDisabled() {
+    assertThat(stockService.flushReservationLedger()).isZero();
+    assertThat(stockService.verifyReservationLedger()).isZero();
+
+    verify(reservationLedger, never()).drainPending(anyInt());
+    verify(stockRepository, never()).findReservationProductsByStockIds(any());
+  }
+
   // ==================== STOCK SALES TESTS ====================
 
   @Test
@@ -328,9 +1101,6 @@ class StockServiceImplTest {
     // Given - Prepare data
     when(stockRepository.findById(stockId)).thenReturn(Optional.of(testStock));
     when(stockRepository.save(testStock)).thenReturn(testStock);
-    // Mock for low stock notification check
-    when(productRepository.findById(productId)).thenReturn(Optional.of(testProduct));
-    when(stockRepository.countAvailableByProductId(productId)).thenReturn(10L); // Normal stock
 
     // When - Execute method
     Stock result = stockService.markAsSold(stockId);
@@ -342,8 +1112,24 @@ class StockServiceImplTest {
 
     verify(stockRepository).findById(stockId);
     verify(stockRepository).save(testStock);
-    verify(productRepository).findById(productId);
-    verify(stockRepository).countAvailableByProductId(productId);
+    verify(stockRepository).releaseReservations(List.of(stockId));
+    verify(availableStockCounters).adjust(productId, -1);
+  }
+
+  @Test
+  @DisplayName("Should delete reservation hold when selling reserved stock")
+  void shouldDeleteReservationHoldWhenSellingReservedStock() {
+    // Given - Stock holding a reservation
+    when(stockRepository.findById(stockId)).thenReturn(Optional.of(testStock));
+    when(stockRepository.save(testStock)).thenReturn(testStock);
+    when(stockRepository.releaseReservations(List.of(stockId))).thenReturn(1);
+
+    // When - Execute method
+    stockService.markAsSold(stockId);
+
+    // Then - Reserved items already left the available counter when they were claimed
+    verify(availableStockCounters, never()).adjust(any(), anyLong());
+    verify(productStockSummaryRepository).recordSold(productId, 0, 1);
   }
 
   @Test
@@ -363,6 +1149,59 @@ class StockServiceImplTest {
     verify(stockRepository, never()).save(any());
   }
 
+  @Test
+  @DisplayName("Should batch sell stock and report items that could not be sold")
+  void shouldBatchSellStockAndReportFailures() {
+    // Given - Prepare data
+    UUID reservedId = UUID.randomUUID();
+    UUID alreadySoldId = UUID.randomUUID();
+    UUID missingId = UUID.randomUUID();
+    List<UUID> stockIds = List.of(stockId, reservedId, alreadySoldId, missingId, stockId);
+
+    when(stockRepository.markAsSoldReturningProducts(anyCollection(), any(LocalDateTime.class)))
+        .thenReturn(
+            List.<Object[]>of(
+                new Object[] {stockId, productId, true},
+                new Object[] {reservedId, productId, false}));
+    when(stockRepository.findSoldFlagsByIds(anyCollection()))
+        .thenReturn(List.<Object[]>of(new Object[] {alreadySoldId, true}));
+
+    // When - Execute method
+    StockSaleResultDto result = stockService.markAsSold(stockIds);
+
+    // Then - Verify results
+    assertThat(result.getRequestedCount()).isEqualTo(4);
+    assertThat(result.getSoldStockIds()).containsExactly(stockId, reservedId);
+    assertThat(result.getSoldCountByProduct()).containsExactly(entry(productId, 2L));
+    assertThat(result.getFailures())
+        .containsExactly(
+            entry(alreadySoldId, StockSaleResultDto.REASON_ALREADY_SOLD),
+            entry(missingId, StockSaleResultDto.REASON_NOT_FOUND));
+    assertThat(result.isComplete()).isFalse();
+
+    // Only the unreserved item was still counted as available
+    verify(availableStockCounters).adjust(productId, -1);
+    verify(productStockSummaryRepository).recordSold(productId, 1L, 1L);
+    verify(stockRepository).markAsSoldReturningProducts(anyCollection(), any(LocalDateTime.class));
+    verify(stockRepository, never()).findById(any());
+    verify(stockRepository, never()).save(any());
+  }
+
+  @Test
+  @DisplayName("Should not query failures when every stock item was sold")
+  void shouldNotQueryFailuresWhenBatchSaleIsComplete() {
+    // Given - Prepare data
+    when(stockRepository.markAsSoldReturningProducts(anyCollection(), any(LocalDateTime.class)))
+        .thenReturn(List.<Object[]>of(new Object[] {stockId, productId, false}));
+
+    // When - Execute method
+    StockSaleResultDto result = stockService.markAsSold(List.of(stockId));
+
+    // Then - Verify results
+    assertThat(result.isComplete()).isTrue();
+    verify(stockRepository, never()).findSoldFlagsByIds(any());
+  }
+
   // ==================== INVENTORY MANAGEMENT TESTS ====================
 
   @Test
@@ -385,6 +1224,73 @@ class StockServiceImplTest {
     verify(stockRepository).getStockStatisticsByProductId(productId);
   }
 
+  @Test
+  @DisplayName("Should read stock statistics from product stock summary")
+  void shouldReadStockStatisticsFromSummary() {
+    // Given - Prepare data
+    when(productStockSummaryRepository.findTotalsByProductId(productId))
+        .thenReturn(Optional.of(new ProductStockSummary(productId, 10, 7, 1, 2)));
+
+    // When - Execute method
+    StockStatistics result = stockService.getStockStatistics(productId);
+
+    // Then - Verify results
+    assertThat(result).isEqualTo(new StockStatistics(10, 7, 2, 1));
+
+    verify(stockRepository, never()).getStockStatisticsByProductId(any());
+  }
+
+  @Test
+  @DisplayName("Should repair drifted and missing product stock summaries")
+  void shouldRepairDriftedAndMissingStockSummaries() {
+    // Given - The drifted summary is spread over two slots, the empty one lacks slots 1 to 15
+    UUID missingProductId = UUID.randomUUID();
+    UUID emptyProductId = UUID.randomUUID();
+    List<UUID> productIds = List.of(productId, missingProductId, emptyProductId);
+    List<ProductStockSummary> drifted =
+        ProductStockSummary.slotsOf(new ProductStockSummary(productId, 10, 8, 0, 1));
+    drifted.get(3).setAvailableCount(1);
+    ProductStockSummary empty = new ProductStockSummary(emptyProductId);
+    List<ProductStockSummary> slots = new ArrayList<>(drifted);
+    slots.add(empty);
+
+    List<Object[]> counts = new ArrayList<>();
+    counts.add(new Object[] {productId, 10L, 7L, 2L, 1L});
+    counts.add(new Object[] {missingProductId, 3L, 3L, 0L, 0L});
+
+    when(productRepository.findAllIds()).thenReturn(productIds);
+    when(transactionTemplate.execute(any()))
+        .thenAnswer(
+            invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    when(productStockSummaryRepository.findAllSlotsForUpdate(productIds)).thenReturn(slots);
+    when(stockRepository.countByStateGroupedByProductIds(productIds)).thenReturn(counts);
+
+    // When - Execute method
+    int repaired = stockService.verifyStockSummaries();
+
+    // Then - The counts move to the first slot and the other slots are zeroed
+    assertThat(repaired).isEqualTo(2);
+    assertThat(drifted.get(0).hasSameCounts(new ProductStockSummary(productId, 10, 7, 2, 1)))
+        .isTrue();
+    assertThat(drifted.get(3).hasSameCounts(new ProductStockSummary(productId))).isTrue();
+
+    verify(productStockSummaryRepository)
+        .saveAll(
+            argThat(
+                (List<ProductStockSummary> created) ->
+                    created.size() == ProductStockSummary.SLOTS
+                        && created.get(0).getProductId().equals(missingProductId)
+                        && created.get(0).getTotalCount() == 3));
+    verify(productStockSummaryRepository)
+        .saveAll(
+            argThat(
+                (List<ProductStockSummary> created) ->
+                    created.size() == ProductStockSummary.SLOTS - 1
+                        && created.stream()
+                            .allMatch(slot -> slot.getProductId().equals(emptyProductId))));
+    verify(productStockSummaryRepository, times(2)).saveAll(any());
+  }
+
   @Test
   @DisplayName("Should correctly identify low stock products")
   void shouldCorrectlyIdentifyLowStockProducts() {
@@ -427,7 +1333,8 @@ class StockServiceImplTest {
     // Given - Prepare data
     int expectedCleanedCount = 5;
 
-    when(stockRepository.clearExpiredReservations()).thenReturn(expectedCleanedCount);
+    when(stockRepository.releaseExpiredReservations())
+        .thenReturn(Collections.nCopies(expectedCleanedCount, productId));
 
     // When - Execute method
     int result = stockService.cleanupExpiredReservations();
@@ -435,7 +1342,57 @@ class StockServiceImplTest {
     // Then - Verify results
     assertThat(result).isEqualTo(expectedCleanedCount);
 
-    verify(stockRepository).clearExpiredReservations();
+    verify(stockRepository).releaseExpiredReservations();
+    verify(availableStockCounters).adjust(productId, expectedCleanedCount);
+  }
+
+  @Test
+  @DisplayName("Should release reservations when their deadline has passed")
+  void shouldReleaseReservationsWhenDeadlineHasPassed() {
+    // Given - Prepare data
+    List<UUID> expiredIds = Arrays.asList(UUID.randomUUID(), UUID.randomUUID());
+    reservationExpiryScheduler.schedule(expiredIds, LocalDateTime.now().minusSeconds(5));
+    reservationExpiryScheduler.schedule(
+        List.of(UUID.randomUUID()), LocalDateTime.now().plusMinutes(15));
+
+    when(transactionTemplate.execute(any()))
+        .thenAnswer(
+            invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    when(stockRepository.releaseExpiredReservationsByIds(
+            argThat(ids -> ids.containsAll(expiredIds) && ids.size() == 2), any()))
+        .thenReturn(Arrays.asList(productId, productId));
+
+    // When - Execute method
+    int result = stockService.releaseDueReservations();
+
+    // Then - Verify results
+    assertThat(result).isEqualTo(2);
+    assertThat(reservationExpiryScheduler.getPendingCount()).isEqualTo(1);
+
+    verify(availableStockCounters).adjust(productId, 2L);
+    verify(productStockSummaryRepository).recordReleased(productId, 2L);
+    verify(stockRepository, never()).releaseExpiredReservations();
+  }
+
+  @Test
+  @DisplayName("Should rebuild reservation expiry schedule from database")
+  void shouldRebuildReservationExpiryScheduleFromDatabase() {
+    // Given - Prepare data
+    List<Object[]> deadlines = new ArrayList<>();
+    deadlines.add(new Object[] {UUID.randomUUID(), LocalDateTime.now().plusMinutes(5)});
+    deadlines.add(new Object[] {UUID.randomUUID(), LocalDateTime.now().plusMinutes(10)});
+
+    when(stockRepository.findReservationDeadlines()).thenReturn(deadlines);
+
+    // When - Execute method
+    int result = stockService.rebuildReservationExpirySchedule();
+
+    // Then - Verify results
+    assertThat(result).isEqualTo(2);
+    assertThat(reservationExpiryScheduler.getPendingCount()).isEqualTo(2);
+    assertThat(stockService.releaseDueReservations()).isZero();
+
+    verify(stockRepository, never()).releaseExpiredReservationsByIds(any(), any());
   }
 
   // ==================== UTILITY OPERATIONS TESTS ====================
@@ -464,7 +1421,9 @@ class StockServiceImplTest {
     // Given - Prepare data
     String accountData = "test_credentials";
 
-    when(stockRepository.existsByProductIdAndAccountData(productId, accountData)).thenReturn(true);
+    when(stockRepository.existsByProductIdAndFingerprint(
+            productId, AccountDataFingerprint.of(accountData)))
+        .thenReturn(true);
 
     // When - Execute method
     boolean result = stockService.accountDataExists(productId, accountData);
@@ -472,7 +1431,8 @@ class StockServiceImplTest {
     // Then - Verify results
     assertThat(result).isTrue();
 
-    verify(stockRepository).existsByProductIdAndAccountData(productId, accountData);
+    verify(stockRepository)
+        .existsByProductIdAndFingerprint(productId, AccountDataFingerprint.of(accountData));
   }
 
   @Test
@@ -583,7 +1543,7 @@ class StockServiceImplTest {
 
     verify(productRepository, times(2))
         .findById(productId); // Called twice: once in isLowStock, once in notification
-    verify(stockRepository, times(2)).countAvailableByProductId(productId);
+    verify(stockRepository).countAvailableByProductId(productId); // Second read is from memory
   }
 
   @Test
@@ -605,27 +1565,78 @@ class StockServiceImplTest {
   }
 
   @Test
-  @DisplayName("Should trigger low stock notification after marking as sold")
-  void shouldTriggerLowStockNotificationAfterMarkingAsSold() {
-    // Given - Prepare data
+  @DisplayName("Should leave low stock detection to the watcher after marking as sold")
+  void shouldLeaveLowStockDetectionToWatcherAfterMarkingAsSold() {
+    // Given - Prepare data (product tracked with 4 available)
+    availableStockCounters.get(productId, id -> 4L);
     when(stockRepository.findById(stockId)).thenReturn(Optional.of(testStock));
     when(stockRepository.save(testStock)).thenReturn(testStock);
-    when(productRepository.findById(productId)).thenReturn(Optional.of(testProduct));
-    when(stockRepository.countAvailableByProductId(productId))
-        .thenReturn(3L); // Low stock after sale
 
     // When - Execute method
     Stock result = stockService.markAsSold(stockId);
 
     // Then - Verify results
-    assertThat(result).isNotNull();
     assertThat(result.getSold()).isTrue();
+    assertThat(availableStockCounters.get(productId, id -> 0L)).isEqualTo(3L);
 
-    verify(stockRepository).findById(stockId);
-    verify(stockRepository).save(testStock);
-    verify(productRepository, times(2))
-        .findById(productId); // Called in isLowStock and notification
-    verify(stockRepository, times(2)).countAvailableByProductId(productId);
+    // No per-sale threshold queries
+    verify(productRepository, never()).findById(any());
+    verify(stockRepository, never()).countAvailableByProductId(any());
+  }
+
+  @Test
+  @DisplayName("Should read low stock products from the watcher once it is loaded")
+  void shouldReadLowStockProductsFromWatcher() {
+    // Given - Prepare data
+    when(lowStockWatcher.isReady()).thenReturn(true);
+    when(lowStockWatcher.getLowStockProductIds()).thenReturn(Set.of(productId));
+    when(productRepository.findAllById(Set.of(productId))).thenReturn(List.of(testProduct));
+
+    // When - Execute method
+    List<Product> result = stockService.getProductsWithLowStock(null);
+
+    // Then - Verify results
+    assertThat(result).containsExactly(testProduct);
+    verify(stockRepository, never()).findProductsWithLowStock(anyLong());
+  }
+
+  @Test
+  @DisplayName("Should load products and counts into the low stock watcher")
+  void shouldRebuildLowStockWatch() {
+    // Given - Prepare data
+    UUID emptyProductId = UUID.randomUUID();
+    when(productRepository.findLowStockThresholds())
+        .thenReturn(
+            List.<Object[]>of(new Object[] {productId, 5}, new Object[] {emptyProductId, null}));
+    when(stockRepository.countAvailableGroupedByProductIds(anyList()))
+        .thenReturn(List.<Object[]>of(new Object[] {productId, 3L}));
+
+    // When - Execute method
+    int result = stockService.rebuildLowStockWatch();
+
+    // Then - Verify results
+    assertThat(result).isEqualTo(2);
+    Map<UUID, Integer> thresholds = new HashMap<>();
+    thresholds.put(productId, 5);
+    thresholds.put(emptyProductId, null);
+    verify(lowStockWatcher).rebuild(thresholds, Map.of(productId, 3L, emptyProductId, 0L));
+    assertThat(availableStockCounters.getTrackedProductIds())
+        .containsExactlyInAnyOrder(productId, emptyProductId);
+  }
+
+  @Test
+  @DisplayName("Should add product names to due low stock alerts")
+  void shouldAddProductNamesToDueLowStockAlerts() {
+    // Given - Prepare data
+    when(lowStockWatcher.pollDueAlerts(anyLong()))
+        .thenReturn(List.of(new LowStockAlert(productId, null, 0, 5, true)));
+    when(productRepository.findAllById(List.of(productId))).thenReturn(List.of(testProduct));
+
+    // When - Execute method
+    List<LowStockAlert> result = stockService.pollLowStockAlerts();
+
+    // Then - Verify results
+    assertThat(result).containsExactly(new LowStockAlert(productId, "Test Product", 0, 5, true));
   }
 
   // ==================== PAGEABLE TESTS ====================
@@ -653,4 +1664,203 @@ class StockServiceImplTest {
     verify(productRepository).findById(productId);
     verify(stockRepository).findByProduct(testProduct, pageable);
   }
+
+  @Test
+  @DisplayName("Should read first keyset page without cursor")
+  void shouldReadFirstKeysetPageWithoutCursor() {
+    // Given - Prepare data
+    when(stockRepository.findNewestByProductId(productId, Limit.of(21)))
+        .thenReturn(List.of(testStock));
+
+    // When - Execute method
+    List<Stock> result = stockService.getStockByProductAfter(productId, null, 21);
+
+    // Then - Verify results
+    assertThat(result).containsExactly(testStock);
+    verify(stockRepository, never()).findNewestByProductIdBefore(any(), any(), any(), any());
+  }
+
+  @Test
+  @DisplayName("Should continue keyset page after cursor")
+  void shouldContinueKeysetPageAfterCursor() {
+    // Given - Prepare data
+    KeysetCursor cursor = new KeysetCursor(LocalDateTime.now().minusDays(1), UUID.randomUUID());
+    when(stockRepository.findNewestByProductIdBefore(
+            productId, cursor.createdAt(), cursor.id(), Limit.of(21)))
+        .thenReturn(List.of(testStock));
+
+    // When - Execute method
+    List<Stock> result = stockService.getStockByProductAfter(productId, cursor, 21);
+
+    // Then - Verify results
+    assertThat(result).containsExactly(testStock);
+    verify(stockRepository, never()).findNewestByProductId(any(), any());
+  }
+
+  // ==================== STREAMING EXPORT TESTS ====================
+
+  @Test
+  @DisplayName("Should stream sold stock and detach each item")
+  void shouldStreamSoldStockAndDetachEachItem() {
+    // Given - Prepare data
+    Stock otherStock = new Stock();
+    otherStock.setId(UUID.randomUUID());
+    otherStock.setProduct(testProduct);
+    List<Stock> consumed = new ArrayList<>();
+
+    when(stockRepository.streamSoldByProductId(productId, null, null))
+        .thenReturn(Stream.of(testStock, otherStock));
+
+    // When - Execute method
+    long count = stockService.streamSoldStock(productId, null, null, consumed::add);
+
+    // Then - Verify results
+    assertThat(count).isEqualTo(2);
+    assertThat(consumed).containsExactly(testStock, otherStock);
+    verify(entityManager).detach(testStock);
+    verify(entityManager).detach(otherStock);
+    verify(stockRepository, never()).streamSold(any(), any());
+  }
+
+  @Test
+  @DisplayName("Should stream sold stock of all products without product filter")
+  void shouldStreamSoldStockOfAllProducts() {
+    // Given - Prepare data
+    LocalDateTime startDate = LocalDateTime.now().minusDays(7);
+    when(stockRepository.streamSold(startDate, null)).thenReturn(Stream.of(testStock));
+
+    // When - Execute method
+    long count = stockService.streamSoldStock(null, startDate, null, stock -> {});
+
+    // Then - Verify results
+    assertThat(count).isEqualTo(1);
+    verify(entityManager).detach(testStock);
+  }
+
+  @Test
+  @DisplayName("Should stream expired reservations")
+  void shouldStreamExpiredReservations() {
+    // Given - Prepare data
+    List<Stock> consumed = new ArrayList<>();
+    when(stockRepository.streamExpiredReservations()).thenReturn(Stream.of(testStock));
+
+    // When - Execute method
+    long count = stockService.streamExpiredReservations(consumed::add);
+
+    // Then - Verify results
+    assertThat(count).isEqualTo(1);
+    assertThat(consumed).containsExactly(testStock);
+    verify(entityManager).detach(testStock);
+  }
+
+  // ==================== SOLD STOCK HISTORY TESTS ====================
+
+  @Test
+  @DisplayName("Should include archived stock in sold stock")
+  void shouldIncludeArchivedStockInSoldStock() {
+    // Given - Prepare data
+    testStock.setSold(true);
+    StockSoldHistory archived = createArchivedStock(LocalDateTime.now().minusDays(120));
+
+    when(stockRepository.findBySoldTrue()).thenReturn(List.of(testStock));
+    when(stockSoldHistoryRepository.findSold(null, null, null)).thenReturn(List.of(archived));
+
+    // When - Execute method
+    List<Stock> result = stockService.getSoldStock(null, null, null);
+
+    // Then - Verify results
+    assertThat(result).hasSize(2);
+    assertThat(result.get(0)).isSameAs(testStock);
+    assertThat(result.get(1).getId()).isEqualTo(archived.getId());
+    assertThat(result.get(1).getSold()).isTrue();
+    assertThat(result.get(1).getSoldAt()).isEqualTo(archived.getSoldAt());
+    assertThat(result.get(1).getProduct()).isSameAs(testProduct);
+  }
+
+  @Test
+  @DisplayName("Should stream archived stock after live sold stock")
+  void shouldStreamArchivedStockAfterLiveSoldStock() {
+    // Given - Prepare data
+    StockSoldHistory archived = createArchivedStock(LocalDateTime.now().minusDays(120));
+    List<UUID> consumed = new ArrayList<>();
+
+    when(stockRepository.streamSold(null, null)).thenReturn(Stream.of(testStock));
+    when(stockSoldHistoryRepository.streamSold(null, null, null))
+        .thenReturn(Stream.of(archived));
+
+    // When - Execute method
+    long count =
+        stockService.streamSoldStock(null, null, null, stock -> consumed.add(stock.getId()));
+
+    // Then - Verify results
+    assertThat(count).isEqualTo(2);
+    assertThat(consumed).containsExactly(stockId, archived.getId());
+    verify(entityManager).detach(testStock);
+    verify(entityManager).detach(archived);
+  }
+
+  @Test
+  @DisplayName("Should read account data of archived stock from history")
+  void shouldReadAccountDataOfArchivedStockFromHistory() {
+    // Given - Prepare data
+    UUID archivedId = UUID.randomUUID();
+    List<UUID> stockIds = List.of(stockId, archivedId);
+
+    when(stockRepository.findAccountDataByIds(stockIds))
+        .thenReturn(List.<Object[]>of(new Object[] {stockId, "live_credentials"}));
+    when(stockSoldHistoryRepository.findAccountDataByIds(List.of(archivedId)))
+        .thenReturn(List.<Object[]>of(new Object[] {archivedId, "archived_credentials"}));
+
+    // When - Execute method
+    Map<UUID, String> result = stockService.getSoldAccountData(stockIds);
+
+    // Then - Verify results
+    assertThat(result)
+        .containsOnly(
+            entry(stockId, "live_credentials"), entry(archivedId, "archived_credentials"));
+  }
+
+  @Test
+  @DisplayName("Should not query history when all account data is live")
+  void shouldNotQueryHistoryWhenAllAccountDataIsLive() {
+    // Given - Prepare data
+    when(stockRepository.findAccountDataByIds(List.of(stockId)))
+        .thenReturn(List.<Object[]>of(new Object[] {stockId, "live_credentials"}));
+
+    // When - Execute method
+    Map<UUID, String> result = stockService.getSoldAccountData(List.of(stockId));
+
+    // Then - Verify results
+    assertThat(result).containsOnly(entry(stockId, "live_credentials"));
+    verifyNoInteractions(stockSoldHistoryRepository);
+  }
+
+  private StockSoldHistory createArchivedStock(LocalDateTime soldAt) {
+    StockSoldHistory archived = new StockSoldHistory();
+    archived.setId(UUID.randomUUID());
+    archived.setProduct(testProduct);
+    archived.setAccountData("archived_credentials");
+    archived.setSoldAt(soldAt);
+    archived.setCreatedAt(soldAt.minusDays(10));
+    archived.setUpdatedAt(soldAt);
+    archived.setArchivedAt(LocalDateTime.now());
+    return archived;
+  }
+
+  private static List<Object[]> inserted(List<UUID> stockIds) {
+    return stockIds.stream().map(stockId -> new Object[] {stockId, true}).toList();
+  }
+
+  private static void inRolledBackTransaction(Runnable action) {
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      action.run();
+      TransactionSynchronizationManager.getSynchronizations()
+          .forEach(
+              synchronization ->
+                  synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
 }
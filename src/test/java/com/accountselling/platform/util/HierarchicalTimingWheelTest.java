@@ -0,0 +1,98 @@
+package com.accountselling.platform.util;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for HierarchicalTimingWheel. Tests expiry within one wheel, cascading from overflow
+ * wheels and the guarantee that items never fire before their deadline.
+ */
+@DisplayName("HierarchicalTimingWheel Tests")
+class HierarchicalTimingWheelTest {
+
+  private static final long START = 1_000_000L;
+
+  @Test
+  @DisplayName("Should fire item after its deadline within the lowest wheel")
+  void shouldFireItemAfterDeadlineWithinLowestWheel() {
+    HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 8, START);
+    wheel.schedule("a", START + 35);
+
+    assertThat(wheel.advance(START + 30)).isEmpty();
+    assertThat(wheel.advance(START + 40)).containsExactly("a");
+    assertThat(wheel.size()).isZero();
+  }
+
+  @Test
+  @DisplayName("Should return overdue item on next advance")
+  void shouldReturnOverdueItemOnNextAdvance() {
+    HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 8, START);
+    wheel.schedule("late", START - 500);
+
+    assertThat(wheel.size()).isEqualTo(1);
+    assertThat(wheel.advance(START)).containsExactly("late");
+  }
+
+  @Test
+  @DisplayName("Should cascade far deadlines from overflow wheels")
+  void shouldCascadeFarDeadlinesFromOverflowWheels() {
+    HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 4, START);
+    // Lowest wheel spans 40ms; these need two and three levels
+    wheel.schedule("near", START + 25);
+    wheel.schedule("mid", START + 95);
+    wheel.schedule("far", START + 615);
+
+    assertThat(wheel.advance(START + 90)).containsExactly("near");
+    assertThat(wheel.advance(START + 600)).containsExactly("mid");
+    assertThat(wheel.advance(START + 610)).isEmpty();
+    assertThat(wheel.advance(START + 620)).containsExactly("far");
+  }
+
+  @Test
+  @DisplayName("Should never fire early and never more than one tick late")
+  void shouldNeverFireEarlyOrLate() {
+    long tick = 5;
+    HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(tick, 6, START);
+    Random random = new Random(42);
+    Map<Integer, Long> deadlines = new HashMap<>();
+    List<Integer> fired = new ArrayList<>();
+    long now = START;
+
+    for (int i = 0; i < 2000; i++) {
+      long deadline = now + random.nextInt(5000);
+      deadlines.put(i, deadline);
+      wheel.schedule(i, deadline);
+
+      now += random.nextInt(15);
+      for (Integer item : wheel.advance(now)) {
+        assertThat(deadlines.get(item)).isLessThanOrEqualTo(now);
+        fired.add(item);
+      }
+    }
+
+    fired.addAll(wheel.advance(now + 5000 + tick));
+
+    assertThat(fired).hasSize(deadlines.size()).doesNotHaveDuplicates();
+    assertThat(wheel.size()).isZero();
+  }
+
+  @Test
+  @DisplayName("Should drop scheduled items on clear")
+  void shouldDropScheduledItemsOnClear() {
+    HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 8, START);
+    wheel.schedule("a", START + 15);
+    wheel.schedule("b", START + 5000);
+
+    wheel.clear(START);
+
+    assertThat(wheel.size()).isZero();
+    assertThat(wheel.advance(START + 10_000)).isEmpty();
+  }
+}
@@ -0,0 +1,101 @@
+package com.accountselling.platform.util;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for MappedReservationLog. Tests reading records back after reopening, torn record
+ * detection, the fixed capacity and starting the log over.
+ */
+@DisplayName("MappedReservationLog Tests")
+class MappedReservationLogTest {
+
+  private static final int CAPACITY = MappedReservationLog.RECORD_SIZE * 4;
+
+  @TempDir Path directory;
+
+  @Test
+  @DisplayName("Should read appended records back after reopening")
+  void shouldReadAppendedRecordsAfterReopening() throws IOException {
+    Path path = directory.resolve("ledger.wal");
+    MappedReservationLog.Record hold = record();
+
+    try (MappedReservationLog log = MappedReservationLog.open(path, CAPACITY)) {
+      assertThat(log.append(MappedReservationLog.HOLD, List.of(hold))).isTrue();
+      assertThat(log.append(MappedReservationLog.SETTLED, List.of(hold))).isTrue();
+    }
+
+    try (MappedReservationLog log = MappedReservationLog.open(path, CAPACITY)) {
+      assertThat(log.readAll())
+          .containsExactly(
+              new MappedReservationLog.TypedRecord(MappedReservationLog.HOLD, hold),
+              new MappedReservationLog.TypedRecord(MappedReservationLog.SETTLED, hold));
+      assertThat(log.size()).isEqualTo(2);
+    }
+  }
+
+  @Test
+  @DisplayName("Should stop reading at a torn record")
+  void shouldStopReadingAtTornRecord() throws IOException {
+    Path path = directory.resolve("ledger.wal");
+    MappedReservationLog.Record first = record();
+
+    try (MappedReservationLog log = MappedReservationLog.open(path, CAPACITY)) {
+      log.append(MappedReservationLog.HOLD, List.of(first, record()));
+    }
+
+    // Corrupt one byte of the second record as if the crash hit while it was written
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[] {42}), MappedReservationLog.RECORD_SIZE + 5);
+    }
+
+    try (MappedReservationLog log = MappedReservationLog.open(path, CAPACITY)) {
+      assertThat(log.readAll())
+          .containsExactly(new MappedReservationLog.TypedRecord(MappedReservationLog.HOLD, first));
+      assertThat(log.size()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  @DisplayName("Should refuse records that do not fit")
+  void shouldRefuseRecordsThatDoNotFit() throws IOException {
+    try (MappedReservationLog log =
+        MappedReservationLog.open(directory.resolve("ledger.wal"), CAPACITY)) {
+      assertThat(log.append(MappedReservationLog.HOLD, List.of(record(), record(), record())))
+          .isTrue();
+      assertThat(log.append(MappedReservationLog.HOLD, List.of(record(), record()))).isFalse();
+      assertThat(log.remainingRecords()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  @DisplayName("Should not read old records after starting over")
+  void shouldNotReadOldRecordsAfterReset() throws IOException {
+    Path path = directory.resolve("ledger.wal");
+
+    try (MappedReservationLog log = MappedReservationLog.open(path, CAPACITY)) {
+      log.append(MappedReservationLog.HOLD, List.of(record(), record()));
+      log.reset();
+      assertThat(log.remainingRecords()).isEqualTo(4);
+    }
+
+    try (MappedReservationLog log = MappedReservationLog.open(path, CAPACITY)) {
+      assertThat(log.readAll()).isEmpty();
+    }
+  }
+
+  private static MappedReservationLog.Record record() {
+    return new MappedReservationLog.Record(
+        UUID.randomUUID(), UUID.randomUUID(), System.currentTimeMillis());
+  }
+}
@@ -0,0 +1,107 @@
+package com.accountselling.platform.util;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for SnowflakeIdGenerator. Tests the ID layout, ordering within and across
+ * milliseconds, clocks moving backwards and uniqueness under concurrent use.
+ */
+@DisplayName("SnowflakeIdGenerator Tests")
+class SnowflakeIdGeneratorTest {
+
+  private static final long NOW = SnowflakeIdGenerator.EPOCH + 1_000_000L;
+
+  @Test
+  @DisplayName("Should encode timestamp and node ID in the ID")
+  void shouldEncodeTimestampAndNodeId() {
+    SnowflakeIdGenerator generator = new SnowflakeIdGenerator(37, () -> NOW);
+
+    long id = generator.nextId();
+
+    assertThat(id).isPositive();
+    assertThat(SnowflakeIdGenerator.timestampOf(id)).isEqualTo(NOW);
+    assertThat(SnowflakeIdGenerator.nodeIdOf(id)).isEqualTo(37);
+  }
+
+  @Test
+  @DisplayName("Should keep IDs increasing past a full millisecond and a clock going back")
+  void shouldKeepIdsIncreasing() {
+    AtomicLong clock = new AtomicLong(NOW);
+    SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, clock::get);
+
+    List<Long> ids = new ArrayList<>();
+    // More IDs than one millisecond holds, so the sequence carries into the next one
+    for (int i = 0; i < 5000; i++) {
+      ids.add(generator.nextId());
+    }
+    clock.set(NOW - 10);
+    ids.add(generator.nextId());
+    clock.set(NOW + 100);
+    ids.add(generator.nextId());
+
+    assertThat(ids).isSorted().doesNotHaveDuplicates();
+    assertThat(SnowflakeIdGenerator.timestampOf(ids.get(ids.size() - 1))).isEqualTo(NOW + 100);
+  }
+
+  @Test
+  @DisplayName("Should not collide between nodes in the same millisecond")
+  void shouldNotCollideBetweenNodes() {
+    SnowflakeIdGenerator first = new SnowflakeIdGenerator(1, () -> NOW);
+    SnowflakeIdGenerator second = new SnowflakeIdGenerator(2, () -> NOW);
+
+    assertThat(first.nextId()).isNotEqualTo(second.nextId());
+  }
+
+  @Test
+  @DisplayName("Should issue unique IDs to concurrent callers")
+  void shouldIssueUniqueIdsConcurrently() throws InterruptedException {
+    SnowflakeIdGenerator generator = new SnowflakeIdGenerator(5);
+    Set<Long> ids = ConcurrentHashMap.newKeySet();
+    int threads = 8;
+    int perThread = 20_000;
+    CountDownLatch start = new CountDownLatch(1);
+
+    List<Thread> workers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      Thread worker =
+          new Thread(
+              () -> {
+                try {
+                  start.await();
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                  return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                  ids.add(generator.nextId());
+                }
+              });
+      worker.start();
+      workers.add(worker);
+    }
+    start.countDown();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+
+    assertThat(ids).hasSize(threads * perThread);
+  }
+
+  @Test
+  @DisplayName("Should reject node IDs out of range")
+  void shouldRejectNodeIdsOutOfRange() {
+    assertThatThrownBy(() -> new SnowflakeIdGenerator(-1))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,51 @@
+package com.accountselling.platform.util;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for UuidV7. Tests the version and variant bits, the timestamp and key ordering. */
+@DisplayName("UuidV7 Tests")
+class UuidV7Test {
+
+  @Test
+  @DisplayName("Should create version 7 UUIDs carrying their timestamp")
+  void shouldCreateVersion7Uuids() {
+    long now = System.currentTimeMillis();
+
+    UUID uuid = UuidV7.randomUuid(now);
+
+    assertThat(uuid.version()).isEqualTo(7);
+    assertThat(uuid.variant()).isEqualTo(2);
+    assertThat(UuidV7.timestampOf(uuid)).isEqualTo(now);
+  }
+
+  @Test
+  @DisplayName("Should sort UUIDs of later milliseconds after earlier ones")
+  void shouldSortByTime() {
+    long now = System.currentTimeMillis();
+    List<String> keys = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      keys.add(UuidV7.randomUuid(now + i).toString());
+    }
+
+    // PostgreSQL compares uuid values bytewise, which matches the order of their text form
+    assertThat(keys).isSorted().doesNotHaveDuplicates();
+  }
+
+  @Test
+  @DisplayName("Should not repeat UUIDs within one millisecond")
+  void shouldNotRepeatWithinMillisecond() {
+    long now = System.currentTimeMillis();
+    List<UUID> uuids = new ArrayList<>();
+    for (int i = 0; i < 10_000; i++) {
+      uuids.add(UuidV7.randomUuid(now));
+    }
+
+    assertThat(uuids).doesNotHaveDuplicates();
+  }
+}